@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Compares the startup cost of a test JVM with the aspect engine (which needs the AspectJ weaving
+ * agent, so every class that is loaded goes through the weaver) with the listener engine (no agent).
+ * Each fork is a fresh JVM that loads all classes of the benchmark jar through a new class loader,
+ * like a test JVM loads the classes of a large test classpath. Run it from the benchmarks directory,
+ * the weaving agent is copied to target/aspectjweaver.jar by the build.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class EngineStartupBenchmark {
+
+    @Benchmark
+    @Fork(10)
+    public int listenerEngine() throws IOException {
+        return startTestJvm();
+    }
+
+    @Benchmark
+    @Fork(value = 10, jvmArgsAppend = "-javaagent:target/aspectjweaver.jar")
+    public int aspectEngine() throws IOException {
+        return startTestJvm();
+    }
+
+    private static int startTestJvm() throws IOException {
+        SkipEngine.getSharedInstance();
+        File jar = new File( EngineStartupBenchmark.class.getProtectionDomain().getCodeSource().getLocation().getPath() );
+        int loadedClasses = 0;
+        try ( JarFile jarFile = new JarFile( jar );
+              URLClassLoader loader = new URLClassLoader( new URL[] { jar.toURI().toURL() },
+                      ClassLoader.getSystemClassLoader().getParent() ) ) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while ( entries.hasMoreElements() ) {
+                String name = entries.nextElement().getName();
+                if ( name.endsWith( ".class" ) && !name.contains( "-" ) ) {
+                    try {
+                        Class.forName( name.substring( 0, name.length() - 6 ).replace( '/', '.' ), false, loader );
+                        loadedClasses++;
+                    } catch ( ClassNotFoundException | LinkageError e ) {
+                        // optional dependencies of the classes in the jar are not there
+                    }
+                }
+            }
+        }
+        return loadedClasses;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long both goals need to read the history, in the text and in the binary format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HistoryReadBenchmark {
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    private int numberOfTests;
+
+    @Param({ AbstractSkipTestMojo.HISTORY_FORMAT_TEXT, AbstractSkipTestMojo.HISTORY_FORMAT_BINARY })
+    private String historyFormat;
+
+    private File directory;
+    private PostSkipTestMojo mojo;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory( "skiptest-benchmark" ).toFile();
+        mojo = new PostSkipTestMojo();
+        mojo.setAllTestResultsFile( new File( directory, "all-test-results.txt" ) );
+        mojo.setHistoryFormat( historyFormat );
+        mojo.writeAllResultsTo( mojo.getAllTestResultsFile(), SyntheticHistory.create( numberOfTests ) );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for ( File file : directory.listFiles() ) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public Map<String, TestRecord> readHistory() {
+        return mojo.readAllResultsFrom( mojo.getAllTestResultsFile() );
+    }
+}
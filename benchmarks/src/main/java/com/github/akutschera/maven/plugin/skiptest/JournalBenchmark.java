@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares what post-skip-test writes after a run of 100 tests: the complete history, or only the
+ * results of the run appended to the journal. The journal is emptied after every iteration, so
+ * appendToJournal does not include the compaction that happens once the journal is large enough.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JournalBenchmark {
+
+    private static final int TESTS_PER_RUN = 100;
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    private int numberOfTests;
+
+    private Map<String, TestRecord> history;
+    private Map<String, TestResult> results;
+    private File directory;
+    private File journal;
+    private PostSkipTestMojo mojo;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        history = SyntheticHistory.create( numberOfTests );
+        results = new LinkedHashMap<>();
+        for ( int i = 0; i < Math.min( TESTS_PER_RUN, numberOfTests ); i++ ) {
+            results.put( SyntheticHistory.testName( i ), new TestResult( TestResult.SUCCESSFUL, 100 ) );
+        }
+        directory = Files.createTempDirectory( "skiptest-benchmark" ).toFile();
+        File historyFile = new File( directory, "all-test-results.txt" );
+        journal = HistoryJournal.journalFor( historyFile );
+        mojo = new PostSkipTestMojo();
+        mojo.setAllTestResultsFile( historyFile );
+    }
+
+    @TearDown(Level.Iteration)
+    public void emptyJournal() throws IOException {
+        Files.deleteIfExists( journal.toPath() );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for ( File file : directory.listFiles() ) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public void rewriteHistory() throws IOException {
+        PostSkipTestMojo.mergeResults( history, results );
+        mojo.writeAllResultsTo( mojo.getAllTestResultsFile(), history );
+    }
+
+    @Benchmark
+    public void appendToJournal() throws IOException {
+        HistoryJournal.append( journal, results );
+    }
+}
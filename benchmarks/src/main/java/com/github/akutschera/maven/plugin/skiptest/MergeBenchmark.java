@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long post-skip-test needs to merge the results of a run (three quarters of all tests
+ * ran, one percent of them failed) into the history. The merge changes the history, so every
+ * invocation gets a fresh copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MergeBenchmark {
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    private int numberOfTests;
+
+    private Map<String, TestRecord> history;
+    private Map<String, TestResult> results;
+    private Map<String, TestRecord> historyToMergeInto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = SyntheticHistory.create( numberOfTests );
+        results = new LinkedHashMap<>();
+        Random random = new Random( 42 );
+        for ( int i = 0; i < numberOfTests; i++ ) {
+            if ( random.nextInt( 4 ) > 0 ) {
+                int result = random.nextInt( 100 ) == 0 ? TestResult.FAILED : TestResult.SUCCESSFUL;
+                results.put( SyntheticHistory.testName( i ), new TestResult( result, random.nextInt( 5000 ) ) );
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void copyHistory() {
+        historyToMergeInto = new HashMap<>( history.size() * 2 );
+        for ( Entry<String, TestRecord> entry : history.entrySet() ) {
+            TestRecord record = entry.getValue();
+            historyToMergeInto.put( entry.getKey(),
+                    new TestRecord( record.getSuccessfulRuns(), record.getAverageDuration() ) );
+        }
+    }
+
+    @Benchmark
+    public Map<String, TestRecord> merge() {
+        PostSkipTestMojo.mergeResults( historyToMergeInto, results );
+        return historyToMergeInto;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.github.akutschera.maven.plugin.skiptest.selection.DurationSelector;
+import com.github.akutschera.maven.plugin.skiptest.selection.StreakSelector;
+import com.github.akutschera.maven.plugin.skiptest.selection.WeightedSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long pre-skip-test needs to select the tests to skip from the history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SelectionBenchmark {
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    private int numberOfTests;
+
+    @Param({ "5", "25" })
+    private int skipPercentage;
+
+    private Map<String, TestRecord> history;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = SyntheticHistory.create( numberOfTests );
+    }
+
+    @Benchmark
+    public List<String> selectByStreak() {
+        return new StreakSelector( skipPercentage ).selectTestsToSkip( history );
+    }
+
+    @Benchmark
+    public List<String> selectByDuration() {
+        return new DurationSelector( skipPercentage, 0 ).selectTestsToSkip( history );
+    }
+
+    @Benchmark
+    public List<String> selectWeighted() {
+        return new WeightedSelector( skipPercentage, new Random( 1 ) ).selectTestsToSkip( history );
+    }
+}
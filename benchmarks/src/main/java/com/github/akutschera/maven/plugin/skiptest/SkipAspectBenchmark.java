@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.aspect.SkipAspect;
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.runtime.reflect.Factory;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the aspect adds to every single test, for a test that runs (and whose result is
+ * recorded) and for a test that is skipped. Run it with -prof gc: gc.alloc.rate.norm should be
+ * (close to) 0 bytes per operation. The join points are created once, like the static parts the
+ * weaver creates per test method. Results are recorded into /dev/null with the default
+ * configuration of each recording mode, so the benchmark needs a Unix-like system. In append mode
+ * opening the results file for every test still allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SkipAspectBenchmark {
+
+    @Param({ EngineConfiguration.RECORDING_MODE_APPEND, EngineConfiguration.RECORDING_MODE_BUFFERED })
+    public String recordingMode;
+
+    private File directory;
+    private SkipAspect aspect;
+    private ProceedingJoinPoint testToRun;
+    private ProceedingJoinPoint testToSkip;
+    private Test annotation;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory( "skiptest-benchmark" ).toFile();
+        // the test is nested in the benchmark, which does not match the default test class includes
+        Files.write( new File( directory, EngineConfiguration.FILE_NAME ).toPath(), Arrays.asList(
+                EngineConfiguration.RECORDING_MODE + "=" + recordingMode,
+                EngineConfiguration.TEST_CLASS_INCLUDES + "=**/" + SkipAspectBenchmark.class.getSimpleName() ) );
+        Files.write( new File( directory, SkipEngine.SKIP_INPUT_FILE ).toPath(),
+                Collections.singletonList( BenchmarkIT.class.getName() + ".skipped" ) );
+        Files.createSymbolicLink( new File( directory, SkipEngine.SKIPTEST_OUTPUTFILE ).toPath(), Paths.get( "/dev/null" ) );
+        aspect = new SkipAspect( SkipEngine.SKIP_INPUT_FILE, SkipEngine.SKIPTEST_OUTPUTFILE, directory );
+
+        BenchmarkIT test = new BenchmarkIT();
+        Factory factory = new Factory( "BenchmarkIT.java", BenchmarkIT.class );
+        testToRun = joinPoint( factory, "executed", test );
+        testToSkip = joinPoint( factory, "skipped", test );
+        annotation = BenchmarkIT.class.getMethod( "executed" ).getAnnotation( Test.class );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for ( File file : directory.listFiles() ) {
+            Files.delete( file.toPath() );
+        }
+        Files.delete( directory.toPath() );
+    }
+
+    @Benchmark
+    public void executedTest() throws Throwable {
+        aspect.aroundJUnitTestCaseMethods( testToRun, annotation );
+    }
+
+    @Benchmark
+    public void skippedTest() throws Throwable {
+        aspect.aroundJUnitTestCaseMethods( testToSkip, annotation );
+    }
+
+    private static ProceedingJoinPoint joinPoint( Factory factory, String method, Object test ) {
+        JoinPoint.StaticPart staticPart = factory.makeSJP( JoinPoint.METHOD_EXECUTION,
+                factory.makeMethodSig( Modifier.PUBLIC, method, BenchmarkIT.class, new Class[0], new String[0],
+                        new Class[0], void.class ), 1 );
+        return (ProceedingJoinPoint) Factory.makeJP( staticPart, test, test );
+    }
+
+    public static class BenchmarkIT {
+
+        @Test
+        public void executed() {
+        }
+
+        @Test
+        public void skipped() {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decision the test JVM makes for every single test: is it in the list of tests to
+ * skip? Either with the full name of the test, built from class and method name, or with class and
+ * method name on their own, as the aspect and the listeners ask. A quarter of all tests is skipped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SkipDecisionBenchmark {
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    private int numberOfTests;
+
+    private File directory;
+    private SkipEngine engine;
+    private String[] classNames;
+    private String[] methodNames;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory( "skiptest-benchmark" ).toFile();
+        List<String> testsToSkip = new ArrayList<>();
+        classNames = new String[numberOfTests];
+        methodNames = new String[numberOfTests];
+        for ( int i = 0; i < numberOfTests; i++ ) {
+            String testName = SyntheticHistory.testName( i );
+            int separator = testName.lastIndexOf( '.' );
+            classNames[i] = testName.substring( 0, separator );
+            methodNames[i] = testName.substring( separator + 1 );
+            if ( i % 4 == 0 ) {
+                testsToSkip.add( testName );
+            }
+        }
+        Files.write( new File( directory, SkipEngine.SKIP_INPUT_FILE ).toPath(), testsToSkip );
+        engine = new SkipEngine( SkipEngine.SKIP_INPUT_FILE, SkipEngine.SKIPTEST_OUTPUTFILE, directory );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for ( File file : directory.listFiles() ) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public boolean shouldTestBeSkipped() {
+        int test = next;
+        next = test + 1 == numberOfTests ? 0 : test + 1;
+        return engine.shouldTestBeSkipped( classNames[test] + "." + methodNames[test] );
+    }
+
+    @Benchmark
+    public boolean shouldTestBeSkippedByClassAndMethod() {
+        int test = next;
+        next = test + 1 == numberOfTests ? 0 : test + 1;
+        return engine.shouldTestBeSkipped( classNames[test], methodNames[test] );
+    }
+}
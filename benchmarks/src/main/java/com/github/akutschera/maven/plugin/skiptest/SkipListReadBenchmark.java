@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the test JVM needs to load the list of tests to skip in each of its formats.
+ * A quarter of all tests is skipped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SkipListReadBenchmark {
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    private int numberOfTests;
+
+    @Param({ SkipList.FORMAT_TEXT, SkipList.FORMAT_SORTED, SkipList.FORMAT_GZIP })
+    private String format;
+
+    private File skipFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<String> testsToSkip = new ArrayList<>();
+        for ( int i = 0; i < numberOfTests; i += 4 ) {
+            testsToSkip.add( SyntheticHistory.testName( i ) );
+        }
+        skipFile = Files.createTempFile( "skiptest-benchmark", ".txt" ).toFile();
+        try ( OutputStream out = new FileOutputStream( skipFile ) ) {
+            SkipList.write( testsToSkip, format, out );
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        skipFile.delete();
+    }
+
+    @Benchmark
+    public SkipList readSkipList() {
+        return SkipList.read( skipFile );
+    }
+}
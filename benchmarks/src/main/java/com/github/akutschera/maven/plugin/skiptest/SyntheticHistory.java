@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Creates reproducible test histories that look like the ones of a large project: many classes with
+ * a handful of test methods each and long, realistic fully qualified names.
+ */
+final class SyntheticHistory {
+
+    private static final int METHODS_PER_CLASS = 8;
+
+    private SyntheticHistory() {
+    }
+
+    static String testName( int index ) {
+        return "com.example.module" + ( index % 97 ) + ".service.SomeRatherLongServiceName"
+                + ( index / METHODS_PER_CLASS ) + "IT.shouldDoSomethingUseful" + ( index % METHODS_PER_CLASS );
+    }
+
+    static Map<String, TestRecord> create( int size ) {
+        Random random = new Random( 42 );
+        Map<String, TestRecord> history = new LinkedHashMap<>();
+        for ( int i = 0; i < size; i++ ) {
+            history.put( testName( i ), new TestRecord( random.nextInt( 200 ), random.nextInt( 5000 ) ) );
+        }
+        return history;
+    }
+}
@@ -16,20 +16,45 @@
 package com.github.akutschera.maven.plugin.skiptest;
 
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.codehaus.plexus.util.FileUtils;
+import org.apache.maven.project.MavenProject;
 
+import com.github.akutschera.maven.plugin.skiptest.history.BinaryHistoryFile;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
+
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 
 public abstract class AbstractSkipTestMojo extends AbstractMojo {
 
     protected static final String CRLF = System.getProperty( "line.separator" );
 
+    static final String HISTORY_FORMAT_TEXT = "text";
+    static final String HISTORY_FORMAT_BINARY = "binary";
+
+    static final String HISTORY_STORE_FILE = "file";
+    static final String HISTORY_STORE_DIRECTORY = "directory";
+    static final String HISTORY_STORE_HTTP = "http";
+
+    /**
+     * How often an update of a shared history is applied again when other builds updated it first.
+     */
+    static final int MAX_HISTORY_UPDATE_ATTEMPTS = 10;
+
     /**
      * This file contains all test results from all runs (including previous runs).
      * By default it is written to ${project.build.directory}/all-test-results.txt
@@ -38,33 +63,415 @@ public abstract class AbstractSkipTestMojo extends AbstractMojo {
      * will not erase.<p>
      *     <b>NB:</b> If you remove tests from your test suite, they will remain
      *     in this file until somebody removes them by hand (and until then
-     *     they will count against tests to be run or skipped).
+     *     they will count against tests to be run or skipped), unless the
+     *     pre-skip-test goal prunes them (see pruneDeletedTests).
      * </p>
      */
     @Parameter(defaultValue = "${project.build.directory}/all-test-results.txt")
     private File allTestResultsFile;
 
 
-    protected Map<String, Integer> readAllResultsFrom( File file ) {
-        Map<String, Integer> allTestResults = new HashMap<>();
-        if ( !file.exists() ) {
-            return allTestResults;
+    /**
+     * The format in which the history is written: "text" (the default, one line per test) or
+     * "binary", a compact format that is memory-mapped when it is read, which saves a lot of time
+     * and memory for very large histories. The history is always read in the format it was
+     * written in, so you can switch between the formats at any time.
+     */
+    @Parameter(property = "skiptest.historyFormat", defaultValue = HISTORY_FORMAT_TEXT)
+    private String historyFormat = HISTORY_FORMAT_TEXT;
+
+
+    /**
+     * Where the history is kept. "file" (the default) keeps it in allTestResultsFile. "directory" keeps
+     * it in the directory historyStoreLocation that several build agents can share (e.g. on a network
+     * file system); every update writes a new version of the history, and an update that another
+     * build beat is applied to that build's version, so no results are lost. "http" keeps it at the
+     * URL historyStoreLocation on a server that answers GET and PUT (like the HTTP caches of build
+     * tools) and uses the ETag of the history to detect concurrent updates in the same way;
+     * allTestResultsFile is the local copy then. The test impact data stays next to the
+     * allTestResultsFile, and the historyJournal only works with "file".
+     */
+    @Parameter(property = "skiptest.historyStore", defaultValue = HISTORY_STORE_FILE)
+    private String historyStore = HISTORY_STORE_FILE;
+
+    /**
+     * The directory or the URL of the history, see historyStore.
+     */
+    @Parameter(property = "skiptest.historyStoreLocation")
+    private String historyStoreLocation;
+
+    /**
+     * If true, the history is read only once per reactor build and every module gets the part of it
+     * that belongs to its test classes. The post-skip-test goal of every module merges its results into
+     * that history and the last module of the reactor writes it once. Use this for multi-module builds that share one
+     * allTestResultsFile, especially with parallel builds (mvn -T).
+     */
+    @Parameter(property = "skiptest.reactorHistory", defaultValue = "false")
+    private boolean reactorHistory;
+
+    /**
+     * If true, post-skip-test appends the results of the run to a journal next to the
+     * allTestResultsFile (same name with the suffix ".journal") instead of rewriting the whole
+     * history. Reading the history replays the journal; the history is written completely (and the
+     * journal is removed) only when the journal grows larger than journalCompactionThreshold.
+     * Use this for large histories where a run only executes a small part of the tests. The journal is
+     * ignored with reactorHistory, which writes the history once per build anyway.
+     */
+    @Parameter(property = "skiptest.historyJournal", defaultValue = "false")
+    private boolean historyJournal;
+
+    /**
+     * The size in kilobytes up to which the journal is kept, see historyJournal.
+     */
+    @Parameter(property = "skiptest.journalCompactionThreshold", defaultValue = "1024")
+    private long journalCompactionThreshold = 1024;
+
+    /**
+     * If true, a report of the build is written to target/skiptest-report.json and, in the text format
+     * of Prometheus, to target/skiptest-report.prom: how many tests ran, failed, were skipped or not run,
+     * how long the tests took, how long the skipped tests would have taken (estimated from their average
+     * durations in the history), the size of the history and how long the phases of pre-skip-test and
+     * post-skip-test took. Collect the reports of your builds to see what skipping saves and to tune
+     * skipPercentage. Off by default, so a build that does not look at the report does not pay for it.
+     */
+    @Parameter(property = "skiptest.report", defaultValue = "false")
+    private boolean writeReport;
+
+    /**
+     * If true, the test JVM records which classes of the production code every test executes, and
+     * tests whose classes changed since the last build (according to the hashes of the class files in
+     * target/classes) always run and are never skipped, neither are tests nothing is recorded for. The
+     * skipPercentage then only refers to the tests that are not affected by a change, so it can be set
+     * a lot higher. The classes are recorded by the aspect engine, which needs a concrete
+     * TestImpactAspect in a META-INF/aop.xml of the tests that defines what the production code is.
+     * The recorded classes and the hashes are kept next to the allTestResultsFile.
+     */
+    @Parameter(property = "skiptest.testImpact", defaultValue = "false")
+    private boolean testImpact;
+
+    /**
+     * The number of CI nodes the integration tests are split across. Every node runs pre-skip-test with
+     * the same history and its own shardIndex, and skips the tests of the other shards as well; the
+     * test classes are split so that every shard is expected to take about the same time, and the
+     * classes of the other shards are excluded like with skipWholeClasses. The
+     * post-skip-test goal of a shard does not write the history, the results of all shards are merged
+     * by a post-skip-test with shardResultsDirectory. The default value is 1 (i.e. no sharding).
+     */
+    @Parameter(property = "skiptest.shardCount", defaultValue = "1")
+    private int shardCount = 1;
+
+    /**
+     * The shard this node runs, from 0 to shardCount - 1, see shardCount.
+     */
+    @Parameter(property = "skiptest.shardIndex", defaultValue = "0")
+    private int shardIndex;
+
+    @Parameter(readonly = true, defaultValue = "${project.build.directory}/skiptest-classes.txt")
+    private File classHashesFile;
+
+    @Parameter(readonly = true, defaultValue = "${project.artifactId}")
+    private String moduleName;
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+
+
+    /**
+     * @return the history of the history store, empty if it cannot be read
+     */
+    protected Map<String, TestRecord> readHistory() {
+        HistoryStore store = createHistoryStore();
+        try {
+            return store.read();
+        } catch ( IOException e ) {
+            getLog().error( "cannot read the history from " + store.describe() + ", will treat it as non-existent", e );
+            return new HashMap<>();
         }
+    }
+
+    /**
+     * Applies the update to the latest history of the history store.
+     */
+    protected void updateHistory( HistoryStore.Update update ) {
+        HistoryStore store = createHistoryStore();
         try {
-            for ( String line : FileUtils.fileRead( file ).split( CRLF ) ) {
-                if ( line.contains( ":" ) ) {
-                    String[] split = line.split( ":" );
-                    allTestResults.put( split[0], new Integer( split[1] ) );
+            store.update( update );
+            getLog().debug( "merged test results are in " + store.describe() );
+        } catch ( IOException e ) {
+            getLog().error( "cannot write the history to " + store.describe()
+                    + ", this may lead to unexpected runs in the future", e );
+        }
+    }
+
+    HistoryStore createHistoryStore() {
+        // the journal belongs to the local history, a shared history is read and written without it
+        final boolean withJournal = !HISTORY_STORE_DIRECTORY.equals( historyStore )
+                && !HISTORY_STORE_HTTP.equals( historyStore );
+        HistoryStore.Codec codec = new HistoryStore.Codec() {
+
+            @Override
+            public Map<String, TestRecord> read( File file ) {
+                return withJournal ? readAllResultsFrom( file ) : readSnapshotFrom( file );
+            }
+
+            @Override
+            public Map<String, TestRecord> view( File file ) {
+                return viewAllResultsIn( file, withJournal );
+            }
+
+            @Override
+            public void write( File file, Map<String, TestRecord> history ) throws IOException {
+                if ( withJournal ) {
+                    writeAllResultsTo( file, history );
+                } else {
+                    writeSnapshotTo( file, history );
                 }
             }
+        };
+        if ( HISTORY_STORE_DIRECTORY.equals( historyStore ) ) {
+            return new DirectoryHistoryStore( new File( historyStoreLocation ), codec, MAX_HISTORY_UPDATE_ATTEMPTS );
+        }
+        if ( HISTORY_STORE_HTTP.equals( historyStore ) ) {
+            try {
+                return new HttpHistoryStore( new URL( historyStoreLocation ), allTestResultsFile, codec,
+                        MAX_HISTORY_UPDATE_ATTEMPTS );
+            } catch ( MalformedURLException e ) {
+                throw new IllegalArgumentException( "historyStoreLocation is not a URL: " + historyStoreLocation, e );
+            }
+        }
+        return new FileHistoryStore( allTestResultsFile, codec );
+    }
+
+    /**
+     * Reads the history and replays its journal (if there is one) over it.
+     */
+    protected Map<String, TestRecord> readAllResultsFrom( final File file ) {
+        Map<String, TestRecord> allTestResults = readSnapshotFrom( file );
+        replayJournal( HistoryJournal.journalFor( file ), allTestResults );
+        return allTestResults;
+    }
+
+    /**
+     * Maps a binary history without a journal instead of copying it, the result is read-only then.
+     */
+    private Map<String, TestRecord> viewAllResultsIn( File file, boolean withJournal ) {
+        if ( withJournal && HistoryJournal.journalFor( file ).isFile() ) {
+            return readAllResultsFrom( file );
+        }
+        if ( !BinaryHistoryFile.isBinary( file ) ) {
+            return readSnapshotFrom( file );
+        }
+        try {
+            return BinaryHistoryFile.open( file ).asMap();
         } catch ( IOException e ) {
             getLog().error(
                     "cannot read results file: " + file.getAbsolutePath()
                             + ", will treat it as non-existent", e );
+            return new HashMap<>();
         }
+    }
+
+    private Map<String, TestRecord> readSnapshotFrom( final File file ) {
+        if ( BinaryHistoryFile.isBinary( file ) ) {
+            try {
+                return BinaryHistoryFile.read( file );
+            } catch ( IOException e ) {
+                getLog().error(
+                        "cannot read results file: " + file.getAbsolutePath()
+                                + ", will treat it as non-existent", e );
+                return new HashMap<>();
+            }
+        }
+        final Map<String, TestRecord> allTestResults = new HashMap<>();
+        readLinesFrom( file, new LineHandler() {
+
+            @Override
+            public void handle( String[] fields ) {
+                allTestResults.put( fields[0], TestRecord.parse( fields ) );
+            }
+        } );
         return allTestResults;
     }
 
+    private void replayJournal( File journal, final Map<String, TestRecord> allTestResults ) {
+        readLinesFrom( journal, new LineHandler() {
+
+            @Override
+            public void handle( String[] fields ) {
+                PostSkipTestMojo.mergeResult( allTestResults, fields[0], TestResult.parse( fields ) );
+            }
+        } );
+    }
+
+    protected Map<String, TestResult> readTestResultsFrom( File file ) {
+        final Map<String, TestResult> testResults = new LinkedHashMap<>();
+        readLinesFrom( file, new LineHandler() {
+
+            @Override
+            public void handle( String[] fields ) {
+                testResults.put( fields[0], TestResult.parse( fields ) );
+            }
+        } );
+        return testResults;
+    }
+
+    /**
+     * Writes the history in the configured format, replacing the file in one atomic step. The
+     * history is complete afterwards, so its journal is removed.
+     */
+    protected void writeAllResultsTo( File file, Map<String, TestRecord> allResults ) throws IOException {
+        writeSnapshotTo( file, allResults );
+        HistoryJournal.delete( file );
+    }
+
+    private void writeSnapshotTo( File file, Map<String, TestRecord> allResults ) throws IOException {
+        try ( AtomicFileWriter writer = new AtomicFileWriter( file ) ) {
+            if ( HISTORY_FORMAT_BINARY.equals( historyFormat ) ) {
+                BinaryHistoryFile.write( allResults, writer.getOutputStream() );
+            } else {
+                for ( Entry<String, TestRecord> entry : allResults.entrySet() ) {
+                    writer.writeLine( entry.getValue().format( entry.getKey() ) );
+                }
+            }
+            writer.commit();
+        }
+    }
+
+    protected void throwExceptionIfHistoryFormatIsUnknown() throws MojoExecutionException {
+        if ( !HISTORY_FORMAT_TEXT.equals( historyFormat ) && !HISTORY_FORMAT_BINARY.equals( historyFormat ) ) {
+            throw new MojoExecutionException( "history format must be " + HISTORY_FORMAT_TEXT + " or "
+                    + HISTORY_FORMAT_BINARY );
+        }
+    }
+
+    protected void throwExceptionIfShardIsOutOfRange() throws MojoExecutionException {
+        if ( shardCount < 1 ) {
+            throw new MojoExecutionException( "shardCount must be at least 1" );
+        }
+        if ( shardIndex < 0 || shardIndex >= shardCount ) {
+            throw new MojoExecutionException( "shardIndex must be between 0 and " + ( shardCount - 1 ) );
+        }
+    }
+
+    protected boolean isSharding() {
+        return shardCount > 1;
+    }
+
+    protected void throwExceptionIfHistoryStoreIsUnknown() throws MojoExecutionException {
+        if ( HISTORY_STORE_FILE.equals( historyStore ) ) {
+            return;
+        }
+        if ( !HISTORY_STORE_DIRECTORY.equals( historyStore ) && !HISTORY_STORE_HTTP.equals( historyStore ) ) {
+            throw new MojoExecutionException( "history store must be " + HISTORY_STORE_FILE + ", "
+                    + HISTORY_STORE_DIRECTORY + " or " + HISTORY_STORE_HTTP );
+        }
+        if ( historyStoreLocation == null || historyStoreLocation.trim().isEmpty() ) {
+            throw new MojoExecutionException( "the " + historyStore + " history store needs a historyStoreLocation" );
+        }
+        if ( historyJournal ) {
+            throw new MojoExecutionException( "historyJournal only works with the " + HISTORY_STORE_FILE
+                    + " history store" );
+        }
+        if ( HISTORY_STORE_HTTP.equals( historyStore ) ) {
+            try {
+                new URL( historyStoreLocation );
+            } catch ( MalformedURLException e ) {
+                throw new MojoExecutionException( "historyStoreLocation is not a URL: " + historyStoreLocation, e );
+            }
+        }
+    }
+
+    /**
+     * @return where the classes each test of this module executed are kept between builds
+     */
+    protected File getCoverageFile() {
+        return new File( getModuleFilePrefix() + ".impact" );
+    }
+
+    /**
+     * @return where the hashes of the classes of this module are kept between builds
+     */
+    protected File getClassHashesBaseline() {
+        return new File( getModuleFilePrefix() + ".classes" );
+    }
+
+    /**
+     * @return where the names of the test classes of this module are kept between builds
+     */
+    protected File getTestClassesBaseline() {
+        return new File( getModuleFilePrefix() + ".testclasses" );
+    }
+
+    private String getModuleFilePrefix() {
+        return allTestResultsFile.getPath() + ( moduleName == null ? "" : "." + moduleName );
+    }
+
+    protected ReactorHistory getReactorHistory() {
+        return ReactorHistory.forBuild( getBuild(), allTestResultsFile.getAbsolutePath(), new ReactorHistory.Loader() {
+
+            @Override
+            public Map<String, TestRecord> load() {
+                getLog().info( "reading history of the reactor from " + createHistoryStore().describe() );
+                // the reactor merges the results of its modules into the history
+                Map<String, TestRecord> history = readHistory();
+                try {
+                    return new HashMap<>( history );
+                } finally {
+                    BinaryHistoryFile.release( history );
+                }
+            }
+        } );
+    }
+
+    private Object getBuild() {
+        if ( session == null ) {
+            // without a session (e.g. in tests) all modules share one build
+            return ReactorHistory.class;
+        }
+        // a parallel build (mvn -T) gives every module a copy of the session, but they share the request
+        return session.getRequest() != null ? session.getRequest() : session;
+    }
+
+    /**
+     * @return whether this is the last module of the reactor
+     */
+    protected boolean isLastModule() {
+        if ( session == null || session.getCurrentProject() == null || session.getProjects().isEmpty() ) {
+            return true;
+        }
+        List<MavenProject> projects = session.getProjects();
+        return projects.get( projects.size() - 1 ) == session.getCurrentProject();
+    }
+
+    private void readLinesFrom( File file, LineHandler handler ) {
+        if ( !file.exists() ) {
+            return;
+        }
+        try ( BufferedReader reader = new BufferedReader( new FileReader( file ), 64 * 1024 ) ) {
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                if ( line.contains( ":" ) ) {
+                    String[] fields = line.split( ":" );
+                    try {
+                        handler.handle( fields );
+                    } catch ( IllegalArgumentException e ) {
+                        getLog().warn( "ignoring incomplete line for " + fields[0] + " in " + file.getAbsolutePath() );
+                    }
+                }
+            }
+        } catch ( IOException e ) {
+            getLog().error(
+                    "cannot read results file: " + file.getAbsolutePath()
+                            + ", will treat it as non-existent", e );
+        }
+    }
+
+    private interface LineHandler {
+
+        void handle( String[] fields );
+    }
+
     public File getAllTestResultsFile() {
         return allTestResultsFile;
     }
@@ -72,4 +479,92 @@ public abstract class AbstractSkipTestMojo extends AbstractMojo {
     public void setAllTestResultsFile( File allTestResultsFile ) {
         this.allTestResultsFile = allTestResultsFile;
     }
+
+    public String getHistoryStore() {
+        return historyStore;
+    }
+
+    public void setHistoryStore( String historyStore ) {
+        this.historyStore = historyStore;
+    }
+
+    public String getHistoryStoreLocation() {
+        return historyStoreLocation;
+    }
+
+    public void setHistoryStoreLocation( String historyStoreLocation ) {
+        this.historyStoreLocation = historyStoreLocation;
+    }
+
+    public boolean isReactorHistory() {
+        return reactorHistory;
+    }
+
+    public void setReactorHistory( boolean reactorHistory ) {
+        this.reactorHistory = reactorHistory;
+    }
+
+    public boolean isWriteReport() {
+        return writeReport;
+    }
+
+    public void setWriteReport( boolean writeReport ) {
+        this.writeReport = writeReport;
+    }
+
+    public boolean isHistoryJournal() {
+        return historyJournal;
+    }
+
+    public void setHistoryJournal( boolean historyJournal ) {
+        this.historyJournal = historyJournal;
+    }
+
+    public long getJournalCompactionThreshold() {
+        return journalCompactionThreshold;
+    }
+
+    public void setJournalCompactionThreshold( long journalCompactionThreshold ) {
+        this.journalCompactionThreshold = journalCompactionThreshold;
+    }
+
+    public boolean isTestImpact() {
+        return testImpact;
+    }
+
+    public void setTestImpact( boolean testImpact ) {
+        this.testImpact = testImpact;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount( int shardCount ) {
+        this.shardCount = shardCount;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex( int shardIndex ) {
+        this.shardIndex = shardIndex;
+    }
+
+    public File getClassHashesFile() {
+        return classHashesFile;
+    }
+
+    public void setClassHashesFile( File classHashesFile ) {
+        this.classHashesFile = classHashesFile;
+    }
+
+    public String getHistoryFormat() {
+        return historyFormat;
+    }
+
+    public void setHistoryFormat( String historyFormat ) {
+        this.historyFormat = historyFormat;
+    }
 }
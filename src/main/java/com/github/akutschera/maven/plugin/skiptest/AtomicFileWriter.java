@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes a file in one buffered pass to a temporary file next to the target and moves it
+ * into place when {@link #commit()} is called. Readers either see the old or the new contents,
+ * never a half written file. If the writer is closed without a commit, the temporary file is
+ * removed and the target is left untouched.
+ */
+public final class AtomicFileWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File target;
+    private final File temporaryFile;
+    private final OutputStream stream;
+    private final Writer writer;
+    private boolean committed;
+
+    public AtomicFileWriter( File target ) throws IOException {
+        this.target = target.getAbsoluteFile();
+        File directory = this.target.getParentFile();
+        if ( directory != null && !directory.exists() && !directory.mkdirs() ) {
+            throw new IOException( "cannot create directory " + directory );
+        }
+        temporaryFile = File.createTempFile( "." + this.target.getName(), ".tmp", directory );
+        stream = new BufferedOutputStream( new FileOutputStream( temporaryFile ), BUFFER_SIZE );
+        writer = new OutputStreamWriter( stream );
+    }
+
+    public Writer getWriter() {
+        return writer;
+    }
+
+    /**
+     * For binary contents. Do not mix with {@link #getWriter()}.
+     */
+    public OutputStream getOutputStream() {
+        return stream;
+    }
+
+    public void writeLine( String line ) throws IOException {
+        writer.write( line );
+        writer.write( AbstractSkipTestMojo.CRLF );
+    }
+
+    /**
+     * Flushes everything that was written and replaces the target file with it.
+     */
+    public void commit() throws IOException {
+        writer.close();
+        try {
+            Files.move( temporaryFile.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING );
+        } catch ( AtomicMoveNotSupportedException e ) {
+            Files.move( temporaryFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if ( committed ) {
+            return;
+        }
+        try {
+            writer.close();
+        } finally {
+            Files.deleteIfExists( temporaryFile.toPath() );
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * SHA-1 hashes of the class files of the production code, <code>path/of/Some.class:hash</code> per
+ * line. Comparing the hashes of two builds tells which classes changed in between.
+ */
+final class ClassHashes {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ClassHashes() {
+    }
+
+    /**
+     * @return the hash of every class file below the directory, by path relative to it
+     */
+    static Map<String, String> compute( File classesDirectory ) throws IOException {
+        Map<String, String> hashes = new TreeMap<>();
+        MessageDigest digest = newDigest();
+        if ( classesDirectory != null && classesDirectory.isDirectory() ) {
+            collect( classesDirectory, "", digest, hashes );
+        }
+        return hashes;
+    }
+
+    private static void collect( File directory, String path, MessageDigest digest, Map<String, String> hashes )
+            throws IOException {
+        File[] files = directory.listFiles();
+        if ( files == null ) {
+            return;
+        }
+        for ( File file : files ) {
+            if ( file.isDirectory() ) {
+                collect( file, path + file.getName() + "/", digest, hashes );
+            } else if ( file.getName().endsWith( ".class" ) ) {
+                hashes.put( path + file.getName(), toHex( digest.digest( Files.readAllBytes( file.toPath() ) ) ) );
+            }
+        }
+    }
+
+    /**
+     * @return the names of the top level classes whose class files (or the class files of their nested
+     * classes) were added, changed or removed
+     */
+    static Set<String> changedClasses( Map<String, String> previous, Map<String, String> current ) {
+        Set<String> changed = new HashSet<>();
+        for ( Entry<String, String> entry : current.entrySet() ) {
+            if ( !entry.getValue().equals( previous.get( entry.getKey() ) ) ) {
+                changed.add( classNameOf( entry.getKey() ) );
+            }
+        }
+        for ( String path : previous.keySet() ) {
+            if ( !current.containsKey( path ) ) {
+                changed.add( classNameOf( path ) );
+            }
+        }
+        return changed;
+    }
+
+    static String classNameOf( String path ) {
+        String name = path.substring( 0, path.length() - ".class".length() ).replace( '/', '.' );
+        int nested = name.indexOf( '$' );
+        return nested > 0 ? name.substring( 0, nested ) : name;
+    }
+
+    /**
+     * @return the hashes or null if the file does not exist
+     */
+    static Map<String, String> read( File file ) throws IOException {
+        if ( !file.isFile() ) {
+            return null;
+        }
+        Map<String, String> hashes = new TreeMap<>();
+        try ( BufferedReader reader = new BufferedReader( new FileReader( file ) ) ) {
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                int separator = line.lastIndexOf( ':' );
+                if ( separator > 0 ) {
+                    hashes.put( line.substring( 0, separator ), line.substring( separator + 1 ) );
+                }
+            }
+        }
+        return hashes;
+    }
+
+    static void write( Map<String, String> hashes, File file ) throws IOException {
+        try ( AtomicFileWriter writer = new AtomicFileWriter( file ) ) {
+            for ( Entry<String, String> entry : hashes.entrySet() ) {
+                writer.writeLine( entry.getKey() + ":" + entry.getValue() );
+            }
+            writer.commit();
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance( "SHA-1" );
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( "every JVM has SHA-1", e );
+        }
+    }
+
+    private static String toHex( byte[] bytes ) {
+        char[] hex = new char[bytes.length * 2];
+        for ( int i = 0; i < bytes.length; i++ ) {
+            hex[2 * i] = HEX[( bytes[i] >> 4 ) & 0xf];
+            hex[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String( hex );
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Converts a test history between the text and the binary format. The input format is detected
+ * automatically, the output is written in the configured historyFormat. Without an outputFile the
+ * history is converted in place, e.g.
+ * <pre>
+ * mvn skiptest:convert-history -Dskiptest.historyFile=all-test-results.txt -Dskiptest.historyFormat=binary
+ * </pre>
+ *
+ * @author Andreas Kutschera
+ * @version 0.1
+ * @since 0.1
+ */
+@Mojo(name = "convert-history", requiresProject = false, threadSafe = true)
+public class ConvertHistoryMojo extends AbstractSkipTestMojo {
+
+    /**
+     * The history to convert.
+     */
+    @Parameter(property = "skiptest.historyFile", required = true)
+    private File historyFile;
+
+    /**
+     * Where the converted history is written to. Defaults to the history file itself.
+     */
+    @Parameter(property = "skiptest.outputFile")
+    private File outputFile;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        throwExceptionIfHistoryFormatIsUnknown();
+        if ( !historyFile.isFile() ) {
+            throw new MojoExecutionException( "history file " + historyFile.getAbsolutePath() + " does not exist" );
+        }
+        File target = outputFile == null ? historyFile : outputFile;
+
+        Map<String, TestRecord> history = readAllResultsFrom( historyFile );
+        if ( history.isEmpty() && historyFile.length() > 0 ) {
+            throw new MojoExecutionException( "found no tests in " + historyFile.getAbsolutePath()
+                    + ", will not overwrite anything" );
+        }
+        try {
+            writeAllResultsTo( target, history );
+        } catch ( IOException e ) {
+            throw new MojoExecutionException( "cannot write converted history to " + target.getAbsolutePath(), e );
+        }
+        getLog().info( "converted " + history.size() + " tests to " + getHistoryFormat() + " format in "
+                + target.getAbsolutePath() );
+    }
+
+    void setHistoryFile( File historyFile ) {
+        this.historyFile = historyFile;
+    }
+
+    void setOutputFile( File outputFile ) {
+        this.outputFile = outputFile;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The classes of the production code each test executed the last time it ran,
+ * <code>testName:class1,class2,...</code> per line, as written by the test JVM in testImpact mode.
+ * A test without any recorded class is treated like a test that was never recorded: its impact is
+ * unknown (most likely the production code was not woven), so it is always affected.
+ */
+final class CoverageMap {
+
+    private static final String[] NO_CLASSES = new String[0];
+
+    private final Map<String, String[]> classesByTest = new TreeMap<>();
+    // the same class names appear for many tests, they are kept only once
+    private final Map<String, String> classNames = new HashMap<>();
+
+    /**
+     * Reads the lines of the file; a test that is already known gets the classes of the file.
+     */
+    void readFrom( File file ) throws IOException {
+        if ( !file.isFile() ) {
+            return;
+        }
+        try ( BufferedReader reader = new BufferedReader( new FileReader( file ), 64 * 1024 ) ) {
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                int separator = line.indexOf( ':' );
+                if ( separator > 0 ) {
+                    classesByTest.put( line.substring( 0, separator ), parseClasses( line.substring( separator + 1 ) ) );
+                }
+            }
+        }
+    }
+
+    private String[] parseClasses( String classes ) {
+        if ( classes.trim().isEmpty() ) {
+            return NO_CLASSES;
+        }
+        String[] names = classes.split( "," );
+        for ( int i = 0; i < names.length; i++ ) {
+            String name = classNames.get( names[i] );
+            if ( name == null ) {
+                name = names[i];
+                classNames.put( name, name );
+            }
+            names[i] = name;
+        }
+        return names;
+    }
+
+    int size() {
+        return classesByTest.size();
+    }
+
+    /**
+     * @return the tests that have to run because a class they executed changed or because nothing is
+     * known about them
+     */
+    Set<String> affectedTests( Collection<String> tests, Set<String> changedClasses ) {
+        Set<String> affected = new HashSet<>();
+        for ( String test : tests ) {
+            String[] classes = classesByTest.get( test );
+            if ( classes == null || classes.length == 0 || executesAny( classes, changedClasses ) ) {
+                affected.add( test );
+            }
+        }
+        return affected;
+    }
+
+    private static boolean executesAny( String[] classes, Set<String> changedClasses ) {
+        for ( String className : classes ) {
+            if ( changedClasses.contains( className ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void writeTo( File file ) throws IOException {
+        try ( AtomicFileWriter writer = new AtomicFileWriter( file ) ) {
+            StringBuilder line = new StringBuilder();
+            for ( Entry<String, String[]> entry : classesByTest.entrySet() ) {
+                line.setLength( 0 );
+                line.append( entry.getKey() ).append( ':' );
+                for ( int i = 0; i < entry.getValue().length; i++ ) {
+                    line.append( i > 0 ? "," : "" ).append( entry.getValue()[i] );
+                }
+                writer.writeLine( line.toString() );
+            }
+            writer.commit();
+        }
+    }
+}
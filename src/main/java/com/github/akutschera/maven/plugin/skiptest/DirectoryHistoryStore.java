@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The history in a directory that several build agents share (e.g. a network file system). Every
+ * update writes a new version of the history, {@value #PREFIX}&lt;version&gt;, and never touches an
+ * existing one. A version is created with a hard link, which fails if another build created the
+ * same version first; the update is then applied to that version (optimistic concurrency), so the
+ * results of concurrent builds are all kept. The latest version and the one before it are kept,
+ * older versions are removed.
+ */
+final class DirectoryHistoryStore implements HistoryStore {
+
+    static final String PREFIX = "history.";
+
+    private final File directory;
+    private final Codec codec;
+    private final int maxAttempts;
+
+    DirectoryHistoryStore( File directory, Codec codec, int maxAttempts ) {
+        this.directory = directory;
+        this.codec = codec;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public Map<String, TestRecord> read() throws IOException {
+        for ( int attempt = 0; attempt < maxAttempts; attempt++ ) {
+            Map<String, TestRecord> history = readVersion( latestVersion(), false );
+            if ( history != null ) {
+                return history;
+            }
+        }
+        throw new IOException( "gave up reading the history in " + directory + " after " + maxAttempts
+                + " concurrent updates by other builds" );
+    }
+
+    @Override
+    public void update( Update update ) throws IOException {
+        if ( !directory.isDirectory() && !directory.mkdirs() ) {
+            throw new IOException( "cannot create directory " + directory );
+        }
+        for ( int attempt = 0; attempt < maxAttempts; attempt++ ) {
+            long version = latestVersion();
+            Map<String, TestRecord> history = readVersion( version, true );
+            if ( history == null ) {
+                continue;
+            }
+            update.applyTo( history );
+            if ( tryToCreate( version + 1, history ) ) {
+                removeVersionsBefore( version );
+                return;
+            }
+        }
+        throw new IOException( "gave up updating the history in " + directory + " after " + maxAttempts
+                + " concurrent updates by other builds" );
+    }
+
+    @Override
+    public String describe() {
+        return directory.getAbsolutePath();
+    }
+
+    /**
+     * @param modifiable false if the history is only read, a binary history is mapped then
+     * @return the history of the version or null if the version was removed before it could be read
+     */
+    private Map<String, TestRecord> readVersion( long version, boolean modifiable ) {
+        if ( version == 0 ) {
+            return new HashMap<>();
+        }
+        Map<String, TestRecord> history = modifiable ? codec.read( fileOf( version ) ) : codec.view( fileOf( version ) );
+        // a file that is removed while it is read can still be read completely
+        return fileOf( version ).isFile() || !history.isEmpty() ? history : null;
+    }
+
+    /**
+     * @return false if another build created the version first
+     */
+    private boolean tryToCreate( long version, Map<String, TestRecord> history ) throws IOException {
+        File temporaryFile = File.createTempFile( "." + PREFIX, ".tmp", directory );
+        try {
+            codec.write( temporaryFile, history );
+            Files.createLink( fileOf( version ).toPath(), temporaryFile.toPath() );
+            return true;
+        } catch ( FileAlreadyExistsException e ) {
+            return false;
+        } catch ( UnsupportedOperationException e ) {
+            throw new IOException( "the file system of " + directory + " does not support hard links", e );
+        } finally {
+            Files.deleteIfExists( temporaryFile.toPath() );
+        }
+    }
+
+    long latestVersion() {
+        long latest = 0;
+        for ( String name : versionNames() ) {
+            latest = Math.max( latest, versionOf( name ) );
+        }
+        return latest;
+    }
+
+    private void removeVersionsBefore( long version ) {
+        for ( String name : versionNames() ) {
+            if ( versionOf( name ) < version ) {
+                // a build that is still reading it keeps its copy open, another build may have removed it already
+                new File( directory, name ).delete();
+            }
+        }
+    }
+
+    private String[] versionNames() {
+        String[] names = directory.list( new FilenameFilter() {
+
+            @Override
+            public boolean accept( File dir, String name ) {
+                return versionOf( name ) > 0;
+            }
+        } );
+        return names == null ? new String[0] : names;
+    }
+
+    private static long versionOf( String name ) {
+        if ( !name.startsWith( PREFIX ) ) {
+            return 0;
+        }
+        try {
+            return Long.parseLong( name.substring( PREFIX.length() ) );
+        } catch ( NumberFormatException e ) {
+            return 0;
+        }
+    }
+
+    File fileOf( long version ) {
+        return new File( directory, PREFIX + version );
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The history in a single local file (allTestResultsFile). Builds that share the file are not
+ * coordinated, the last one to write wins.
+ */
+final class FileHistoryStore implements HistoryStore {
+
+    private final File file;
+    private final Codec codec;
+
+    FileHistoryStore( File file, Codec codec ) {
+        this.file = file;
+        this.codec = codec;
+    }
+
+    @Override
+    public Map<String, TestRecord> read() {
+        return codec.view( file );
+    }
+
+    @Override
+    public void update( Update update ) throws IOException {
+        Map<String, TestRecord> history = codec.read( file );
+        update.applyTo( history );
+        codec.write( file, history );
+    }
+
+    @Override
+    public String describe() {
+        return file.getAbsolutePath();
+    }
+}
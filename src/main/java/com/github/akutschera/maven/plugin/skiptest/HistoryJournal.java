@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The journal keeps the results of the runs since the history was last written completely, next to
+ * the history in a file with the suffix ".journal". Every run appends its results in the format of
+ * the results file plus the time of the run, <code>testName:result:duration:time</code>, so the cost of a run grows with the number
+ * of tests that ran and not with the size of the history. Reading the history replays the journal
+ * over it in order; writing the complete history (compaction) deletes the journal. Appending and
+ * compacting hold the {@link #lock(File) lock} of the journal, so no build appends to a journal that
+ * another build is about to delete.
+ */
+final class HistoryJournal {
+
+    static final String SUFFIX = ".journal";
+    static final String LOCK_SUFFIX = ".lock";
+
+    /**
+     * A file lock is held by the whole JVM, the modules of a parallel build (mvn -T) take turns here.
+     */
+    private static final ReentrantLock JVM_LOCK = new ReentrantLock();
+
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    private HistoryJournal() {
+    }
+
+    static File journalFor( File history ) {
+        return new File( history.getPath() + SUFFIX );
+    }
+
+    /**
+     * Locks the journal against all other builds until the returned lock is closed. The lock is kept
+     * in a file of its own next to the journal, because compaction deletes the journal.
+     */
+    static Lock lock( File journal ) throws IOException {
+        JVM_LOCK.lock();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open( new File( journal.getPath() + LOCK_SUFFIX ).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+            return new Lock( channel, channel.lock() );
+        } catch ( IOException | RuntimeException e ) {
+            if ( channel != null ) {
+                channel.close();
+            }
+            JVM_LOCK.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the results of one run with a single write, a build that is killed while writing
+     * leaves either all or none of its results behind.
+     */
+    static void append( File journal, Map<String, TestResult> results ) throws IOException {
+        if ( results.isEmpty() ) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        StringBuilder lines = new StringBuilder( results.size() * 64 );
+        for ( Entry<String, TestResult> entry : results.entrySet() ) {
+            TestResult result = entry.getValue();
+            lines.append( entry.getKey() ).append( ':' ).append( result.getResult() ).append( ':' )
+                    .append( result.getDuration() ).append( ':' )
+                    .append( result.getTime() == TestResult.UNKNOWN_TIME ? now : result.getTime() )
+                    .append( AbstractSkipTestMojo.CRLF );
+        }
+        ByteBuffer bytes = CHARSET.encode( lines.toString() );
+        try ( FileChannel out = FileChannel.open( journal.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND ) ) {
+            while ( bytes.hasRemaining() ) {
+                out.write( bytes );
+            }
+        }
+    }
+
+    /**
+     * @param thresholdKiloBytes the size up to which the journal is kept, 0 compacts after every run
+     */
+    static boolean needsCompaction( File journal, long thresholdKiloBytes ) {
+        return journal.length() > thresholdKiloBytes * 1024;
+    }
+
+    /**
+     * Called after the complete history has been written: the journal is part of it now. A build that
+     * is killed between the two steps replays the journal once more, which counts the successful runs
+     * of these tests twice but never turns a failure into a success.
+     */
+    static void delete( File history ) throws IOException {
+        Files.deleteIfExists( journalFor( history ).toPath() );
+    }
+
+    static final class Lock implements Closeable {
+
+        private final FileChannel channel;
+        private final FileLock fileLock;
+
+        private Lock( FileChannel channel, FileLock fileLock ) {
+            this.channel = channel;
+            this.fileLock = fileLock;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                fileLock.release();
+                channel.close();
+            } finally {
+                JVM_LOCK.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.discovery.TestClass;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestName;
+import com.github.akutschera.maven.plugin.skiptest.history.FilteredHistory;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Finds the tests in the history that no longer exist in the test classes. A test exists if its class
+ * was found and the class has a test method of that name. If the test methods of a class are unknown
+ * (because it could not be loaded), all of its tests are assumed to exist. Only the tests of the module
+ * are pruned, i.e. the tests of its test classes and of the classes it had in an earlier build; the
+ * history may be shared with other modules, whose tests are none of its business.
+ */
+final class HistoryPruner {
+
+    /**
+     * The tests of the history that pre-skip-test did not find, as results that post-skip-test merges.
+     */
+    static final String MISSING_TESTS_FILE = "skiptest-missing.txt";
+
+    private final Map<String, Set<String>> testMethodsByClass = new HashMap<>();
+    private final Set<String> formerTestClasses;
+
+    /**
+     * @param testClasses       the test classes of the module
+     * @param formerTestClasses the names of the test classes the module had in earlier builds
+     */
+    HistoryPruner( Collection<TestClass> testClasses, Collection<String> formerTestClasses ) {
+        for ( TestClass testClass : testClasses ) {
+            testMethodsByClass.put( testClass.getName(), testClass.getTestMethods() );
+        }
+        this.formerTestClasses = new HashSet<>( formerTestClasses );
+    }
+
+    boolean exists( String testName ) {
+        if ( TestName.separatorOf( testName ) < 0 ) {
+            return false;
+        }
+        String className = TestName.classNameOf( testName );
+        if ( !testMethodsByClass.containsKey( className ) ) {
+            return false;
+        }
+        Set<String> testMethods = testMethodsByClass.get( className );
+        return testMethods == null
+                || testMethods.contains( TestName.methodNameOf( TestName.withoutInvocation( testName ) ) );
+    }
+
+    /**
+     * @return true if the test belongs to the module and does not exist any more
+     */
+    boolean isDeleted( String testName ) {
+        String className = TestName.classNameOf( testName );
+        return ( testMethodsByClass.containsKey( className ) || formerTestClasses.contains( className ) )
+                && !exists( testName );
+    }
+
+    /**
+     * @return the test classes of the module and the former ones that still have tests in the history,
+     * the next build needs them to find the tests of classes that are deleted now
+     */
+    List<String> testClassesOf( Map<String, TestRecord> history ) {
+        Set<String> testClasses = new HashSet<>( testMethodsByClass.keySet() );
+        if ( !formerTestClasses.isEmpty() ) {
+            for ( String testName : history.keySet() ) {
+                String className = TestName.classNameOf( testName );
+                if ( formerTestClasses.contains( className ) ) {
+                    testClasses.add( className );
+                }
+            }
+        }
+        List<String> sortedTestClasses = new ArrayList<>( testClasses );
+        Collections.sort( sortedTestClasses );
+        return sortedTestClasses;
+    }
+
+    /**
+     * Removes all tests of the module that do not exist any more.
+     *
+     * @return the number of removed tests
+     */
+    int drop( Map<String, TestRecord> history ) {
+        int removed = 0;
+        for ( Iterator<String> names = history.keySet().iterator(); names.hasNext(); ) {
+            if ( isDeleted( names.next() ) ) {
+                names.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the tests of the history that do not exist in this build; post-skip-test counts the builds
+     * in which they were missing, a test that shows up again starts over when its result is merged
+     */
+    List<String> missingTestsOf( Map<String, TestRecord> history ) {
+        List<String> missingTests = new ArrayList<>();
+        for ( String testName : history.keySet() ) {
+            if ( isDeleted( testName ) ) {
+                missingTests.add( testName );
+            }
+        }
+        return missingTests;
+    }
+
+    /**
+     * Removes the tests that have been missing in maxMissingBuilds consecutive builds, this one included.
+     *
+     * @return the number of removed tests
+     */
+    int dropExpired( Map<String, TestRecord> history, int maxMissingBuilds ) {
+        int removed = 0;
+        for ( Iterator<Entry<String, TestRecord>> entries = history.entrySet().iterator(); entries.hasNext(); ) {
+            Entry<String, TestRecord> entry = entries.next();
+            if ( isExpired( entry.getKey(), entry.getValue(), maxMissingBuilds ) ) {
+                entries.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the tests of the history without the ones {@link #dropExpired(Map, int)} removes
+     */
+    Map<String, TestRecord> withoutExpiredTestsOf( Map<String, TestRecord> history, final int maxMissingBuilds ) {
+        return new FilteredHistory( history ) {
+
+            @Override
+            protected boolean accepts( String testName, TestRecord record ) {
+                return !isExpired( testName, record, maxMissingBuilds );
+            }
+        };
+    }
+
+    private boolean isExpired( String testName, TestRecord record, int maxMissingBuilds ) {
+        return record.getMissingBuilds() + 1 >= maxMissingBuilds && isDeleted( testName );
+    }
+
+    /**
+     * @return the tests of the history without the deleted ones, which should not count when the tests
+     * to skip are selected
+     */
+    Map<String, TestRecord> existingTestsOf( Map<String, TestRecord> history ) {
+        return new FilteredHistory( history ) {
+
+            @Override
+            protected boolean accepts( String testName, TestRecord record ) {
+                return !isDeleted( testName );
+            }
+        };
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Where the history is kept between builds. A store that is shared by several builds never
+ * overwrites the results of another build: an update is a change that is applied to the latest
+ * history, and if another build stored a new history in the meantime, the change is applied to
+ * that one again.
+ */
+interface HistoryStore {
+
+    /**
+     * @return the latest history, empty if there is none yet. It may be read-only, copy it to change it.
+     */
+    Map<String, TestRecord> read() throws IOException;
+
+    /**
+     * Applies the update to the latest history and stores the result.
+     */
+    void update( Update update ) throws IOException;
+
+    /**
+     * @return where the history is kept, for messages
+     */
+    String describe();
+
+    /**
+     * A change of the history, e.g. the results of a run. It may be applied more than once, always
+     * to a freshly read history.
+     */
+    interface Update {
+
+        void applyTo( Map<String, TestRecord> history );
+    }
+
+    /**
+     * Reads and writes history files in the format of the build.
+     */
+    interface Codec {
+
+        /**
+         * @return the history in the file, empty if the file does not exist
+         */
+        Map<String, TestRecord> read( File file );
+
+        /**
+         * @return the history in the file for reading only, a binary history is mapped instead of copied
+         */
+        Map<String, TestRecord> view( File file );
+
+        /**
+         * Replaces the file with the history in one atomic step.
+         */
+        void write( File file, Map<String, TestRecord> history ) throws IOException;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The history on an HTTP server that answers GET and PUT for the URL, like the HTTP caches of build
+ * tools. The history is downloaded to a local copy (allTestResultsFile) and read from there. An
+ * update is uploaded only if the history on the server is still the one the update was applied to:
+ * the PUT carries the ETag of the download in an If-Match header (If-None-Match: * if there was no
+ * history yet). If the server answers 412 Precondition Failed, another build was faster, and the
+ * update is applied to the history the server has now. A server that sends no ETag cannot detect
+ * concurrent updates, the last one wins. User info in the URL is sent as basic authentication.
+ */
+final class HttpHistoryStore implements HistoryStore {
+
+    private static final int TIMEOUT_MILLIS = 30000;
+
+    private final URL url;
+    private final File localCopy;
+    private final Codec codec;
+    private final int maxAttempts;
+
+    HttpHistoryStore( URL url, File localCopy, Codec codec, int maxAttempts ) {
+        this.url = url;
+        this.localCopy = localCopy;
+        this.codec = codec;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public Map<String, TestRecord> read() throws IOException {
+        return download() == null ? new HashMap<String, TestRecord>() : codec.view( localCopy );
+    }
+
+    @Override
+    public void update( Update update ) throws IOException {
+        for ( int attempt = 0; attempt < maxAttempts; attempt++ ) {
+            String etag = download();
+            Map<String, TestRecord> history = etag == null ? new HashMap<String, TestRecord>() : codec.read( localCopy );
+            update.applyTo( history );
+            codec.write( localCopy, history );
+            if ( upload( etag ) ) {
+                return;
+            }
+        }
+        throw new IOException( "gave up updating the history at " + describe() + " after " + maxAttempts
+                + " concurrent updates by other builds" );
+    }
+
+    @Override
+    public String describe() {
+        return url.getProtocol() + "://" + url.getHost() + ( url.getPort() < 0 ? "" : ":" + url.getPort() )
+                + url.getPath();
+    }
+
+    /**
+     * @return the ETag of the history (an empty string if the server sends none) or null if there is
+     * no history on the server yet
+     */
+    private String download() throws IOException {
+        HttpURLConnection connection = open( "GET" );
+        try {
+            int status = connection.getResponseCode();
+            if ( status == HttpURLConnection.HTTP_NOT_FOUND ) {
+                return null;
+            }
+            if ( status != HttpURLConnection.HTTP_OK ) {
+                throw new IOException( "GET " + describe() + " answered " + status );
+            }
+            File temporaryFile = File.createTempFile( "." + localCopy.getName(), ".tmp",
+                    localCopy.getAbsoluteFile().getParentFile() );
+            try ( InputStream in = connection.getInputStream() ) {
+                Files.copy( in, temporaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+                Files.move( temporaryFile.toPath(), localCopy.toPath(), StandardCopyOption.REPLACE_EXISTING );
+            } finally {
+                Files.deleteIfExists( temporaryFile.toPath() );
+            }
+            String etag = connection.getHeaderField( "ETag" );
+            return etag == null ? "" : etag;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * @return false if the history on the server changed since it was downloaded
+     */
+    private boolean upload( String etag ) throws IOException {
+        HttpURLConnection connection = open( "PUT" );
+        try {
+            connection.setDoOutput( true );
+            connection.setFixedLengthStreamingMode( localCopy.length() );
+            connection.setRequestProperty( "Content-Type", "application/octet-stream" );
+            if ( etag == null ) {
+                connection.setRequestProperty( "If-None-Match", "*" );
+            } else if ( !etag.isEmpty() ) {
+                connection.setRequestProperty( "If-Match", etag );
+            }
+            try ( OutputStream out = connection.getOutputStream() ) {
+                Files.copy( localCopy.toPath(), out );
+            }
+            int status = connection.getResponseCode();
+            if ( status == HttpURLConnection.HTTP_PRECON_FAILED ) {
+                return false;
+            }
+            if ( status / 100 != 2 ) {
+                throw new IOException( "PUT " + describe() + " answered " + status );
+            }
+            return true;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open( String method ) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod( method );
+        connection.setConnectTimeout( TIMEOUT_MILLIS );
+        connection.setReadTimeout( TIMEOUT_MILLIS );
+        connection.setUseCaches( false );
+        if ( url.getUserInfo() != null ) {
+            connection.setRequestProperty( "Authorization", "Basic " + Base64.getEncoder().encodeToString(
+                    url.getUserInfo().getBytes( Charset.forName( "UTF-8" ) ) ) );
+        }
+        return connection;
+    }
+}
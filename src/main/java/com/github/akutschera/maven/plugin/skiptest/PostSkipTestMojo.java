@@ -21,17 +21,28 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.codehaus.plexus.util.FileUtils;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.ResultSegments;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipList;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 
 /**
  * Gather test results and merge them with the test results from previous runs. All test results
- * are written to the testReportsFile. This goal "merges" the test results file with the results
+ * are written to the testReportsFile (or to one segment of it per test JVM). This goal "merges" the test results file with the results
  * from previous runs. If a test was successful, its number of successful consecutive runs is
  * incremented by one, otherwise it is reset to 0, thus ensuring that this test will be executed
  * next time (unless you skip all tests).
@@ -49,66 +60,320 @@ public class PostSkipTestMojo extends AbstractSkipTestMojo {
     @Parameter(readonly = true, defaultValue = "${project.build.directory}/skiptest.results")
     private File testReportsFile;
 
+    /**
+     * A directory with the results of all shards of a build (see shardCount): the contents of the
+     * target directories of the shards, or at least their skiptest.results* and skip.txt files (and
+     * skiptest.impact* with testImpact), each shard in a directory of its own. If it is set, the
+     * results found in it are merged into the history instead of the results of this build.
+     */
+    @Parameter(property = "skiptest.shardResultsDirectory")
+    private File shardResultsDirectory;
+
+    private RunReport runReport;
 
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        Map<String, Integer> allResults = readAllResultsFrom( getAllTestResultsFile() );
+        throwExceptionIfHistoryFormatIsUnknown();
+        throwExceptionIfShardIsOutOfRange();
+        throwExceptionIfHistoryStoreIsUnknown();
+        if ( isSharding() && shardResultsDirectory == null ) {
+            getLog().info( "this is shard " + getShardIndex() + " of " + getShardCount()
+                    + ", its results are merged into the history with shardResultsDirectory" );
+            return;
+        }
+        long start = System.nanoTime();
+        runReport = new RunReport();
+        final Map<String, TestResult> resultsFromThisRun = readResultsOfAllForks();
+        runReport.addResults( resultsFromThisRun );
+        runReport.phaseFinished( "post-skip-test.readResults", start );
+        long phaseStart = System.nanoTime();
+        if ( isReactorHistory() ) {
+            if ( isHistoryJournal() ) {
+                getLog().warn( "historyJournal is ignored with reactorHistory, the last module of the reactor"
+                        + " writes the complete history" );
+            }
+            mergeIntoReactorHistory( resultsFromThisRun );
+        } else if ( isHistoryJournal() ) {
+            appendToJournal( resultsFromThisRun );
+        } else {
+            updateHistory( new HistoryStore.Update() {
 
+                @Override
+                public void applyTo( Map<String, TestRecord> allResults ) {
+                    getLog().debug(
+                            "will merge " + resultsFromThisRun.size() + " with all " + allResults.size() + " tests" );
+                    mergeResults( allResults, resultsFromThisRun );
+                    runReport.setHistorySize( allResults.size() );
+                }
+            } );
+        }
+        runReport.phaseFinished( "post-skip-test.updateHistory", phaseStart );
+        if ( isTestImpact() ) {
+            phaseStart = System.nanoTime();
+            updateTestImpact();
+            runReport.phaseFinished( "post-skip-test.testImpact", phaseStart );
+        }
+        runReport.phaseFinished( "post-skip-test", start );
+        if ( isWriteReport() ) {
+            writeReport();
+        }
+    }
 
-        Map<String, Integer> resultsFromThisRun = readAllResultsFrom( testReportsFile );
-        getLog().debug(
-                "will merge " + resultsFromThisRun.size() + " with all " + allResults.size() + " tests" );
+    /**
+     * Completes the report with the part pre-skip-test stored and writes it next to the results.
+     */
+    private void writeReport() {
+        File directory = testReportsFile.getParentFile();
+        try {
+            runReport.load( findPreReportFile() );
+            runReport.writeJson( new File( directory, RunReport.JSON_FILE ) );
+            runReport.writePrometheus( new File( directory, RunReport.PROMETHEUS_FILE ) );
+        } catch ( IOException e ) {
+            getLog().error( "cannot write the report of this build to " + directory.getAbsolutePath(), e );
+            return;
+        }
+        getLog().info( runReport.getTestsRun() + " tests ran, " + runReport.getTestsFailed() + " failed, "
+                + runReport.getTestsSkipped() + " were skipped, saving an estimated "
+                + TimeUnit.MILLISECONDS.toSeconds( runReport.getEstimatedTimeSaved() ) + " seconds" );
+    }
 
-        for ( Entry<String, Integer> entry : resultsFromThisRun.entrySet() ) {
-            mergeTestResultWithAllResults( allResults, entry );
+    /**
+     * @return the report pre-skip-test stored for this build; all shards select the tests to skip
+     * from the same history, so the report of any of them will do
+     */
+    private File findPreReportFile() {
+        if ( shardResultsDirectory != null ) {
+            for ( File file : ResultSegments.findBelow( shardResultsDirectory, RunReport.PRE_REPORT_FILE ) ) {
+                if ( file.getName().equals( RunReport.PRE_REPORT_FILE ) ) {
+                    return file;
+                }
+            }
         }
+        return new File( testReportsFile.getParentFile(), RunReport.PRE_REPORT_FILE );
+    }
 
-        writeToOutputfile( allResults );
+    /**
+     * Keeps the classes the tests of this run executed and makes the class hashes of this build the
+     * ones the next build compares with.
+     */
+    private void updateTestImpact() {
+        CoverageMap coverage = new CoverageMap();
+        try {
+            coverage.readFrom( getCoverageFile() );
+            for ( File file : findResultFiles( SkipEngine.TEST_IMPACT_FILE ) ) {
+                coverage.readFrom( file );
+            }
+            coverage.writeTo( getCoverageFile() );
+            Map<String, String> classHashes = ClassHashes.read( findClassHashesFile() );
+            if ( classHashes != null ) {
+                ClassHashes.write( classHashes, getClassHashesBaseline() );
+            }
+        } catch ( IOException e ) {
+            getLog().error( "cannot update the test impact data next to " + getAllTestResultsFile().getAbsolutePath()
+                    + ", affected tests may run once more", e );
+        }
+    }
 
+    /**
+     * @return the class hashes pre-skip-test wrote for this build; all shards build the same classes, so
+     * the hashes of any of them will do
+     */
+    private File findClassHashesFile() {
+        if ( shardResultsDirectory != null ) {
+            for ( File file : ResultSegments.findBelow( shardResultsDirectory, getClassHashesFile().getName() ) ) {
+                if ( file.getName().equals( getClassHashesFile().getName() ) ) {
+                    return file;
+                }
+            }
+        }
+        return getClassHashesFile();
     }
 
-    private void writeToOutputfile( Map<String, Integer> allResults ) {
-        FileUtils.fileDelete( getAllTestResultsFile().getAbsolutePath() );
-        try {
-            for ( String testName : allResults.keySet() ) {
-                FileUtils.fileAppend( getAllTestResultsFile().getAbsolutePath(),
-                        testName + ":" + allResults.get( testName ) + CRLF );
+    /**
+     * @return the tests pre-skip-test did not find; all shards scan the same test classes, so the list of
+     * any of them will do
+     */
+    private File findMissingTestsFile() {
+        if ( shardResultsDirectory != null ) {
+            for ( File file : ResultSegments.findBelow( shardResultsDirectory, HistoryPruner.MISSING_TESTS_FILE ) ) {
+                if ( file.getName().equals( HistoryPruner.MISSING_TESTS_FILE ) ) {
+                    return file;
+                }
+            }
+        }
+        return new File( testReportsFile.getParentFile(), HistoryPruner.MISSING_TESTS_FILE );
+    }
+
+    /**
+     * Merges the results into the history of the reactor for the modules that follow. The history store
+     * is only written by the last module of the reactor, with the results of all modules at once.
+     */
+    private void mergeIntoReactorHistory( Map<String, TestResult> resultsFromThisRun ) {
+        ReactorHistory history = getReactorHistory();
+        getLog().debug( "will merge " + resultsFromThisRun.size() + " tests into the history of the reactor" );
+        history.merge( resultsFromThisRun );
+        history.moduleDone( isLastModule(), new ReactorHistory.Saver() {
+
+            @Override
+            public void save( final List<Map<String, TestResult>> moduleResults ) {
+                getLog().info( "storing the results of " + moduleResults.size() + " modules of the reactor" );
+                updateHistory( new HistoryStore.Update() {
+
+                    @Override
+                    public void applyTo( Map<String, TestRecord> allResults ) {
+                        for ( Map<String, TestResult> results : moduleResults ) {
+                            mergeResults( allResults, results );
+                        }
+                        runReport.setHistorySize( allResults.size() );
+                    }
+                } );
+            }
+        } );
+    }
+
+    /**
+     * Appends the results of this run to the journal of the history and writes the complete history
+     * only when the journal has grown beyond the threshold.
+     */
+    private void appendToJournal( Map<String, TestResult> resultsFromThisRun ) {
+        File journal = HistoryJournal.journalFor( getAllTestResultsFile() );
+        // other builds must not append while the journal is compacted and deleted
+        try ( HistoryJournal.Lock lock = HistoryJournal.lock( journal ) ) {
+            HistoryJournal.append( journal, resultsFromThisRun );
+            getLog().debug( "appended " + resultsFromThisRun.size() + " tests to " + journal.getAbsolutePath() );
+            if ( HistoryJournal.needsCompaction( journal, getJournalCompactionThreshold() ) ) {
+                getLog().info( "compacting journal " + journal.getAbsolutePath() + " into "
+                        + getAllTestResultsFile().getAbsolutePath() );
+                // reading the history replays the journal, writing it removes the journal
+                updateHistory( new HistoryStore.Update() {
+
+                    @Override
+                    public void applyTo( Map<String, TestRecord> allResults ) {
+                    }
+                } );
             }
-            getLog().debug(
-                    "merged test results are in " + getAllTestResultsFile().getAbsolutePath() );
         } catch ( IOException e ) {
-            getLog().error(
-                    "cannot write results file: "
-                            + getAllTestResultsFile().getAbsolutePath()
-                            + ", this may lead to unexpected runs in the future",
-                    e );
+            getLog().error( "cannot append to journal: " + journal.getAbsolutePath()
+                    + ", this may lead to unexpected runs in the future", e );
         }
     }
 
-    private void mergeTestResultWithAllResults( Map<String, Integer> allResults,
-                                                Entry<String, Integer> oneTest ) {
-        Integer previousSuccesses = getPreviousNumberOfSuccessfulTestRuns(
-                allResults, oneTest.getKey() );
-        if ( wasSucessful( oneTest ) ) {
-            allResults.put( oneTest.getKey(), previousSuccesses + 1 );
-        } else {
-            allResults.remove( oneTest.getKey() );
+    static void mergeResults( Map<String, TestRecord> allResults, Map<String, TestResult> results ) {
+        for ( Entry<String, TestResult> entry : results.entrySet() ) {
+            mergeResult( allResults, entry.getKey(), entry.getValue() );
         }
     }
 
-    private boolean wasSucessful( Entry<String, Integer> oneTest ) {
-        return oneTest.getValue() == 1;
+    /**
+     * Merges the results file and the segments written by the single test JVMs. A test that failed
+     * in any of them counts as failed. The tests of the skip list that did not run count as skipped,
+     * the tests pre-skip-test did not find in the test classes count as missing.
+     * Tests that were not run because the early-fail budget was used up are left out, so their
+     * history stays as it is.
+     * With shardResultsDirectory, the results and skip lists of all shards are merged; a test that
+     * ran on one shard was skipped by the others, so it does not count as skipped.
+     */
+    private Map<String, TestResult> readResultsOfAllForks() {
+        Map<String, TestResult> results = new LinkedHashMap<>();
+        Set<String> notRun = new HashSet<>();
+        int unfinished = 0;
+        for ( File file : findResultFiles( testReportsFile.getName() ) ) {
+            for ( Entry<String, TestResult> entry : readTestResultsFrom( file ).entrySet() ) {
+                TestResult result = entry.getValue();
+                if ( result.isNotRun() ) {
+                    notRun.add( entry.getKey() );
+                    continue;
+                }
+                if ( result.isStarted() ) {
+                    // the test JVM was killed before the result of this test was written
+                    result = new TestResult( TestResult.FAILED, TestRecord.UNKNOWN_DURATION );
+                    unfinished++;
+                }
+                TestResult previous = results.get( entry.getKey() );
+                if ( previous == null || previous.isSuccessful() ) {
+                    results.put( entry.getKey(), result );
+                }
+            }
+        }
+        if ( unfinished > 0 ) {
+            getLog().warn( unfinished + " tests started but have no result, their test JVM was probably killed;"
+                    + " they count as failed" );
+        }
+        notRun.removeAll( results.keySet() );
+        runReport.addTestsNotRun( notRun.size() );
+        if ( !notRun.isEmpty() ) {
+            getLog().info( notRun.size() + " tests did not run (the early-fail budget was used up or an assumption"
+                    + " failed)" );
+        }
+        List<File> skipLists = shardResultsDirectory != null
+                ? ResultSegments.findBelow( shardResultsDirectory, SkipEngine.SKIP_INPUT_FILE )
+                : Collections.singletonList( new File( testReportsFile.getParentFile(), SkipEngine.SKIP_INPUT_FILE ) );
+        for ( File skipList : skipLists ) {
+            try {
+                for ( String skippedTest : SkipList.readTestNames( skipList ) ) {
+                    if ( !results.containsKey( skippedTest ) ) {
+                        results.put( skippedTest, new TestResult( TestResult.SKIPPED, TestRecord.UNKNOWN_DURATION ) );
+                    }
+                }
+            } catch ( IOException e ) {
+                getLog().warn( "cannot read " + skipList.getAbsolutePath() + ", skipped tests are not counted", e );
+            }
+        }
+        for ( Entry<String, TestResult> missing : readTestResultsFrom( findMissingTestsFile() ).entrySet() ) {
+            if ( !results.containsKey( missing.getKey() ) ) {
+                results.put( missing.getKey(), missing.getValue() );
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return the files the test JVMs of this build, or of all shards, wrote with the given name
+     */
+    private List<File> findResultFiles( String fileName ) {
+        if ( shardResultsDirectory != null ) {
+            return ResultSegments.findBelow( shardResultsDirectory, fileName );
+        }
+        return ResultSegments.find( new File( testReportsFile.getParentFile(), fileName ) );
     }
 
-    private Integer getPreviousNumberOfSuccessfulTestRuns(
-            Map<String, Integer> allResults, String testName ) {
-        Integer previousSuccesses;
-        if ( allResults.containsKey( testName ) ) {
-            previousSuccesses = allResults.get( testName );
+    static void mergeResult( Map<String, TestRecord> allResults, String testName, TestResult result ) {
+        if ( result.isNotRun() ) {
+            return;
+        }
+        if ( result.isMissing() ) {
+            TestRecord record = allResults.get( testName );
+            if ( record != null ) {
+                record.setMissingBuilds( record.getMissingBuilds() + 1 );
+            }
+        } else if ( result.isSkipped() ) {
+            TestRecord record = allResults.get( testName );
+            if ( record != null ) {
+                record.setSkippedBuilds( record.getSkippedBuilds() + 1 );
+                record.setMissingBuilds( 0 );
+            }
         } else {
-            previousSuccesses = 0;
+            TestRecord previousRecord = getPreviousRecord( allResults, testName );
+            previousRecord.addRun( result.isSuccessful(), result.getTime() == TestResult.UNKNOWN_TIME
+                    ? System.currentTimeMillis() : result.getTime() );
+            if ( result.isSuccessful() ) {
+                previousRecord.addDuration( result.getDuration() );
+            }
+            previousRecord.setMissingBuilds( 0 );
         }
-        return previousSuccesses;
+    }
+
+    private static TestRecord getPreviousRecord( Map<String, TestRecord> allResults, String testName ) {
+        TestRecord previousRecord = allResults.get( testName );
+        if ( previousRecord == null ) {
+            previousRecord = new TestRecord( 0 );
+            allResults.put( testName, previousRecord );
+        }
+        return previousRecord;
+    }
+
+    final void setShardResultsDirectory( File shardResultsDirectory ) {
+        this.shardResultsDirectory = shardResultsDirectory;
     }
 
     // I use aspects, but I do not like reflection, so I write a setter that I can use in tests, hm...
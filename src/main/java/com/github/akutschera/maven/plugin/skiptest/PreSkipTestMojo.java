@@ -17,13 +17,20 @@ package com.github.akutschera.maven.plugin.skiptest;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.BuildPluginManager;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -34,12 +41,33 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
-import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.StringUtils;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.ResultSegments;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipList;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestClassPatterns;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestName;
+import com.github.akutschera.maven.plugin.skiptest.discovery.TestClass;
+import com.github.akutschera.maven.plugin.skiptest.discovery.TestClassScanner;
+import com.github.akutschera.maven.plugin.skiptest.history.BinaryHistoryFile;
+import com.github.akutschera.maven.plugin.skiptest.history.FilteredHistory;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
+import com.github.akutschera.maven.plugin.skiptest.selection.DurationSelector;
+import com.github.akutschera.maven.plugin.skiptest.selection.FailFastOrder;
+import com.github.akutschera.maven.plugin.skiptest.selection.ShardPartition;
+import com.github.akutschera.maven.plugin.skiptest.selection.StalenessLimit;
+import com.github.akutschera.maven.plugin.skiptest.selection.StreakSelector;
+import com.github.akutschera.maven.plugin.skiptest.selection.TestSelector;
+import com.github.akutschera.maven.plugin.skiptest.selection.WeightedSelector;
 
 /**
- * Skips tests when necessary. All tests for this project are ordered by the number of times they have
- * successfully been executed. A new test or a test that failed during the last run is automatically
- * given a successful run number of 0.
+ * Skips tests when necessary. All tests for this project are ordered by the estimated probability
+ * that they fail, computed from the number of times they have successfully been executed in a row and
+ * their decayed pass rate. A new test or a test that failed during the last run is automatically
+ * given a successful run number of 0 and is never skipped.
  *
  * @author Andreas Kutschera
  * @version 0.1
@@ -49,10 +77,27 @@ import org.codehaus.plexus.util.FileUtils;
 , requiresDependencyResolution = ResolutionScope.TEST )
 public class PreSkipTestMojo extends AbstractSkipTestMojo {
 
-    @Component
+    static final String SKIP_STRATEGY_COUNT = "count";
+    static final String SKIP_STRATEGY_TIME = "time";
+    static final String SKIP_STRATEGY_WEIGHTED = "weighted";
+    static final String PRUNE_NONE = "none";
+    static final String PRUNE_DROP = "drop";
+    static final String PRUNE_AGE = "age";
+    static final String RUN_ORDER_PROPERTY = "skiptest.runOrder";
+    static final String NOTHING_TO_RUN_FIRST = "skiptest/NothingToRunFirst.java";
+    static final String FAILSAFE_EXCLUDES_FILE_PROPERTY = "failsafe.excludesFile";
+    static final String SUREFIRE_EXCLUDES_FILE_PROPERTY = "surefire.excludesFile";
+    static final String TEST_PLUGIN_FAILSAFE = "failsafe";
+    static final String TEST_PLUGIN_SUREFIRE = "surefire";
+    /**
+     * Failsafe (and surefire) drops its default exclude (nested classes) when an excludes file is given.
+     */
+    static final String DEFAULT_EXCLUDE = "**/*$*";
+
+    @Parameter( defaultValue = "${project}", readonly = true )
     private MavenProject mavenProject;
 
-    @Component
+    @Parameter( defaultValue = "${session}", readonly = true )
     private MavenSession mavenSession;
 
     @Component
@@ -65,6 +110,14 @@ public class PreSkipTestMojo extends AbstractSkipTestMojo {
     @Parameter(readonly = true, defaultValue = "${project.build.directory}/skiptest.results")
     private File skiptestsResultsFile;
 
+    /**
+     * The format of the list of tests to skip that is handed to the test JVM: "text" (the default,
+     * one test per line), "sorted" (sorted by name, which the test JVM loads into a sorted array
+     * instead of a hash set) or "gzip" (sorted and compressed, for very long lists).
+     */
+    @Parameter( defaultValue = SkipList.FORMAT_TEXT )
+    private String skipListFormat = SkipList.FORMAT_TEXT;
+
     /** Defines the percentage of tests to skip. Must be a value between 0 and 100. 0 or 100 are
      * permitted, even though you can achieve the same results by other - cheaper - means.
      * The top &lt;skip.percentage&gt; tests are not executed. The default value is 0 (i.e. no tests
@@ -74,60 +127,694 @@ public class PreSkipTestMojo extends AbstractSkipTestMojo {
     @Parameter( defaultValue = "0" )
     private int skipPercentage;
 
+    /**
+     * Defines how the test JVM records test results. "append" (the default) opens the results
+     * file for every single test. "buffered" keeps the file open and holds results back until the
+     * next test starts: then they are written in a single append together with a start marker for
+     * that test, which is considerably faster for many short tests. Buffered results are also
+     * written at least once a second, whenever recordingBatchSize results are waiting and when the
+     * test JVM shuts down. If a test JVM is killed, the tests whose result is not on disk yet still
+     * have their start marker and count as failed, so they are not skipped in the next build.
+     */
+    @Parameter( defaultValue = EngineConfiguration.RECORDING_MODE_APPEND )
+    private String recordingMode = EngineConfiguration.RECORDING_MODE_APPEND;
+
+    /**
+     * Number of test results that are collected at most before they are written to the results
+     * file when recordingMode is "buffered"; the start of the next test writes them earlier, so this
+     * only matters for results that are recorded without a test starting, e.g. the tests that are not
+     * run once the early-fail budget is used up.
+     */
+    @Parameter( defaultValue = "100" )
+    private int recordingBatchSize = 100;
+
+    /**
+     * If true (the default), every test JVM writes its results to a file of its own
+     * (target/skiptest.results.&lt;pid&gt;), so failsafe forks that run in parallel (forkCount &gt; 1) never
+     * write to the same file. The post-skip-test goal merges all of them.
+     */
+    @Parameter( defaultValue = "true" )
+    private boolean recordingSegments = true;
+
+    /**
+     * Defines what skipPercentage refers to. "count" (the default) skips the given percentage of
+     * all tests, starting with the tests that are least likely to fail (the tests with the most
+     * consecutive successful runs, unless they failed now and then before). "time" skips
+     * tests until the given percentage of the total test time is saved, preferring stable tests
+     * that take long. The time strategy uses the durations recorded in previous runs. "weighted" skips
+     * the given percentage of all tests, drawn at random, where long success streaks and long durations
+     * make a test more likely to be skipped and every build it has been skipped in a row less likely,
+     * so no stable test is skipped for good.
+     */
+    @Parameter( defaultValue = SKIP_STRATEGY_COUNT )
+    private String skipStrategy = SKIP_STRATEGY_COUNT;
+
+    /**
+     * The time in minutes the integration tests are allowed to take. If the tests are expected to
+     * take longer (according to the durations recorded in previous runs), more stable tests are
+     * skipped until the remaining tests fit into this budget. Setting a budget implies the "time"
+     * skip strategy. The default value is 0 (i.e. no budget).
+     */
+    @Parameter( defaultValue = "0" )
+    private int maxIntegrationTestMinutes;
+
+    /**
+     * A test that has been skipped in this many consecutive builds runs in the next build, whatever the
+     * skip strategy. The default value is 0 (i.e. no limit).
+     */
+    @Parameter( property = "skiptest.maxSkippedBuilds", defaultValue = "0" )
+    private int maxSkippedBuilds;
+
+    /**
+     * A test that last ran this many days ago runs in the next build, whatever the skip strategy. The
+     * default value is 0 (i.e. no limit).
+     */
+    @Parameter( property = "skiptest.maxSkippedDays", defaultValue = "0" )
+    private int maxSkippedDays;
+
+    /**
+     * The seed of the random numbers the "weighted" skip strategy draws, to repeat the selection of
+     * a build. By default every build draws different numbers.
+     */
+    @Parameter( property = "skiptest.skipSeed" )
+    private Long skipSeed;
+
+    /**
+     * If true, the test classes are ordered so that the tests most likely to fail run first: classes
+     * with new tests, then classes with tests that failed last time, then all others by the shortest
+     * success streak of their tests. The order is written to target/skiptest-run-order.txt and to the
+     * project property skiptest.runOrder (a comma separated list of class names). The classes that
+     * should run first are also written as failsafe include patterns to target/skiptest-run-first.txt.
+     * Use that file as includesFile of a first failsafe execution (together with
+     * skipAfterFailureCount) and as excludesFile of the regular execution, and a broken build fails
+     * after the risky tests instead of after the whole suite.
+     */
+    @Parameter( defaultValue = "false" )
+    private boolean failFastOrder;
+
+    @Parameter(readonly = true, defaultValue = "${project.build.testOutputDirectory}")
+    private File testClassesDirectory;
+
+    @Parameter(readonly = true, defaultValue = "${project.build.outputDirectory}")
+    private File classesDirectory;
+
+    @Parameter(readonly = true, defaultValue = "${project.build.directory}/skiptest-run-order.txt")
+    private File runOrderFile;
+
+    @Parameter(readonly = true, defaultValue = "${project.build.directory}/skiptest-run-first.txt")
+    private File runFirstFile;
+
+    /**
+     * If true, test classes whose test methods are all skipped are not run at all, so their setup
+     * and teardown (e.g. in methods annotated with @BeforeClass) is skipped, too. The classes are
+     * written as failsafe exclude patterns to target/skiptest-excludes.txt, and the property
+     * failsafe.excludesFile is set to that file. If you configure excludes or an excludesFile for
+     * failsafe yourself, that configuration wins and you have to add the file yourself. With shardCount,
+     * the classes of the other shards are always excluded this way.
+     */
+    @Parameter( defaultValue = "false" )
+    private boolean skipWholeClasses;
+
+    @Parameter(readonly = true, defaultValue = "${project.build.directory}/skiptest-excludes.txt")
+    private File classExcludesFile;
+
+    /**
+     * Defines how the test JVM skips tests and records their results. "aspect" (the default) weaves
+     * the test classes with AspectJ (which needs the aspectj-maven-plugin or the weaving agent).
+     * "listener" needs no weaving at all: tests on the JUnit Platform are filtered and recorded by a
+     * filter and a listener that are registered automatically, JUnit 4 tests are recorded by
+     * SkipRunListener (register it as failsafe listener) and skipped through failsafe exclude patterns
+     * that are written to target/skiptest-excludes.txt (the property failsafe.excludesFile is set to
+     * that file).
+     */
+    @Parameter( defaultValue = EngineConfiguration.ENGINE_ASPECT )
+    private String engine = EngineConfiguration.ENGINE_ASPECT;
+
+    /**
+     * What happens to tests in the history that cannot be found in the test classes any more, because
+     * they have been deleted or renamed. "none" (the default) keeps them. "drop" removes them from the
+     * history. "age" ignores them when the tests to skip are selected and removes them once they have
+     * been missing in pruneAfterBuilds consecutive builds, which keeps a history that is shared between
+     * branches intact. This goal writes the history when it removes tests; with "age" the builds in which
+     * a test was missing are counted by post-skip-test. Pruning is not done with reactorHistory.
+     * Only the tests of this module are pruned, so a history that several modules share keeps the tests
+     * of the others: the names of the test classes of the module are kept next to the allTestResultsFile
+     * (with the suffix ".testclasses"), and the tests of a deleted class are only pruned if the module
+     * had the class in a build that kept them.
+     */
+    @Parameter( defaultValue = PRUNE_NONE )
+    private String pruneDeletedTests = PRUNE_NONE;
+
+    /**
+     * The number of consecutive builds after which a missing test is removed when pruneDeletedTests is
+     * "age".
+     */
+    @Parameter( defaultValue = "10" )
+    private int pruneAfterBuilds = 10;
+
+    /**
+     * The test classes whose tests are skipped and recorded, as patterns like the includes of failsafe
+     * and surefire, e.g. <code>**&#47;*IntegrationTest.java</code>. Without includes, the classes whose
+     * name ends with IT are used (<code>**&#47;*IT.java</code>). Tests of all other classes run and are
+     * not recorded.
+     */
+    @Parameter
+    private List<String> testClassIncludes;
+
+    /**
+     * Test classes that match one of these patterns are neither skipped nor recorded, even if they
+     * match one of the testClassIncludes.
+     */
+    @Parameter
+    private List<String> testClassExcludes;
+
+    /**
+     * The plugin that runs the tests, "failsafe" (the default) or "surefire". The exclude patterns of
+     * skipWholeClasses and of the listener engine are handed to this plugin (through the property
+     * failsafe.excludesFile or surefire.excludesFile). To skip the tests that surefire runs, bind this
+     * goal to a phase before the test phase (e.g. process-test-classes) and post-skip-test to the test
+     * phase, after surefire; post-skip-test only runs if surefire does not fail the build, so set
+     * testFailureIgnore for surefire if the results of failed tests should be recorded, too.
+     */
+    @Parameter( property = "skiptest.testPlugin", defaultValue = TEST_PLUGIN_FAILSAFE )
+    private String testPlugin = TEST_PLUGIN_FAILSAFE;
+
+    /**
+     * If greater than 0, a test JVM stops running low risk tests once this many tests have failed in
+     * it: a change that breaks that many tests is broken anyway, and the remaining tests would only cost
+     * time. Low risk tests are the tests that passed in their last run and, with testImpact, did not
+     * execute a changed class; new tests and tests that failed last time still run. The tests that
+     * are left out are recorded as not run and their history is not changed. Works with the aspect
+     * engine and, for JUnit Jupiter tests, with the listener engine; combine it with failFastOrder so
+     * the high risk tests run first. Every test JVM (failsafe fork) counts its own failures; failures
+     * of low risk tests do not count.
+     */
+    @Parameter( property = "skiptest.earlyFailBudget", defaultValue = "0" )
+    private int earlyFailBudget;
+
+    private List<TestClass> testClasses;
+
+    private RunReport runReport;
+
+    /**
+     * Removes the deleted tests from the stored history once the history read by this goal is released.
+     */
+    private HistoryStore.Update historyPruning;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         throwExceptionIfParametersAreOutOfRange();
+        long start = System.nanoTime();
+        runReport = new RunReport();
+        skipTests();
+        runReport.phaseFinished( "pre-skip-test", start );
+        if ( isWriteReport() ) {
+            storeReport();
+        }
+    }
+
+    /**
+     * Stores the part of the report this goal knows, post-skip-test completes it.
+     */
+    private void storeReport() {
+        File reportFile = new File( skipInputFile.getParentFile(), RunReport.PRE_REPORT_FILE );
+        try {
+            runReport.store( reportFile );
+        } catch ( IOException e ) {
+            getLog().error( "cannot write " + reportFile.getAbsolutePath()
+                    + ", the report of this build will be incomplete", e );
+        }
+    }
+
+    /**
+     * The phases are timed for the report of post-skip-test.
+     */
+    private void skipTests() {
+        long start = System.nanoTime();
         deleteResultFromPreviousRun();
-        if ( skipPercentage == 0 ) {
-            getLog().info( "skip percentage is 0, will not skip anything" );
+        writeEngineConfiguration();
+        Map<String, String> classHashes = isTestImpact() ? hashClasses() : null;
+        runReport.phaseFinished( "pre-skip-test.setup", start );
+        boolean pruning = !PRUNE_NONE.equals( pruneDeletedTests ) && !isReactorHistory();
+        if ( !mayExcludeTests() && !failFastOrder && !pruning ) {
+            skipNothing();
             return;
         }
 
+        start = System.nanoTime();
+        Map<String, TestRecord> history = isReactorHistory()
+                ? getReactorHistory().sliceFor( scanTestClasses() )
+                : readHistory();
+        historyPruning = null;
+        try {
+            skipTestsOf( history, classHashes, pruning, start );
+        } finally {
+            // a mapped history must not keep post-skip-test from replacing the file
+            BinaryHistoryFile.release( history );
+        }
+        if ( historyPruning != null ) {
+            // the history is only replaced once it is no longer mapped, which Windows does not allow
+            updateHistory( historyPruning );
+        }
+    }
 
-        Map<String, Integer> allResults = readAllResultsFrom( getAllTestResultsFile() );
-        List<Entry<String, Integer>> allResultsAsList = new ArrayList<>(
-                allResults.entrySet() );
+    private void skipTestsOf( Map<String, TestRecord> history, Map<String, String> classHashes, boolean pruning,
+                              long start ) {
+        Map<String, TestRecord> allResults = pruning ? pruneHistory( history ) : history;
+        runReport.setHistorySize( allResults.size() );
+        runReport.phaseFinished( "pre-skip-test.readHistory", start );
+        if ( failFastOrder ) {
+            start = System.nanoTime();
+            writeFailFastOrder( allResults );
+            runReport.phaseFinished( "pre-skip-test.failFastOrder", start );
+        }
+        if ( !mayExcludeTests() ) {
+            skipNothing();
+            return;
+        }
+        start = System.nanoTime();
+        Map<String, TestRecord> unaffectedTests = classHashes != null && ( skipPercentage > 0
+                || maxIntegrationTestMinutes > 0 || earlyFailBudget > 0 )
+                ? withoutAffectedTests( allResults, classHashes ) : allResults;
+        List<String> testsToSkip = new ArrayList<>();
+        if ( skipPercentage > 0 || maxIntegrationTestMinutes > 0 ) {
+            Map<String, TestRecord> candidates = new StalenessLimit( maxSkippedBuilds, maxSkippedDays )
+                    .withoutStaleTests( unaffectedTests, System.currentTimeMillis() );
+            testsToSkip = createSelector().selectTestsToSkip( candidates );
+            runReport.addSkippedTests( testsToSkip, allResults );
+        }
+        getLog().debug(
+                "skip percentage is " + getSkipPercentage() + ", will skip "
+                        + testsToSkip.size() + " tests." );
+        List<String> otherShardTests = isSharding()
+                ? testsOfOtherShards( allResults, testsToSkip ) : Collections.<String>emptyList();
+        testsToSkip.addAll( otherShardTests );
+        runReport.phaseFinished( "pre-skip-test.selectTests", start );
+        start = System.nanoTime();
+        writeSkipList( testsToSkip );
+        if ( earlyFailBudget > 0 ) {
+            writeLowRiskTests( unaffectedTests, testsToSkip );
+        }
+        boolean excludeMethods = EngineConfiguration.ENGINE_LISTENER.equals( engine );
+        if ( skipWholeClasses || excludeMethods || !otherShardTests.isEmpty() ) {
+            writeExcludes( testsToSkip, otherShardTests, excludeMethods );
+        }
+        runReport.phaseFinished( "pre-skip-test.writeSkipList", start );
+    }
 
-        Comparator<? super Entry<String, Integer>> compareTestResults = new Comparator<Entry<String, Integer>>() {
+    /**
+     * @return the tests that do not run on this shard: the tests of the history and the test classes that
+     * are not skipped anyway, split by class
+     */
+    private List<String> testsOfOtherShards( Map<String, TestRecord> allResults, List<String> testsToSkip ) {
+        Set<String> testsToRun = new HashSet<>( allResults.keySet() );
+        for ( TestClass testClass : scanTestClasses() ) {
+            if ( testClass.hasKnownTestMethods() ) {
+                for ( String method : testClass.getTestMethods() ) {
+                    testsToRun.add( testClass.getName() + "." + method );
+                }
+            }
+        }
+        testsToRun.removeAll( new HashSet<>( testsToSkip ) );
+        List<String> otherTests = new ShardPartition( getShardCount() )
+                .testsOfOtherShards( testsToRun, allResults, getShardIndex() );
+        getLog().info( "shard " + getShardIndex() + " of " + getShardCount() + " runs "
+                + ( testsToRun.size() - otherTests.size() ) + " of " + testsToRun.size() + " tests" );
+        return otherTests;
+    }
+
+    /**
+     * Hashes the production classes of this build, post-skip-test keeps them for the next build.
+     *
+     * @return the hashes or null if they cannot be computed
+     */
+    private Map<String, String> hashClasses() {
+        try {
+            Map<String, String> classHashes = ClassHashes.compute( classesDirectory );
+            ClassHashes.write( classHashes, getClassHashesFile() );
+            return classHashes;
+        } catch ( IOException e ) {
+            getLog().error( "cannot hash the classes in " + classesDirectory + ", will not use the test impact", e );
+            return null;
+        }
+    }
+
+    /**
+     * @return the tests that may be skipped: those that did not execute any class that changed since the
+     * last build
+     */
+    private Map<String, TestRecord> withoutAffectedTests( Map<String, TestRecord> allResults,
+                                                          Map<String, String> classHashes ) {
+        Set<String> affectedTests;
+        try {
+            Map<String, String> previousHashes = ClassHashes.read( getClassHashesBaseline() );
+            if ( previousHashes == null ) {
+                getLog().info( "no class hashes of an earlier build, all tests are affected" );
+                return new HashMap<>();
+            }
+            Set<String> changedClasses = ClassHashes.changedClasses( previousHashes, classHashes );
+            CoverageMap coverage = new CoverageMap();
+            coverage.readFrom( getCoverageFile() );
+            affectedTests = coverage.affectedTests( allResults.keySet(), changedClasses );
+            getLog().info( changedClasses.size() + " classes changed, " + affectedTests.size() + " of "
+                    + allResults.size() + " tests are affected and will run" );
+        } catch ( IOException e ) {
+            getLog().error( "cannot read the test impact data next to " + getAllTestResultsFile().getAbsolutePath()
+                    + ", all tests are affected", e );
+            return new HashMap<>();
+        }
+        if ( affectedTests.isEmpty() ) {
+            return allResults;
+        }
+        final Set<String> affected = affectedTests;
+        return new FilteredHistory( allResults ) {
 
             @Override
-            public int compare( Entry<String, Integer> o1,
-                                Entry<String, Integer> o2 ) {
-                return o2.getValue() - o1.getValue();
+            protected boolean accepts( String testName, TestRecord record ) {
+                return !affected.contains( testName );
             }
         };
-        Collections.sort( allResultsAsList, compareTestResults );
-        int lastTestToSkip = ( allResultsAsList.size() * getSkipPercentage() ) / 100;
-        getLog().debug(
-                "skip percentage is " + getSkipPercentage() + ", will skip "
-                        + lastTestToSkip + " tests." );
+    }
+
+    /**
+     * @return the tests of the history that still exist; the history itself is left as it is, the
+     * deleted tests are removed from the stored history by {@link #historyPruning}
+     */
+    private Map<String, TestRecord> pruneHistory( Map<String, TestRecord> allResults ) {
+        List<TestClass> scannedClasses = scanTestClasses();
+        if ( scannedClasses.isEmpty() ) {
+            getLog().warn( "found no test classes in " + testClassesDirectory + ", will not prune the history" );
+            return allResults;
+        }
+        // a shared history also holds the tests of other modules, only the ones of this module are pruned
+        final HistoryPruner pruner = new HistoryPruner( scannedClasses, readFormerTestClasses() );
+        Map<String, TestRecord> existingTests = pruner.existingTestsOf( allResults );
+        Map<String, TestRecord> prunedHistory;
+        if ( PRUNE_DROP.equals( pruneDeletedTests ) ) {
+            prunedHistory = existingTests;
+        } else {
+            // the missing builds are counted by post-skip-test, the history is only written to drop tests
+            writeMissingTests( pruner.missingTestsOf( allResults ) );
+            prunedHistory = pruner.withoutExpiredTestsOf( allResults, pruneAfterBuilds );
+        }
+        int removed = allResults.size() - prunedHistory.size();
+        getLog().info( "removed " + removed + " deleted tests from the history" );
+        writeLines( getTestClassesBaseline(), pruner.testClassesOf( prunedHistory ) );
+        // every shard prunes the same way, only the first one writes the history
+        if ( removed > 0 && getShardIndex() == 0 ) {
+            historyPruning = new HistoryStore.Update() {
+
+                @Override
+                public void applyTo( Map<String, TestRecord> history ) {
+                    if ( PRUNE_DROP.equals( pruneDeletedTests ) ) {
+                        pruner.drop( history );
+                    } else {
+                        pruner.dropExpired( history, pruneAfterBuilds );
+                    }
+                }
+            };
+        }
+        return existingTests;
+    }
+
+    /**
+     * @return the test classes this module had in earlier builds
+     */
+    private List<String> readFormerTestClasses() {
+        File file = getTestClassesBaseline();
+        if ( !file.exists() ) {
+            getLog().info( "the test classes of this module are not known yet, the tests of deleted test classes"
+                    + " are pruned from the next build on" );
+            return Collections.emptyList();
+        }
         try {
-            for ( int i = 0; i < lastTestToSkip; i++ ) {
-                String testToExecute = allResultsAsList.get( i ).getKey();
-                FileUtils.fileAppend( skipInputFile.getAbsolutePath(),
-                        testToExecute + CRLF );
+            return Files.readAllLines( file.toPath(), Charset.defaultCharset() );
+        } catch ( IOException e ) {
+            getLog().warn( "cannot read the test classes of earlier builds from " + file.getAbsolutePath()
+                    + ", will only prune the tests of existing test classes", e );
+            return Collections.emptyList();
+        }
+    }
+
+    private void writeMissingTests( List<String> missingTests ) {
+        List<String> results = new ArrayList<>( missingTests.size() );
+        for ( String testName : missingTests ) {
+            results.add( testName + ":" + TestResult.MISSING );
+        }
+        writeLines( new File( skipInputFile.getParentFile(), HistoryPruner.MISSING_TESTS_FILE ), results );
+    }
+
+    /**
+     * @return true if the configuration may keep tests from running, i.e. a skip list is needed
+     */
+    private boolean mayExcludeTests() {
+        return skipPercentage > 0 || maxIntegrationTestMinutes > 0 || earlyFailBudget > 0 || isSharding();
+    }
+
+    private void skipNothing() {
+        getLog().info( "skip percentage is 0, will not skip anything" );
+        // replaces the list of an earlier run; the listeners only record results if there is a list
+        writeSkipList( new ArrayList<String>() );
+    }
+
+    /**
+     * Replaces the skip list in one atomic step, the tests never see a half written list.
+     */
+    private void writeSkipList( List<String> testsToSkip ) {
+        try ( AtomicFileWriter writer = new AtomicFileWriter( skipInputFile ) ) {
+            SkipList.write( testsToSkip, skipListFormat, writer.getOutputStream() );
+            writer.commit();
+        } catch ( IOException e ) {
+            getLog().error( "cannot write " + skipInputFile.getAbsolutePath() + ", no test will be skipped", e );
+        }
+    }
+
+    /**
+     * Writes the tests that the test JVMs leave out once the early-fail budget is used up: the tests
+     * that run and passed last time.
+     */
+    private void writeLowRiskTests( Map<String, TestRecord> unaffectedTests, List<String> testsToSkip ) {
+        Set<String> skippedTests = new HashSet<>( testsToSkip );
+        List<String> lowRiskTests = new ArrayList<>();
+        for ( Map.Entry<String, TestRecord> entry : unaffectedTests.entrySet() ) {
+            if ( entry.getValue().getSuccessfulRuns() > 0 && !skippedTests.contains( entry.getKey() ) ) {
+                lowRiskTests.add( entry.getKey() );
             }
+        }
+        getLog().info( lowRiskTests.size() + " low risk tests will not run once " + earlyFailBudget
+                + " tests have failed" );
+        File lowRiskFile = new File( skipInputFile.getParentFile(), SkipEngine.LOW_RISK_FILE );
+        try ( AtomicFileWriter writer = new AtomicFileWriter( lowRiskFile ) ) {
+            SkipList.write( lowRiskTests, skipListFormat, writer.getOutputStream() );
+            writer.commit();
         } catch ( IOException e ) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+            getLog().error( "cannot write " + lowRiskFile.getAbsolutePath() + ", all tests will run", e );
+        }
+    }
+
+    /**
+     * The classes of other shards are always excluded, otherwise their setup would run on every shard.
+     */
+    private void writeExcludes( List<String> testsToSkip, List<String> otherShardTests, boolean excludeMethods ) {
+        Set<String> skippedTests = new HashSet<>( testsToSkip );
+        Set<String> testsOfOtherShards = new HashSet<>( otherShardTests );
+        List<String> excludes = new ArrayList<>();
+        excludes.add( "# skipped test classes and methods, written by pre-skip-test" );
+        excludes.add( DEFAULT_EXCLUDE );
+        Set<String> excludedClasses = new HashSet<>();
+        if ( skipWholeClasses || !testsOfOtherShards.isEmpty() ) {
+            for ( TestClass testClass : scanTestClasses() ) {
+                if ( areAllTestsSkipped( testClass, skipWholeClasses ? skippedTests : testsOfOtherShards ) ) {
+                    excludes.add( testClass.getIncludePattern() );
+                    excludedClasses.add( testClass.getName() );
+                }
+            }
+            getLog().info( "skipping " + excludedClasses.size() + " test classes completely" );
+        }
+        if ( excludeMethods ) {
+            for ( String testToSkip : testsToSkip ) {
+                int separator = TestName.separatorOf( testToSkip );
+                if ( separator > 0 && !excludedClasses.contains( testToSkip.substring( 0, separator ) ) ) {
+                    excludes.add( testToSkip.substring( 0, separator ).replace( '.', '/' ) + ".java#"
+                            + testToSkip.substring( separator + 1 ) );
+                }
+            }
+        }
+        writeLines( classExcludesFile, excludes );
+        if ( mavenProject != null ) {
+            mavenProject.getProperties().setProperty( TEST_PLUGIN_SUREFIRE.equals( testPlugin )
+                    ? SUREFIRE_EXCLUDES_FILE_PROPERTY : FAILSAFE_EXCLUDES_FILE_PROPERTY,
+                    classExcludesFile.getAbsolutePath() );
+        }
+    }
+
+    private static boolean areAllTestsSkipped( TestClass testClass, Set<String> skippedTests ) {
+        if ( !testClass.hasKnownTestMethods() || testClass.getTestMethods().isEmpty() ) {
+            return false;
+        }
+        for ( String method : testClass.getTestMethods() ) {
+            if ( !skippedTests.contains( testClass.getName() + "." + method ) ) {
+                return false;
+            }
         }
+        return true;
+    }
+
+    private void writeFailFastOrder( Map<String, TestRecord> allResults ) {
+        FailFastOrder order = new FailFastOrder( scanTestClasses(), allResults );
+        List<String> classNames = new ArrayList<>();
+        for ( TestClass testClass : order.getOrderedClasses() ) {
+            classNames.add( testClass.getName() );
+        }
+        List<String> runFirstPatterns = new ArrayList<>();
+        runFirstPatterns.add( "# classes with new tests or tests that failed last time, written by pre-skip-test" );
+        for ( TestClass testClass : order.getClassesToRunFirst() ) {
+            runFirstPatterns.add( testClass.getIncludePattern() );
+        }
+        if ( runFirstPatterns.size() == 1 ) {
+            // an empty includes file would include every test
+            runFirstPatterns.add( NOTHING_TO_RUN_FIRST );
+        }
+        getLog().info( order.getClassesToRunFirst().size() + " of " + classNames.size()
+                + " test classes have new or failed tests and should run first" );
+        writeLines( runOrderFile, classNames );
+        writeLines( runFirstFile, runFirstPatterns );
+        if ( mavenProject != null ) {
+            mavenProject.getProperties().setProperty( RUN_ORDER_PROPERTY, StringUtils.join( classNames.iterator(), "," ) );
+        }
+    }
+
+    List<TestClass> scanTestClasses() {
+        if ( testClasses == null ) {
+            testClasses = new TestClassScanner( testClassesDirectory, getTestClasspathElements(),
+                    new TestClassPatterns( testClassIncludes, testClassExcludes ) ).scan();
+        }
+        return testClasses;
+    }
+
+    private List<String> getTestClasspathElements() {
+        List<String> classpathElements = new ArrayList<>();
+        if ( mavenProject != null ) {
+            try {
+                classpathElements = mavenProject.getTestClasspathElements();
+            } catch ( DependencyResolutionRequiredException e ) {
+                getLog().warn( "test classpath is not resolved, cannot find test methods", e );
+            }
+        }
+        return classpathElements;
+    }
+
+    private void writeLines( File file, List<String> lines ) {
+        try ( AtomicFileWriter writer = new AtomicFileWriter( file ) ) {
+            for ( String line : lines ) {
+                writer.writeLine( line );
+            }
+            writer.commit();
+        } catch ( IOException e ) {
+            getLog().error( "cannot write " + file.getAbsolutePath(), e );
+        }
+    }
+
+    private TestSelector createSelector() {
+        if ( SKIP_STRATEGY_TIME.equals( skipStrategy ) || maxIntegrationTestMinutes > 0 ) {
+            return new DurationSelector( skipPercentage, TimeUnit.MINUTES.toMillis( maxIntegrationTestMinutes ) );
+        }
+        if ( SKIP_STRATEGY_WEIGHTED.equals( skipStrategy ) ) {
+            return new WeightedSelector( skipPercentage, skipSeed != null ? new Random( skipSeed ) : new Random() );
+        }
+        return new StreakSelector( skipPercentage );
     }
 
     private void deleteResultFromPreviousRun() {
-        if ( skiptestsResultsFile.exists() ) {
-            if ( !skiptestsResultsFile.delete() ) {
-                getLog().error( "could not delete result file " + skiptestsResultsFile.getAbsolutePath()
+        List<File> resultFiles = new ArrayList<>( ResultSegments.find( skiptestsResultsFile ) );
+        resultFiles.addAll( ResultSegments.find(
+                new File( skiptestsResultsFile.getParentFile(), SkipEngine.TEST_IMPACT_FILE ) ) );
+        File missingTestsFile = new File( skiptestsResultsFile.getParentFile(), HistoryPruner.MISSING_TESTS_FILE );
+        if ( missingTestsFile.exists() ) {
+            resultFiles.add( missingTestsFile );
+        }
+        for ( File resultFile : resultFiles ) {
+            if ( !resultFile.delete() ) {
+                getLog().error( "could not delete result file " + resultFile.getAbsolutePath()
                         + ". This max lead to inconsistent results history" );
             }
         }
     }
 
+    private void writeEngineConfiguration() {
+        Properties configuration = new Properties();
+        configuration.setProperty( EngineConfiguration.ENGINE, engine );
+        configuration.setProperty( EngineConfiguration.RECORDING_MODE, recordingMode );
+        configuration.setProperty( EngineConfiguration.RECORDING_BATCH_SIZE,
+                String.valueOf( recordingBatchSize ) );
+        configuration.setProperty( EngineConfiguration.RECORDING_SEGMENTS, String.valueOf( recordingSegments ) );
+        configuration.setProperty( EngineConfiguration.TEST_IMPACT, String.valueOf( isTestImpact() ) );
+        configuration.setProperty( EngineConfiguration.TEST_CLASS_INCLUDES, TestClassPatterns.join( testClassIncludes ) );
+        configuration.setProperty( EngineConfiguration.TEST_CLASS_EXCLUDES, TestClassPatterns.join( testClassExcludes ) );
+        configuration.setProperty( EngineConfiguration.EARLY_FAIL_BUDGET, String.valueOf( earlyFailBudget ) );
+        File configurationFile = new File( skipInputFile.getParentFile(), EngineConfiguration.FILE_NAME );
+        try ( AtomicFileWriter writer = new AtomicFileWriter( configurationFile ) ) {
+            configuration.store( writer.getWriter(), "written by the pre-skip-test goal" );
+            writer.commit();
+        } catch ( IOException e ) {
+            getLog().error( "cannot write " + configurationFile.getAbsolutePath()
+                    + ", the tests will run with the default configuration", e );
+        }
+    }
+
     private void throwExceptionIfParametersAreOutOfRange()
             throws MojoExecutionException {
+        throwExceptionIfHistoryFormatIsUnknown();
         if ( getSkipPercentage() < 0 || getSkipPercentage() > 100 ) {
             throw new MojoExecutionException(
                     "skip percentage must be between 0 and 100" );
         }
+        if ( !SKIP_STRATEGY_COUNT.equals( skipStrategy ) && !SKIP_STRATEGY_TIME.equals( skipStrategy )
+                && !SKIP_STRATEGY_WEIGHTED.equals( skipStrategy ) ) {
+            throw new MojoExecutionException( "skip strategy must be " + SKIP_STRATEGY_COUNT + ", "
+                    + SKIP_STRATEGY_TIME + " or " + SKIP_STRATEGY_WEIGHTED );
+        }
+        throwExceptionIfShardIsOutOfRange();
+        throwExceptionIfHistoryStoreIsUnknown();
+        if ( isSharding() && SKIP_STRATEGY_WEIGHTED.equals( skipStrategy ) && skipSeed == null ) {
+            throw new MojoExecutionException( "the weighted skip strategy needs a skipSeed that all shards share" );
+        }
+        if ( maxSkippedBuilds < 0 || maxSkippedDays < 0 ) {
+            throw new MojoExecutionException( "maxSkippedBuilds and maxSkippedDays must not be negative" );
+        }
+        if ( maxIntegrationTestMinutes < 0 ) {
+            throw new MojoExecutionException( "maximum integration test time must not be negative" );
+        }
+        if ( !EngineConfiguration.RECORDING_MODE_APPEND.equals( recordingMode )
+                && !EngineConfiguration.RECORDING_MODE_BUFFERED.equals( recordingMode ) ) {
+            throw new MojoExecutionException( "recording mode must be "
+                    + EngineConfiguration.RECORDING_MODE_APPEND + " or "
+                    + EngineConfiguration.RECORDING_MODE_BUFFERED );
+        }
+        if ( !SkipList.isFormat( skipListFormat ) ) {
+            throw new MojoExecutionException( "skip list format must be " + SkipList.FORMAT_TEXT + ", "
+                    + SkipList.FORMAT_SORTED + " or " + SkipList.FORMAT_GZIP );
+        }
+        if ( !EngineConfiguration.ENGINE_ASPECT.equals( engine )
+                && !EngineConfiguration.ENGINE_LISTENER.equals( engine ) ) {
+            throw new MojoExecutionException( "engine must be " + EngineConfiguration.ENGINE_ASPECT + " or "
+                    + EngineConfiguration.ENGINE_LISTENER );
+        }
+        if ( !PRUNE_NONE.equals( pruneDeletedTests ) && !PRUNE_DROP.equals( pruneDeletedTests )
+                && !PRUNE_AGE.equals( pruneDeletedTests ) ) {
+            throw new MojoExecutionException( "pruneDeletedTests must be " + PRUNE_NONE + ", " + PRUNE_DROP
+                    + " or " + PRUNE_AGE );
+        }
+        if ( pruneAfterBuilds < 1 ) {
+            throw new MojoExecutionException( "pruneAfterBuilds must be at least 1" );
+        }
+        if ( earlyFailBudget < 0 ) {
+            throw new MojoExecutionException( "earlyFailBudget must not be negative" );
+        }
+        if ( !TEST_PLUGIN_FAILSAFE.equals( testPlugin ) && !TEST_PLUGIN_SUREFIRE.equals( testPlugin ) ) {
+            throw new MojoExecutionException( "testPlugin must be " + TEST_PLUGIN_FAILSAFE + " or "
+                    + TEST_PLUGIN_SUREFIRE );
+        }
     }
 
     public int getSkipPercentage() {
@@ -138,6 +825,142 @@ public class PreSkipTestMojo extends AbstractSkipTestMojo {
         this.skipPercentage = skipPercentage;
     }
 
+    public String getRecordingMode() {
+        return recordingMode;
+    }
+
+    public void setRecordingMode( String recordingMode ) {
+        this.recordingMode = recordingMode;
+    }
+
+    public boolean isRecordingSegments() {
+        return recordingSegments;
+    }
+
+    public void setRecordingSegments( boolean recordingSegments ) {
+        this.recordingSegments = recordingSegments;
+    }
+
+    public String getSkipListFormat() {
+        return skipListFormat;
+    }
+
+    public void setSkipListFormat( String skipListFormat ) {
+        this.skipListFormat = skipListFormat;
+    }
+
+    public String getSkipStrategy() {
+        return skipStrategy;
+    }
+
+    public void setSkipStrategy( String skipStrategy ) {
+        this.skipStrategy = skipStrategy;
+    }
+
+    public int getMaxIntegrationTestMinutes() {
+        return maxIntegrationTestMinutes;
+    }
+
+    public void setMaxIntegrationTestMinutes( int maxIntegrationTestMinutes ) {
+        this.maxIntegrationTestMinutes = maxIntegrationTestMinutes;
+    }
+
+    public int getMaxSkippedBuilds() {
+        return maxSkippedBuilds;
+    }
+
+    public void setMaxSkippedBuilds( int maxSkippedBuilds ) {
+        this.maxSkippedBuilds = maxSkippedBuilds;
+    }
+
+    public int getMaxSkippedDays() {
+        return maxSkippedDays;
+    }
+
+    public void setMaxSkippedDays( int maxSkippedDays ) {
+        this.maxSkippedDays = maxSkippedDays;
+    }
+
+    public Long getSkipSeed() {
+        return skipSeed;
+    }
+
+    public void setSkipSeed( Long skipSeed ) {
+        this.skipSeed = skipSeed;
+    }
+
+    public boolean isFailFastOrder() {
+        return failFastOrder;
+    }
+
+    public void setFailFastOrder( boolean failFastOrder ) {
+        this.failFastOrder = failFastOrder;
+    }
+
+    public boolean isSkipWholeClasses() {
+        return skipWholeClasses;
+    }
+
+    public void setSkipWholeClasses( boolean skipWholeClasses ) {
+        this.skipWholeClasses = skipWholeClasses;
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public void setEngine( String engine ) {
+        this.engine = engine;
+    }
+
+    public String getPruneDeletedTests() {
+        return pruneDeletedTests;
+    }
+
+    public void setPruneDeletedTests( String pruneDeletedTests ) {
+        this.pruneDeletedTests = pruneDeletedTests;
+    }
+
+    public int getPruneAfterBuilds() {
+        return pruneAfterBuilds;
+    }
+
+    public void setPruneAfterBuilds( int pruneAfterBuilds ) {
+        this.pruneAfterBuilds = pruneAfterBuilds;
+    }
+
+    public List<String> getTestClassIncludes() {
+        return testClassIncludes;
+    }
+
+    public void setTestClassIncludes( List<String> testClassIncludes ) {
+        this.testClassIncludes = testClassIncludes;
+    }
+
+    public List<String> getTestClassExcludes() {
+        return testClassExcludes;
+    }
+
+    public void setTestClassExcludes( List<String> testClassExcludes ) {
+        this.testClassExcludes = testClassExcludes;
+    }
+
+    public String getTestPlugin() {
+        return testPlugin;
+    }
+
+    public void setTestPlugin( String testPlugin ) {
+        this.testPlugin = testPlugin;
+    }
+
+    public int getEarlyFailBudget() {
+        return earlyFailBudget;
+    }
+
+    public void setEarlyFailBudget( int earlyFailBudget ) {
+        this.earlyFailBudget = earlyFailBudget;
+    }
+
     void setSkiptestsResultsFile( File skiptestsResultsFile ) {
         this.skiptestsResultsFile = skiptestsResultsFile;
     }
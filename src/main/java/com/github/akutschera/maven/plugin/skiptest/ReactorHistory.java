@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.discovery.TestClass;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestName;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The history of all modules of one reactor build. It is read once, by the first module that needs
+ * it; every module gets the slice with its own test classes, and the results of all modules are merged
+ * into it in memory. The history store is written once, by the last module of the reactor; a module
+ * that finishes after it (in a parallel build) stores its results right away. The history is kept for
+ * as long as the build (the Maven session) it belongs to.
+ */
+final class ReactorHistory {
+
+    private static final Map<Object, Map<String, ReactorHistory>> HISTORIES = new WeakHashMap<>();
+
+    private final Map<String, TestRecord> allResults;
+    private final Map<String, Set<String>> testsByClass = new HashMap<>();
+    private final List<Map<String, TestResult>> unsavedResults = new ArrayList<>();
+    private final Object saveLock = new Object();
+    private Saver saver;
+    private boolean reactorDone;
+
+    ReactorHistory( Map<String, TestRecord> allResults ) {
+        this.allResults = allResults;
+        for ( String testName : allResults.keySet() ) {
+            addToClass( testName );
+        }
+    }
+
+    interface Loader {
+
+        Map<String, TestRecord> load();
+    }
+
+    interface Saver {
+
+        /**
+         * Stores the results of the modules in the history store.
+         */
+        void save( List<Map<String, TestResult>> moduleResults );
+    }
+
+    /**
+     * @param build the reactor build, e.g. its session; the history is dropped once the build is garbage
+     *              collected, so a second build in the same JVM starts afresh
+     * @param historyId identifies the history within the build
+     */
+    static ReactorHistory forBuild( Object build, String historyId, Loader loader ) {
+        synchronized ( HISTORIES ) {
+            Map<String, ReactorHistory> historiesOfBuild = HISTORIES.get( build );
+            if ( historiesOfBuild == null ) {
+                historiesOfBuild = new HashMap<>();
+                HISTORIES.put( build, historiesOfBuild );
+            }
+            ReactorHistory history = historiesOfBuild.get( historyId );
+            if ( history == null ) {
+                history = new ReactorHistory( loader.load() );
+                historiesOfBuild.put( historyId, history );
+            }
+            return history;
+        }
+    }
+
+    /**
+     * @return the records of all tests in the given classes
+     */
+    synchronized Map<String, TestRecord> sliceFor( Collection<TestClass> testClasses ) {
+        Map<String, TestRecord> slice = new HashMap<>();
+        for ( TestClass testClass : testClasses ) {
+            Set<String> testNames = testsByClass.get( testClass.getName() );
+            if ( testNames != null ) {
+                for ( String testName : testNames ) {
+                    TestRecord record = allResults.get( testName );
+                    if ( record != null ) {
+                        slice.put( testName, record.copy() );
+                    }
+                }
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Merges the results of one module into the history; they are stored by {@link #moduleDone(boolean, Saver)}.
+     */
+    synchronized void merge( Map<String, TestResult> moduleResults ) {
+        unsavedResults.add( moduleResults );
+        PostSkipTestMojo.mergeResults( allResults, moduleResults );
+        for ( String testName : moduleResults.keySet() ) {
+            if ( allResults.containsKey( testName ) ) {
+                addToClass( testName );
+            }
+        }
+    }
+
+    /**
+     * Stores the results merged so far if this is the last module of the reactor or the last module has
+     * already finished.
+     */
+    void moduleDone( boolean lastModule, Saver saver ) {
+        synchronized ( this ) {
+            this.saver = saver;
+            reactorDone |= lastModule;
+            if ( !reactorDone ) {
+                return;
+            }
+        }
+        save();
+    }
+
+    private void save() {
+        // the modules of a parallel build (mvn -T) must not replace the history at the same time
+        synchronized ( saveLock ) {
+            List<Map<String, TestResult>> results;
+            Saver currentSaver;
+            synchronized ( this ) {
+                if ( unsavedResults.isEmpty() ) {
+                    return;
+                }
+                results = new ArrayList<>( unsavedResults );
+                unsavedResults.clear();
+                currentSaver = saver;
+            }
+            currentSaver.save( results );
+        }
+    }
+
+    private void addToClass( String testName ) {
+        int separator = TestName.separatorOf( testName );
+        String className = separator > 0 ? testName.substring( 0, separator ) : testName;
+        Set<String> testNames = testsByClass.get( className );
+        if ( testNames == null ) {
+            testNames = new HashSet<>();
+            testsByClass.put( className, testNames );
+        }
+        testNames.add( testName );
+    }
+}
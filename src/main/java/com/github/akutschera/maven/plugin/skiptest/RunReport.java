@@ -0,0 +1,268 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
+
+/**
+ * What skipping did in one build: how many tests ran, failed, were skipped or not run, how long the
+ * skipped tests would have taken (estimated from their average durations in the history), the size
+ * of the history and how long the phases of the goals took. pre-skip-test stores its part in
+ * {@value #PRE_REPORT_FILE}, post-skip-test adds the results of the run and writes the report as JSON
+ * and in the text format of Prometheus.
+ */
+final class RunReport {
+
+    static final String PRE_REPORT_FILE = "skiptest-pre-report.properties";
+    static final String JSON_FILE = "skiptest-report.json";
+    static final String PROMETHEUS_FILE = "skiptest-report.prom";
+
+    private static final String HISTORY_SIZE = "historySize";
+    private static final String ESTIMATED_TIME_SAVED = "estimatedTimeSavedMillis";
+    private static final String SKIPPED_WITHOUT_DURATION = "skippedTestsWithoutDuration";
+    private static final String PHASES = "phasesMillis";
+
+    private int testsPassed;
+    private int testsFailed;
+    private int testsSkipped;
+    private int testsNotRun;
+    private long testTime;
+    private long estimatedTimeSaved;
+    private int skippedTestsWithoutDuration;
+    private int historySize;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    /**
+     * @param start the value of {@link System#nanoTime()} when the phase started
+     */
+    void phaseFinished( String phase, long start ) {
+        phases.put( phase, TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) );
+    }
+
+    /**
+     * Estimates the time the skipped tests would have taken from their average durations.
+     */
+    void addSkippedTests( List<String> skippedTests, Map<String, TestRecord> history ) {
+        for ( String testName : skippedTests ) {
+            TestRecord record = history.get( testName );
+            if ( record != null && record.hasDuration() ) {
+                estimatedTimeSaved += record.getAverageDuration();
+            } else {
+                skippedTestsWithoutDuration++;
+            }
+        }
+    }
+
+    void addResults( Map<String, TestResult> results ) {
+        for ( TestResult result : results.values() ) {
+            if ( result.isMissing() ) {
+                continue;
+            }
+            if ( result.isSkipped() ) {
+                testsSkipped++;
+            } else if ( result.isNotRun() ) {
+                testsNotRun++;
+            } else {
+                if ( result.isSuccessful() ) {
+                    testsPassed++;
+                } else {
+                    testsFailed++;
+                }
+                if ( result.getDuration() != TestRecord.UNKNOWN_DURATION ) {
+                    testTime += result.getDuration();
+                }
+            }
+        }
+    }
+
+    void addTestsNotRun( int tests ) {
+        testsNotRun += tests;
+    }
+
+    void setHistorySize( int historySize ) {
+        this.historySize = historySize;
+    }
+
+    int getTestsRun() {
+        return testsPassed + testsFailed;
+    }
+
+    int getTestsFailed() {
+        return testsFailed;
+    }
+
+    int getTestsSkipped() {
+        return testsSkipped;
+    }
+
+    int getTestsNotRun() {
+        return testsNotRun;
+    }
+
+    long getEstimatedTimeSaved() {
+        return estimatedTimeSaved;
+    }
+
+    int getHistorySize() {
+        return historySize;
+    }
+
+    Map<String, Long> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Stores the part of pre-skip-test for post-skip-test.
+     */
+    void store( File file ) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty( HISTORY_SIZE, String.valueOf( historySize ) );
+        properties.setProperty( ESTIMATED_TIME_SAVED, String.valueOf( estimatedTimeSaved ) );
+        properties.setProperty( SKIPPED_WITHOUT_DURATION, String.valueOf( skippedTestsWithoutDuration ) );
+        StringBuilder phaseList = new StringBuilder();
+        for ( Entry<String, Long> phase : phases.entrySet() ) {
+            if ( phaseList.length() > 0 ) {
+                phaseList.append( ',' );
+            }
+            phaseList.append( phase.getKey() ).append( '=' ).append( phase.getValue() );
+        }
+        properties.setProperty( PHASES, phaseList.toString() );
+        try ( AtomicFileWriter writer = new AtomicFileWriter( file ) ) {
+            properties.store( writer.getWriter(), "written by the pre-skip-test goal" );
+            writer.commit();
+        }
+    }
+
+    /**
+     * Adds the part that pre-skip-test stored, nothing if the file does not exist. The phases of
+     * pre-skip-test come before the phases recorded so far, a history size set so far is kept.
+     */
+    void load( File file ) throws IOException {
+        if ( !file.isFile() ) {
+            return;
+        }
+        Properties properties = new Properties();
+        try ( InputStream in = new FileInputStream( file ) ) {
+            properties.load( in );
+        }
+        try {
+            if ( historySize == 0 ) {
+                // the history was not read after the merge, e.g. with the journal
+                historySize = Integer.parseInt( properties.getProperty( HISTORY_SIZE, "0" ) );
+            }
+            estimatedTimeSaved = Long.parseLong( properties.getProperty( ESTIMATED_TIME_SAVED, "0" ) );
+            skippedTestsWithoutDuration = Integer.parseInt(
+                    properties.getProperty( SKIPPED_WITHOUT_DURATION, "0" ) );
+            Map<String, Long> allPhases = new LinkedHashMap<>();
+            for ( String phase : properties.getProperty( PHASES, "" ).split( "," ) ) {
+                int separator = phase.indexOf( '=' );
+                if ( separator > 0 ) {
+                    allPhases.put( phase.substring( 0, separator ), Long.parseLong( phase.substring( separator + 1 ) ) );
+                }
+            }
+            allPhases.putAll( phases );
+            phases.clear();
+            phases.putAll( allPhases );
+        } catch ( NumberFormatException e ) {
+            throw new IOException( "not a report of pre-skip-test: " + file, e );
+        }
+    }
+
+    void writeJson( File file ) throws IOException {
+        StringBuilder json = new StringBuilder( "{" );
+        appendJson( json, "testsRun", getTestsRun() );
+        appendJson( json, "testsPassed", testsPassed );
+        appendJson( json, "testsFailed", testsFailed );
+        appendJson( json, "testsSkipped", testsSkipped );
+        appendJson( json, "testsNotRun", testsNotRun );
+        appendJson( json, "testTimeMillis", testTime );
+        appendJson( json, ESTIMATED_TIME_SAVED, estimatedTimeSaved );
+        appendJson( json, SKIPPED_WITHOUT_DURATION, skippedTestsWithoutDuration );
+        appendJson( json, HISTORY_SIZE, historySize );
+        json.append( ',' ).append( AbstractSkipTestMojo.CRLF ).append( "  \"" ).append( PHASES ).append( "\": {" );
+        boolean first = true;
+        for ( Entry<String, Long> phase : phases.entrySet() ) {
+            json.append( first ? "" : "," ).append( AbstractSkipTestMojo.CRLF ).append( "    \"" )
+                    .append( phase.getKey() ).append( "\": " ).append( phase.getValue() );
+            first = false;
+        }
+        json.append( first ? "}" : AbstractSkipTestMojo.CRLF + "  }" ).append( AbstractSkipTestMojo.CRLF ).append( '}' );
+        try ( AtomicFileWriter writer = new AtomicFileWriter( file ) ) {
+            writer.writeLine( json.toString() );
+            writer.commit();
+        }
+    }
+
+    private static void appendJson( StringBuilder json, String name, long value ) {
+        json.append( json.length() > 1 ? "," : "" ).append( AbstractSkipTestMojo.CRLF )
+                .append( "  \"" ).append( name ).append( "\": " ).append( value );
+    }
+
+    /**
+     * Writes the report as gauges in the text format of Prometheus, e.g. for the textfile collector
+     * of the node exporter; times are in seconds. The format needs \n as line separator on every platform.
+     */
+    void writePrometheus( File file ) throws IOException {
+        try ( AtomicFileWriter writer = new AtomicFileWriter( file ) ) {
+            writeGauge( writer, "skiptest_tests", "tests of the last build by outcome" );
+            writeLine( writer, "skiptest_tests{outcome=\"passed\"} " + testsPassed );
+            writeLine( writer, "skiptest_tests{outcome=\"failed\"} " + testsFailed );
+            writeLine( writer, "skiptest_tests{outcome=\"skipped\"} " + testsSkipped );
+            writeLine( writer, "skiptest_tests{outcome=\"not_run\"} " + testsNotRun );
+            writeGauge( writer, "skiptest_test_time_seconds", "time the tests that ran took" );
+            writeLine( writer, "skiptest_test_time_seconds " + seconds( testTime ) );
+            writeGauge( writer, "skiptest_estimated_time_saved_seconds",
+                    "time the skipped tests would have taken, estimated from the history" );
+            writeLine( writer, "skiptest_estimated_time_saved_seconds " + seconds( estimatedTimeSaved ) );
+            writeGauge( writer, "skiptest_skipped_tests_without_duration",
+                    "skipped tests without a duration in the history" );
+            writeLine( writer, "skiptest_skipped_tests_without_duration " + skippedTestsWithoutDuration );
+            writeGauge( writer, "skiptest_history_size", "tests in the history" );
+            writeLine( writer, "skiptest_history_size " + historySize );
+            writeGauge( writer, "skiptest_phase_seconds", "time the phases of the goals took" );
+            for ( Entry<String, Long> phase : phases.entrySet() ) {
+                writeLine( writer, "skiptest_phase_seconds{phase=\"" + phase.getKey() + "\"} " + seconds( phase.getValue() ) );
+            }
+            writer.commit();
+        }
+    }
+
+    private static void writeGauge( AtomicFileWriter writer, String name, String help ) throws IOException {
+        writeLine( writer, "# HELP " + name + " " + help );
+        writeLine( writer, "# TYPE " + name + " gauge" );
+    }
+
+    private static void writeLine( AtomicFileWriter writer, String line ) throws IOException {
+        writer.getWriter().write( line );
+        writer.getWriter().write( '\n' );
+    }
+
+    private static String seconds( long millis ) {
+        return String.valueOf( millis / 1000.0 );
+    }
+}
@@ -15,103 +15,234 @@
  */
 package com.github.akutschera.maven.plugin.skiptest.aspect;
 
+import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
-import org.aspectj.util.FileUtil;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestImpact;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestName;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Aspect
 public class SkipAspect {
 
-    private static final String SKIP_INPUT_FILE = "skip.txt";
-    private static final String SKIPTEST_OUTPUTFILE = "skiptest.results";
-    static final String CRLF = System.getProperty( "line.separator" );
-    private Set<String> testsToSkip;
-    private final File buildDir;
-    private final String inputFileName;
-    private final String outputFileName;
+    static final String CRLF = SkipEngine.CRLF;
+    private final SkipEngine engine;
+    private final boolean active;
+    private final ClassValue<ConcurrentMap<JoinPoint.StaticPart, TestMethod>> testMethods =
+            new ClassValue<ConcurrentMap<JoinPoint.StaticPart, TestMethod>>() {
+
+                @Override
+                protected ConcurrentMap<JoinPoint.StaticPart, TestMethod> computeValue( Class<?> testClass ) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+    private final ClassValue<AtomicReference<TestMethod>> lastInvokedTestMethods =
+            new ClassValue<AtomicReference<TestMethod>>() {
+
+                @Override
+                protected AtomicReference<TestMethod> computeValue( Class<?> testClass ) {
+                    return new AtomicReference<>();
+                }
+            };
+    private final Set<TestMethod> parameterizedTestMethods =
+            Collections.newSetFromMap( new ConcurrentHashMap<TestMethod, Boolean>() );
 
     public SkipAspect() {
-        this( SKIP_INPUT_FILE, SKIPTEST_OUTPUTFILE, new File(
-                System.getProperty( "user.dir" ), "target" ) );
+        this( SkipEngine.SKIP_INPUT_FILE, SkipEngine.SKIPTEST_OUTPUTFILE, SkipEngine.defaultBuildDir() );
     }
 
     public SkipAspect( String inputFile, String outputFile, File buildDir ) {
-        inputFileName = inputFile;
-        outputFileName = outputFile;
-        this.buildDir = buildDir;
-        getListOfTestsToSkip();
+        engine = new SkipEngine( inputFile, outputFile, buildDir );
+        active = engine.getConfiguration().isEngine( EngineConfiguration.ENGINE_ASPECT );
     }
 
     @Pointcut(value = "@annotation(expected)")
     protected void annotatedWithTest( Test expected ) {
     }
 
-    @Around("execution(public * *.*IT.*(..)) && annotatedWithTest(ann)")
+    /**
+     * Every public test method is woven; whether its class is a test class of the plugin (see
+     * {@link com.github.akutschera.maven.plugin.skiptest.engine.TestClassPatterns}) is decided when the
+     * test runs for the first time. The classes of the plugin itself are never woven.
+     */
+    @Around("execution(public * *(..)) && annotatedWithTest(ann) "
+            + "&& !within(com.github.akutschera.maven.plugin.skiptest..*)")
     public void aroundJUnitTestCaseMethods( ProceedingJoinPoint pjp, Test ann )
             throws Throwable {
+        if ( !active ) {
+            pjp.proceed();
+            return;
+        }
         int isTestSuccessful = 0;
 
-        if ( shouldTestBeSkipped( pjp ) ) {
+        TestMethod testMethod = getTestMethod( pjp, ann );
+        if ( !testMethod.covered ) {
+            pjp.proceed();
+            return;
+        }
+        String testName = testMethod.testName;
+        String methodName = testMethod.methodName;
+        if ( testMethod.invocations != null ) {
+            methodName = nextInvocation( testMethod );
+            if ( engine.shouldInvocationBeSkipped( testMethod.testClass.getName(), methodName ) ) {
+                return;
+            }
+            testName = TestName.of( testMethod.testClass.getName(), methodName );
+        } else if ( testMethod.skip ) {
             return;
         }
+        if ( engine.shouldSkipAfterFailures( testMethod.testClass.getName(), methodName ) ) {
+            engine.recordNotRun( testName );
+            return;
+        }
+        engine.recordStarted( testName );
+        Set<String> executedClasses = engine.isRecordingImpact() ? TestImpact.start() : null;
+        long start = System.nanoTime();
         try {
             pjp.proceed();
-            if ( ann.expected() == Test.None.class ) {
+            if ( testMethod.expected == Test.None.class ) {
                 isTestSuccessful = 1;
             }
         } catch ( Throwable throwable ) {
-            Class<? extends Throwable> expectedException = ann.expected();
-            if ( expectedException.isAssignableFrom( throwable.getClass() ) ) {
+            if ( testMethod.expected.isAssignableFrom( throwable.getClass() ) ) {
                 isTestSuccessful = 1;
             } else {
                 throw throwable;
             }
         } finally {
-            appendTestresultToOutputFile( getNameOfTestFrom( pjp ),
-                    isTestSuccessful );
+            appendTestresultToOutputFile( testName,
+                    isTestSuccessful, TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) );
+            if ( executedClasses != null ) {
+                engine.recordImpact( testName, TestImpact.finish( executedClasses ) );
+            }
         }
     }
 
-    private void appendTestresultToOutputFile( String testName,
-                                               int isTestSuccessful ) throws IOException {
-        File outputFile = new File( buildDir, outputFileName );
-        try ( FileWriter fw = new FileWriter( outputFile, true ) ) {
-            fw.write( testName + ":" + isTestSuccessful + CRLF );
+    /**
+     * Parameterized calls the parameters method of a class once whenever it runs the class, before any
+     * of its tests, so the invocations of the tests are counted from 0 in every run of the class.
+     */
+    @Before("execution(@org.junit.runners.Parameterized.Parameters static * *(..)) "
+            + "&& !within(com.github.akutschera.maven.plugin.skiptest..*)")
+    public void beforeParametersOfClassRun( JoinPoint joinPoint ) {
+        Class<?> declaringType = joinPoint.getSignature().getDeclaringType();
+        for ( TestMethod testMethod : parameterizedTestMethods ) {
+            if ( declaringType.isAssignableFrom( testMethod.testClass ) ) {
+                testMethod.invocations.set( 0 );
+            }
         }
     }
 
-    private boolean shouldTestBeSkipped( ProceedingJoinPoint pjp ) {
-        return testsToSkip.contains( getNameOfTestFrom( pjp ) );
+    /**
+     * Theories runs all invocations of a theory one after the other, so a theory that runs after
+     * another test method of its class starts a new run of the class and is counted from 0 again.
+     */
+    private String nextInvocation( TestMethod testMethod ) {
+        TestMethod lastInvoked = lastInvokedTestMethods.get( testMethod.testClass ).getAndSet( testMethod );
+        if ( testMethod.theory && lastInvoked != testMethod ) {
+            testMethod.invocations.set( 0 );
+        }
+        return testMethod.nextInvocation();
     }
 
-    private String getNameOfTestFrom( ProceedingJoinPoint pjp ) {
-        String className = pjp.getThis().getClass().getName();
-        String testToExecute = pjp.getSignature().getName();
-        return className + "." + testToExecute;
+    private void appendTestresultToOutputFile( String testName,
+                                               int isTestSuccessful, long duration ) throws IOException {
+        engine.recordResult( testName, isTestSuccessful, duration );
+    }
+
+    /**
+     * The name, the expected exception and the skip decision of a test are computed once per join
+     * point and class (an inherited test method is decided for every subclass), so running a test
+     * allocates nothing on top of what the test itself allocates.
+     * Only the tests of classes that run with Parameterized or Theories are named and skipped per
+     * invocation: the n-th execution of a test method in a run of its class is <code>method[n]</code>,
+     * counting from 0 like the default names of the Parameterized runner, however often the class runs
+     * in a reused test JVM. The aspect cannot see the Description the runner gives the invocation, so
+     * this index is only stable while the invocations run in the same order and need not match the names
+     * of the runner (custom names of Parameterized, Theories). Invocations are skipped reliably only by
+     * the listener engine.
+     */
+    private TestMethod getTestMethod( ProceedingJoinPoint pjp, Test ann ) {
+        Class<?> testClass = pjp.getThis().getClass();
+        ConcurrentMap<JoinPoint.StaticPart, TestMethod> testMethodsOfClass = testMethods.get( testClass );
+        JoinPoint.StaticPart joinPoint = pjp.getStaticPart();
+        TestMethod testMethod = testMethodsOfClass.get( joinPoint );
+        if ( testMethod == null ) {
+            String methodName = pjp.getSignature().getName();
+            boolean covered = engine.isTestClass( testClass.getName() );
+            testMethod = new TestMethod( testClass, methodName, ann.expected(), covered,
+                    covered && engine.shouldTestBeSkipped( testClass.getName(), methodName ) );
+            // tests running in parallel must share the invocations of the method
+            TestMethod concurrentTestMethod = testMethodsOfClass.putIfAbsent( joinPoint, testMethod );
+            if ( concurrentTestMethod != null ) {
+                testMethod = concurrentTestMethod;
+            } else if ( testMethod.invocations != null && !testMethod.theory ) {
+                parameterizedTestMethods.add( testMethod );
+            }
+        }
+        return testMethod;
     }
 
-    private void getListOfTestsToSkip() {
-        testsToSkip = new HashSet<>();
-        File skipFile = new File( buildDir, inputFileName );
+    private static final class TestMethod {
+
+        private static final String PARAMETERIZED = "org.junit.runners.Parameterized";
+        private static final String THEORIES = "org.junit.experimental.theories.Theories";
+
+        private final Class<?> testClass;
+        private final String methodName;
+        private final String testName;
+        private final Class<? extends Throwable> expected;
+        private final boolean covered;
+        private final boolean skip;
+        private final AtomicInteger invocations;
+        private final boolean theory;
+
+        TestMethod( Class<?> testClass, String methodName, Class<? extends Throwable> expected,
+                    boolean covered, boolean skip ) {
+            this.testClass = testClass;
+            this.methodName = methodName;
+            this.expected = expected;
+            this.testName = testClass.getName() + "." + methodName;
+            this.covered = covered;
+            this.skip = skip;
+            String invokingRunner = invokingRunnerOf( testClass );
+            this.invocations = invokingRunner != null ? new AtomicInteger() : null;
+            this.theory = THEORIES.equals( invokingRunner );
+        }
+
+        String nextInvocation() {
+            return methodName + "[" + invocations.getAndIncrement() + "]";
+        }
 
-        if ( skipFile.exists() ) {
-            try {
-                String skipList = FileUtil.readAsString( skipFile );
-                for ( String singleTest : skipList.split( CRLF ) ) {
-                    testsToSkip.add( singleTest );
+        /**
+         * @return the runner that invokes the tests of the class several times, null for any other runner
+         */
+        private static String invokingRunnerOf( Class<?> testClass ) {
+            RunWith runWith = testClass.getAnnotation( RunWith.class );
+            for ( Class<?> runner = runWith == null ? null : runWith.value(); runner != null;
+                  runner = runner.getSuperclass() ) {
+                if ( PARAMETERIZED.equals( runner.getName() ) || THEORIES.equals( runner.getName() ) ) {
+                    return runner.getName();
                 }
-            } catch ( IOException e ) {
-                // file cannot be read, execute everything
             }
+            return null;
         }
     }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.aspect;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.annotation.Pointcut;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.TestImpact;
+
+/**
+ * Records which classes of the production code a test executes, for the testImpact mode. The aspect
+ * is abstract, so nothing is woven unless you define which classes are production code in a
+ * META-INF/aop.xml of your tests, e.g.
+ * <pre>
+ * &lt;aspectj&gt;
+ *   &lt;aspects&gt;
+ *     &lt;concrete-aspect name="com.example.TestImpact"
+ *         extends="com.github.akutschera.maven.plugin.skiptest.aspect.TestImpactAspect"&gt;
+ *       &lt;pointcut name="productionCode" expression="within(com.example..*) &amp;amp;&amp;amp; !within(*IT)"/&gt;
+ *     &lt;/concrete-aspect&gt;
+ *   &lt;/aspects&gt;
+ * &lt;/aspectj&gt;
+ * </pre>
+ */
+@Aspect
+public abstract class TestImpactAspect {
+
+    @Pointcut
+    protected abstract void productionCode();
+
+    @Before("productionCode() && !within(com.github.akutschera.maven.plugin.skiptest..*)"
+            + " && (execution(* *(..)) || execution(*.new(..)))")
+    public void classExecuted( JoinPoint.StaticPart staticPart ) {
+        TestImpact.touched( staticPart.getSignature().getDeclaringTypeName() );
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.discovery;
+
+import java.util.Set;
+
+/**
+ * A test class found in the test output directory together with its test methods.
+ */
+public class TestClass {
+
+    private final String name;
+    private final Set<String> testMethods;
+
+    public TestClass( String name, Set<String> testMethods ) {
+        this.name = name;
+        this.testMethods = testMethods;
+    }
+
+    /**
+     * @return the fully qualified class name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the names of all test methods or null if the class could not be loaded
+     */
+    public Set<String> getTestMethods() {
+        return testMethods;
+    }
+
+    public boolean hasKnownTestMethods() {
+        return testMethods != null;
+    }
+
+    /**
+     * @return the pattern that selects this class in the includes and excludes of surefire and failsafe
+     */
+    public String getIncludePattern() {
+        return name.replace( '.', '/' ) + ".java";
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.discovery;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.TestClassPatterns;
+
+/**
+ * Finds the integration test classes (the top level classes that match the
+ * {@link TestClassPatterns}) in the test output directory. The classes are loaded - but not initialized - with the test classpath to find
+ * their test methods, i.e. all methods annotated with org.junit.Test or org.junit.experimental.theories.Theory
+ * and, for JUnit Jupiter, the (not necessarily public) methods annotated with Test, ParameterizedTest,
+ * RepeatedTest or TestTemplate. The invocations of parameterized and repeated tests are not known
+ * before the tests run, only their test methods. If a class cannot be loaded its test methods are
+ * unknown.
+ */
+public class TestClassScanner {
+
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String TEST_ANNOTATION = "org.junit.Test";
+    private static final String JUPITER_TEST_ANNOTATION = "org.junit.jupiter.api.Test";
+    private static final Set<String> TEST_ANNOTATIONS = new HashSet<>( Arrays.asList( TEST_ANNOTATION,
+            "org.junit.experimental.theories.Theory", JUPITER_TEST_ANNOTATION,
+            "org.junit.jupiter.params.ParameterizedTest", "org.junit.jupiter.api.RepeatedTest",
+            "org.junit.jupiter.api.TestTemplate" ) );
+
+    private final File testClassesDirectory;
+    private final List<String> classpathElements;
+    private final TestClassPatterns testClassPatterns;
+
+    /**
+     * @param testClassesDirectory where the compiled tests are
+     * @param classpathElements the test classpath, may be empty
+     */
+    public TestClassScanner( File testClassesDirectory, List<String> classpathElements ) {
+        this( testClassesDirectory, classpathElements, new TestClassPatterns( null, null ) );
+    }
+
+    /**
+     * @param testClassPatterns which classes are test classes
+     */
+    public TestClassScanner( File testClassesDirectory, List<String> classpathElements,
+                             TestClassPatterns testClassPatterns ) {
+        this.testClassesDirectory = testClassesDirectory;
+        this.classpathElements = classpathElements;
+        this.testClassPatterns = testClassPatterns;
+    }
+
+    /**
+     * @return all test classes, sorted by name
+     */
+    public List<TestClass> scan() {
+        List<String> classNames = new ArrayList<>();
+        if ( testClassesDirectory != null && testClassesDirectory.isDirectory() ) {
+            collectClassNames( testClassesDirectory, "", classNames );
+        }
+        Collections.sort( classNames );
+        if ( classNames.isEmpty() ) {
+            return Collections.emptyList();
+        }
+
+        List<TestClass> testClasses = new ArrayList<>( classNames.size() );
+        try ( URLClassLoader classLoader = createClassLoader() ) {
+            boolean canFindTestMethods = isOnClasspath( classLoader, TEST_ANNOTATION )
+                    || isOnClasspath( classLoader, JUPITER_TEST_ANNOTATION );
+            for ( String className : classNames ) {
+                testClasses.add( new TestClass( className,
+                        canFindTestMethods ? findTestMethods( classLoader, className ) : null ) );
+            }
+        } catch ( IOException e ) {
+            // closing the class loader failed, the classes have been scanned anyway
+        }
+        return testClasses;
+    }
+
+    protected boolean isTestClass( String className ) {
+        return testClassPatterns.matches( className );
+    }
+
+    private void collectClassNames( File directory, String packagePrefix, List<String> classNames ) {
+        File[] files = directory.listFiles();
+        if ( files == null ) {
+            return;
+        }
+        for ( File file : files ) {
+            String fileName = file.getName();
+            if ( file.isDirectory() ) {
+                collectClassNames( file, packagePrefix + fileName + ".", classNames );
+            } else if ( fileName.endsWith( CLASS_SUFFIX ) && fileName.indexOf( '$' ) < 0 ) {
+                String className = packagePrefix + fileName.substring( 0, fileName.length() - CLASS_SUFFIX.length() );
+                if ( isTestClass( className ) ) {
+                    classNames.add( className );
+                }
+            }
+        }
+    }
+
+    private Set<String> findTestMethods( ClassLoader classLoader, String className ) {
+        try {
+            Class<?> testClass = Class.forName( className, false, classLoader );
+            if ( Modifier.isAbstract( testClass.getModifiers() ) ) {
+                return Collections.emptySet();
+            }
+            Set<String> testMethods = new TreeSet<>();
+            for ( Method method : testClass.getMethods() ) {
+                if ( isAnnotatedWithTest( method ) ) {
+                    testMethods.add( method.getName() );
+                }
+            }
+            // Jupiter test methods only must not be private
+            for ( Class<?> type = testClass; type != null && type != Object.class; type = type.getSuperclass() ) {
+                for ( Method method : type.getDeclaredMethods() ) {
+                    if ( !Modifier.isPrivate( method.getModifiers() ) && isAnnotatedWithTest( method ) ) {
+                        testMethods.add( method.getName() );
+                    }
+                }
+            }
+            return testMethods;
+        } catch ( ClassNotFoundException | LinkageError e ) {
+            return null;
+        }
+    }
+
+    private static boolean isOnClasspath( ClassLoader classLoader, String className ) {
+        try {
+            Class.forName( className, false, classLoader );
+            return true;
+        } catch ( ClassNotFoundException | LinkageError e ) {
+            return false;
+        }
+    }
+
+    private boolean isAnnotatedWithTest( Method method ) {
+        for ( Annotation annotation : method.getAnnotations() ) {
+            if ( TEST_ANNOTATIONS.contains( annotation.annotationType().getName() ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private URLClassLoader createClassLoader() {
+        List<URL> urls = new ArrayList<>();
+        try {
+            urls.add( testClassesDirectory.toURI().toURL() );
+            for ( String element : classpathElements ) {
+                urls.add( new File( element ).toURI().toURL() );
+            }
+        } catch ( MalformedURLException e ) {
+            // cannot happen for files
+        }
+        return new URLClassLoader( urls.toArray( new URL[urls.size()] ), ClassLoader.getSystemClassLoader().getParent() );
+    }
+}
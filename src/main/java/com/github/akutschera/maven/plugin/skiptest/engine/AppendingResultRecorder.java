@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Opens the results file for every single test and appends one line. Slow for many tests, but
+ * nothing is ever kept in memory. Each line is written with a single append, so lines of other
+ * JVMs that append to the same file are never interleaved with it. The line is encoded with the
+ * same buffers for every test, only opening the file allocates.
+ */
+public class AppendingResultRecorder implements ResultRecorder {
+
+    private final Path outputFile;
+    private final StringBuilder line = new StringBuilder( 256 );
+    private final LineEncoder encoder = new LineEncoder( 256 );
+
+    public AppendingResultRecorder( File outputFile ) {
+        this.outputFile = outputFile.toPath();
+    }
+
+    @Override
+    public synchronized void record( String testName, int result, long duration ) throws IOException {
+        line.setLength( 0 );
+        line.append( testName ).append( ':' ).append( result ).append( ':' ).append( duration )
+                .append( SkipEngine.CRLF );
+        ByteBuffer bytes = encoder.encode( line );
+        try ( FileChannel out = FileChannel.open( outputFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND ) ) {
+            while ( bytes.hasRemaining() ) {
+                out.write( bytes );
+            }
+        }
+    }
+
+    @Override
+    public void started( String testName ) {
+        // nothing is held back, a result is on disk as soon as the test is finished
+    }
+
+    @Override
+    public void aborted( String testName ) {
+        // an aborted test is not recorded
+    }
+
+    @Override
+    public void flush() {
+        // every result is written immediately
+    }
+}
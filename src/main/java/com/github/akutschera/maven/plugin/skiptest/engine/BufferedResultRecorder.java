@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the results file open for the lifetime of the test JVM and collects results in memory.
+ * The results are written in batches: whenever batchSize results have been collected, at the latest
+ * maxDelayMillis after the oldest buffered result was recorded (by a daemon thread, so a batch does
+ * not wait for the next test, e.g. during a long @AfterClass) and when the JVM shuts down. With a
+ * maxDelayMillis of 0 every result is written right away. Every batch is written with a single
+ * append of complete lines, so a fork never leaves a half written line behind that would count as
+ * a result.
+ * <p>
+ * Before a test runs, a start marker (<code>testName:5:0</code>) is written together with the
+ * buffered results, in the same single append. The result of the test replaces the marker when the
+ * results are merged, so a fork that is killed (SIGKILL, OOM killer, timeout) before the result of
+ * a test is on disk leaves the marker behind, and post-skip-test counts that test as failed instead
+ * of keeping its old history. An aborted test is recorded as not run, which leaves its history alone.
+ */
+public class BufferedResultRecorder implements ResultRecorder {
+
+    private final File outputFile;
+    private final int batchSize;
+    private final long maxDelayMillis;
+    private final StringBuilder buffer = new StringBuilder( 8 * 1024 );
+    // encoding reuses the same buffers for every batch, recording a result allocates nothing
+    private final LineEncoder encoder = new LineEncoder( 8 * 1024 );
+    private FileChannel channel;
+    private int bufferedResults;
+    private long oldestBufferedResult;
+    private final ScheduledExecutorService scheduler;
+    private final Runnable scheduledFlush = new Runnable() {
+
+        @Override
+        public void run() {
+            try {
+                flush();
+            } catch ( IOException e ) {
+                // the batch stays in memory and is written with the next one or on shutdown
+            }
+        }
+    };
+
+    public BufferedResultRecorder( File outputFile, int batchSize, long maxDelayMillis ) {
+        this.outputFile = outputFile;
+        this.batchSize = Math.max( 1, batchSize );
+        this.maxDelayMillis = maxDelayMillis;
+        this.scheduler = maxDelayMillis > 0 && maxDelayMillis < Long.MAX_VALUE
+                ? Executors.newSingleThreadScheduledExecutor( new ThreadFactory() {
+
+                    @Override
+                    public Thread newThread( Runnable runnable ) {
+                        Thread thread = new Thread( runnable, "skiptest-result-flush" );
+                        thread.setDaemon( true );
+                        return thread;
+                    }
+                } ) : null;
+        Runtime.getRuntime().addShutdownHook( new Thread( new Runnable() {
+
+            @Override
+            public void run() {
+                close();
+            }
+        }, "skiptest-result-recorder" ) );
+    }
+
+    @Override
+    public synchronized void record( String testName, int result, long duration ) throws IOException {
+        if ( bufferedResults == 0 ) {
+            oldestBufferedResult = System.currentTimeMillis();
+            if ( scheduler != null ) {
+                scheduler.schedule( scheduledFlush, maxDelayMillis, TimeUnit.MILLISECONDS );
+            }
+        }
+        append( testName, result, duration );
+        if ( bufferedResults >= batchSize || maxDelayMillis <= 0
+                || System.currentTimeMillis() - oldestBufferedResult >= maxDelayMillis ) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void started( String testName ) throws IOException {
+        append( testName, SkipEngine.STARTED, 0 );
+        flush();
+    }
+
+    @Override
+    public synchronized void aborted( String testName ) throws IOException {
+        record( testName, SkipEngine.NOT_RUN, 0 );
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if ( bufferedResults == 0 ) {
+            return;
+        }
+        FileChannel out = getChannel();
+        // an unusually large batch grows the buffers, it still goes out in one append
+        ByteBuffer bytes = encoder.encode( buffer );
+        while ( bytes.hasRemaining() ) {
+            out.write( bytes );
+        }
+        buffer.setLength( 0 );
+        bufferedResults = 0;
+    }
+
+    private void append( String testName, int result, long duration ) {
+        buffer.append( testName ).append( ':' ).append( result ).append( ':' ).append( duration )
+                .append( SkipEngine.CRLF );
+        bufferedResults++;
+    }
+
+    synchronized void close() {
+        try {
+            flush();
+            if ( scheduler != null ) {
+                scheduler.shutdown();
+            }
+            if ( channel != null ) {
+                channel.close();
+                channel = null;
+            }
+        } catch ( IOException e ) {
+            // nothing left to do, the results of this batch are lost and the tests will run again
+        }
+    }
+
+    private FileChannel getChannel() throws IOException {
+        if ( channel == null ) {
+            channel = FileChannel.open( outputFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND );
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Settings that the pre-skip-test goal hands over to the test JVM. They are written to
+ * skiptest.properties in the build directory; a system property with the same name takes
+ * precedence over the value in the file.
+ */
+public class EngineConfiguration {
+
+    public static final String FILE_NAME = "skiptest.properties";
+
+    public static final String RECORDING_MODE = "skiptest.recording.mode";
+    public static final String RECORDING_BATCH_SIZE = "skiptest.recording.batchSize";
+    public static final String RECORDING_MAX_DELAY = "skiptest.recording.maxDelayMillis";
+    public static final String RECORDING_SEGMENTS = "skiptest.recording.segments";
+    public static final String TEST_IMPACT = "skiptest.testImpact";
+    public static final String TEST_CLASS_INCLUDES = "skiptest.testClasses.includes";
+    public static final String TEST_CLASS_EXCLUDES = "skiptest.testClasses.excludes";
+    public static final String EARLY_FAIL_BUDGET = "skiptest.earlyFail.budget";
+
+    public static final String ENGINE = "skiptest.engine";
+    public static final String ENGINE_ASPECT = "aspect";
+    public static final String ENGINE_LISTENER = "listener";
+
+    public static final String RECORDING_MODE_APPEND = "append";
+    public static final String RECORDING_MODE_BUFFERED = "buffered";
+
+    private final Properties properties;
+
+    public EngineConfiguration( Properties properties ) {
+        this.properties = properties;
+    }
+
+    public static EngineConfiguration readFrom( File buildDir ) {
+        Properties properties = new Properties();
+        File file = new File( buildDir, FILE_NAME );
+        if ( file.isFile() ) {
+            try ( InputStream in = new FileInputStream( file ) ) {
+                properties.load( in );
+            } catch ( IOException e ) {
+                // file cannot be read, use the defaults
+            }
+        }
+        return new EngineConfiguration( properties );
+    }
+
+    public String get( String key, String defaultValue ) {
+        String value = System.getProperty( key );
+        if ( value == null ) {
+            value = properties.getProperty( key, defaultValue );
+        }
+        return value.trim();
+    }
+
+    public int getInt( String key, int defaultValue ) {
+        try {
+            return Integer.parseInt( get( key, String.valueOf( defaultValue ) ) );
+        } catch ( NumberFormatException e ) {
+            return defaultValue;
+        }
+    }
+
+    public long getLong( String key, long defaultValue ) {
+        try {
+            return Long.parseLong( get( key, String.valueOf( defaultValue ) ) );
+        } catch ( NumberFormatException e ) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return true if the given engine skips the tests and records the results in this JVM
+     */
+    public boolean isEngine( String engine ) {
+        return engine.equalsIgnoreCase( get( ENGINE, ENGINE_ASPECT ) );
+    }
+
+    public boolean getBoolean( String key, boolean defaultValue ) {
+        return Boolean.parseBoolean( get( key, String.valueOf( defaultValue ) ) );
+    }
+
+    /**
+     * @return the classes whose tests are skipped and recorded in this JVM
+     */
+    public TestClassPatterns getTestClassPatterns() {
+        return TestClassPatterns.parse( get( TEST_CLASS_INCLUDES, "" ), get( TEST_CLASS_EXCLUDES, "" ) );
+    }
+
+    /**
+     * @param outputFile the results file; with segments, the results are written to the segment of
+     *                   this JVM instead
+     */
+    public ResultRecorder createRecorder( File outputFile ) {
+        if ( getBoolean( RECORDING_SEGMENTS, false ) ) {
+            outputFile = ResultSegments.segmentFor( outputFile );
+        }
+        if ( RECORDING_MODE_BUFFERED.equalsIgnoreCase( get( RECORDING_MODE, RECORDING_MODE_APPEND ) ) ) {
+            return new BufferedResultRecorder( outputFile, getInt( RECORDING_BATCH_SIZE, 100 ),
+                    getLong( RECORDING_MAX_DELAY, 1000 ) );
+        }
+        return new AppendingResultRecorder( outputFile );
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encodes the lines of the results file with the same buffers every time, so recording a result
+ * allocates nothing. The buffers only grow for unusually long text. Not thread-safe, the recorders
+ * synchronize.
+ */
+final class LineEncoder {
+
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    private final CharsetEncoder encoder = CHARSET.newEncoder().onMalformedInput( CodingErrorAction.REPLACE )
+            .onUnmappableCharacter( CodingErrorAction.REPLACE );
+    private char[] chars;
+    private CharBuffer charBuffer;
+    private ByteBuffer bytes;
+
+    LineEncoder( int initialCapacity ) {
+        chars = new char[initialCapacity];
+        charBuffer = CharBuffer.wrap( chars );
+        bytes = ByteBuffer.allocate( maxBytesFor( initialCapacity ) );
+    }
+
+    /**
+     * @return the encoded text, ready to be written; it is only valid until the next call
+     */
+    ByteBuffer encode( StringBuilder text ) {
+        int length = text.length();
+        if ( chars.length < length ) {
+            chars = new char[length];
+            charBuffer = CharBuffer.wrap( chars );
+        }
+        text.getChars( 0, length, chars, 0 );
+        charBuffer.clear();
+        charBuffer.limit( length );
+        int maxBytes = maxBytesFor( length );
+        if ( bytes.capacity() < maxBytes ) {
+            bytes = ByteBuffer.allocate( maxBytes );
+        }
+        bytes.clear();
+        encoder.reset();
+        encoder.encode( charBuffer, bytes, true );
+        encoder.flush( bytes );
+        bytes.flip();
+        return bytes;
+    }
+
+    private int maxBytesFor( int length ) {
+        return (int) Math.ceil( length * (double) encoder.maxBytesPerChar() );
+    }
+}
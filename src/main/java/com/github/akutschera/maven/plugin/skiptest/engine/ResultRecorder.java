@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import java.io.IOException;
+
+/**
+ * Records the outcome of a single test run, one line per test in the form
+ * <code>className.methodName:result:durationInMillis</code>.
+ */
+public interface ResultRecorder {
+
+    void record( String testName, int result, long duration ) throws IOException;
+
+    /**
+     * Called right before a test runs, so a recorder that holds results back can make sure that a
+     * test of a killed test JVM does not go unnoticed.
+     */
+    void started( String testName ) throws IOException;
+
+    /**
+     * Called instead of {@link #record(String, int, long)} for a test that started but was aborted,
+     * e.g. because of a failed assumption.
+     */
+    void aborted( String testName ) throws IOException;
+
+    /**
+     * Makes sure everything recorded so far has been handed to the file system.
+     */
+    void flush() throws IOException;
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Every test JVM can write its results to a segment of its own (skiptest.results.&lt;fork&gt;), so
+ * parallel failsafe forks never write to the same file. The post-skip-test goal merges the results
+ * file and all its segments.
+ */
+public final class ResultSegments {
+
+    private static final Pattern FORK_ID = Pattern.compile( "[A-Za-z0-9_-]+" );
+
+    private ResultSegments() {
+    }
+
+    /**
+     * @return the segment of the results file for this JVM
+     */
+    public static File segmentFor( File resultsFile ) {
+        return segmentFor( resultsFile, currentForkId() );
+    }
+
+    static File segmentFor( File resultsFile, String forkId ) {
+        return new File( resultsFile.getParentFile(), resultsFile.getName() + "." + forkId );
+    }
+
+    /**
+     * @return the results file (if it exists) followed by all of its segments, in name order
+     */
+    public static List<File> find( File resultsFile ) {
+        List<File> files = new ArrayList<>();
+        if ( resultsFile.isFile() ) {
+            files.add( resultsFile );
+        }
+        final String fileName = resultsFile.getName();
+        File[] segments = resultsFile.getAbsoluteFile().getParentFile().listFiles( new FilenameFilter() {
+
+            @Override
+            public boolean accept( File dir, String name ) {
+                return isSegmentOf( name, fileName );
+            }
+        } );
+        if ( segments != null ) {
+            Arrays.sort( segments );
+            files.addAll( Arrays.asList( segments ) );
+        }
+        return files;
+    }
+
+    /**
+     * Finds the files of several builds that were collected into one directory, e.g. the results of all
+     * shards of a build, each in a directory of its own.
+     *
+     * @return the files below the directory (at any depth) that are called fileName or are segments of
+     * such a file, in path order
+     */
+    public static List<File> findBelow( File directory, String fileName ) {
+        List<File> files = new ArrayList<>();
+        File[] children = directory.listFiles();
+        if ( children == null ) {
+            return files;
+        }
+        Arrays.sort( children );
+        for ( File child : children ) {
+            if ( child.isDirectory() ) {
+                files.addAll( findBelow( child, fileName ) );
+            } else if ( child.getName().equals( fileName ) || isSegmentOf( child.getName(), fileName ) ) {
+                files.add( child );
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @return true if the name is the file name followed by a fork id, like the names of
+     * {@link #segmentFor(File)}; temporary files and other files that only start with the name are no segments
+     */
+    private static boolean isSegmentOf( String name, String fileName ) {
+        return name.length() > fileName.length() + 1 && name.startsWith( fileName )
+                && name.charAt( fileName.length() ) == '.'
+                && FORK_ID.matcher( name.substring( fileName.length() + 1 ) ).matches();
+    }
+
+    /**
+     * @return the process id of this JVM (or whatever identifies it, if the JVM does not tell)
+     */
+    static String currentForkId() {
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        int at = name.indexOf( '@' );
+        return ( at > 0 ? name.substring( 0, at ) : name ).replaceAll( "[^A-Za-z0-9_-]", "_" );
+    }
+}
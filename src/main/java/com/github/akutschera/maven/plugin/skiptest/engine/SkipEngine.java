@@ -0,0 +1,244 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Everything the test JVM needs to know to skip tests and record results, independent of the way
+ * it hooks into the test framework (AspectJ or JUnit listeners). The tests to skip are read from
+ * skip.txt in the build directory, the results are written to skiptest.results. In testImpact mode,
+ * the classes each test executed are written to skiptest.impact. With an early-fail budget, the
+ * low risk tests of skiptest-low-risk.txt are not run any more once that many other tests have
+ * failed in this JVM; they are recorded as not run.
+ */
+public class SkipEngine {
+
+    public static final String SKIP_INPUT_FILE = "skip.txt";
+    public static final String SKIPTEST_OUTPUTFILE = "skiptest.results";
+    public static final String TEST_IMPACT_FILE = "skiptest.impact";
+    public static final String LOW_RISK_FILE = "skiptest-low-risk.txt";
+    /**
+     * The result of a test that was not run because the early-fail budget was used up, see
+     * com.github.akutschera.maven.plugin.skiptest.history.TestResult
+     */
+    public static final int NOT_RUN = 3;
+    /**
+     * The marker of a test that started but has no result yet, see {@link BufferedResultRecorder}
+     */
+    public static final int STARTED = 5;
+    private static final int FAILED = 0;
+    public static final String CRLF = System.getProperty( "line.separator" );
+
+    private static SkipEngine sharedInstance;
+
+    private final File skipFile;
+    private volatile SkipList testsToSkip;
+    private final EngineConfiguration configuration;
+    private final ResultRecorder recorder;
+    private final File impactFile;
+    private final TestClassPatterns testClassPatterns;
+    private final ConcurrentMap<String, Boolean> testClasses = new ConcurrentHashMap<>();
+    private final File lowRiskFile;
+    private volatile SkipList lowRiskTests;
+    private final int earlyFailBudget;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    public SkipEngine( String inputFile, String outputFile, File buildDir ) {
+        configuration = EngineConfiguration.readFrom( buildDir );
+        recorder = configuration.createRecorder( new File( buildDir, outputFile ) );
+        skipFile = new File( buildDir, inputFile );
+        testClassPatterns = configuration.getTestClassPatterns();
+        lowRiskFile = new File( buildDir, LOW_RISK_FILE );
+        earlyFailBudget = configuration.getInt( EngineConfiguration.EARLY_FAIL_BUDGET, 0 );
+        if ( configuration.getBoolean( EngineConfiguration.TEST_IMPACT, false ) ) {
+            File file = new File( buildDir, TEST_IMPACT_FILE );
+            impactFile = configuration.getBoolean( EngineConfiguration.RECORDING_SEGMENTS, false )
+                    ? ResultSegments.segmentFor( file ) : file;
+        } else {
+            impactFile = null;
+        }
+    }
+
+    /**
+     * @return the engine for the default files in the build directory of the project under test
+     */
+    public static synchronized SkipEngine getSharedInstance() {
+        if ( sharedInstance == null ) {
+            sharedInstance = new SkipEngine( SKIP_INPUT_FILE, SKIPTEST_OUTPUTFILE, defaultBuildDir() );
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * @return the build directory of the project under test, surefire and failsafe run the tests in
+     * the base directory of the project
+     */
+    public static File defaultBuildDir() {
+        return new File( System.getProperty( "user.dir" ), "target" );
+    }
+
+    public EngineConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return true if the tests of the class are skipped and recorded, i.e. if the class matches the
+     * configured test class patterns
+     */
+    public boolean isTestClass( String className ) {
+        Boolean testClass = testClasses.get( className );
+        if ( testClass == null ) {
+            testClass = testClassPatterns.matches( className );
+            testClasses.put( className, testClass );
+        }
+        return testClass;
+    }
+
+    public boolean shouldTestBeSkipped( String testName ) {
+        return getTestsToSkip().contains( testName );
+    }
+
+    public boolean shouldTestBeSkipped( String className, String methodName ) {
+        return getTestsToSkip().contains( className, methodName );
+    }
+
+    /**
+     * @param methodName the name of the test method, for a single invocation followed by the
+     *                   invocation in brackets; an invocation is also skipped if its whole test
+     *                   method is (see {@link TestName})
+     */
+    public boolean shouldInvocationBeSkipped( String className, String methodName ) {
+        SkipList list = getTestsToSkip();
+        String name = TestName.sanitize( methodName );
+        if ( list.contains( className, name ) ) {
+            return true;
+        }
+        int invocation = name.indexOf( '[' );
+        return invocation > 0 && list.contains( className, name.substring( 0, invocation ) );
+    }
+
+    /**
+     * @return true if the early-fail budget is used up, i.e. at least that many tests that are not
+     * low risk have failed in this JVM, and the test is one of the low risk tests; such a test should
+     * not run and be recorded with {@link #recordNotRun(String)}
+     */
+    public boolean shouldSkipAfterFailures( String className, String methodName ) {
+        if ( earlyFailBudget <= 0 || failures.get() < earlyFailBudget ) {
+            return false;
+        }
+        return isLowRisk( TestName.of( className, methodName ) );
+    }
+
+    /**
+     * The list is read when the first test fails, JVMs without failures never read it.
+     */
+    private boolean isLowRisk( String testName ) {
+        SkipList list = lowRiskTests;
+        if ( list == null ) {
+            synchronized ( this ) {
+                list = lowRiskTests;
+                if ( list == null ) {
+                    list = SkipList.read( lowRiskFile );
+                    lowRiskTests = list;
+                }
+            }
+        }
+        String testMethod = TestName.withoutInvocation( testName );
+        return list.contains( testName ) || !testMethod.equals( testName ) && list.contains( testMethod );
+    }
+
+    /**
+     * The list is read when the first test asks for it, JVMs that do not run any tests never read it.
+     */
+    private SkipList getTestsToSkip() {
+        SkipList list = testsToSkip;
+        if ( list == null ) {
+            synchronized ( this ) {
+                list = testsToSkip;
+                if ( list == null ) {
+                    list = SkipList.read( skipFile );
+                    testsToSkip = list;
+                }
+            }
+        }
+        return list;
+    }
+
+    public void recordResult( String testName, int result, long duration ) throws IOException {
+        // a failing low risk test is what the budget protects against, it must not use the budget up
+        if ( result == FAILED && earlyFailBudget > 0 && !isLowRisk( testName ) ) {
+            failures.incrementAndGet();
+        }
+        recorder.record( testName, result, duration );
+    }
+
+    public void recordStarted( String testName ) throws IOException {
+        recorder.started( testName );
+    }
+
+    public void recordAborted( String testName ) throws IOException {
+        recorder.aborted( testName );
+    }
+
+    public void recordNotRun( String testName ) throws IOException {
+        recorder.record( testName, NOT_RUN, 0 );
+    }
+
+    public boolean isRecordingImpact() {
+        return impactFile != null;
+    }
+
+    /**
+     * Appends <code>testName:class1,class2,...</code> with a single write. Nested classes count as
+     * their top level class, which is what the pre-skip-test goal compares.
+     */
+    public void recordImpact( String testName, Set<String> classes ) throws IOException {
+        Set<String> topLevelClasses = new TreeSet<>();
+        for ( String className : classes ) {
+            int nested = className.indexOf( '$' );
+            topLevelClasses.add( nested > 0 ? className.substring( 0, nested ) : className );
+        }
+        StringBuilder line = new StringBuilder( testName ).append( ':' );
+        for ( String className : topLevelClasses ) {
+            if ( line.charAt( line.length() - 1 ) != ':' ) {
+                line.append( ',' );
+            }
+            line.append( className );
+        }
+        ByteBuffer bytes = Charset.defaultCharset().encode( line.append( CRLF ).toString() );
+        try ( FileChannel out = FileChannel.open( impactFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND ) ) {
+            while ( bytes.hasRemaining() ) {
+                out.write( bytes );
+            }
+        }
+    }
+
+    public void flush() throws IOException {
+        recorder.flush();
+    }
+}
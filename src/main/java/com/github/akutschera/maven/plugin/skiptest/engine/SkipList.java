@@ -0,0 +1,210 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The tests to skip (skip.txt), one test name per line. Besides the plain list, the file can be
+ * written sorted (marked by a first line {@value #SORTED_HEADER}), which makes grouping the
+ * tests by class cheaper for the test JVM, and, in addition, gzip compressed. The format is
+ * detected when the file is read.
+ */
+public abstract class SkipList {
+
+    public static final String FORMAT_TEXT = "text";
+    public static final String FORMAT_SORTED = "sorted";
+    public static final String FORMAT_GZIP = "gzip";
+
+    static final String SORTED_HEADER = "#skiptest sorted";
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    public abstract boolean contains( String testName );
+
+    public abstract boolean contains( String className, String methodName );
+
+    public abstract int size();
+
+    public static boolean isFormat( String format ) {
+        return FORMAT_TEXT.equals( format ) || FORMAT_SORTED.equals( format ) || FORMAT_GZIP.equals( format );
+    }
+
+    public static void write( Collection<String> testsToSkip, String format, OutputStream out ) throws IOException {
+        OutputStream stream = FORMAT_GZIP.equals( format ) ? new GZIPOutputStream( out, 64 * 1024 ) : out;
+        Writer writer = new OutputStreamWriter( stream );
+        Collection<String> lines = testsToSkip;
+        if ( !FORMAT_TEXT.equals( format ) ) {
+            List<String> sorted = new ArrayList<>( testsToSkip );
+            Collections.sort( sorted );
+            lines = sorted;
+            writer.write( SORTED_HEADER );
+            writer.write( SkipEngine.CRLF );
+        }
+        for ( String testToSkip : lines ) {
+            writer.write( testToSkip );
+            writer.write( SkipEngine.CRLF );
+        }
+        writer.flush();
+        if ( stream instanceof GZIPOutputStream ) {
+            ( (GZIPOutputStream) stream ).finish();
+        }
+    }
+
+    /**
+     * @return the tests to skip, an empty list if the file does not exist or cannot be read
+     */
+    public static SkipList read( File file ) {
+        try {
+            return GroupedSkipList.of( readTestNames( file ).iterator() );
+        } catch ( IOException e ) {
+            // file cannot be read, execute everything
+            return GroupedSkipList.of( Collections.<String>emptyIterator() );
+        }
+    }
+
+    /**
+     * @return the names of the tests to skip in the order of the file, an empty list if the file does
+     * not exist
+     */
+    public static List<String> readTestNames( File file ) throws IOException {
+        List<String> testsToSkip = new ArrayList<>();
+        if ( !file.isFile() ) {
+            return testsToSkip;
+        }
+        try ( BufferedReader reader = new BufferedReader( new InputStreamReader( open( file ) ), 64 * 1024 ) ) {
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                if ( !line.isEmpty() && !SORTED_HEADER.equals( line ) ) {
+                    testsToSkip.add( line );
+                }
+            }
+        }
+        return testsToSkip;
+    }
+
+    private static InputStream open( File file ) throws IOException {
+        InputStream in = new BufferedInputStream( new FileInputStream( file ), 64 * 1024 );
+        in.mark( 2 );
+        int magic = in.read() | ( in.read() << 8 );
+        in.reset();
+        return magic == GZIP_MAGIC ? new GZIPInputStream( in, 64 * 1024 ) : in;
+    }
+
+    /**
+     * Keeps the method names grouped by class: every class name is stored once, its methods in a
+     * sorted array, and method names that occur in several classes share one instance.
+     */
+    private static final class GroupedSkipList extends SkipList {
+
+        private final Map<String, String[]> methodsByClass;
+        private final int size;
+
+        private GroupedSkipList( Map<String, String[]> methodsByClass, int size ) {
+            this.methodsByClass = methodsByClass;
+            this.size = size;
+        }
+
+        /**
+         * Tests of the same class that follow each other (as in a sorted list) are grouped without
+         * looking up their class again.
+         */
+        static SkipList of( Iterator<String> testsToSkip ) {
+            Map<String, List<String>> groupedTests = new HashMap<>();
+            Map<String, String> methodNames = new HashMap<>();
+            String currentClass = null;
+            List<String> currentMethods = null;
+            while ( testsToSkip.hasNext() ) {
+                String testName = testsToSkip.next();
+                int separator = TestName.separatorOf( testName );
+                if ( currentClass == null || separator != currentClass.length()
+                        || !testName.startsWith( currentClass ) ) {
+                    currentClass = separator < 0 ? "" : testName.substring( 0, separator );
+                    currentMethods = groupedTests.get( currentClass );
+                    if ( currentMethods == null ) {
+                        currentMethods = new ArrayList<>( 4 );
+                        groupedTests.put( currentClass, currentMethods );
+                    }
+                }
+                String methodName = testName.substring( separator + 1 );
+                String sharedMethodName = methodNames.get( methodName );
+                if ( sharedMethodName == null ) {
+                    methodNames.put( methodName, methodName );
+                    sharedMethodName = methodName;
+                }
+                currentMethods.add( sharedMethodName );
+            }
+
+            Map<String, String[]> methodsByClass = new HashMap<>( groupedTests.size() * 4 / 3 + 1 );
+            int size = 0;
+            for ( Map.Entry<String, List<String>> entry : groupedTests.entrySet() ) {
+                String[] methods = sortedWithoutDuplicates( entry.getValue() );
+                methodsByClass.put( entry.getKey(), methods );
+                size += methods.length;
+            }
+            return new GroupedSkipList( methodsByClass, size );
+        }
+
+        private static String[] sortedWithoutDuplicates( List<String> methods ) {
+            String[] sorted = methods.toArray( new String[methods.size()] );
+            Arrays.sort( sorted );
+            int unique = 0;
+            for ( String method : sorted ) {
+                if ( unique == 0 || !method.equals( sorted[unique - 1] ) ) {
+                    sorted[unique++] = method;
+                }
+            }
+            return unique == sorted.length ? sorted : Arrays.copyOf( sorted, unique );
+        }
+
+        @Override
+        public boolean contains( String testName ) {
+            int separator = TestName.separatorOf( testName );
+            return contains( separator < 0 ? "" : testName.substring( 0, separator ),
+                    testName.substring( separator + 1 ) );
+        }
+
+        @Override
+        public boolean contains( String className, String methodName ) {
+            String[] methods = methodsByClass.get( className );
+            return methods != null && Arrays.binarySearch( methods, methodName ) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
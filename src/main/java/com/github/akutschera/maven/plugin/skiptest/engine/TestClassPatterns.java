@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which test classes the plugin skips and records, with include and exclude patterns in the
+ * style of surefire and failsafe: <code>**&#47;*IntegrationTest.java</code> matches the classes whose
+ * name ends with IntegrationTest in any package. A pattern is matched against the path of the source
+ * file of the class, "**&#47;" stands for any number of packages, "*" for any part of a name and "?"
+ * for a single character; the suffix .java (or .class) may be left out. A class is a test class if
+ * it matches an include and no exclude pattern. Without includes, the classes whose name ends with IT
+ * are test classes, as they always were for this plugin.
+ */
+public final class TestClassPatterns {
+
+    public static final List<String> DEFAULT_INCLUDES = Collections.singletonList( "**/*IT.java" );
+
+    private final List<Pattern> includes;
+    private final List<Pattern> excludes;
+
+    public TestClassPatterns( Collection<String> includes, Collection<String> excludes ) {
+        this.includes = compile( includes == null || includes.isEmpty() ? DEFAULT_INCLUDES : includes );
+        this.excludes = compile( excludes == null ? Collections.<String>emptyList() : excludes );
+    }
+
+    /**
+     * @param includes the include patterns separated by commas, empty for the defaults
+     * @param excludes the exclude patterns separated by commas
+     */
+    public static TestClassPatterns parse( String includes, String excludes ) {
+        return new TestClassPatterns( split( includes ), split( excludes ) );
+    }
+
+    /**
+     * @return the patterns separated by commas, as {@link #parse(String, String)} reads them
+     */
+    public static String join( Collection<String> patterns ) {
+        StringBuilder joined = new StringBuilder();
+        if ( patterns != null ) {
+            for ( String pattern : patterns ) {
+                if ( joined.length() > 0 ) {
+                    joined.append( ',' );
+                }
+                joined.append( pattern.trim() );
+            }
+        }
+        return joined.toString();
+    }
+
+    /**
+     * @param className the fully qualified name of a class, a nested class counts as its top level class
+     */
+    public boolean matches( String className ) {
+        int nested = className.indexOf( '$' );
+        String path = ( nested > 0 ? className.substring( 0, nested ) : className ).replace( '.', '/' );
+        return matchesAny( includes, path ) && !matchesAny( excludes, path );
+    }
+
+    private static boolean matchesAny( List<Pattern> patterns, String path ) {
+        for ( Pattern pattern : patterns ) {
+            if ( pattern.matcher( path ).matches() ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> split( String patterns ) {
+        List<String> split = new ArrayList<>();
+        for ( String pattern : patterns.split( "," ) ) {
+            if ( !pattern.trim().isEmpty() ) {
+                split.add( pattern.trim() );
+            }
+        }
+        return split;
+    }
+
+    private static List<Pattern> compile( Collection<String> patterns ) {
+        List<Pattern> compiled = new ArrayList<>( patterns.size() );
+        for ( String pattern : patterns ) {
+            compiled.add( compile( pattern.trim() ) );
+        }
+        return compiled;
+    }
+
+    static Pattern compile( String pattern ) {
+        String path = pattern.replace( '\\', '/' );
+        if ( path.endsWith( ".java" ) || path.endsWith( ".class" ) ) {
+            path = path.substring( 0, path.lastIndexOf( '.' ) );
+        }
+        StringBuilder regex = new StringBuilder();
+        for ( int i = 0; i < path.length(); i++ ) {
+            char c = path.charAt( i );
+            if ( path.startsWith( "**/", i ) ) {
+                regex.append( "(?:.*/)?" );
+                i += 2;
+            } else if ( path.startsWith( "**", i ) ) {
+                regex.append( ".*" );
+                i++;
+            } else if ( c == '*' ) {
+                regex.append( "[^/]*" );
+            } else if ( c == '?' ) {
+                regex.append( "[^/]" );
+            } else {
+                regex.append( Pattern.quote( String.valueOf( c ) ) );
+            }
+        }
+        return Pattern.compile( regex.toString() );
+    }
+}
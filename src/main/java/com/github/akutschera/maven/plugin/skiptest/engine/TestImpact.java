@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the classes of the production code that each running test executes. The classes are
+ * reported by {@link com.github.akutschera.maven.plugin.skiptest.aspect.TestImpactAspect}, from any
+ * thread: a class that is executed while several tests run in parallel is counted for all of them,
+ * which may make a test look affected by more classes than it is, but never by less.
+ */
+public final class TestImpact {
+
+    private static volatile List<Set<String>> runningTests = Collections.emptyList();
+
+    private TestImpact() {
+    }
+
+    /**
+     * @return the set that collects the classes of the test that starts now
+     */
+    public static synchronized Set<String> start() {
+        Set<String> classes = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+        List<Set<String>> tests = new ArrayList<>( runningTests );
+        tests.add( classes );
+        runningTests = tests;
+        return classes;
+    }
+
+    /**
+     * @return the classes the test has executed
+     */
+    public static synchronized Set<String> finish( Set<String> classes ) {
+        List<Set<String>> tests = new ArrayList<>( runningTests );
+        // by identity: tests that executed the same classes have equal sets
+        for ( int i = 0; i < tests.size(); i++ ) {
+            if ( tests.get( i ) == classes ) {
+                tests.remove( i );
+                break;
+            }
+        }
+        runningTests = tests;
+        return classes;
+    }
+
+    public static void touched( String className ) {
+        List<Set<String>> tests = runningTests;
+        for ( int i = 0; i < tests.size(); i++ ) {
+            tests.get( i ).add( className );
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+/**
+ * The name under which a test is skipped and recorded: <code>className.methodName</code>, and for
+ * a single invocation of a test that runs several times (JUnit 4 Parameterized, Jupiter's
+ * parameterized, repeated and dynamic tests) <code>className.methodName[invocation]</code>. The
+ * invocation is the name the JUnit 4 runner gives it (by default the index of the parameters) or
+ * the index of the invocation on the JUnit Platform, so every invocation is skipped and tracked on
+ * its own. Characters that would break the history files (the field separator ':' and line
+ * breaks) are replaced in the invocation.
+ */
+public final class TestName {
+
+    private TestName() {
+    }
+
+    public static String of( String className, String methodName ) {
+        return className + "." + sanitize( methodName );
+    }
+
+    public static String of( String className, String methodName, String invocation ) {
+        return className + "." + methodName + "[" + sanitize( invocation ) + "]";
+    }
+
+    /**
+     * @return the method name (with its invocation, if any) with ':' and line breaks replaced
+     */
+    public static String sanitize( String methodName ) {
+        if ( methodName.indexOf( ':' ) < 0 && methodName.indexOf( '\n' ) < 0 && methodName.indexOf( '\r' ) < 0 ) {
+            return methodName;
+        }
+        return methodName.replace( ':', '_' ).replace( '\n', '_' ).replace( '\r', '_' );
+    }
+
+    /**
+     * @return the position of the dot between class and method name; dots in the invocation do not count
+     */
+    public static int separatorOf( String testName ) {
+        int invocation = testName.indexOf( '[' );
+        return invocation < 0 ? testName.lastIndexOf( '.' ) : testName.lastIndexOf( '.', invocation );
+    }
+
+    /**
+     * @return the class name, an empty string if the test name has no class
+     */
+    public static String classNameOf( String testName ) {
+        int separator = separatorOf( testName );
+        return separator < 0 ? "" : testName.substring( 0, separator );
+    }
+
+    /**
+     * @return the method name including the invocation
+     */
+    public static String methodNameOf( String testName ) {
+        return testName.substring( separatorOf( testName ) + 1 );
+    }
+
+    /**
+     * @return the name of the test method an invocation belongs to, the test name itself for anything else
+     */
+    public static String withoutInvocation( String testName ) {
+        int invocation = testName.indexOf( '[' );
+        return invocation < 0 ? testName : testName.substring( 0, invocation );
+    }
+}
@@ -0,0 +1,524 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.history;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact binary form of the test history that can be memory-mapped instead of parsed. The file
+ * starts with a header (magic number, format version, number of records), followed by one fixed
+ * width record per test and a string table with the UTF-8 encoded test names:
+ * <pre>
+ * header:  int magic, int version, int numberOfRecords
+ * record:  int nameOffset, int nameLength, int successfulRuns, long averageDuration, int missingBuilds,
+ *          int skippedBuilds, long lastRun, int runs, double passRate, long lastFailure
+ * strings: the names, nameOffset is relative to the start of this table
+ * </pre>
+ * All numbers are big endian. Since version 5 the records are sorted by the bytes of their names, so
+ * a test is looked up with a binary search right in the mapping. Files of older versions can still
+ * be read: version 1 has records without the last six fields, version 2 without the last five and
+ * version 3 without the last three; up to version 4 the records are not sorted.
+ */
+public final class BinaryHistoryFile {
+
+    static final int MAGIC = 0x534b5448;
+    static final int VERSION = 5;
+    static final int FIRST_SORTED_VERSION = 5;
+    static final int HEADER_SIZE = 12;
+    static final int RECORD_SIZE = 56;
+    static final int RECORD_SIZE_VERSION_1 = 20;
+    static final int RECORD_SIZE_VERSION_2 = 24;
+    static final int RECORD_SIZE_VERSION_3 = 36;
+
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+    private BinaryHistoryFile() {
+    }
+
+    /**
+     * @return true if the file exists and starts with the magic number of the binary format
+     */
+    public static boolean isBinary( File file ) {
+        if ( !file.isFile() || file.length() < HEADER_SIZE ) {
+            return false;
+        }
+        try ( DataInputStream in = new DataInputStream( new FileInputStream( file ) ) ) {
+            return in.readInt() == MAGIC;
+        } catch ( IOException e ) {
+            return false;
+        }
+    }
+
+    public static void write( Map<String, TestRecord> history, OutputStream out ) throws IOException {
+        List<Entry<byte[], TestRecord>> records = new ArrayList<>( history.size() );
+        for ( Entry<String, TestRecord> entry : history.entrySet() ) {
+            records.add( new AbstractMap.SimpleImmutableEntry<>( entry.getKey().getBytes( UTF_8 ), entry.getValue() ) );
+        }
+        Collections.sort( records, new Comparator<Entry<byte[], TestRecord>>() {
+
+            @Override
+            public int compare( Entry<byte[], TestRecord> first, Entry<byte[], TestRecord> second ) {
+                return compareBytes( first.getKey(), second.getKey() );
+            }
+        } );
+
+        DataOutputStream data = new DataOutputStream( out );
+        data.writeInt( MAGIC );
+        data.writeInt( VERSION );
+        data.writeInt( records.size() );
+        int nameOffset = 0;
+        for ( Entry<byte[], TestRecord> entry : records ) {
+            int nameLength = entry.getKey().length;
+            data.writeInt( nameOffset );
+            data.writeInt( nameLength );
+            data.writeInt( entry.getValue().getSuccessfulRuns() );
+            data.writeLong( entry.getValue().getAverageDuration() );
+            data.writeInt( entry.getValue().getMissingBuilds() );
+            data.writeInt( entry.getValue().getSkippedBuilds() );
+            data.writeLong( entry.getValue().getLastRun() );
+            data.writeInt( entry.getValue().getRuns() );
+            data.writeDouble( entry.getValue().getPassRate() );
+            data.writeLong( entry.getValue().getLastFailure() );
+            nameOffset += nameLength;
+        }
+        for ( Entry<byte[], TestRecord> entry : records ) {
+            data.write( entry.getKey() );
+        }
+        data.flush();
+    }
+
+    private static int compareBytes( byte[] first, byte[] second ) {
+        int length = Math.min( first.length, second.length );
+        for ( int i = 0; i < length; i++ ) {
+            int difference = ( first[i] & 0xff ) - ( second[i] & 0xff );
+            if ( difference != 0 ) {
+                return difference;
+            }
+        }
+        return first.length - second.length;
+    }
+
+    /**
+     * @return a modifiable copy of the history, use {@link View#asMap()} to only read it
+     */
+    public static Map<String, TestRecord> read( File file ) throws IOException {
+        View view = open( file );
+        Map<String, TestRecord> history = new HashMap<>( view.size() * 4 / 3 + 1 );
+        for ( int i = 0; i < view.size(); i++ ) {
+            history.put( view.getName( i ), view.getRecord( i ) );
+        }
+        return history;
+    }
+
+    /**
+     * Maps the file into memory. The mapping stays valid after the file has been closed or replaced,
+     * until it is released with {@link View#close()}. Release it before the file is replaced: on
+     * Windows a file that is still mapped cannot be renamed or deleted.
+     */
+    public static View open( File file ) throws IOException {
+        try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) ) {
+            if ( channel.size() > Integer.MAX_VALUE ) {
+                throw new IOException( file + " is too large to be mapped" );
+            }
+            MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            return new View( buffer, file );
+        }
+    }
+
+    /**
+     * Releases the mapping of a history returned by {@link View#asMap()}; any other map is left alone.
+     */
+    public static void release( Map<String, TestRecord> history ) {
+        if ( history instanceof RecordMap ) {
+            ( (RecordMap) history ).view.close();
+        }
+    }
+
+    /**
+     * Random access to the records of a mapped history file. Numbers are read directly from the
+     * mapping, names are only decoded on request.
+     */
+    public static final class View implements Closeable {
+
+        private final MappedByteBuffer mapping;
+        private ByteBuffer buffer;
+        private final int size;
+        private final int recordSize;
+        private final boolean sortedByName;
+        private final int stringTableOffset;
+
+        View( MappedByteBuffer buffer, File file ) throws IOException {
+            if ( buffer.limit() < HEADER_SIZE || buffer.getInt( 0 ) != MAGIC ) {
+                throw new IOException( file + " is not a binary test history" );
+            }
+            int version = buffer.getInt( 4 );
+            if ( version < 1 || version > VERSION ) {
+                throw new IOException( file + " has unsupported version " + version );
+            }
+            this.mapping = buffer;
+            this.buffer = buffer;
+            recordSize = recordSizeOf( version );
+            sortedByName = version >= FIRST_SORTED_VERSION;
+            size = buffer.getInt( 8 );
+            long recordsEnd = HEADER_SIZE + (long) size * recordSize;
+            if ( size < 0 || recordsEnd > buffer.limit() ) {
+                throw new IOException( file + " is truncated" );
+            }
+            stringTableOffset = (int) recordsEnd;
+        }
+
+        private static int recordSizeOf( int version ) {
+            switch ( version ) {
+                case 1:
+                    return RECORD_SIZE_VERSION_1;
+                case 2:
+                    return RECORD_SIZE_VERSION_2;
+                case 3:
+                    return RECORD_SIZE_VERSION_3;
+                default:
+                    return RECORD_SIZE;
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public String getName( int index ) {
+            int nameStart = nameStart( index );
+            byte[] name = new byte[nameLength( index )];
+            ByteBuffer strings = buffer.duplicate();
+            strings.position( nameStart );
+            strings.get( name );
+            return new String( name, UTF_8 );
+        }
+
+        /**
+         * @return the index of the record of the test or -1 if there is none; the names of the
+         * records are compared in the mapping, nothing is decoded
+         * @throws UnsupportedOperationException if the file was written before version 5, its records
+         *                                       are not sorted
+         */
+        public int indexOf( String name ) {
+            if ( !sortedByName ) {
+                throw new UnsupportedOperationException( "the records of this file are not sorted by name" );
+            }
+            byte[] key = name.getBytes( UTF_8 );
+            int low = 0;
+            int high = size - 1;
+            while ( low <= high ) {
+                int middle = ( low + high ) >>> 1;
+                int comparison = compareName( middle, key );
+                if ( comparison < 0 ) {
+                    low = middle + 1;
+                } else if ( comparison > 0 ) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        public boolean isSortedByName() {
+            return sortedByName;
+        }
+
+        private int compareName( int index, byte[] key ) {
+            int nameStart = nameStart( index );
+            int nameLength = nameLength( index );
+            int length = Math.min( nameLength, key.length );
+            for ( int i = 0; i < length; i++ ) {
+                int difference = ( buffer.get( nameStart + i ) & 0xff ) - ( key[i] & 0xff );
+                if ( difference != 0 ) {
+                    return difference;
+                }
+            }
+            return nameLength - key.length;
+        }
+
+        private int nameLength( int index ) {
+            return buffer.getInt( recordPosition( index ) + 4 );
+        }
+
+        private int nameStart( int index ) {
+            int position = recordPosition( index );
+            int nameOffset = buffer.getInt( position );
+            int nameLength = buffer.getInt( position + 4 );
+            long nameStart = stringTableOffset + (long) nameOffset;
+            if ( nameOffset < 0 || nameLength < 0 || nameStart + nameLength > buffer.limit() ) {
+                throw new IndexOutOfBoundsException( "name of record " + index + " is outside of the file" );
+            }
+            return (int) nameStart;
+        }
+
+        public int getSuccessfulRuns( int index ) {
+            return buffer.getInt( recordPosition( index ) + 8 );
+        }
+
+        public long getAverageDuration( int index ) {
+            return buffer.getLong( recordPosition( index ) + 12 );
+        }
+
+        public int getMissingBuilds( int index ) {
+            return recordSize == RECORD_SIZE_VERSION_1 ? 0 : buffer.getInt( recordPosition( index ) + 20 );
+        }
+
+        public int getSkippedBuilds( int index ) {
+            return recordSize < RECORD_SIZE_VERSION_3 ? 0 : buffer.getInt( recordPosition( index ) + 24 );
+        }
+
+        public long getLastRun( int index ) {
+            return recordSize < RECORD_SIZE_VERSION_3 ? TestRecord.UNKNOWN_LAST_RUN
+                    : buffer.getLong( recordPosition( index ) + 28 );
+        }
+
+        public int getRuns( int index ) {
+            return recordSize < RECORD_SIZE ? 0 : buffer.getInt( recordPosition( index ) + 36 );
+        }
+
+        public double getPassRate( int index ) {
+            return recordSize < RECORD_SIZE ? 0 : buffer.getDouble( recordPosition( index ) + 40 );
+        }
+
+        public long getLastFailure( int index ) {
+            return recordSize < RECORD_SIZE ? TestRecord.NEVER_FAILED : buffer.getLong( recordPosition( index ) + 48 );
+        }
+
+        public TestRecord getRecord( int index ) {
+            TestRecord record = new TestRecord( getSuccessfulRuns( index ), getAverageDuration( index ) );
+            record.setMissingBuilds( getMissingBuilds( index ) );
+            record.setSkippedBuilds( getSkippedBuilds( index ) );
+            record.setLastRun( getLastRun( index ) );
+            record.setRuns( getRuns( index ) );
+            record.setPassRate( getPassRate( index ) );
+            record.setLastFailure( getLastFailure( index ) );
+            return record;
+        }
+
+        /**
+         * @return the history as a read-only map that decodes the records on access instead of copying
+         * them. A test is looked up with {@link #indexOf(String)}; only for files written before
+         * version 5 all names are decoded into an index on the first lookup.
+         */
+        public Map<String, TestRecord> asMap() {
+            return new RecordMap( this );
+        }
+
+        /**
+         * Unmaps the file right away instead of waiting for the garbage collector. The view must not
+         * be used afterwards.
+         */
+        @Override
+        public synchronized void close() {
+            if ( buffer != null ) {
+                buffer = null;
+                unmap( mapping );
+            }
+        }
+
+        private int recordPosition( int index ) {
+            if ( buffer == null ) {
+                throw new IllegalStateException( "the mapped history has been released" );
+            }
+            if ( index < 0 || index >= size ) {
+                throw new IndexOutOfBoundsException( "no record " + index );
+            }
+            // the constructor made sure that all records lie within the mapping
+            return (int) ( HEADER_SIZE + (long) index * recordSize );
+        }
+    }
+
+    private static final class RecordMap extends AbstractMap<String, TestRecord> {
+
+        private final View view;
+        private Map<String, Integer> indexByName;
+
+        RecordMap( View view ) {
+            this.view = view;
+        }
+
+        @Override
+        public int size() {
+            return view.size();
+        }
+
+        @Override
+        public boolean containsKey( Object name ) {
+            return indexOf( name ) >= 0;
+        }
+
+        @Override
+        public TestRecord get( Object name ) {
+            int index = indexOf( name );
+            return index < 0 ? null : view.getRecord( index );
+        }
+
+        private int indexOf( Object name ) {
+            if ( !( name instanceof String ) ) {
+                return -1;
+            }
+            if ( view.isSortedByName() ) {
+                return view.indexOf( (String) name );
+            }
+            Integer index = indexByName().get( name );
+            return index == null ? -1 : index;
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return new AbstractSet<String>() {
+
+                @Override
+                public Iterator<String> iterator() {
+                    return new IndexIterator<String>( view.size() ) {
+
+                        @Override
+                        String get( int index ) {
+                            return view.getName( index );
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains( Object name ) {
+                    return containsKey( name );
+                }
+
+                @Override
+                public int size() {
+                    return view.size();
+                }
+            };
+        }
+
+        @Override
+        public Set<Entry<String, TestRecord>> entrySet() {
+            return new AbstractSet<Entry<String, TestRecord>>() {
+
+                @Override
+                public Iterator<Entry<String, TestRecord>> iterator() {
+                    return new IndexIterator<Entry<String, TestRecord>>( view.size() ) {
+
+                        @Override
+                        Entry<String, TestRecord> get( int index ) {
+                            return new SimpleImmutableEntry<>( view.getName( index ), view.getRecord( index ) );
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return view.size();
+                }
+            };
+        }
+
+        /**
+         * Only for files written before version 5, post-skip-test writes the current version.
+         */
+        private synchronized Map<String, Integer> indexByName() {
+            if ( indexByName == null ) {
+                indexByName = new HashMap<>( view.size() * 4 / 3 + 1 );
+                for ( int i = 0; i < view.size(); i++ ) {
+                    indexByName.put( view.getName( i ), i );
+                }
+            }
+            return indexByName;
+        }
+    }
+
+    /**
+     * Unmaps the buffer through the JDK internals that are there for it (Unsafe.invokeCleaner since
+     * Java 9, the cleaner of the buffer before). If neither is accessible, the garbage collector
+     * releases the mapping as before.
+     */
+    private static void unmap( MappedByteBuffer buffer ) {
+        try {
+            Class<?> unsafeClass = Class.forName( "sun.misc.Unsafe" );
+            Method invokeCleaner = unsafeClass.getMethod( "invokeCleaner", ByteBuffer.class );
+            Field theUnsafe = unsafeClass.getDeclaredField( "theUnsafe" );
+            theUnsafe.setAccessible( true );
+            invokeCleaner.invoke( theUnsafe.get( null ), buffer );
+        } catch ( NoSuchMethodException e ) {
+            try {
+                Object cleaner = Class.forName( "sun.nio.ch.DirectBuffer" ).getMethod( "cleaner" ).invoke( buffer );
+                if ( cleaner != null ) {
+                    Class.forName( "sun.misc.Cleaner" ).getMethod( "clean" ).invoke( cleaner );
+                }
+            } catch ( ReflectiveOperationException | RuntimeException ignored ) {
+                // left to the garbage collector
+            }
+        } catch ( ReflectiveOperationException | RuntimeException ignored ) {
+            // left to the garbage collector
+        }
+    }
+
+    private abstract static class IndexIterator<T> implements Iterator<T> {
+
+        private final int size;
+        private int next;
+
+        IndexIterator( int size ) {
+            this.size = size;
+        }
+
+        abstract T get( int index );
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public T next() {
+            if ( next >= size ) {
+                throw new NoSuchElementException();
+            }
+            return get( next++ );
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException( "the mapped history is read-only" );
+        }
+    }
+}
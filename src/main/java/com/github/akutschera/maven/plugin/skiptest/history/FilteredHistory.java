@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.history;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The tests of a history that pass a filter, as a read-only view of the history. Selecting the tests
+ * to skip narrows the history down several times; a view costs nothing up front, where a copy of a
+ * large history costs as much as reading it. The history must not change while the view is used.
+ */
+public abstract class FilteredHistory extends AbstractMap<String, TestRecord> {
+
+    private final Map<String, TestRecord> history;
+    private int size = -1;
+
+    protected FilteredHistory( Map<String, TestRecord> history ) {
+        this.history = history;
+    }
+
+    /**
+     * @return true if the test belongs to the view
+     */
+    protected abstract boolean accepts( String testName, TestRecord record );
+
+    @Override
+    public TestRecord get( Object testName ) {
+        TestRecord record = history.get( testName );
+        return record != null && accepts( (String) testName, record ) ? record : null;
+    }
+
+    @Override
+    public boolean containsKey( Object testName ) {
+        return get( testName ) != null;
+    }
+
+    @Override
+    public int size() {
+        if ( size < 0 ) {
+            int count = 0;
+            for ( Entry<String, TestRecord> entry : history.entrySet() ) {
+                if ( accepts( entry.getKey(), entry.getValue() ) ) {
+                    count++;
+                }
+            }
+            size = count;
+        }
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, TestRecord>> entrySet() {
+        return new AbstractSet<Entry<String, TestRecord>>() {
+
+            @Override
+            public Iterator<Entry<String, TestRecord>> iterator() {
+                return new FilteredIterator( history.entrySet().iterator() );
+            }
+
+            @Override
+            public int size() {
+                return FilteredHistory.this.size();
+            }
+        };
+    }
+
+    private final class FilteredIterator implements Iterator<Entry<String, TestRecord>> {
+
+        private final Iterator<Entry<String, TestRecord>> entries;
+        private Entry<String, TestRecord> next;
+
+        FilteredIterator( Iterator<Entry<String, TestRecord>> entries ) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ( next == null && entries.hasNext() ) {
+                Entry<String, TestRecord> entry = entries.next();
+                if ( accepts( entry.getKey(), entry.getValue() ) ) {
+                    next = entry;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry<String, TestRecord> next() {
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, TestRecord> entry = next;
+            next = null;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException( "the history is read-only" );
+        }
+    }
+}
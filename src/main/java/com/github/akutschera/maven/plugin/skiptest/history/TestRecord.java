@@ -0,0 +1,268 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.history;
+
+/**
+ * Everything we remember about one test from all previous runs. In the history file a record is
+ * written as <code>testName:successfulRuns:averageDuration</code>, older history files that only
+ * contain <code>testName:successfulRuns</code> are still understood (with an unknown duration). A
+ * test that could not be found in the test classes has a fourth field, the number of builds it has
+ * been missing in, and a test that has been skipped or whose last run is known has two more, the
+ * number of builds it has been skipped in a row and the time it last ran (in milliseconds since the
+ * epoch): <code>testName:successfulRuns:averageDuration:missingBuilds:skippedBuilds:lastRun</code>.
+ * Once a run has been recorded, three statistics follow, the number of recorded runs, the decayed
+ * pass rate and the time of the last failure:
+ * <code>...:lastRun:runs:passRate:lastFailure</code>.
+ */
+public class TestRecord {
+
+    public static final long UNKNOWN_DURATION = -1;
+    public static final long UNKNOWN_LAST_RUN = 0;
+    public static final long NEVER_FAILED = 0;
+
+    /**
+     * Weight of the latest run in the moving average of the duration.
+     */
+    static final double DURATION_WEIGHT = 0.3;
+
+    /**
+     * The pass rate is the plain average of the first runs up to this number. After that, every
+     * run has this share in the pass rate (1 / PASS_RATE_WINDOW), so old failures fade out.
+     */
+    static final int PASS_RATE_WINDOW = 50;
+
+    private int successfulRuns;
+    private long averageDuration;
+    private int missingBuilds;
+    private int skippedBuilds;
+    private long lastRun = UNKNOWN_LAST_RUN;
+    private int runs;
+    private double passRate;
+    private long lastFailure = NEVER_FAILED;
+
+    public TestRecord( int successfulRuns, long averageDuration ) {
+        this.successfulRuns = successfulRuns;
+        this.averageDuration = averageDuration;
+    }
+
+    public TestRecord( int successfulRuns ) {
+        this( successfulRuns, UNKNOWN_DURATION );
+    }
+
+    /**
+     * @return a record with the same values that can be changed independently of this one
+     */
+    public TestRecord copy() {
+        TestRecord copy = new TestRecord( successfulRuns, averageDuration );
+        copy.missingBuilds = missingBuilds;
+        copy.skippedBuilds = skippedBuilds;
+        copy.lastRun = lastRun;
+        copy.runs = runs;
+        copy.passRate = passRate;
+        copy.lastFailure = lastFailure;
+        return copy;
+    }
+
+    /**
+     * @return the number of consecutive successful runs
+     */
+    public int getSuccessfulRuns() {
+        return successfulRuns;
+    }
+
+    public void setSuccessfulRuns( int successfulRuns ) {
+        this.successfulRuns = successfulRuns;
+    }
+
+    /**
+     * @return the moving average of the duration in milliseconds or {@link #UNKNOWN_DURATION}
+     */
+    public long getAverageDuration() {
+        return averageDuration;
+    }
+
+    public boolean hasDuration() {
+        return averageDuration != UNKNOWN_DURATION;
+    }
+
+    /**
+     * @return the number of consecutive builds in which the test was not found in the test classes
+     */
+    public int getMissingBuilds() {
+        return missingBuilds;
+    }
+
+    public void setMissingBuilds( int missingBuilds ) {
+        this.missingBuilds = missingBuilds;
+    }
+
+    /**
+     * @return the number of builds since the last run in which the test was skipped
+     */
+    public int getSkippedBuilds() {
+        return skippedBuilds;
+    }
+
+    public void setSkippedBuilds( int skippedBuilds ) {
+        this.skippedBuilds = skippedBuilds;
+    }
+
+    /**
+     * @return the time of the last run in milliseconds since the epoch or {@link #UNKNOWN_LAST_RUN}
+     */
+    public long getLastRun() {
+        return lastRun;
+    }
+
+    public void setLastRun( long lastRun ) {
+        this.lastRun = lastRun;
+    }
+
+    /**
+     * @return the number of runs recorded in the statistics, 0 for a record written before the
+     * statistics were kept
+     */
+    public int getRuns() {
+        return runs;
+    }
+
+    public void setRuns( int runs ) {
+        this.runs = runs;
+    }
+
+    /**
+     * @return the share of successful runs, recent runs weighing more than old ones
+     */
+    public double getPassRate() {
+        return passRate;
+    }
+
+    public void setPassRate( double passRate ) {
+        this.passRate = passRate;
+    }
+
+    /**
+     * @return the time of the last failed run in milliseconds since the epoch or {@link #NEVER_FAILED}
+     */
+    public long getLastFailure() {
+        return lastFailure;
+    }
+
+    public void setLastFailure( long lastFailure ) {
+        this.lastFailure = lastFailure;
+    }
+
+    /**
+     * Records a run of the test: a success extends the streak of successful runs, a failure ends it.
+     * Either way the run is added to the pass rate, so a test that failed once in many runs keeps
+     * most of its history. A record without statistics starts them from its streak.
+     */
+    public void addRun( boolean successful, long time ) {
+        if ( runs == 0 && successfulRuns > 0 ) {
+            runs = successfulRuns;
+            passRate = 1;
+        }
+        runs++;
+        passRate += ( ( successful ? 1 : 0 ) - passRate ) / Math.min( runs, PASS_RATE_WINDOW );
+        if ( successful ) {
+            successfulRuns++;
+        } else {
+            successfulRuns = 0;
+            lastFailure = time;
+        }
+        missingBuilds = 0;
+        skippedBuilds = 0;
+        lastRun = time;
+    }
+
+    /**
+     * Estimates the probability that the next run fails from the runs within the pass rate window,
+     * as if there had been one more failed run: (failures + 1) / (runs + 1). A test without
+     * statistics counts its streak as runs without failures, so its estimate is 1 / (n + 1) for n
+     * consecutive successful runs. The extra failure keeps tests with few runs from looking safe.
+     */
+    public double getFailureProbability() {
+        if ( runs == 0 ) {
+            return 1 / ( successfulRuns + 1.0 );
+        }
+        int window = Math.min( runs, PASS_RATE_WINDOW );
+        return ( window * ( 1 - passRate ) + 1 ) / ( window + 1.0 );
+    }
+
+    /**
+     * Adds a new measurement to the moving average of the duration. Unknown durations are ignored.
+     */
+    public void addDuration( long duration ) {
+        if ( duration < 0 ) {
+            return;
+        }
+        if ( hasDuration() ) {
+            averageDuration = Math.round( DURATION_WEIGHT * duration + ( 1 - DURATION_WEIGHT ) * averageDuration );
+        } else {
+            averageDuration = duration;
+        }
+    }
+
+    /**
+     * Reads the part of a history line after the test name.
+     *
+     * @throws IllegalArgumentException if the line is incomplete
+     */
+    public static TestRecord parse( String[] fields ) {
+        if ( fields.length < 2 ) {
+            throw new IllegalArgumentException( "no number of successful runs" );
+        }
+        TestRecord record = new TestRecord( Integer.parseInt( fields[1].trim() ) );
+        if ( fields.length > 2 && !fields[2].trim().isEmpty() ) {
+            record.averageDuration = Long.parseLong( fields[2].trim() );
+        }
+        if ( fields.length > 3 && !fields[3].trim().isEmpty() ) {
+            record.missingBuilds = Integer.parseInt( fields[3].trim() );
+        }
+        if ( fields.length > 4 && !fields[4].trim().isEmpty() ) {
+            record.skippedBuilds = Integer.parseInt( fields[4].trim() );
+        }
+        if ( fields.length > 5 && !fields[5].trim().isEmpty() ) {
+            record.lastRun = Long.parseLong( fields[5].trim() );
+        }
+        if ( fields.length > 8 ) {
+            record.runs = Integer.parseInt( fields[6].trim() );
+            record.passRate = Double.parseDouble( fields[7].trim() );
+            record.lastFailure = Long.parseLong( fields[8].trim() );
+        }
+        return record;
+    }
+
+    public String format( String testName ) {
+        if ( runs > 0 ) {
+            return testName + ":" + successfulRuns + ":" + ( hasDuration() ? String.valueOf( averageDuration ) : "" )
+                    + ":" + missingBuilds + ":" + skippedBuilds + ":" + lastRun + ":" + runs + ":" + passRate
+                    + ":" + lastFailure;
+        }
+        if ( skippedBuilds > 0 || lastRun != UNKNOWN_LAST_RUN ) {
+            return testName + ":" + successfulRuns + ":" + ( hasDuration() ? String.valueOf( averageDuration ) : "" )
+                    + ":" + missingBuilds + ":" + skippedBuilds + ":" + lastRun;
+        }
+        if ( missingBuilds > 0 ) {
+            return testName + ":" + successfulRuns + ":" + ( hasDuration() ? String.valueOf( averageDuration ) : "" )
+                    + ":" + missingBuilds;
+        }
+        if ( hasDuration() ) {
+            return testName + ":" + successfulRuns + ":" + averageDuration;
+        }
+        return testName + ":" + successfulRuns;
+    }
+}
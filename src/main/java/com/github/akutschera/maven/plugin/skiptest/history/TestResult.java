@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.history;
+
+/**
+ * The outcome of one test in the current run as written by the test JVM:
+ * <code>testName:result:duration</code> where result is 1 for success and 0 for failure. The
+ * duration (in milliseconds) is optional. A test that was skipped has the result 2, a test that
+ * was not run because too many tests failed before (the early-fail budget) has the result 3. A test
+ * of the history that pre-skip-test did not find in the test classes has the result 4. A test that
+ * started but has no result (the buffered recording mode writes a marker before every test) has the
+ * result 5. The history journal adds the time of the run as a fourth field.
+ */
+public class TestResult {
+
+    public static final int FAILED = 0;
+    public static final int SUCCESSFUL = 1;
+    public static final int SKIPPED = 2;
+    public static final int NOT_RUN = 3;
+    public static final int MISSING = 4;
+    public static final int STARTED = 5;
+
+    /**
+     * The time of a run that is not known, the time it is merged into the history is taken instead.
+     */
+    public static final long UNKNOWN_TIME = 0;
+
+    private final int result;
+    private final long duration;
+    private final long time;
+
+    public TestResult( int result, long duration ) {
+        this( result, duration, UNKNOWN_TIME );
+    }
+
+    public TestResult( int result, long duration, long time ) {
+        this.result = result;
+        this.duration = duration;
+        this.time = time;
+    }
+
+    public int getResult() {
+        return result;
+    }
+
+    public boolean isSuccessful() {
+        return result == SUCCESSFUL;
+    }
+
+    public boolean isSkipped() {
+        return result == SKIPPED;
+    }
+
+    /**
+     * @return true if the test did not run because the early-fail budget was used up; such a result
+     * tells nothing about the test and leaves its history untouched
+     */
+    public boolean isNotRun() {
+        return result == NOT_RUN;
+    }
+
+    /**
+     * @return true if the test was not found in the test classes; it only counts the builds in which the
+     * test was missing
+     */
+    public boolean isMissing() {
+        return result == MISSING;
+    }
+
+    /**
+     * @return true if the test started but its result never made it to disk, i.e. its test JVM was
+     * killed while or shortly after it ran; such a test counts as failed
+     */
+    public boolean isStarted() {
+        return result == STARTED;
+    }
+
+    /**
+     * @return the time of the run in milliseconds since the epoch or {@link #UNKNOWN_TIME}
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return the duration in milliseconds or {@link TestRecord#UNKNOWN_DURATION}
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Reads the part of a result line after the test name.
+     *
+     * @throws IllegalArgumentException if the line is incomplete
+     */
+    public static TestResult parse( String[] fields ) {
+        if ( fields.length < 2 ) {
+            throw new IllegalArgumentException( "no result" );
+        }
+        int result = Integer.parseInt( fields[1].trim() );
+        long duration = TestRecord.UNKNOWN_DURATION;
+        if ( fields.length > 2 && !fields[2].trim().isEmpty() ) {
+            duration = Long.parseLong( fields[2].trim() );
+        }
+        long time = UNKNOWN_TIME;
+        if ( fields.length > 3 && !fields[3].trim().isEmpty() ) {
+            time = Long.parseLong( fields[3].trim() );
+        }
+        return new TestResult( result, duration, time );
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+
+import java.io.File;
+
+/**
+ * The engine of the listeners. The JUnit Platform loads the listeners through the ServiceLoader in
+ * every test run that has the plugin on its classpath, also in runs with the aspect engine and in
+ * runs that pre-skip-test did not prepare. So the engine (with its recorder, flush thread and
+ * shutdown hook) is only created on the first callback, and only if pre-skip-test wrote
+ * skiptest.properties and the skip list for the listener engine; otherwise the listeners do nothing.
+ */
+final class ListenerEngine {
+
+    private final File buildDir;
+    private volatile boolean resolved;
+    private SkipEngine engine;
+
+    ListenerEngine() {
+        this( SkipEngine.defaultBuildDir() );
+    }
+
+    ListenerEngine( File buildDir ) {
+        this.buildDir = buildDir;
+    }
+
+    ListenerEngine( SkipEngine engine ) {
+        this.buildDir = null;
+        this.engine = engine.getConfiguration().isEngine( EngineConfiguration.ENGINE_LISTENER ) ? engine : null;
+        this.resolved = true;
+    }
+
+    /**
+     * @return the engine or null if the tests are not skipped and recorded by the listeners
+     */
+    SkipEngine get() {
+        if ( !resolved ) {
+            synchronized ( this ) {
+                if ( !resolved ) {
+                    engine = isPrepared() ? createEngine() : null;
+                    resolved = true;
+                }
+            }
+        }
+        return engine;
+    }
+
+    private SkipEngine createEngine() {
+        // all listeners of the test JVM record through the same engine
+        return buildDir.equals( SkipEngine.defaultBuildDir() ) ? SkipEngine.getSharedInstance()
+                : new SkipEngine( SkipEngine.SKIP_INPUT_FILE, SkipEngine.SKIPTEST_OUTPUTFILE, buildDir );
+    }
+
+    private boolean isPrepared() {
+        return new File( buildDir, EngineConfiguration.FILE_NAME ).isFile()
+                && new File( buildDir, SkipEngine.SKIP_INPUT_FILE ).isFile()
+                && EngineConfiguration.readFrom( buildDir ).isEngine( EngineConfiguration.ENGINE_LISTENER );
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestName;
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+
+/**
+ * Skips single invocations of parameterized and repeated Jupiter tests, which the
+ * {@link SkipPostDiscoveryFilter} cannot see because Jupiter creates them only while the tests run.
+ * Jupiter reports a skipped invocation as skipped, so it is not recorded. As the condition is
+ * evaluated right before a test runs, it also skips the low risk tests once the early-fail budget is
+ * used up, and records them as not run. The condition is found
+ * through the ServiceLoader when extension auto-detection is enabled (the configuration parameter
+ * <code>junit.jupiter.extensions.autodetection.enabled=true</code>), or it can be registered with
+ * <code>@ExtendWith</code>. It only becomes active when the pre-skip-test goal is configured with the
+ * listener engine.
+ */
+public class SkipExecutionCondition implements ExecutionCondition {
+
+    private final ListenerEngine listenerEngine;
+
+    public SkipExecutionCondition() {
+        listenerEngine = new ListenerEngine();
+    }
+
+    SkipExecutionCondition( SkipEngine engine ) {
+        listenerEngine = new ListenerEngine( engine );
+    }
+
+    @Override
+    public ConditionEvaluationResult evaluateExecutionCondition( ExtensionContext context ) {
+        SkipEngine engine = listenerEngine.get();
+        Method testMethod = context.getTestMethod().orElse( null );
+        if ( engine != null && testMethod != null && engine.isTestClass( context.getRequiredTestClass().getName() ) ) {
+            String invocation = SkipPostDiscoveryFilter.invocationOf( context.getUniqueId() );
+            String methodName = invocation == null ? testMethod.getName()
+                    : testMethod.getName() + "[" + invocation + "]";
+            String className = context.getRequiredTestClass().getName();
+            if ( engine.shouldInvocationBeSkipped( className, methodName ) ) {
+                return ConditionEvaluationResult.disabled( "skipped by skiptest-maven-plugin" );
+            }
+            if ( engine.shouldSkipAfterFailures( className, methodName ) ) {
+                try {
+                    engine.recordNotRun( TestName.of( className, methodName ) );
+                } catch ( IOException e ) {
+                    throw new UncheckedIOException( e );
+                }
+                return ConditionEvaluationResult.disabled( "not run by skiptest-maven-plugin, too many tests failed" );
+            }
+        }
+        return ConditionEvaluationResult.enabled( null );
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import org.junit.runner.Description;
+import org.junit.runner.manipulation.Filter;
+
+/**
+ * Removes the tests to skip from a JUnit 4 run. The invocations of a Parameterized test are
+ * filtered one by one under the names the runner gives them (e.g. <code>test[0]</code>). Failsafe offers no way to register a filter, so
+ * with failsafe the tests are skipped through exclude patterns instead; use this filter where you
+ * create the request yourself (e.g. with Request.filterWith() in a custom suite).
+ */
+public class SkipFilter extends Filter {
+
+    private final ListenerEngine listenerEngine;
+
+    public SkipFilter() {
+        listenerEngine = new ListenerEngine();
+    }
+
+    SkipFilter( SkipEngine engine ) {
+        listenerEngine = new ListenerEngine( engine );
+    }
+
+    @Override
+    public boolean shouldRun( Description description ) {
+        SkipEngine engine = listenerEngine.get();
+        if ( engine == null || description.getMethodName() == null || !engine.isTestClass( description.getClassName() ) ) {
+            return true;
+        }
+        return !engine.shouldInvocationBeSkipped( description.getClassName(), description.getMethodName() );
+    }
+
+    @Override
+    public String describe() {
+        return "tests skipped by skiptest-maven-plugin";
+    }
+}
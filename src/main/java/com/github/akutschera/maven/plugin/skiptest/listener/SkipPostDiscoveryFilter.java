@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestName;
+import org.junit.platform.engine.FilterResult;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.PostDiscoveryFilter;
+
+import java.util.List;
+
+/**
+ * Removes the tests to skip from the test plan of the JUnit Platform, before any test class is
+ * initialized. It is registered automatically (through the ServiceLoader) and only becomes active
+ * when the pre-skip-test goal is configured with the listener engine. The invocations of
+ * parameterized and repeated Jupiter tests are only created while the tests run, so they are skipped
+ * one by one by the {@link SkipExecutionCondition}.
+ */
+public class SkipPostDiscoveryFilter implements PostDiscoveryFilter {
+
+    private final ListenerEngine listenerEngine;
+
+    public SkipPostDiscoveryFilter() {
+        listenerEngine = new ListenerEngine();
+    }
+
+    SkipPostDiscoveryFilter( SkipEngine engine ) {
+        listenerEngine = new ListenerEngine( engine );
+    }
+
+    @Override
+    public FilterResult apply( TestDescriptor descriptor ) {
+        SkipEngine engine = listenerEngine.get();
+        TestSource source = descriptor.getSource().orElse( null );
+        if ( engine != null && source instanceof MethodSource ) {
+            MethodSource method = (MethodSource) source;
+            if ( engine.isTestClass( method.getClassName() )
+                    && engine.shouldInvocationBeSkipped( method.getClassName(), method.getMethodName() ) ) {
+                return FilterResult.excluded( "skipped by skiptest-maven-plugin" );
+            }
+        }
+        return FilterResult.included( null );
+    }
+
+    /**
+     * @return className.methodName for test methods, className.methodName[invocation] for an
+     * invocation of a parameterized or repeated test, null for everything else
+     */
+    static String nameOf( TestSource source, String uniqueId ) {
+        if ( source instanceof MethodSource ) {
+            MethodSource method = (MethodSource) source;
+            String invocation = invocationOf( uniqueId );
+            return invocation == null ? TestName.of( method.getClassName(), method.getMethodName() )
+                    : TestName.of( method.getClassName(), method.getMethodName(), invocation );
+        }
+        return null;
+    }
+
+    /**
+     * Jupiter numbers the invocations of a test template, starting with 1: the unique id of the
+     * second invocation of a parameterized test ends with <code>[test-template-invocation:#2]</code>.
+     *
+     * @return the number of the invocation, null if the unique id does not belong to an invocation
+     */
+    static String invocationOf( String uniqueId ) {
+        List<UniqueId.Segment> segments = UniqueId.parse( uniqueId ).getSegments();
+        String value = segments.get( segments.size() - 1 ).getValue();
+        return value.startsWith( "#" ) ? value.substring( 1 ) : null;
+    }
+}
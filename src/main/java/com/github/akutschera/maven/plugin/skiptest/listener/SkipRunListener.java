@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestName;
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the results of JUnit 4 tests without any bytecode weaving. Register it with failsafe:
+ * <pre>
+ * &lt;properties&gt;
+ *   &lt;property&gt;
+ *     &lt;name&gt;listener&lt;/name&gt;
+ *     &lt;value&gt;com.github.akutschera.maven.plugin.skiptest.listener.SkipRunListener&lt;/value&gt;
+ *   &lt;/property&gt;
+ * &lt;/properties&gt;
+ * </pre>
+ * A listener cannot prevent a test from running, so with the listener engine the pre-skip-test goal
+ * hands the tests to skip to failsafe as exclude patterns instead. Tests that are ignored because
+ * of a failed assumption are not recorded. Every invocation of a Parameterized test is recorded
+ * under the name the runner gives it, e.g. <code>com.foo.BarIT.test[0]</code>.
+ */
+public class SkipRunListener extends RunListener {
+
+    private final ListenerEngine listenerEngine;
+    private final ConcurrentMap<Description, Long> startTimes = new ConcurrentHashMap<>();
+    private final Set<Description> failedTests = Collections.newSetFromMap(
+            new ConcurrentHashMap<Description, Boolean>() );
+
+    public SkipRunListener() {
+        listenerEngine = new ListenerEngine();
+    }
+
+    SkipRunListener( SkipEngine engine ) {
+        listenerEngine = new ListenerEngine( engine );
+    }
+
+    @Override
+    public void testStarted( Description description ) throws Exception {
+        SkipEngine engine = listenerEngine.get();
+        if ( engine != null && description.getMethodName() != null && engine.isTestClass( description.getClassName() ) ) {
+            startTimes.put( description, System.nanoTime() );
+            engine.recordStarted( TestName.of( description.getClassName(), description.getMethodName() ) );
+        }
+    }
+
+    @Override
+    public void testFailure( Failure failure ) {
+        failedTests.add( failure.getDescription() );
+    }
+
+    @Override
+    public void testAssumptionFailure( Failure failure ) {
+        Description description = failure.getDescription();
+        if ( startTimes.remove( description ) != null ) {
+            try {
+                listenerEngine.get().recordAborted( TestName.of( description.getClassName(), description.getMethodName() ) );
+            } catch ( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+        }
+    }
+
+    @Override
+    public void testFinished( Description description ) throws Exception {
+        Long start = startTimes.remove( description );
+        if ( start == null ) {
+            return;
+        }
+        int result = failedTests.remove( description ) ? 0 : 1;
+        listenerEngine.get().recordResult( TestName.of( description.getClassName(), description.getMethodName() ), result,
+                TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) );
+    }
+
+    @Override
+    public void testRunFinished( Result result ) throws Exception {
+        SkipEngine engine = listenerEngine.get();
+        if ( engine != null ) {
+            engine.flush();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the results of tests run on the JUnit Platform (JUnit Jupiter as well as JUnit 4 tests
+ * run by the vintage engine). It is registered automatically (through the ServiceLoader) and only
+ * becomes active when the pre-skip-test goal is configured with the listener engine. Aborted tests
+ * (e.g. because of a failed assumption) are not recorded. Every invocation of a parameterized or
+ * repeated test is recorded on its own, as <code>className.methodName[n]</code> for the n-th invocation.
+ */
+public class SkipTestExecutionListener implements TestExecutionListener {
+
+    private final ListenerEngine listenerEngine;
+    private final ConcurrentMap<String, Long> startTimes = new ConcurrentHashMap<>();
+
+    public SkipTestExecutionListener() {
+        listenerEngine = new ListenerEngine();
+    }
+
+    SkipTestExecutionListener( SkipEngine engine ) {
+        listenerEngine = new ListenerEngine( engine );
+    }
+
+    @Override
+    public void executionStarted( TestIdentifier testIdentifier ) {
+        SkipEngine engine = listenerEngine.get();
+        TestSource source = testIdentifier.getSource().orElse( null );
+        if ( engine != null && testIdentifier.isTest() && source instanceof MethodSource
+                && engine.isTestClass( ( (MethodSource) source ).getClassName() ) ) {
+            String testName = SkipPostDiscoveryFilter.nameOf( source, testIdentifier.getUniqueId() );
+            if ( testName == null ) {
+                return;
+            }
+            startTimes.put( testIdentifier.getUniqueId(), System.nanoTime() );
+            try {
+                engine.recordStarted( testName );
+            } catch ( IOException e ) {
+                throw new UncheckedIOException( e );
+            }
+        }
+    }
+
+    @Override
+    public void executionFinished( TestIdentifier testIdentifier, TestExecutionResult testExecutionResult ) {
+        Long start = startTimes.remove( testIdentifier.getUniqueId() );
+        String testName = SkipPostDiscoveryFilter.nameOf( testIdentifier.getSource().orElse( null ),
+                testIdentifier.getUniqueId() );
+        if ( start == null || testName == null ) {
+            return;
+        }
+        // a test only has a start time if the engine exists
+        SkipEngine engine = listenerEngine.get();
+        int result = testExecutionResult.getStatus() == TestExecutionResult.Status.SUCCESSFUL ? 1 : 0;
+        try {
+            if ( testExecutionResult.getStatus() == TestExecutionResult.Status.ABORTED ) {
+                engine.recordAborted( testName );
+            } else {
+                engine.recordResult( testName, result,
+                        TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) );
+            }
+        } catch ( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    @Override
+    public void testPlanExecutionFinished( TestPlan testPlan ) {
+        SkipEngine engine = listenerEngine.get();
+        if ( engine == null ) {
+            return;
+        }
+        try {
+            engine.flush();
+        } catch ( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Skips tests by the time they are expected to save instead of by their number. Only tests that
+ * were successful at least once are candidates. They are ranked by their average duration,
+ * weighted with the confidence that they will succeed again (one minus the estimated failure
+ * probability, n / (n + 1) for n consecutive successful runs without earlier failures), and skipped
+ * in that order until
+ * <ul>
+ *     <li>the skipped tests account for at least skipPercentage percent of the total time and</li>
+ *     <li>the remaining tests are expected to finish within the time budget (if there is one).</li>
+ * </ul>
+ * Tests whose duration is unknown are assumed to take as long as the average known test (if no
+ * duration is known at all, every test counts the same). Tests
+ * that are not in the history at all are not part of the estimate.
+ */
+public class DurationSelector implements TestSelector {
+
+    private final int skipPercentage;
+    private final long budgetMillis;
+
+    /**
+     * @param skipPercentage the percentage of the total time to skip
+     * @param budgetMillis the time the remaining tests may take, 0 for no limit
+     */
+    public DurationSelector( int skipPercentage, long budgetMillis ) {
+        this.skipPercentage = skipPercentage;
+        this.budgetMillis = budgetMillis;
+    }
+
+    @Override
+    public List<String> selectTestsToSkip( Map<String, TestRecord> history ) {
+        final long defaultDuration = averageKnownDuration( history );
+        long totalTime = 0;
+        List<Entry<String, TestRecord>> candidates = new ArrayList<>();
+        for ( Entry<String, TestRecord> entry : history.entrySet() ) {
+            totalTime += durationOf( entry.getValue(), defaultDuration );
+            if ( entry.getValue().getSuccessfulRuns() > 0 ) {
+                candidates.add( entry );
+            }
+        }
+
+        Collections.sort( candidates, new Comparator<Entry<String, TestRecord>>() {
+
+            @Override
+            public int compare( Entry<String, TestRecord> o1, Entry<String, TestRecord> o2 ) {
+                int bySaving = Double.compare( expectedSaving( o2.getValue(), defaultDuration ),
+                        expectedSaving( o1.getValue(), defaultDuration ) );
+                if ( bySaving != 0 ) {
+                    return bySaving;
+                }
+                return o1.getKey().compareTo( o2.getKey() );
+            }
+        } );
+
+        long timeToSkip = totalTime * skipPercentage / 100;
+        long skippedTime = 0;
+        long remainingTime = totalTime;
+        List<String> testsToSkip = new ArrayList<>();
+        for ( Entry<String, TestRecord> candidate : candidates ) {
+            if ( skippedTime >= timeToSkip && ( budgetMillis <= 0 || remainingTime <= budgetMillis ) ) {
+                break;
+            }
+            long duration = durationOf( candidate.getValue(), defaultDuration );
+            testsToSkip.add( candidate.getKey() );
+            skippedTime += duration;
+            remainingTime -= duration;
+        }
+        return testsToSkip;
+    }
+
+    private static double expectedSaving( TestRecord record, long defaultDuration ) {
+        return durationOf( record, defaultDuration ) * ( 1 - record.getFailureProbability() );
+    }
+
+    private static long durationOf( TestRecord record, long defaultDuration ) {
+        return record.hasDuration() ? record.getAverageDuration() : defaultDuration;
+    }
+
+    private static long averageKnownDuration( Map<String, TestRecord> history ) {
+        long sum = 0;
+        int known = 0;
+        for ( TestRecord record : history.values() ) {
+            if ( record.hasDuration() ) {
+                sum += record.getAverageDuration();
+                known++;
+            }
+        }
+        return known == 0 ? 1 : sum / known;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.discovery.TestClass;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestName;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders test classes so that the tests that are most likely to fail run first: classes with a
+ * new test (one that is not in the history yet) come first, then classes with a test that failed
+ * last time, then all other classes by the shortest success streak of their tests.
+ */
+public class FailFastOrder {
+
+    /**
+     * Rank of a class with a test that has never been run.
+     */
+    static final int NEW_TEST = -1;
+
+    private final List<TestClass> orderedClasses;
+    private final Map<String, Integer> ranks;
+
+    public FailFastOrder( List<TestClass> testClasses, Map<String, TestRecord> history ) {
+        Map<String, Integer> shortestStreakPerMethod = new HashMap<>();
+        Map<String, Integer> shortestStreakPerClass = new HashMap<>();
+        for ( Map.Entry<String, TestRecord> entry : history.entrySet() ) {
+            if ( TestName.separatorOf( entry.getKey() ) < 0 ) {
+                continue;
+            }
+            int streak = entry.getValue().getSuccessfulRuns();
+            keepShortest( shortestStreakPerMethod, TestName.withoutInvocation( entry.getKey() ), streak );
+            keepShortest( shortestStreakPerClass, TestName.classNameOf( entry.getKey() ), streak );
+        }
+        ranks = new HashMap<>();
+        for ( TestClass testClass : testClasses ) {
+            ranks.put( testClass.getName(), rankOf( testClass, shortestStreakPerMethod, shortestStreakPerClass ) );
+        }
+        orderedClasses = new ArrayList<>( testClasses );
+        Collections.sort( orderedClasses, new Comparator<TestClass>() {
+
+            @Override
+            public int compare( TestClass o1, TestClass o2 ) {
+                int byRank = ranks.get( o1.getName() ).compareTo( ranks.get( o2.getName() ) );
+                return byRank != 0 ? byRank : o1.getName().compareTo( o2.getName() );
+            }
+        } );
+    }
+
+    /**
+     * @return all classes, the ones most likely to fail first
+     */
+    public List<TestClass> getOrderedClasses() {
+        return orderedClasses;
+    }
+
+    /**
+     * @return the classes with a new test or a test that failed in the last run
+     */
+    public List<TestClass> getClassesToRunFirst() {
+        List<TestClass> runFirst = new ArrayList<>();
+        for ( TestClass testClass : orderedClasses ) {
+            if ( ranks.get( testClass.getName() ) <= 0 ) {
+                runFirst.add( testClass );
+            }
+        }
+        return runFirst;
+    }
+
+    /**
+     * The invocations of a parameterized or repeated test count for their test method.
+     */
+    private static int rankOf( TestClass testClass, Map<String, Integer> shortestStreakPerMethod,
+                               Map<String, Integer> shortestStreakPerClass ) {
+        if ( !testClass.hasKnownTestMethods() ) {
+            Integer shortestStreak = shortestStreakPerClass.get( testClass.getName() );
+            return shortestStreak == null ? NEW_TEST : shortestStreak;
+        }
+        int rank = Integer.MAX_VALUE;
+        for ( String method : testClass.getTestMethods() ) {
+            Integer shortestStreak = shortestStreakPerMethod.get( testClass.getName() + "." + method );
+            rank = Math.min( rank, shortestStreak == null ? NEW_TEST : shortestStreak );
+        }
+        return rank;
+    }
+
+    private static void keepShortest( Map<String, Integer> shortestStreaks, String name, int streak ) {
+        Integer shortestStreak = shortestStreaks.get( name );
+        if ( shortestStreak == null || streak < shortestStreak ) {
+            shortestStreaks.put( name, streak );
+        }
+    }
+}
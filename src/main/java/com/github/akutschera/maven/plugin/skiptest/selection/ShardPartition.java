@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.TestName;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Splits the tests that run across shardCount CI nodes so that every shard is expected to take about
+ * the same time. The tests of a class always run on the same shard, so the setup of a class runs
+ * once. The classes are taken longest first and each goes to the shard with the least time so far
+ * (ties go to the lower index). A test without a recorded duration counts with the average
+ * duration of the other tests. The partition only depends on the tests and the history, so every
+ * node computes the same one.
+ */
+public class ShardPartition {
+
+    private final int shardCount;
+
+    public ShardPartition( int shardCount ) {
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * @return the index of the shard each class of the given tests runs on
+     */
+    public Map<String, Integer> assign( Collection<String> testNames, Map<String, TestRecord> history ) {
+        long averageDuration = averageKnownDuration( testNames, history );
+        final Map<String, Long> durationPerClass = new HashMap<>();
+        for ( String testName : testNames ) {
+            TestRecord record = history.get( testName );
+            long duration = record != null && record.hasDuration()
+                    ? Math.max( record.getAverageDuration(), 1 ) : averageDuration;
+            String className = classNameOf( testName );
+            Long classDuration = durationPerClass.get( className );
+            durationPerClass.put( className, classDuration == null ? duration : classDuration + duration );
+        }
+        List<String> classNames = new ArrayList<>( durationPerClass.keySet() );
+        Collections.sort( classNames, new Comparator<String>() {
+
+            @Override
+            public int compare( String o1, String o2 ) {
+                int byDuration = durationPerClass.get( o2 ).compareTo( durationPerClass.get( o1 ) );
+                return byDuration != 0 ? byDuration : o1.compareTo( o2 );
+            }
+        } );
+
+        PriorityQueue<long[]> shards = new PriorityQueue<>( shardCount, new Comparator<long[]>() {
+
+            @Override
+            public int compare( long[] o1, long[] o2 ) {
+                // { time so far, index }
+                int byTime = Long.compare( o1[0], o2[0] );
+                return byTime != 0 ? byTime : Long.compare( o1[1], o2[1] );
+            }
+        } );
+        for ( int index = 0; index < shardCount; index++ ) {
+            shards.add( new long[] { 0, index } );
+        }
+        Map<String, Integer> shardOfClass = new HashMap<>( classNames.size() * 4 / 3 + 1 );
+        for ( String className : classNames ) {
+            long[] shard = shards.poll();
+            shardOfClass.put( className, (int) shard[1] );
+            shard[0] += durationPerClass.get( className );
+            shards.add( shard );
+        }
+        return shardOfClass;
+    }
+
+    /**
+     * @return the tests that run on other shards than the given one
+     */
+    public List<String> testsOfOtherShards( Collection<String> testNames, Map<String, TestRecord> history,
+                                            int shardIndex ) {
+        Map<String, Integer> shardOfClass = assign( testNames, history );
+        List<String> otherTests = new ArrayList<>();
+        for ( String testName : testNames ) {
+            if ( shardOfClass.get( classNameOf( testName ) ) != shardIndex ) {
+                otherTests.add( testName );
+            }
+        }
+        return otherTests;
+    }
+
+    private static long averageKnownDuration( Collection<String> testNames, Map<String, TestRecord> history ) {
+        long sum = 0;
+        int known = 0;
+        for ( String testName : testNames ) {
+            TestRecord record = history.get( testName );
+            if ( record != null && record.hasDuration() ) {
+                sum += Math.max( record.getAverageDuration(), 1 );
+                known++;
+            }
+        }
+        return known == 0 ? 1 : Math.max( 1, sum / known );
+    }
+
+    private static String classNameOf( String testName ) {
+        return TestName.classNameOf( testName );
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.history.FilteredHistory;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guarantees that no test goes unrun for too long, whatever the selector decides: a test that has been
+ * skipped in maxSkippedBuilds builds in a row, or that last ran more than maxSkippedDays days ago, has
+ * to run. A limit of 0 means no limit. Tests whose last run is unknown are only limited by builds.
+ */
+public class StalenessLimit {
+
+    private final int maxSkippedBuilds;
+    private final int maxSkippedDays;
+
+    public StalenessLimit( int maxSkippedBuilds, int maxSkippedDays ) {
+        this.maxSkippedBuilds = maxSkippedBuilds;
+        this.maxSkippedDays = maxSkippedDays;
+    }
+
+    public boolean isStale( TestRecord record, long now ) {
+        if ( maxSkippedBuilds > 0 && record.getSkippedBuilds() >= maxSkippedBuilds ) {
+            return true;
+        }
+        return maxSkippedDays > 0 && record.getLastRun() != TestRecord.UNKNOWN_LAST_RUN
+                && now - record.getLastRun() >= TimeUnit.DAYS.toMillis( maxSkippedDays );
+    }
+
+    /**
+     * @return the tests of the history that may be skipped, the history itself without limits
+     */
+    public Map<String, TestRecord> withoutStaleTests( Map<String, TestRecord> history, final long now ) {
+        if ( maxSkippedBuilds <= 0 && maxSkippedDays <= 0 ) {
+            return history;
+        }
+        return new FilteredHistory( history ) {
+
+            @Override
+            protected boolean accepts( String testName, TestRecord record ) {
+                return !isStale( record, now );
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+
+/**
+ * Skips the given percentage of all tests, starting with the tests that are least likely to fail
+ * (see {@link TestRecord#getFailureProbability()}). For tests without failures that is the test with
+ * the most consecutive successful runs, a test that failed once in many runs follows the tests that
+ * never failed, and a test that failed last time is never skipped. Tests with the same probability
+ * are taken by their number of successful runs and then in the order of their names, so the
+ * selection does not depend on the order of the history.
+ * <p>
+ * Only the tests to skip are kept in a bounded heap while the history is scanned once, which takes
+ * O(n log k) time for n tests and k tests to skip instead of sorting the whole history.
+ * </p>
+ */
+public class StreakSelector implements TestSelector {
+
+    /**
+     * Orders the tests to skip by priority: least likely to fail first, then most successful runs,
+     * then by name.
+     */
+    private static final Comparator<Entry<String, TestRecord>> BY_PRIORITY = new Comparator<Entry<String, TestRecord>>() {
+
+        @Override
+        public int compare( Entry<String, TestRecord> o1, Entry<String, TestRecord> o2 ) {
+            int byFailureProbability = Double.compare( o1.getValue().getFailureProbability(),
+                    o2.getValue().getFailureProbability() );
+            if ( byFailureProbability != 0 ) {
+                return byFailureProbability;
+            }
+            int bySuccessfulRuns = Integer.compare( o2.getValue().getSuccessfulRuns(),
+                    o1.getValue().getSuccessfulRuns() );
+            return bySuccessfulRuns != 0 ? bySuccessfulRuns : o1.getKey().compareTo( o2.getKey() );
+        }
+    };
+
+    private final int skipPercentage;
+
+    public StreakSelector( int skipPercentage ) {
+        this.skipPercentage = skipPercentage;
+    }
+
+    @Override
+    public List<String> selectTestsToSkip( Map<String, TestRecord> history ) {
+        int lastTestToSkip = (int) ( ( (long) history.size() * skipPercentage ) / 100 );
+        if ( lastTestToSkip == 0 ) {
+            return new ArrayList<>();
+        }
+        // the head of the heap is the test with the lowest priority of all tests selected so far
+        PriorityQueue<Entry<String, TestRecord>> selected = new PriorityQueue<>( lastTestToSkip,
+                Collections.reverseOrder( BY_PRIORITY ) );
+        for ( Entry<String, TestRecord> entry : history.entrySet() ) {
+            if ( entry.getValue().getSuccessfulRuns() <= 0 ) {
+                continue;
+            }
+            if ( selected.size() < lastTestToSkip ) {
+                selected.add( entry );
+            } else if ( BY_PRIORITY.compare( entry, selected.peek() ) < 0 ) {
+                selected.poll();
+                selected.add( entry );
+            }
+        }
+
+        List<String> testsToSkip = new ArrayList<>( selected.size() );
+        while ( !selected.isEmpty() ) {
+            testsToSkip.add( selected.poll().getKey() );
+        }
+        Collections.reverse( testsToSkip );
+        return testsToSkip;
+    }
+}
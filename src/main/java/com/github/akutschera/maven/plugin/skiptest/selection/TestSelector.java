@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which of the tests in the history are skipped in the next run.
+ */
+public interface TestSelector {
+
+    /**
+     * @param history all tests from previous runs
+     * @return the names of the tests to skip, the most stable test first
+     */
+    List<String> selectTestsToSkip( Map<String, TestRecord> history );
+}
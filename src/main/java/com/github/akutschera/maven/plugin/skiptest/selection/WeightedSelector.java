@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Skips the given percentage of all tests, drawn at random, so that no stable test is skipped in every
+ * build. Only tests that were successful at least once are candidates, and the chance to be skipped
+ * grows with
+ * <ul>
+ *     <li>the confidence that the test will succeed again, one minus the estimated failure probability
+ *     (n / (n + 1) for n consecutive successful runs without earlier failures),</li>
+ *     <li>the average duration of the test compared to the average of all tests, and it shrinks with</li>
+ *     <li>the number of builds the test has been skipped in a row.</li>
+ * </ul>
+ * The tests are drawn without replacement (each test gets the key u^(1/weight) for a uniformly
+ * distributed u, the tests with the largest keys are skipped), keeping only the tests to skip in a
+ * bounded heap.
+ */
+public class WeightedSelector implements TestSelector {
+
+    private static final Comparator<Candidate> BY_KEY = new Comparator<Candidate>() {
+
+        @Override
+        public int compare( Candidate o1, Candidate o2 ) {
+            return Double.compare( o1.key, o2.key );
+        }
+    };
+
+    private final int skipPercentage;
+    private final Random random;
+
+    public WeightedSelector( int skipPercentage, Random random ) {
+        this.skipPercentage = skipPercentage;
+        this.random = random;
+    }
+
+    @Override
+    public List<String> selectTestsToSkip( Map<String, TestRecord> history ) {
+        int testsToSkip = (int) ( ( (long) history.size() * skipPercentage ) / 100 );
+        if ( testsToSkip == 0 ) {
+            return new ArrayList<>();
+        }
+        double averageDuration = averageKnownDuration( history );
+        // the head of the heap is the test with the smallest key of all tests selected so far
+        PriorityQueue<Candidate> selected = new PriorityQueue<>( testsToSkip, BY_KEY );
+        for ( Entry<String, TestRecord> entry : history.entrySet() ) {
+            double weight = weightOf( entry.getValue(), averageDuration );
+            if ( weight <= 0 ) {
+                continue;
+            }
+            double key = Math.pow( random.nextDouble(), 1 / weight );
+            if ( selected.size() < testsToSkip ) {
+                selected.add( new Candidate( entry.getKey(), key ) );
+            } else if ( key > selected.peek().key ) {
+                selected.poll();
+                selected.add( new Candidate( entry.getKey(), key ) );
+            }
+        }
+
+        List<String> names = new ArrayList<>( selected.size() );
+        while ( !selected.isEmpty() ) {
+            names.add( selected.poll().name );
+        }
+        Collections.reverse( names );
+        return names;
+    }
+
+    static double weightOf( TestRecord record, double averageDuration ) {
+        if ( record.getSuccessfulRuns() <= 0 ) {
+            return 0;
+        }
+        double confidence = 1 - record.getFailureProbability();
+        double duration = record.hasDuration() && averageDuration > 0
+                ? Math.max( record.getAverageDuration(), 1 ) / averageDuration : 1;
+        return confidence * duration / ( 1 + record.getSkippedBuilds() );
+    }
+
+    private static double averageKnownDuration( Map<String, TestRecord> history ) {
+        long sum = 0;
+        int known = 0;
+        for ( TestRecord record : history.values() ) {
+            if ( record.hasDuration() ) {
+                sum += Math.max( record.getAverageDuration(), 1 );
+                known++;
+            }
+        }
+        return known == 0 ? 0 : (double) sum / known;
+    }
+
+    private static final class Candidate {
+
+        private final String name;
+        private final double key;
+
+        Candidate( String name, double key ) {
+            this.name = name;
+            this.key = key;
+        }
+    }
+}
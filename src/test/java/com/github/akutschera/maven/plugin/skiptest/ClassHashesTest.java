@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ClassHashesTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void classFilesShouldBeHashedByRelativePath() throws Exception {
+        File classes = temporaryFolder.newFolder();
+        new File( classes, "com/foo" ).mkdirs();
+        FileUtils.fileWrite( new File( classes, "com/foo/Bar.class" ).getAbsolutePath(), "bar" );
+        FileUtils.fileWrite( new File( classes, "com/foo/readme.txt" ).getAbsolutePath(), "not a class" );
+
+        Map<String, String> hashes = ClassHashes.compute( classes );
+
+        assertThat( hashes.keySet(), is( (Object) new HashSet<>( Arrays.asList( "com/foo/Bar.class" ) ) ) );
+        assertThat( "SHA-1 of the contents", hashes.get( "com/foo/Bar.class" ),
+                is( "62cdb7020ff920e5aa642c3d4066950dd1f01f4d" ) );
+    }
+
+    @Test
+    public void addedChangedAndRemovedClassesShouldCountAsTopLevelClasses() throws Exception {
+        Map<String, String> previous = new TreeMap<>();
+        previous.put( "com/foo/Same.class", "1" );
+        previous.put( "com/foo/Changed$Inner.class", "2" );
+        previous.put( "com/foo/Removed.class", "3" );
+        Map<String, String> current = new TreeMap<>();
+        current.put( "com/foo/Same.class", "1" );
+        current.put( "com/foo/Changed$Inner.class", "changed" );
+        current.put( "com/foo/Added.class", "4" );
+
+        assertThat( ClassHashes.changedClasses( previous, current ), is( (Object) new HashSet<>(
+                Arrays.asList( "com.foo.Changed", "com.foo.Removed", "com.foo.Added" ) ) ) );
+    }
+
+    @Test
+    public void hashesShouldSurviveWritingAndReading() throws Exception {
+        File file = new File( temporaryFolder.getRoot(), "hashes.txt" );
+        Map<String, String> hashes = new TreeMap<>();
+        hashes.put( "com/foo/Bar.class", "abc" );
+
+        assertThat( "nothing to read yet", ClassHashes.read( file ), is( nullValue() ) );
+        ClassHashes.write( hashes, file );
+
+        assertThat( ClassHashes.read( file ), is( notNullValue() ) );
+        assertThat( ClassHashes.read( file ), is( hashes ) );
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.BinaryHistoryFile;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ConvertHistoryMojoTest {
+
+    private ConvertHistoryMojo mojo;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File historyFile;
+
+    @Before
+    public void setUp() throws Exception {
+        mojo = new ConvertHistoryMojo();
+        historyFile = temporaryFolder.newFile();
+        mojo.setHistoryFile( historyFile );
+        FileUtils.fileAppend( historyFile.getAbsolutePath(), "test1:1:100" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( historyFile.getAbsolutePath(), "test2:7" + AbstractSkipTestMojo.CRLF );
+    }
+
+    @Test
+    public void executeShouldConvertTextHistoryToBinaryInPlace() throws Exception {
+        mojo.setHistoryFormat( AbstractSkipTestMojo.HISTORY_FORMAT_BINARY );
+
+        mojo.execute();
+
+        assertTrue( "history should be binary after conversion", BinaryHistoryFile.isBinary( historyFile ) );
+        Map<String, TestRecord> history = mojo.readAllResultsFrom( historyFile );
+        assertThat( "all tests should be converted", history.size(), is( 2 ) );
+        assertThat( "successful runs should be converted", history.get( "test2" ).getSuccessfulRuns(), is( 7 ) );
+        assertThat( "duration should be converted", history.get( "test1" ).getAverageDuration(), is( 100L ) );
+    }
+
+    @Test
+    public void executeShouldConvertBinaryHistoryBackToText() throws Exception {
+        File binaryFile = new File( temporaryFolder.getRoot(), "history.bin" );
+        File textFile = new File( temporaryFolder.getRoot(), "history.txt" );
+        mojo.setOutputFile( binaryFile );
+        mojo.setHistoryFormat( AbstractSkipTestMojo.HISTORY_FORMAT_BINARY );
+        mojo.execute();
+
+        mojo.setHistoryFile( binaryFile );
+        mojo.setOutputFile( textFile );
+        mojo.setHistoryFormat( AbstractSkipTestMojo.HISTORY_FORMAT_TEXT );
+        mojo.execute();
+
+        String history = FileUtils.fileRead( textFile );
+        assertThat( "text history should contain first test", history, containsString( "test1:1:100" ) );
+        assertThat( "text history should contain second test", history, containsString( "test2:7" ) );
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForUnknownFormat() throws Exception {
+        mojo.setHistoryFormat( "xml" );
+        mojo.execute();
+    }
+}
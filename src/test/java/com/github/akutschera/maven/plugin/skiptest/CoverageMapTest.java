@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CoverageMapTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private CoverageMap coverage;
+
+    @Before
+    public void setUp() throws Exception {
+        File file = temporaryFolder.newFile();
+        FileUtils.fileWrite( file.getAbsolutePath(), "com.foo.FirstIT.test:com.foo.A,com.foo.B" + AbstractSkipTestMojo.CRLF
+                + "com.foo.SecondIT.test:com.foo.C" + AbstractSkipTestMojo.CRLF
+                + "com.foo.NothingIT.test:" + AbstractSkipTestMojo.CRLF );
+        coverage = new CoverageMap();
+        coverage.readFrom( file );
+    }
+
+    @Test
+    public void testsThatExecutedChangedClassesShouldBeAffected() throws Exception {
+        List<String> tests = Arrays.asList( "com.foo.FirstIT.test", "com.foo.SecondIT.test" );
+
+        assertThat( coverage.affectedTests( tests, Collections.singleton( "com.foo.B" ) ),
+                is( Collections.singleton( "com.foo.FirstIT.test" ) ) );
+    }
+
+    @Test
+    public void testsWithoutRecordedClassesShouldAlwaysBeAffected() throws Exception {
+        List<String> tests = Arrays.asList( "com.foo.NothingIT.test", "com.foo.NewIT.test", "com.foo.SecondIT.test" );
+
+        assertThat( coverage.affectedTests( tests, Collections.<String>emptySet() ),
+                is( (Object) new HashSet<>( Arrays.asList( "com.foo.NothingIT.test", "com.foo.NewIT.test" ) ) ) );
+    }
+
+    @Test
+    public void laterRunShouldReplaceClassesOfATest() throws Exception {
+        File run = temporaryFolder.newFile();
+        FileUtils.fileWrite( run.getAbsolutePath(), "com.foo.FirstIT.test:com.foo.D" + AbstractSkipTestMojo.CRLF );
+        coverage.readFrom( run );
+        File written = new File( temporaryFolder.getRoot(), "coverage.txt" );
+
+        coverage.writeTo( written );
+
+        CoverageMap reread = new CoverageMap();
+        reread.readFrom( written );
+        assertThat( "all tests should be kept", reread.size(), is( 3 ) );
+        assertThat( "old classes should be gone", reread.affectedTests(
+                Collections.singleton( "com.foo.FirstIT.test" ), Collections.singleton( "com.foo.A" ) ).isEmpty(), is( true ) );
+        assertThat( "new classes should count", reread.affectedTests(
+                Collections.singleton( "com.foo.FirstIT.test" ), Collections.singleton( "com.foo.D" ) ).size(), is( 1 ) );
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DirectoryHistoryStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+    private DirectoryHistoryStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = new File( temporaryFolder.getRoot(), "shared" );
+        store = createStore();
+    }
+
+    @Test
+    public void readShouldReturnEmptyHistoryIfThereIsNoVersionYet() throws Exception {
+        assertTrue( store.read().isEmpty() );
+    }
+
+    @Test
+    public void everyUpdateShouldCreateNewVersion() throws Exception {
+        store.update( addRun( "test1" ) );
+        store.update( addRun( "test1" ) );
+
+        assertThat( store.latestVersion(), is( 2L ) );
+        assertThat( store.read().get( "test1" ).getSuccessfulRuns(), is( 2 ) );
+    }
+
+    @Test
+    public void updateThatLostTheRaceShouldBeAppliedToNewerVersion() throws Exception {
+        final DirectoryHistoryStore otherBuild = createStore();
+        store.update( new HistoryStore.Update() {
+
+            private boolean first = true;
+
+            @Override
+            public void applyTo( Map<String, TestRecord> history ) {
+                if ( first ) {
+                    first = false;
+                    try {
+                        // another build stores its version while this one is busy
+                        otherBuild.update( addRun( "other" ) );
+                    } catch ( Exception e ) {
+                        throw new IllegalStateException( e );
+                    }
+                }
+                addRun( "mine" ).applyTo( history );
+            }
+        } );
+
+        Map<String, TestRecord> history = store.read();
+        assertThat( "the results of the other build should be kept", history.get( "other" ).getSuccessfulRuns(), is( 1 ) );
+        assertThat( "the results of this build should be applied once", history.get( "mine" ).getSuccessfulRuns(), is( 1 ) );
+        assertThat( store.latestVersion(), is( 2L ) );
+    }
+
+    @Test
+    public void onlyLatestTwoVersionsShouldRemain() throws Exception {
+        for ( int i = 0; i < 4; i++ ) {
+            store.update( addRun( "test1" ) );
+        }
+
+        String[] files = directory.list();
+        Arrays.sort( files );
+        assertThat( files, is( new String[] { "history.3", "history.4" } ) );
+        assertFalse( "no temporary files should be left behind", store.fileOf( 2 ).exists() );
+    }
+
+    private DirectoryHistoryStore createStore() {
+        PostSkipTestMojo mojo = new PostSkipTestMojo();
+        mojo.setHistoryStore( AbstractSkipTestMojo.HISTORY_STORE_DIRECTORY );
+        mojo.setHistoryStoreLocation( directory.getPath() );
+        return (DirectoryHistoryStore) mojo.createHistoryStore();
+    }
+
+    static HistoryStore.Update addRun( final String testName ) {
+        return new HistoryStore.Update() {
+
+            @Override
+            public void applyTo( Map<String, TestRecord> history ) {
+                TestRecord record = history.get( testName );
+                history.put( testName, new TestRecord( record == null ? 1 : record.getSuccessfulRuns() + 1 ) );
+            }
+        };
+    }
+}
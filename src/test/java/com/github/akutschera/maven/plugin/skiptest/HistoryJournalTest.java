@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+
+public class HistoryJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File journal;
+
+    @Before
+    public void setUp() throws Exception {
+        journal = HistoryJournal.journalFor( new File( temporaryFolder.getRoot(), "all-test-results.txt" ) );
+    }
+
+    @Test
+    public void journalShouldBeNextToHistory() throws Exception {
+        assertThat( journal.getName(), is( "all-test-results.txt.journal" ) );
+    }
+
+    @Test
+    public void runsShouldBeAppendedInOrder() throws Exception {
+        Map<String, TestResult> firstRun = new LinkedHashMap<>();
+        firstRun.put( "test1", new TestResult( TestResult.SUCCESSFUL, 10, 1000 ) );
+        firstRun.put( "test2", new TestResult( TestResult.FAILED, 20, 1000 ) );
+
+        HistoryJournal.append( journal, firstRun );
+        HistoryJournal.append( journal, Collections.singletonMap( "test2", new TestResult( TestResult.SUCCESSFUL, 30, 2000 ) ) );
+
+        assertThat( FileUtils.fileRead( journal ), is( "test1:1:10:1000" + AbstractSkipTestMojo.CRLF
+                + "test2:0:20:1000" + AbstractSkipTestMojo.CRLF + "test2:1:30:2000" + AbstractSkipTestMojo.CRLF ) );
+    }
+
+    @Test
+    public void runWithoutResultsShouldNotCreateJournal() throws Exception {
+        HistoryJournal.append( journal, Collections.<String, TestResult>emptyMap() );
+
+        assertFalse( "journal should not exist", journal.exists() );
+    }
+
+    @Test
+    public void journalShouldBeCompactedWhenLargerThanThreshold() throws Exception {
+        HistoryJournal.append( journal, Collections.singletonMap( "test1", new TestResult( TestResult.SUCCESSFUL, 10 ) ) );
+
+        assertThat( "small journal should be kept", HistoryJournal.needsCompaction( journal, 1 ), is( false ) );
+        assertThat( "threshold 0 should compact every run", HistoryJournal.needsCompaction( journal, 0 ), is( true ) );
+    }
+
+    @Test
+    public void lockShouldBeHeldUntilItIsClosed() throws Exception {
+        final boolean[] locked = new boolean[1];
+        Thread otherBuild = new Thread() {
+
+            @Override
+            public void run() {
+                try ( HistoryJournal.Lock lock = HistoryJournal.lock( journal ) ) {
+                    locked[0] = true;
+                } catch ( IOException e ) {
+                    throw new IllegalStateException( e );
+                }
+            }
+        };
+
+        try ( HistoryJournal.Lock lock = HistoryJournal.lock( journal ) ) {
+            otherBuild.start();
+            otherBuild.join( 200 );
+            assertFalse( "other build should wait for the lock", locked[0] );
+        }
+        otherBuild.join();
+
+        assertThat( "other build should get the lock once it is released", locked[0], is( true ) );
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.discovery.TestClass;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HistoryPrunerTest {
+
+    private HistoryPruner pruner;
+    private Map<String, TestRecord> history;
+
+    @Before
+    public void setUp() throws Exception {
+        pruner = new HistoryPruner( Arrays.asList(
+                new TestClass( "com.foo.FirstIT", new HashSet<>( Collections.singletonList( "test1" ) ) ),
+                new TestClass( "com.foo.UnloadableIT", null ) ), Collections.singletonList( "com.foo.DeletedIT" ) );
+        history = new HashMap<>();
+        history.put( "com.foo.FirstIT.test1", new TestRecord( 1 ) );
+        history.put( "com.foo.FirstIT.deletedMethod", new TestRecord( 2 ) );
+        history.put( "com.foo.DeletedIT.test1", new TestRecord( 3 ) );
+        history.put( "com.foo.UnloadableIT.test1", new TestRecord( 4 ) );
+        history.put( "com.bar.OtherModuleIT.test1", new TestRecord( 5 ) );
+    }
+
+    @Test
+    public void testsOfClassesWithUnknownMethodsShouldExist() throws Exception {
+        assertThat( "existing method", pruner.exists( "com.foo.FirstIT.test1" ), is( true ) );
+        assertThat( "deleted method", pruner.exists( "com.foo.FirstIT.deletedMethod" ), is( false ) );
+        assertThat( "deleted class", pruner.exists( "com.foo.DeletedIT.test1" ), is( false ) );
+        assertThat( "class that could not be loaded", pruner.exists( "com.foo.UnloadableIT.test1" ), is( true ) );
+    }
+
+    @Test
+    public void invocationsShouldExistAsLongAsTheirTestMethodExists() throws Exception {
+        assertThat( "invocation of existing method", pruner.exists( "com.foo.FirstIT.test1[2]" ), is( true ) );
+        assertThat( "invocation of deleted method", pruner.exists( "com.foo.FirstIT.deletedMethod[2]" ), is( false ) );
+    }
+
+    @Test
+    public void dropShouldRemoveDeletedTests() throws Exception {
+        assertThat( "number of removed tests", pruner.drop( history ), is( 2 ) );
+        assertThat( history.keySet(), is( (Object) new HashSet<>(
+                Arrays.asList( "com.foo.FirstIT.test1", "com.foo.UnloadableIT.test1", "com.bar.OtherModuleIT.test1" ) ) ) );
+    }
+
+    @Test
+    public void missingTestsShouldBeTheDeletedOnes() throws Exception {
+        assertThat( new HashSet<>( pruner.missingTestsOf( history ) ), is( (Object) new HashSet<>(
+                Arrays.asList( "com.foo.FirstIT.deletedMethod", "com.foo.DeletedIT.test1" ) ) ) );
+        assertThat( "missing tests should not be selected", pruner.existingTestsOf( history ).size(), is( 3 ) );
+    }
+
+    @Test
+    public void dropExpiredShouldRemoveTestsOnlyAfterTheyHaveBeenMissingLongEnough() throws Exception {
+        history.get( "com.foo.DeletedIT.test1" ).setMissingBuilds( 1 );
+        history.get( "com.foo.FirstIT.test1" ).setMissingBuilds( 5 );
+
+        assertThat( "only the test missing for the second build should be removed", pruner.dropExpired( history, 2 ),
+                is( 1 ) );
+        assertThat( "missing test should be gone", history.containsKey( "com.foo.DeletedIT.test1" ), is( false ) );
+        assertThat( "test missing for the first time should be kept",
+                history.containsKey( "com.foo.FirstIT.deletedMethod" ), is( true ) );
+        assertThat( "test that shows up again should be kept", history.containsKey( "com.foo.FirstIT.test1" ),
+                is( true ) );
+    }
+
+    @Test
+    public void testsOfOtherModulesShouldNotBeDeleted() throws Exception {
+        assertThat( "test of a former class of the module", pruner.isDeleted( "com.foo.DeletedIT.test1" ), is( true ) );
+        assertThat( "test of another module", pruner.isDeleted( "com.bar.OtherModuleIT.test1" ), is( false ) );
+    }
+
+    @Test
+    public void formerTestClassesShouldBeKeptWhileTheyHaveTestsInTheHistory() throws Exception {
+        assertThat( pruner.testClassesOf( history ),
+                is( Arrays.asList( "com.foo.DeletedIT", "com.foo.FirstIT", "com.foo.UnloadableIT" ) ) );
+
+        pruner.drop( history );
+
+        assertThat( pruner.testClassesOf( history ), is( Arrays.asList( "com.foo.FirstIT", "com.foo.UnloadableIT" ) ) );
+    }
+}
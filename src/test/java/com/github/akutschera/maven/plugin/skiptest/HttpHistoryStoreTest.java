@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+import static com.github.akutschera.maven.plugin.skiptest.DirectoryHistoryStoreTest.addRun;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HttpHistoryStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private HttpServer server;
+    private CacheStandIn cache;
+    private String url;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create( new InetSocketAddress( "127.0.0.1", 0 ), 0 );
+        cache = new CacheStandIn();
+        server.createContext( "/cache/history", cache );
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/cache/history";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop( 0 );
+    }
+
+    @Test
+    public void readShouldReturnEmptyHistoryIfServerHasNone() throws Exception {
+        assertTrue( createStore( url ).read().isEmpty() );
+    }
+
+    @Test
+    public void updateShouldUploadHistoryThatOtherAgentsRead() throws Exception {
+        createStore( url ).update( addRun( "test1" ) );
+        createStore( url ).update( addRun( "test1" ) );
+
+        assertThat( "a fresh agent should read the history of the others",
+                createStore( url ).read().get( "test1" ).getSuccessfulRuns(), is( 2 ) );
+        assertThat( cache.puts, is( 2 ) );
+    }
+
+    @Test
+    public void updateThatLostTheRaceShouldBeAppliedToNewerHistory() throws Exception {
+        final HttpHistoryStore otherAgent = createStore( url );
+        createStore( url ).update( new HistoryStore.Update() {
+
+            private boolean first = true;
+
+            @Override
+            public void applyTo( Map<String, TestRecord> history ) {
+                if ( first ) {
+                    first = false;
+                    try {
+                        otherAgent.update( addRun( "other" ) );
+                    } catch ( IOException e ) {
+                        throw new IllegalStateException( e );
+                    }
+                }
+                addRun( "mine" ).applyTo( history );
+            }
+        } );
+
+        Map<String, TestRecord> history = createStore( url ).read();
+        assertThat( "the results of the other agent should be kept", history.get( "other" ).getSuccessfulRuns(), is( 1 ) );
+        assertThat( history.get( "mine" ).getSuccessfulRuns(), is( 1 ) );
+        assertThat( "the upload based on the outdated history should have been rejected", cache.rejected, is( 1 ) );
+    }
+
+    @Test
+    public void userInfoShouldBeSentAsBasicAuthentication() throws Exception {
+        createStore( url.replace( "http://", "http://ci:secret@" ) ).read();
+
+        assertThat( cache.authorization, is( "Basic Y2k6c2VjcmV0" ) );
+    }
+
+    @Test
+    public void staleLocalJournalShouldNotBeMergedIntoSharedHistory() throws Exception {
+        createStore( url ).update( addRun( "test1" ) );
+        File localCopy = new File( temporaryFolder.newFolder(), "all-test-results.txt" );
+        FileUtils.fileWrite( HistoryJournal.journalFor( localCopy ).getAbsolutePath(),
+                "test1:1:10" + AbstractSkipTestMojo.CRLF + "stale:1:10" + AbstractSkipTestMojo.CRLF );
+
+        HttpHistoryStore store = createStore( url, localCopy );
+        assertThat( store.read().get( "test1" ).getSuccessfulRuns(), is( 1 ) );
+        store.update( addRun( "test1" ) );
+
+        Map<String, TestRecord> history = createStore( url ).read();
+        assertThat( history.get( "test1" ).getSuccessfulRuns(), is( 2 ) );
+        assertFalse( "journal of the local copy should not be uploaded", history.containsKey( "stale" ) );
+    }
+
+    @Test(expected = IOException.class)
+    public void updateShouldFailIfServerRefusesUpload() throws Exception {
+        cache.readOnly = true;
+
+        createStore( url ).update( addRun( "test1" ) );
+    }
+
+    private HttpHistoryStore createStore( String location ) throws IOException {
+        return createStore( location, new File( temporaryFolder.newFolder(), "all-test-results.txt" ) );
+    }
+
+    private HttpHistoryStore createStore( String location, File localCopy ) {
+        PostSkipTestMojo mojo = new PostSkipTestMojo();
+        mojo.setHistoryStore( AbstractSkipTestMojo.HISTORY_STORE_HTTP );
+        mojo.setHistoryStoreLocation( location );
+        mojo.setAllTestResultsFile( localCopy );
+        return (HttpHistoryStore) mojo.createHistoryStore();
+    }
+
+    /**
+     * Answers GET and PUT like an HTTP build cache that supports conditional uploads.
+     */
+    private static final class CacheStandIn implements HttpHandler {
+
+        private byte[] contents;
+        private int version;
+        private int puts;
+        private int rejected;
+        private boolean readOnly;
+        private String authorization;
+
+        @Override
+        public synchronized void handle( HttpExchange exchange ) throws IOException {
+            authorization = exchange.getRequestHeaders().getFirst( "Authorization" );
+            byte[] body = IOUtil.toByteArray( exchange.getRequestBody() );
+            String etag = "\"" + version + "\"";
+            if ( "GET".equals( exchange.getRequestMethod() ) ) {
+                if ( contents == null ) {
+                    exchange.sendResponseHeaders( 404, -1 );
+                } else {
+                    exchange.getResponseHeaders().set( "ETag", etag );
+                    exchange.sendResponseHeaders( 200, contents.length );
+                    try ( OutputStream out = exchange.getResponseBody() ) {
+                        out.write( contents );
+                    }
+                }
+            } else if ( readOnly ) {
+                exchange.sendResponseHeaders( 403, -1 );
+            } else {
+                String ifMatch = exchange.getRequestHeaders().getFirst( "If-Match" );
+                String ifNoneMatch = exchange.getRequestHeaders().getFirst( "If-None-Match" );
+                if ( contents == null ? ifMatch != null : "*".equals( ifNoneMatch ) || !etag.equals( ifMatch ) ) {
+                    rejected++;
+                    exchange.sendResponseHeaders( 412, -1 );
+                } else {
+                    contents = body;
+                    version++;
+                    puts++;
+                    exchange.sendResponseHeaders( 204, -1 );
+                }
+            }
+            exchange.close();
+        }
+    }
+}
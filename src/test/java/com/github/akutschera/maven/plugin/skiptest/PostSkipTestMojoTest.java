@@ -15,6 +15,11 @@
  */
 package com.github.akutschera.maven.plugin.skiptest;
 
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
@@ -22,12 +27,18 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.lang.reflect.Field;
+import java.util.Arrays;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class PostSkipTestMojoTest {
 
@@ -82,8 +93,8 @@ public class PostSkipTestMojoTest {
         String allResults = FileUtils.fileRead( allResultsFile );
         assertThat( "all results should contain merged data from test",
                 allResults, containsString( "test1:2" ) );
-        assertThat( "all results should NOT contain data from failed test",
-                allResults, not( containsString( "test2" ) ) );
+        assertThat( "failed test should start a new streak and keep its statistics",
+                allResults, containsString( "test2:0::0:0:" ) );
         assertThat(
                 "all results should contain data from all tests (even those that did not run)",
                 allResults, containsString( "test3:1" ) );
@@ -109,4 +120,360 @@ public class PostSkipTestMojoTest {
                 allResults, containsString( "test2:2" ) );
     }
 
+    @Test
+    public void executeShouldReplaceAllResultsFileWithoutLeavingTemporaryFilesBehind()
+            throws Exception {
+        File directory = temporaryFolder.newFolder();
+        allResultsFile = new File( directory, "all-test-results.txt" );
+        mojo.setAllTestResultsFile( allResultsFile );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        assertThat( "only the results file should remain in its directory",
+                directory.list().length, is( 1 ) );
+        assertThat( "all results should contain merged data from test",
+                FileUtils.fileRead( allResultsFile ), startsWith( "test1:2:" ) );
+    }
+
+    @Test
+    public void executeShouldCountBuildsInWhichTestWasSkipped() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "skipped:5::0:1:1000" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "ran:5::0:2:1000" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( new File( testReportsFile.getParentFile(), SkipEngine.SKIP_INPUT_FILE ).getAbsolutePath(),
+                "skipped" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "ran:1:10" + AbstractSkipTestMojo.CRLF );
+
+        long start = System.currentTimeMillis();
+        mojo.execute();
+
+        String allResults = FileUtils.fileRead( allResultsFile );
+        assertThat( "skipped test should count one more skipped build and keep its last run", allResults,
+                containsString( "skipped:5::0:2:1000" ) );
+        assertThat( "test that ran should no longer count as skipped", allResults, containsString( "ran:6:10:0:0:" ) );
+        String lastRun = allResults.substring( allResults.indexOf( "ran:6:10:0:0:" ) + "ran:6:10:0:0:".length() )
+                .split( ":" )[0];
+        assertTrue( "last run of test that ran should be now", Long.parseLong( lastRun ) >= start );
+    }
+
+    @Test
+    public void executeShouldLeaveHistoryOfTestsThatWereNotRunUntouched() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "lowRisk:5:20:0:1:1000" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "broken:0:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "lowRisk:3:0" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "newLowRisk:3:0" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        String allResults = FileUtils.fileRead( allResultsFile );
+        assertThat( "test that was not run should keep its history", allResults,
+                containsString( "lowRisk:5:20:0:1:1000" + AbstractSkipTestMojo.CRLF ) );
+        assertThat( "test that was not run should not be added", allResults, not( containsString( "newLowRisk" ) ) );
+        assertThat( "failed test should be recorded", allResults, containsString( "broken:0:" ) );
+    }
+
+    @Test
+    public void executeShouldCountBuildsInWhichTestWasMissing() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "deleted:5::1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "back:5::3" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( new File( testReportsFile.getParentFile(), HistoryPruner.MISSING_TESTS_FILE )
+                .getAbsolutePath(), "deleted:" + TestResult.MISSING + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "back:1:10" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        String allResults = FileUtils.fileRead( allResultsFile );
+        assertThat( "missing test should count one more missing build", allResults,
+                containsString( "deleted:5::2" + AbstractSkipTestMojo.CRLF ) );
+        assertThat( "test that shows up again should start over", allResults, containsString( "back:6:10:0:" ) );
+    }
+
+    @Test
+    public void executeShouldCountStartedTestsWithoutResultAsFailed() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "killed:5:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "done:5:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "done:" + TestResult.STARTED + ":0"
+                + AbstractSkipTestMojo.CRLF + "done:1:10" + AbstractSkipTestMojo.CRLF + "killed:"
+                + TestResult.STARTED + ":0" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        String allResults = FileUtils.fileRead( allResultsFile );
+        assertThat( "test of a killed fork should lose its streak", allResults, containsString( "killed:0" ) );
+        assertThat( "finished test should count", allResults, containsString( "done:6:10" ) );
+    }
+
+    @Test
+    public void executeShouldNotWriteReportByDefault() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "ran:1:10" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        assertFalse( "report should be opt-in",
+                new File( testReportsFile.getParentFile(), RunReport.JSON_FILE ).exists() );
+    }
+
+    @Test
+    public void executeShouldWriteReportOfTheBuild() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        File buildDir = testReportsFile.getParentFile();
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "skipped:5:1000" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( new File( buildDir, SkipEngine.SKIP_INPUT_FILE ).getAbsolutePath(),
+                "skipped" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "ran:1:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "broken:0:5" + AbstractSkipTestMojo.CRLF );
+        RunReport preReport = new RunReport();
+        preReport.phaseFinished( "pre-skip-test", System.nanoTime() );
+        preReport.store( new File( buildDir, RunReport.PRE_REPORT_FILE ) );
+
+        mojo.setWriteReport( true );
+        mojo.execute();
+
+        String json = FileUtils.fileRead( new File( buildDir, RunReport.JSON_FILE ) );
+        assertThat( "tests run", json, containsString( "\"testsRun\": 2," ) );
+        assertThat( "tests failed", json, containsString( "\"testsFailed\": 1," ) );
+        assertThat( "tests skipped", json, containsString( "\"testsSkipped\": 1," ) );
+        assertThat( "history after the merge", json, containsString( "\"historySize\": 3," ) );
+        assertThat( "phase of pre-skip-test", json, containsString( "\"pre-skip-test\": " ) );
+        assertThat( "phase of post-skip-test", json, containsString( "\"post-skip-test.updateHistory\": " ) );
+        assertThat( "report for Prometheus", FileUtils.fileRead( new File( buildDir, RunReport.PROMETHEUS_FILE ) ),
+                containsString( "skiptest_tests{outcome=\"skipped\"} 1" ) );
+    }
+
+    @Test
+    public void shardShouldLeaveHistoryToMergeOfAllShards() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        mojo.setShardCount( 2 );
+        mojo.setShardIndex( 1 );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        assertThat( FileUtils.fileRead( allResultsFile ), is( "test1:1" + AbstractSkipTestMojo.CRLF ) );
+    }
+
+    @Test
+    public void executeShouldMergeResultsOfAllShards() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "a:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "b:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "stable:5" + AbstractSkipTestMojo.CRLF );
+        File shards = temporaryFolder.newFolder();
+        File firstShard = new File( shards, "shard-0" );
+        File secondShard = new File( shards, "shard-1" );
+        assertTrue( firstShard.mkdir() && secondShard.mkdir() );
+        FileUtils.fileWrite( new File( firstShard, "skiptest.results.11" ).getAbsolutePath(),
+                "a:1:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileWrite( new File( firstShard, SkipEngine.SKIP_INPUT_FILE ).getAbsolutePath(),
+                "stable" + AbstractSkipTestMojo.CRLF + "b" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileWrite( new File( secondShard, "skiptest.results.11" ).getAbsolutePath(),
+                "b:1:20" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileWrite( new File( secondShard, SkipEngine.SKIP_INPUT_FILE ).getAbsolutePath(),
+                "stable" + AbstractSkipTestMojo.CRLF + "a" + AbstractSkipTestMojo.CRLF );
+        mojo.setTestReportsFile( new File( temporaryFolder.newFolder(), "skiptest.results" ) );
+        mojo.setShardCount( 2 );
+        mojo.setShardResultsDirectory( shards );
+
+        mojo.execute();
+
+        String allResults = FileUtils.fileRead( allResultsFile );
+        assertThat( "results of first shard should be merged", allResults, containsString( "a:2:10:0:0:" ) );
+        assertThat( "results of second shard should be merged", allResults, containsString( "b:2:20:0:0:" ) );
+        assertThat( "test skipped by all shards should count one skipped build", allResults,
+                containsString( "stable:5::0:1:0" ) );
+    }
+
+    @Test
+    public void executeShouldAddNewVersionToSharedHistoryDirectory() throws Exception {
+        File directory = temporaryFolder.newFolder();
+        mojo.setHistoryStore( AbstractSkipTestMojo.HISTORY_STORE_DIRECTORY );
+        mojo.setHistoryStoreLocation( directory.getPath() );
+        FileUtils.fileWrite( new File( directory, DirectoryHistoryStore.PREFIX + "1" ).getAbsolutePath(),
+                "test1:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "test1:1:10" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        assertThat( FileUtils.fileRead( new File( directory, DirectoryHistoryStore.PREFIX + "2" ) ),
+                startsWith( "test1:2:10:" ) );
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForUnknownHistoryStore() throws Exception {
+        mojo.setHistoryStore( "carrier-pigeon" );
+        mojo.execute();
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForSharedHistoryWithJournal() throws Exception {
+        mojo.setHistoryStore( AbstractSkipTestMojo.HISTORY_STORE_DIRECTORY );
+        mojo.setHistoryStoreLocation( temporaryFolder.getRoot().getPath() );
+        mojo.setHistoryJournal( true );
+        mojo.execute();
+    }
+
+    @Test
+    public void executeShouldKeepMovingAverageOfDuration() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test1:1:100" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test2:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "test1:1:200" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "test2:1:50" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        String allResults = FileUtils.fileRead( allResultsFile );
+        assertThat( "duration should move towards the latest run", allResults, containsString( "test1:2:130" ) );
+        assertThat( "first known duration should be taken as is", allResults, containsString( "test2:2:50" ) );
+    }
+
+    @Test
+    public void executeShouldMergeResultsOfAllForks() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test3:1" + AbstractSkipTestMojo.CRLF );
+        File firstFork = new File( testReportsFile.getPath() + ".1" );
+        File secondFork = new File( testReportsFile.getPath() + ".2" );
+        FileUtils.fileAppend( firstFork.getAbsolutePath(), "test1:1:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( firstFork.getAbsolutePath(), "test3:0:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( secondFork.getAbsolutePath(), "test2:1:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( secondFork.getAbsolutePath(), "test3:1:10" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        String allResults = FileUtils.fileRead( allResultsFile );
+        assertThat( "results of first fork should be merged", allResults, containsString( "test1:1" ) );
+        assertThat( "results of second fork should be merged", allResults, containsString( "test2:1" ) );
+        assertThat( "test that failed in any fork should count as failed", allResults,
+                containsString( "test3:0:" ) );
+    }
+
+    @Test
+    public void reactorHistoryShouldBeWrittenOnceByTheLastModule() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+        MavenSession session = mock( MavenSession.class );
+        MavenProject firstProject = new MavenProject();
+        MavenProject secondProject = new MavenProject();
+        when( session.getProjects() ).thenReturn( Arrays.asList( firstProject, secondProject ) );
+        File secondReportsFile = temporaryFolder.newFile();
+        PostSkipTestMojo secondModule = new PostSkipTestMojo();
+        secondModule.setTestReportsFile( secondReportsFile );
+        for ( PostSkipTestMojo module : Arrays.asList( mojo, secondModule ) ) {
+            module.setAllTestResultsFile( allResultsFile );
+            module.setReactorHistory( true );
+            setFieldValue( module, "session", session );
+        }
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( secondReportsFile.getAbsolutePath(), "test2:1" + AbstractSkipTestMojo.CRLF );
+
+        when( session.getCurrentProject() ).thenReturn( firstProject );
+        mojo.execute();
+        assertThat( "history should not be written before the last module", FileUtils.fileRead( allResultsFile ),
+                is( "test1:1" + AbstractSkipTestMojo.CRLF ) );
+        when( session.getCurrentProject() ).thenReturn( secondProject );
+        secondModule.execute();
+
+        String allResults = FileUtils.fileRead( allResultsFile );
+        assertThat( "results of first module should be stored", allResults, containsString( "test1:2" ) );
+        assertThat( "results of second module should be stored", allResults, containsString( "test2:1" ) );
+    }
+
+    @Test
+    public void journalShouldReceiveResultsWithoutRewritingHistory() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        mojo.setHistoryJournal( true );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "test1:1:10" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        assertThat( "history should be untouched", FileUtils.fileRead( allResultsFile ),
+                is( "test1:1" + AbstractSkipTestMojo.CRLF ) );
+        assertThat( "journal should contain the results of the run",
+                FileUtils.fileRead( HistoryJournal.journalFor( allResultsFile ) ),
+                startsWith( "test1:1:10:" ) );
+    }
+
+    @Test
+    public void journalShouldBeCompactedIntoHistoryWhenLargerThanThreshold() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        mojo.setHistoryJournal( true );
+        mojo.setJournalCompactionThreshold( 0 );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        assertThat( "history should contain the journal", FileUtils.fileRead( allResultsFile ),
+                containsString( "test1:2" ) );
+        assertFalse( "journal should be gone", HistoryJournal.journalFor( allResultsFile ).exists() );
+    }
+
+    @Test
+    public void journalShouldBeReplayedInOrderWhenHistoryIsRead() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        File journal = HistoryJournal.journalFor( allResultsFile );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test2:5" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( journal.getAbsolutePath(), "test1:1:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( journal.getAbsolutePath(), "test2:0:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( journal.getAbsolutePath(), "test1:1:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( journal.getAbsolutePath(), "test2:1:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "test1:1:10" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        String allResults = FileUtils.fileRead( allResultsFile );
+        assertThat( "every run in the journal should count", allResults, containsString( "test1:4" ) );
+        assertThat( "failure in the journal should reset the test", allResults, containsString( "test2:1" ) );
+        assertFalse( "journal should be part of the history now", journal.exists() );
+    }
+
+    @Test
+    public void testImpactShouldBeKeptForTheNextBuild() throws Exception {
+        allResultsFile = temporaryFolder.newFile();
+        mojo.setAllTestResultsFile( allResultsFile );
+        mojo.setTestImpact( true );
+        mojo.setClassHashesFile( temporaryFolder.newFile() );
+        FileUtils.fileWrite( mojo.getClassHashesFile().getAbsolutePath(), "com/foo/A.class:abc" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileWrite( mojo.getCoverageFile().getAbsolutePath(), "test1:com.foo.Old" + AbstractSkipTestMojo.CRLF
+                + "test2:com.foo.B" + AbstractSkipTestMojo.CRLF );
+        File segment = new File( testReportsFile.getParentFile(), SkipEngine.TEST_IMPACT_FILE + ".1" );
+        FileUtils.fileWrite( segment.getAbsolutePath(), "test1:com.foo.A" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( testReportsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+
+        mojo.execute();
+
+        assertThat( "classes of the tests that ran should be replaced", FileUtils.fileRead( mojo.getCoverageFile() ),
+                is( "test1:com.foo.A" + AbstractSkipTestMojo.CRLF + "test2:com.foo.B" + AbstractSkipTestMojo.CRLF ) );
+        assertThat( "class hashes of this build should be kept", FileUtils.fileRead( mojo.getClassHashesBaseline() ),
+                is( "com/foo/A.class:abc" + AbstractSkipTestMojo.CRLF ) );
+    }
+
+    private void setFieldValue( Object target, String fieldName, Object value ) throws Exception {
+        Field field = AbstractSkipTestMojo.class.getDeclaredField( fieldName );
+        field.setAccessible( true );
+        field.set( target, value );
+    }
+
 }
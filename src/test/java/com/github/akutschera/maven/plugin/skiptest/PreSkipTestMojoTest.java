@@ -15,8 +15,16 @@
  */
 package com.github.akutschera.maven.plugin.skiptest;
 
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipList;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestClassPatterns;
+import com.github.akutschera.maven.plugin.skiptest.discovery.ScannedIT;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
 import org.apache.maven.lifecycle.internal.MojoExecutor;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
@@ -29,10 +37,19 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.io.File;
 import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest(MojoExecutor.class)
@@ -55,6 +72,7 @@ public class PreSkipTestMojoTest {
         skipInputFile = temporaryFolder.newFile();
         setFieldValue( mojo, "skipInputFile", skipInputFile );
         setFieldValue( mojo, "skiptestsResultsFile", temporaryFolder.newFile() );
+        setFieldValue( mojo, "classExcludesFile", new File( temporaryFolder.getRoot(), "skiptest-excludes.txt" ) );
 
         PowerMockito.mockStatic( MojoExecutor.class );
     }
@@ -93,6 +111,302 @@ public class PreSkipTestMojoTest {
 
     }
 
+    @Test
+    public void executeShouldStoreEstimatedTimeSavedForTheReport() throws Exception {
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "fast:5:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "slow:6:1000" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "flaky:0:100" + AbstractSkipTestMojo.CRLF );
+
+        mojo.setSkipPercentage( 34 );
+        mojo.setWriteReport( true );
+        mojo.execute();
+
+        RunReport report = new RunReport();
+        report.load( new File( skipInputFile.getParentFile(), RunReport.PRE_REPORT_FILE ) );
+        assertThat( "duration of the skipped test", report.getEstimatedTimeSaved(), is( 1000L ) );
+        assertThat( "history size", report.getHistorySize(), is( 3 ) );
+        assertThat( "phases", report.getPhases().containsKey( "pre-skip-test.selectTests" ), is( true ) );
+        assertThat( "whole goal", report.getPhases().containsKey( "pre-skip-test" ), is( true ) );
+    }
+
+    @Test
+    public void executeShouldSkipLongRunningTestsIfSkipStrategyIsTime() throws Exception {
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "fast:5:10" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "slow:3:1000" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "medium:4:100" + AbstractSkipTestMojo.CRLF );
+
+        mojo.setSkipPercentage( 50 );
+        mojo.setSkipStrategy( PreSkipTestMojo.SKIP_STRATEGY_TIME );
+        mojo.execute();
+
+        String contents = FileUtils.fileRead( skipInputFile );
+        assertThat( "only the slow test is needed to skip half of the time", contents,
+                is( "slow" + AbstractSkipTestMojo.CRLF ) );
+    }
+
+    @Test
+    public void executeShouldRunTestsThatWereSkippedTooOften() throws Exception {
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test1:9::0:3:0" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test2:2" + AbstractSkipTestMojo.CRLF );
+
+        mojo.setSkipPercentage( 100 );
+        mojo.setMaxSkippedBuilds( 3 );
+        mojo.execute();
+
+        assertThat( "test skipped in the last three builds should run", FileUtils.fileRead( skipInputFile ),
+                is( "test2" + AbstractSkipTestMojo.CRLF ) );
+    }
+
+    @Test
+    public void executeShouldRunTestsThatRanTooLongAgo() throws Exception {
+        long eightDaysAgo = System.currentTimeMillis() - TimeUnit.DAYS.toMillis( 8 );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(),
+                "test1:9::0:1:" + eightDaysAgo + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test2:2" + AbstractSkipTestMojo.CRLF );
+
+        mojo.setSkipPercentage( 100 );
+        mojo.setSkipStrategy( PreSkipTestMojo.SKIP_STRATEGY_WEIGHTED );
+        mojo.setMaxSkippedDays( 7 );
+        mojo.execute();
+
+        assertThat( "test that last ran eight days ago should run", FileUtils.fileRead( skipInputFile ),
+                is( "test2" + AbstractSkipTestMojo.CRLF ) );
+    }
+
+    @Test
+    public void executeShouldSkipGivenPercentageIfSkipStrategyIsWeighted() throws Exception {
+        for ( int i = 0; i < 10; i++ ) {
+            FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test" + i + ":" + ( i + 1 )
+                    + AbstractSkipTestMojo.CRLF );
+        }
+
+        mojo.setSkipPercentage( 40 );
+        mojo.setSkipStrategy( PreSkipTestMojo.SKIP_STRATEGY_WEIGHTED );
+        mojo.setSkipSeed( 1L );
+        mojo.execute();
+
+        assertThat( FileUtils.fileRead( skipInputFile ).split( AbstractSkipTestMojo.CRLF ).length, is( 4 ) );
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForNegativeStalenessLimit() throws Exception {
+        mojo.setMaxSkippedDays( -1 );
+        mojo.execute();
+    }
+
+    @Test
+    public void shardsShouldSplitTestsThatAreNotSkipped() throws Exception {
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "a.SlowIT.test:5:1000" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "a.FastIT.test1:1:400" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "a.FastIT.test2:1:400" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "a.OtherIT.test:1:300" + AbstractSkipTestMojo.CRLF );
+
+        mojo.setSkipPercentage( 25 );
+        mojo.setShardCount( 2 );
+        mojo.setShardIndex( 0 );
+        mojo.execute();
+        String firstShard = FileUtils.fileRead( skipInputFile );
+        mojo.setShardIndex( 1 );
+        mojo.execute();
+        String secondShard = FileUtils.fileRead( skipInputFile );
+
+        assertThat( "the most stable test should be skipped by every shard", firstShard,
+                containsString( "a.SlowIT.test" ) );
+        assertThat( secondShard, containsString( "a.SlowIT.test" ) );
+        assertThat( "the first shard should run the longest class only", firstShard,
+                is( "a.SlowIT.test" + AbstractSkipTestMojo.CRLF + "a.OtherIT.test" + AbstractSkipTestMojo.CRLF ) );
+        assertThat( "the second shard should run the other class", secondShard, containsString( "a.FastIT.test1" ) );
+        assertThat( secondShard, containsString( "a.FastIT.test2" ) );
+        assertThat( secondShard, not( containsString( "a.OtherIT" ) ) );
+    }
+
+    @Test
+    public void shardShouldExcludeClassesOfOtherShardsWithoutSkipWholeClasses() throws Exception {
+        String scannedClass = ScannedIT.class.getName();
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), scannedClass + ".first:1:100000" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), scannedClass + ".second:1:100000" + AbstractSkipTestMojo.CRLF );
+        File excludesFile = new File( temporaryFolder.getRoot(), "excludes.txt" );
+        setUpScannedTestClasses();
+        setFieldValue( mojo, "classExcludesFile", excludesFile );
+
+        mojo.setShardCount( 2 );
+        mojo.setShardIndex( 1 );
+        mojo.execute();
+
+        assertThat( "the longest class runs on the first shard, its setup should not run on the second",
+                FileUtils.fileRead( excludesFile ), containsString( scannedClass.replace( '.', '/' ) + ".java" ) );
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForShardIndexOutOfRange() throws Exception {
+        mojo.setShardCount( 2 );
+        mojo.setShardIndex( 2 );
+        mojo.execute();
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForWeightedStrategyOfShardsWithoutSeed() throws Exception {
+        mojo.setShardCount( 2 );
+        mojo.setSkipStrategy( PreSkipTestMojo.SKIP_STRATEGY_WEIGHTED );
+        mojo.execute();
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForUnknownSkipStrategy() throws Exception {
+        mojo.setSkipStrategy( "by-color" );
+        mojo.execute();
+    }
+
+    @Test
+    public void executeShouldExcludeClassesWhoseTestsAreAllSkipped() throws Exception {
+        String scannedClass = ScannedIT.class.getName();
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), scannedClass + ".first:5" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), scannedClass + ".second:4" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "other.test:1" + AbstractSkipTestMojo.CRLF );
+        File excludesFile = new File( temporaryFolder.getRoot(), "excludes.txt" );
+        Properties projectProperties = new Properties();
+        MavenProject project = mock( MavenProject.class );
+        when( project.getTestClasspathElements() ).thenReturn( Collections.singletonList(
+                new File( Test.class.getProtectionDomain().getCodeSource().getLocation().toURI() ).getPath() ) );
+        when( project.getProperties() ).thenReturn( projectProperties );
+        setFieldValue( mojo, "mavenProject", project );
+        setFieldValue( mojo, "testClassesDirectory",
+                new File( ScannedIT.class.getProtectionDomain().getCodeSource().getLocation().toURI() ) );
+        setFieldValue( mojo, "classExcludesFile", excludesFile );
+
+        mojo.setSkipPercentage( 67 );
+        mojo.setSkipWholeClasses( true );
+        mojo.execute();
+
+        String excludes = FileUtils.fileRead( excludesFile );
+        assertThat( "class with only skipped tests should be excluded", excludes,
+                containsString( scannedClass.replace( '.', '/' ) + ".java" ) );
+        assertThat( "default exclude of failsafe should be kept", excludes, containsString( "**/*$*" ) );
+        assertThat( "failsafe should pick up the excludes", projectProperties.getProperty( "failsafe.excludesFile" ),
+                is( excludesFile.getAbsolutePath() ) );
+    }
+
+    @Test
+    public void executeShouldDropDeletedTestsFromHistory() throws Exception {
+        String scannedClass = ScannedIT.class.getName();
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), scannedClass + ".first:5" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), scannedClass + ".deleted:4" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "com.foo.DeletedIT.test:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "com.bar.OtherModuleIT.test:3" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileWrite( mojo.getTestClassesBaseline().getAbsolutePath(), "com.foo.DeletedIT" );
+        setUpScannedTestClasses();
+
+        mojo.setPruneDeletedTests( PreSkipTestMojo.PRUNE_DROP );
+        mojo.execute();
+
+        String history = FileUtils.fileRead( allResultsFile );
+        assertThat( "deleted tests of this module should be dropped", history, not( containsString( "deleted" ) ) );
+        assertThat( "deleted class of this module should be dropped", history, not( containsString( "DeletedIT" ) ) );
+        assertThat( "existing test should remain", history, containsString( scannedClass + ".first:5" ) );
+        assertThat( "test of another module should remain", history, containsString( "com.bar.OtherModuleIT.test:3" ) );
+        String testClasses = FileUtils.fileRead( mojo.getTestClassesBaseline() );
+        assertThat( "next build should know the test classes of this module", testClasses, containsString( scannedClass ) );
+        assertThat( "deleted class should be forgotten once its tests are gone", testClasses,
+                not( containsString( "DeletedIT" ) ) );
+    }
+
+    @Test
+    public void executeShouldOnlyDropDeletedMethodsWhileTestClassesOfModuleAreUnknown() throws Exception {
+        String scannedClass = ScannedIT.class.getName();
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), scannedClass + ".first:5" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), scannedClass + ".deleted:4" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "com.bar.OtherModuleIT.test:3" + AbstractSkipTestMojo.CRLF );
+        setUpScannedTestClasses();
+
+        mojo.setPruneDeletedTests( PreSkipTestMojo.PRUNE_DROP );
+        mojo.execute();
+
+        String history = FileUtils.fileRead( allResultsFile );
+        assertThat( "deleted method should be dropped", history, not( containsString( "deleted" ) ) );
+        assertThat( "test that may belong to another module should remain", history,
+                containsString( "com.bar.OtherModuleIT.test:3" ) );
+    }
+
+    @Test
+    public void executeShouldNotCountAgingTestsWhenSelectingTestsToSkip() throws Exception {
+        String scannedClass = ScannedIT.class.getName();
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), scannedClass + ".first:5" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), scannedClass + ".second:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "com.foo.DeletedIT.test:9" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileWrite( mojo.getTestClassesBaseline().getAbsolutePath(), "com.foo.DeletedIT" );
+        setUpScannedTestClasses();
+
+        mojo.setPruneDeletedTests( PreSkipTestMojo.PRUNE_AGE );
+        mojo.setSkipPercentage( 50 );
+        mojo.execute();
+
+        assertThat( "history should not be rewritten while no test is dropped", FileUtils.fileRead( allResultsFile ),
+                containsString( "com.foo.DeletedIT.test:9" + AbstractSkipTestMojo.CRLF ) );
+        assertThat( "missing test should be handed to post-skip-test", FileUtils.fileRead(
+                new File( skipInputFile.getParentFile(), HistoryPruner.MISSING_TESTS_FILE ) ),
+                is( "com.foo.DeletedIT.test:" + TestResult.MISSING + AbstractSkipTestMojo.CRLF ) );
+        assertThat( "most stable existing test should be skipped", FileUtils.fileRead( skipInputFile ).trim(),
+                is( scannedClass + ".first" ) );
+    }
+
+    @Test
+    public void executeShouldNeverSkipTestsAffectedByChangedClasses() throws Exception {
+        File classes = temporaryFolder.newFolder();
+        FileUtils.fileWrite( new File( classes, "Service.class" ).getAbsolutePath(), "changed" );
+        FileUtils.fileWrite( new File( classes, "Repository.class" ).getAbsolutePath(), "same" );
+        setFieldValue( mojo, "classesDirectory", classes );
+        mojo.setClassHashesFile( new File( temporaryFolder.getRoot(), "skiptest-classes.txt" ) );
+        Map<String, String> previousHashes = ClassHashes.compute( classes );
+        previousHashes.put( "Service.class", "old" );
+        ClassHashes.write( previousHashes, mojo.getClassHashesBaseline() );
+        FileUtils.fileWrite( mojo.getCoverageFile().getAbsolutePath(), "StableIT.service:Service" + AbstractSkipTestMojo.CRLF
+                + "StableIT.repository:Repository" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "StableIT.service:9" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "StableIT.repository:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "NotRecordedIT.test:8" + AbstractSkipTestMojo.CRLF );
+
+        mojo.setTestImpact( true );
+        mojo.setSkipPercentage( 100 );
+        mojo.execute();
+
+        assertThat( "only the unaffected test should be skipped", FileUtils.fileRead( skipInputFile ).trim(),
+                is( "StableIT.repository" ) );
+        assertThat( "hashes of this build should be handed to post-skip-test",
+                ClassHashes.read( mojo.getClassHashesFile() ), is( ClassHashes.compute( classes ) ) );
+        assertThat( "test JVM should record the classes",
+                EngineConfiguration.readFrom( skipInputFile.getParentFile() ).getBoolean( EngineConfiguration.TEST_IMPACT, false ),
+                is( true ) );
+    }
+
+    @Test
+    public void executeShouldNotSkipAnythingWithoutClassHashesOfEarlierBuild() throws Exception {
+        setFieldValue( mojo, "classesDirectory", temporaryFolder.newFolder() );
+        mojo.setClassHashesFile( new File( temporaryFolder.getRoot(), "skiptest-classes.txt" ) );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "StableIT.test:9" + AbstractSkipTestMojo.CRLF );
+
+        mojo.setTestImpact( true );
+        mojo.setSkipPercentage( 100 );
+        mojo.execute();
+
+        assertThat( FileUtils.fileRead( skipInputFile ), is( "" ) );
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForUnknownPruneMode() throws Exception {
+        mojo.setPruneDeletedTests( "sometimes" );
+        mojo.execute();
+    }
+
+    private void setUpScannedTestClasses() throws Exception {
+        MavenProject project = mock( MavenProject.class );
+        when( project.getTestClasspathElements() ).thenReturn( Collections.singletonList(
+                new File( Test.class.getProtectionDomain().getCodeSource().getLocation().toURI() ).getPath() ) );
+        when( project.getProperties() ).thenReturn( new Properties() );
+        setFieldValue( mojo, "mavenProject", project );
+        setFieldValue( mojo, "testClassesDirectory",
+                new File( ScannedIT.class.getProtectionDomain().getCodeSource().getLocation().toURI() ) );
+    }
+
     @Test(expected = MojoExecutionException.class)
     public void executeShouldComplainIfSkipPercentageIsNegative()
             throws Exception {
@@ -113,16 +427,187 @@ public class PreSkipTestMojoTest {
         FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "no colon" + AbstractSkipTestMojo.CRLF );
         FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test3:3" + AbstractSkipTestMojo.CRLF );
 
-        Map<String, Integer> allResults = mojo.readAllResultsFrom( allResultsFile );
+        Map<String, TestRecord> allResults = mojo.readAllResultsFrom( allResultsFile );
 
         assertNotNull( "readAllResults must never return null", allResults );
         assertThat( "map should contain both elements with colon", allResults.size(), is( 2 ) );
     }
 
+    @Test
+    public void readAllResultsShouldSkipIncompleteLines() throws Exception {
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test2:" );
+
+        Map<String, TestRecord> allResults = mojo.readAllResultsFrom( allResultsFile );
+
+        assertThat( "map should only contain the complete line", allResults.size(), is( 1 ) );
+    }
+
+    @Test
+    public void executeShouldWriteRecordingModeForTestJvm() throws Exception {
+        mojo.setRecordingMode( EngineConfiguration.RECORDING_MODE_BUFFERED );
+        mojo.execute();
+
+        EngineConfiguration configuration = EngineConfiguration.readFrom( skipInputFile.getParentFile() );
+        assertThat( "recording mode should be handed to the test JVM",
+                configuration.get( EngineConfiguration.RECORDING_MODE, "" ),
+                is( EngineConfiguration.RECORDING_MODE_BUFFERED ) );
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForUnknownRecordingMode() throws Exception {
+        mojo.setRecordingMode( "carrier-pigeon" );
+        mojo.execute();
+    }
+
+    @Test
+    public void executeShouldWriteTestMethodExcludesForListenerEngine() throws Exception {
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "com.foo.BarIT.stable:5" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "com.foo.BarIT.flaky:0" + AbstractSkipTestMojo.CRLF );
+        File excludesFile = new File( temporaryFolder.getRoot(), "excludes.txt" );
+        setFieldValue( mojo, "classExcludesFile", excludesFile );
+
+        mojo.setSkipPercentage( 50 );
+        mojo.setEngine( EngineConfiguration.ENGINE_LISTENER );
+        mojo.execute();
+
+        String excludes = FileUtils.fileRead( excludesFile );
+        assertThat( "skipped test should be excluded for failsafe", excludes,
+                containsString( "com/foo/BarIT.java#stable" ) );
+        assertThat( "test to run should not be excluded", excludes, not( containsString( "flaky" ) ) );
+        assertThat( "engine should be handed to the test JVM",
+                EngineConfiguration.readFrom( skipInputFile.getParentFile() )
+                        .isEngine( EngineConfiguration.ENGINE_LISTENER ), is( true ) );
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForUnknownEngine() throws Exception {
+        mojo.setEngine( "steam" );
+        mojo.execute();
+    }
+
+    @Test
+    public void executeShouldHandTestClassPatternsToTestJvm() throws Exception {
+        mojo.setTestClassIncludes( Arrays.asList( "**/*IntegrationTest.java", "**/*E2E.java" ) );
+        mojo.setTestClassExcludes( Collections.singletonList( "**/Abstract*" ) );
+        mojo.execute();
+
+        TestClassPatterns patterns = EngineConfiguration.readFrom( skipInputFile.getParentFile() )
+                .getTestClassPatterns();
+        assertThat( "included class", patterns.matches( "com.foo.BarIntegrationTest" ), is( true ) );
+        assertThat( "second included class", patterns.matches( "com.foo.BarE2E" ), is( true ) );
+        assertThat( "excluded class", patterns.matches( "com.foo.AbstractBarIntegrationTest" ), is( false ) );
+        assertThat( "default includes should be replaced", patterns.matches( "com.foo.BarIT" ), is( false ) );
+    }
+
+    @Test
+    public void executeShouldHandExcludesToSurefire() throws Exception {
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "com.foo.BarTest.stable:5" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "com.foo.BarTest.flaky:0" + AbstractSkipTestMojo.CRLF );
+        File excludesFile = new File( temporaryFolder.getRoot(), "excludes.txt" );
+        setFieldValue( mojo, "classExcludesFile", excludesFile );
+        Properties projectProperties = new Properties();
+        MavenProject project = mock( MavenProject.class );
+        when( project.getProperties() ).thenReturn( projectProperties );
+        setFieldValue( mojo, "mavenProject", project );
+
+        mojo.setSkipPercentage( 50 );
+        mojo.setEngine( EngineConfiguration.ENGINE_LISTENER );
+        mojo.setTestClassIncludes( Collections.singletonList( "**/*Test.java" ) );
+        mojo.setTestPlugin( PreSkipTestMojo.TEST_PLUGIN_SUREFIRE );
+        mojo.execute();
+
+        assertThat( "skipped test should be excluded for surefire", FileUtils.fileRead( excludesFile ),
+                containsString( "com/foo/BarTest.java#stable" ) );
+        assertThat( "surefire should pick up the excludes", projectProperties.getProperty( "surefire.excludesFile" ),
+                is( excludesFile.getAbsolutePath() ) );
+        assertThat( "failsafe should not be touched", projectProperties.getProperty( "failsafe.excludesFile" ),
+                is( (String) null ) );
+    }
+
+    @Test
+    public void executeShouldWriteLowRiskTestsForEarlyFailBudget() throws Exception {
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "stable:5" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "passedOnce:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "failedLastTime:0" + AbstractSkipTestMojo.CRLF );
+
+        mojo.setSkipPercentage( 34 );
+        mojo.setEarlyFailBudget( 3 );
+        mojo.execute();
+
+        List<String> lowRiskTests = SkipList.readTestNames(
+                new File( skipInputFile.getParentFile(), SkipEngine.LOW_RISK_FILE ) );
+        assertThat( "only the test that runs and passed last time is low risk", lowRiskTests,
+                is( Collections.singletonList( "passedOnce" ) ) );
+        assertThat( "budget should be handed to the test JVM",
+                EngineConfiguration.readFrom( skipInputFile.getParentFile() )
+                        .getInt( EngineConfiguration.EARLY_FAIL_BUDGET, 0 ), is( 3 ) );
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForNegativeEarlyFailBudget() throws Exception {
+        mojo.setEarlyFailBudget( -1 );
+        mojo.execute();
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForUnknownTestPlugin() throws Exception {
+        mojo.setTestPlugin( "testng" );
+        mojo.execute();
+    }
+
+    @Test
+    public void executeShouldDeleteResultSegmentsFromPreviousRun() throws Exception {
+        File resultsFile = new File( temporaryFolder.getRoot(), "skiptest.results" );
+        File segment = new File( temporaryFolder.getRoot(), "skiptest.results.1234" );
+        FileUtils.fileWrite( segment.getAbsolutePath(), "test1:1:10" );
+        mojo.setSkiptestsResultsFile( resultsFile );
+
+        mojo.execute();
+
+        assertFalse( "results of previous forks should be deleted", segment.exists() );
+        assertThat( "segments should be handed to the test JVM",
+                EngineConfiguration.readFrom( skipInputFile.getParentFile() )
+                        .getBoolean( EngineConfiguration.RECORDING_SEGMENTS, false ), is( true ) );
+    }
+
+    @Test
+    public void executeShouldReplaceSkipListOfPreviousRun() throws Exception {
+        FileUtils.fileWrite( skipInputFile.getAbsolutePath(), "previouslySkipped" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test2:5" + AbstractSkipTestMojo.CRLF );
+
+        mojo.setSkipPercentage( 50 );
+        mojo.execute();
+
+        assertThat( "skip list should only contain the tests of this run", FileUtils.fileRead( skipInputFile ),
+                is( "test2" + AbstractSkipTestMojo.CRLF ) );
+    }
+
+    @Test
+    public void executeShouldWriteCompressedSkipListThatTestJvmCanRead() throws Exception {
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test1:1" + AbstractSkipTestMojo.CRLF );
+        FileUtils.fileAppend( allResultsFile.getAbsolutePath(), "test2:5" + AbstractSkipTestMojo.CRLF );
+
+        mojo.setSkipPercentage( 50 );
+        mojo.setSkipListFormat( SkipList.FORMAT_GZIP );
+        mojo.execute();
+
+        SkipList skipList = SkipList.read( skipInputFile );
+        assertThat( "compressed list should contain the skipped test", skipList.contains( "test2" ), is( true ) );
+        assertThat( "compressed list should only contain the skipped test", skipList.size(), is( 1 ) );
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void executeShouldFailForUnknownSkipListFormat() throws Exception {
+        mojo.setSkipListFormat( "xml" );
+        mojo.execute();
+    }
+
     @Test
     public void readAllResultsShouldReturnEmptyMapIfFileIsEmpty() throws Exception {
         File emptyFile = temporaryFolder.newFile();
-        Map<String, Integer> allResults = mojo.readAllResultsFrom( emptyFile );
+        Map<String, TestRecord> allResults = mojo.readAllResultsFrom( emptyFile );
 
         assertNotNull( "readAllResults must never return null", allResults );
         assertTrue( "empty file should produce empty map", allResults.isEmpty() );
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.discovery.TestClass;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ReactorHistoryTest {
+
+    private ReactorHistory history;
+
+    @Before
+    public void setUp() throws Exception {
+        Map<String, TestRecord> allResults = new HashMap<>();
+        allResults.put( "com.foo.FirstIT.test1", new TestRecord( 1 ) );
+        allResults.put( "com.foo.FirstIT.test2", new TestRecord( 2 ) );
+        allResults.put( "com.bar.SecondIT.test1", new TestRecord( 3 ) );
+        history = new ReactorHistory( allResults );
+    }
+
+    @Test
+    public void sliceShouldOnlyContainTestsOfGivenClasses() throws Exception {
+        Map<String, TestRecord> slice = history.sliceFor(
+                Collections.singletonList( new TestClass( "com.foo.FirstIT", null ) ) );
+
+        assertThat( "slice should contain the tests of the module", slice.keySet(),
+                is( (Set<String>) new HashSet<>( Arrays.asList( "com.foo.FirstIT.test1", "com.foo.FirstIT.test2" ) ) ) );
+    }
+
+    @Test
+    public void mergedResultsShouldBePartOfLaterSlices() throws Exception {
+        Map<String, TestResult> results = new HashMap<>();
+        results.put( "com.bar.SecondIT.test1", new TestResult( TestResult.FAILED, 10 ) );
+        results.put( "com.bar.SecondIT.newTest", new TestResult( TestResult.SUCCESSFUL, 10 ) );
+
+        history.merge( results );
+
+        Map<String, TestRecord> slice = history.sliceFor(
+                Collections.singletonList( new TestClass( "com.bar.SecondIT", null ) ) );
+        assertThat( "failed test and new test should be there", slice.keySet(),
+                is( (Set<String>) new HashSet<>( Arrays.asList( "com.bar.SecondIT.test1", "com.bar.SecondIT.newTest" ) ) ) );
+        assertThat( "failed test should start a new streak", slice.get( "com.bar.SecondIT.test1" ).getSuccessfulRuns(),
+                is( 0 ) );
+    }
+
+    @Test
+    public void historyShouldBeLoadedOncePerBuild() throws Exception {
+        final int[] loads = new int[1];
+        ReactorHistory.Loader loader = new ReactorHistory.Loader() {
+
+            @Override
+            public Map<String, TestRecord> load() {
+                loads[0]++;
+                return new HashMap<>();
+            }
+        };
+
+        Object build = new Object();
+        ReactorHistory first = ReactorHistory.forBuild( build, "history", loader );
+        ReactorHistory second = ReactorHistory.forBuild( build, "history", loader );
+        ReactorHistory nextBuild = ReactorHistory.forBuild( new Object(), "history", loader );
+
+        assertThat( "all modules should share the history", first == second, is( true ) );
+        assertThat( "history should only be read once per build", loads[0], is( 2 ) );
+        assertThat( "another build should read the history again", nextBuild == first, is( false ) );
+    }
+
+    @Test
+    public void resultsShouldBeSavedOnceTheLastModuleIsDone() throws Exception {
+        final List<Integer> saved = new ArrayList<>();
+        ReactorHistory.Saver saver = new ReactorHistory.Saver() {
+
+            @Override
+            public void save( List<Map<String, TestResult>> moduleResults ) {
+                saved.add( moduleResults.size() );
+            }
+        };
+
+        history.merge( Collections.singletonMap( "com.foo.FirstIT.test1", new TestResult( TestResult.SUCCESSFUL, 10 ) ) );
+        history.moduleDone( false, saver );
+        assertThat( "nothing should be saved before the last module", saved.isEmpty(), is( true ) );
+        history.merge( Collections.singletonMap( "com.bar.SecondIT.test1", new TestResult( TestResult.SUCCESSFUL, 10 ) ) );
+        history.moduleDone( true, saver );
+        history.merge( Collections.singletonMap( "com.foo.FirstIT.test2", new TestResult( TestResult.SUCCESSFUL, 10 ) ) );
+        history.moduleDone( false, saver );
+
+        assertThat( "last module should save all modules at once and a later module its own results", saved,
+                is( Arrays.asList( 2, 1 ) ) );
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import com.github.akutschera.maven.plugin.skiptest.history.TestResult;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RunReportTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void timeSavedShouldBeEstimatedFromAverageDurations() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "slow", new TestRecord( 5, 2000 ) );
+        history.put( "fast", new TestRecord( 5, 10 ) );
+        history.put( "unknown", new TestRecord( 5 ) );
+        RunReport report = new RunReport();
+
+        report.addSkippedTests( Arrays.asList( "slow", "fast", "unknown", "deleted" ), history );
+
+        assertThat( report.getEstimatedTimeSaved(), is( 2010L ) );
+    }
+
+    @Test
+    public void resultsShouldBeCountedByOutcome() {
+        Map<String, TestResult> results = new LinkedHashMap<>();
+        results.put( "passed", new TestResult( TestResult.SUCCESSFUL, 100 ) );
+        results.put( "failed", new TestResult( TestResult.FAILED, 50 ) );
+        results.put( "skipped", new TestResult( TestResult.SKIPPED, TestRecord.UNKNOWN_DURATION ) );
+        RunReport report = new RunReport();
+
+        report.addResults( results );
+        report.addTestsNotRun( 2 );
+
+        assertThat( "run", report.getTestsRun(), is( 2 ) );
+        assertThat( "failed", report.getTestsFailed(), is( 1 ) );
+        assertThat( "skipped", report.getTestsSkipped(), is( 1 ) );
+        assertThat( "not run", report.getTestsNotRun(), is( 2 ) );
+    }
+
+    @Test
+    public void partOfPreSkipTestShouldBeLoadedBeforeThePhasesOfPostSkipTest() throws Exception {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "slow", new TestRecord( 5, 2000 ) );
+        RunReport preReport = new RunReport();
+        preReport.addSkippedTests( Arrays.asList( "slow" ), history );
+        preReport.setHistorySize( 7 );
+        preReport.phaseFinished( "pre.second", System.nanoTime() );
+        preReport.phaseFinished( "pre.first", System.nanoTime() );
+        File file = new File( temporaryFolder.getRoot(), RunReport.PRE_REPORT_FILE );
+        preReport.store( file );
+
+        RunReport report = new RunReport();
+        report.phaseFinished( "post", System.nanoTime() );
+        report.load( file );
+
+        assertThat( "time saved", report.getEstimatedTimeSaved(), is( 2000L ) );
+        assertThat( "history size", report.getHistorySize(), is( 7 ) );
+        assertThat( "phases in the order they ran", report.getPhases().keySet().toString(),
+                is( "[pre.second, pre.first, post]" ) );
+    }
+
+    @Test
+    public void missingPartOfPreSkipTestShouldBeIgnored() throws Exception {
+        RunReport report = new RunReport();
+
+        report.load( new File( temporaryFolder.getRoot(), "does-not-exist" ) );
+
+        assertThat( report.getPhases().isEmpty(), is( true ) );
+    }
+
+    @Test
+    public void reportShouldBeWrittenAsJsonAndForPrometheus() throws Exception {
+        Map<String, TestResult> results = new LinkedHashMap<>();
+        results.put( "passed", new TestResult( TestResult.SUCCESSFUL, 1500 ) );
+        RunReport report = new RunReport();
+        report.addResults( results );
+        report.setHistorySize( 3 );
+        report.phaseFinished( "post-skip-test", System.nanoTime() );
+        File json = new File( temporaryFolder.getRoot(), RunReport.JSON_FILE );
+        File prometheus = new File( temporaryFolder.getRoot(), RunReport.PROMETHEUS_FILE );
+
+        report.writeJson( json );
+        report.writePrometheus( prometheus );
+
+        String jsonContents = FileUtils.fileRead( json );
+        assertThat( "tests run", jsonContents, containsString( "\"testsRun\": 1," ) );
+        assertThat( "test time", jsonContents, containsString( "\"testTimeMillis\": 1500," ) );
+        assertThat( "history size", jsonContents, containsString( "\"historySize\": 3," ) );
+        assertThat( "phases", jsonContents, containsString( "\"post-skip-test\": " ) );
+        String metrics = FileUtils.fileRead( prometheus );
+        assertThat( "tests by outcome", metrics, containsString( "skiptest_tests{outcome=\"passed\"} 1\n" ) );
+        assertThat( "seconds", metrics, containsString( "skiptest_test_time_seconds 1.5\n" ) );
+        assertThat( "type of metric", metrics, containsString( "# TYPE skiptest_history_size gauge\n" ) );
+        assertThat( "phases", metrics, containsString( "skiptest_phase_seconds{phase=\"post-skip-test\"} " ) );
+        assertThat( "line separator of the format", metrics, not( containsString( "\r" ) ) );
+    }
+}
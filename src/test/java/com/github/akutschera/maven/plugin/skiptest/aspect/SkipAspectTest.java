@@ -15,22 +15,32 @@
  */
 package com.github.akutschera.maven.plugin.skiptest.aspect;
 
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import com.github.akutschera.maven.plugin.skiptest.engine.TestImpact;
+import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.codehaus.plexus.util.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.junit.experimental.theories.Theories;
 import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import java.io.File;
+import java.util.Arrays;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
@@ -55,6 +65,9 @@ public class SkipAspectTest {
     public void setUp() throws Exception {
         resultFile = temporaryFolder.newFile();
         skipFile = temporaryFolder.newFile();
+        // the tests below pretend that String and Integer are test classes
+        FileUtils.fileWrite( new File( skipFile.getParentFile(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.TEST_CLASS_INCLUDES + "=**" + SkipAspect.CRLF );
     }
 
     @Test
@@ -151,6 +164,8 @@ public class SkipAspectTest {
     @Test
     public void executedTestShouldAppendFalseToResultFileIfExpectedExceptionIsNotThrown()
             throws Throwable {
+        // every test method has a join point of its own
+        when( pjp.getStaticPart() ).thenReturn( mock( JoinPoint.StaticPart.class ), mock( JoinPoint.StaticPart.class ) );
         when( pjp.getSignature().getName() ).thenReturn( "first" );
         Mockito.doReturn( Exception.class ).when( annotation ).expected();
 
@@ -183,4 +198,225 @@ public class SkipAspectTest {
         verify( pjp ).proceed();
     }
 
+    @Test
+    public void aspectShouldNotSkipOrRecordWhenListenerEngineIsConfigured() throws Throwable {
+        FileUtils.fileWrite( skipFile.getAbsolutePath(), "java.lang.String.skipMe" );
+        FileUtils.fileWrite( new File( skipFile.getParentFile(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.ENGINE + "=" + EngineConfiguration.ENGINE_LISTENER );
+        when( pjp.getThis() ).thenReturn( "foo" );
+        when( pjp.getSignature().getName() ).thenReturn( "skipMe" );
+
+        skipAspect = new SkipAspect( skipFile.getName(), resultFile.getName(),
+                skipFile.getParentFile() );
+        skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+
+        verify( pjp ).proceed();
+        assertThat( "results should be left to the listeners", FileUtils.fileRead( resultFile ), is( "" ) );
+    }
+
+    @Test
+    public void inheritedTestMethodShouldBeDecidedForEachSubclass() throws Throwable {
+        doReturn( Test.None.class ).when( annotation ).expected();
+        FileUtils.fileWrite( skipFile.getAbsolutePath(), "java.lang.String.skipMe" );
+        when( pjp.getThis() ).thenReturn( "foo" ).thenReturn( 42 );
+        when( pjp.getSignature().getName() ).thenReturn( "skipMe" );
+
+        skipAspect = new SkipAspect( skipFile.getName(), resultFile.getName(),
+                skipFile.getParentFile() );
+        skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+        skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+
+        verify( pjp, times( 1 ) ).proceed();
+        assertThat( FileUtils.fileRead( resultFile ), containsString( "java.lang.Integer.skipMe:1:" ) );
+    }
+
+    @Test
+    public void testsOfOtherClassesShouldRunWithoutBeingRecorded() throws Throwable {
+        FileUtils.fileWrite( new File( skipFile.getParentFile(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.TEST_CLASS_INCLUDES + "=**/*IntegrationTest.java" );
+        FileUtils.fileWrite( skipFile.getAbsolutePath(), "java.lang.String.skipMe" );
+        when( pjp.getThis() ).thenReturn( "foo" );
+        when( pjp.getSignature().getName() ).thenReturn( "skipMe" );
+
+        skipAspect = new SkipAspect( skipFile.getName(), resultFile.getName(),
+                skipFile.getParentFile() );
+        skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+
+        verify( pjp ).proceed();
+        assertThat( "test of another class should not be recorded", FileUtils.fileRead( resultFile ), is( "" ) );
+    }
+
+    @Test
+    public void invocationsOfParameterizedTestsShouldBeSkippedAndRecordedOneByOne() throws Throwable {
+        doReturn( Test.None.class ).when( annotation ).expected();
+        FileUtils.fileWrite( skipFile.getAbsolutePath(), ParameterizedIT.class.getName() + ".test[1]" );
+        when( pjp.getThis() ).thenReturn( new ParameterizedIT() );
+        when( pjp.getSignature().getName() ).thenReturn( "test" );
+
+        skipAspect = new SkipAspect( skipFile.getName(), resultFile.getName(),
+                skipFile.getParentFile() );
+        for ( int i = 0; i < 3; i++ ) {
+            skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+        }
+
+        verify( pjp, times( 2 ) ).proceed();
+        String results = FileUtils.fileRead( resultFile );
+        assertThat( results, containsString( ParameterizedIT.class.getName() + ".test[0]:1:" ) );
+        assertThat( results, containsString( ParameterizedIT.class.getName() + ".test[2]:1:" ) );
+    }
+
+    @Test
+    public void invocationsOfParameterizedTestsShouldBeCountedPerRunOfTheClass() throws Throwable {
+        doReturn( Test.None.class ).when( annotation ).expected();
+        when( pjp.getThis() ).thenReturn( new ParameterizedIT() );
+        when( pjp.getSignature().getName() ).thenReturn( "test" );
+        JoinPoint parameters = mock( JoinPoint.class, RETURNS_DEEP_STUBS );
+        when( parameters.getSignature().getDeclaringType() ).thenReturn( ParameterizedIT.class );
+
+        skipAspect = new SkipAspect( skipFile.getName(), resultFile.getName(),
+                skipFile.getParentFile() );
+        for ( int run = 0; run < 2; run++ ) {
+            skipAspect.beforeParametersOfClassRun( parameters );
+            for ( int i = 0; i < 2; i++ ) {
+                skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+            }
+        }
+
+        String results = FileUtils.fileRead( resultFile );
+        assertThat( "second run of the class should count from 0 again", results.split( "test\\[0\\]" ).length,
+                is( 3 ) );
+        assertThat( results, not( containsString( ".test[2]" ) ) );
+    }
+
+    @Test
+    public void invocationsOfTheoriesShouldBeCountedPerRunOfTheClass() throws Throwable {
+        doReturn( Test.None.class ).when( annotation ).expected();
+        when( pjp.getThis() ).thenReturn( new TheoriesIT() );
+        when( pjp.getSignature().getName() ).thenReturn( "first", "second" );
+        JoinPoint.StaticPart first = mock( JoinPoint.StaticPart.class );
+        JoinPoint.StaticPart second = mock( JoinPoint.StaticPart.class );
+
+        skipAspect = new SkipAspect( skipFile.getName(), resultFile.getName(),
+                skipFile.getParentFile() );
+        for ( JoinPoint.StaticPart theory : Arrays.asList( first, first, second, first ) ) {
+            when( pjp.getStaticPart() ).thenReturn( theory );
+            skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+        }
+
+        assertThat( FileUtils.fileRead( resultFile ).replaceAll( ":[^" + SkipAspect.CRLF + "]*", "" ),
+                is( TheoriesIT.class.getName() + ".first[0]" + SkipAspect.CRLF
+                        + TheoriesIT.class.getName() + ".first[1]" + SkipAspect.CRLF
+                        + TheoriesIT.class.getName() + ".second[0]" + SkipAspect.CRLF
+                        + TheoriesIT.class.getName() + ".first[0]" + SkipAspect.CRLF ) );
+    }
+
+    @Test
+    public void invocationsOfInheritedTestMethodShouldBeCountedForEachSubclass() throws Throwable {
+        doReturn( Test.None.class ).when( annotation ).expected();
+        when( pjp.getThis() ).thenReturn( new ParameterizedIT(), new OtherParameterizedIT(), new ParameterizedIT() );
+        when( pjp.getSignature().getName() ).thenReturn( "test" );
+
+        skipAspect = new SkipAspect( skipFile.getName(), resultFile.getName(),
+                skipFile.getParentFile() );
+        for ( int i = 0; i < 3; i++ ) {
+            skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+        }
+
+        String results = FileUtils.fileRead( resultFile );
+        assertThat( results, containsString( ParameterizedIT.class.getName() + ".test[1]:1:" ) );
+        assertThat( results, containsString( OtherParameterizedIT.class.getName() + ".test[0]:1:" ) );
+    }
+
+    @Test
+    public void lowRiskTestsShouldNotRunOnceEarlyFailBudgetIsUsedUp() throws Throwable {
+        doReturn( Test.None.class ).when( annotation ).expected();
+        FileUtils.fileAppend( new File( skipFile.getParentFile(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.EARLY_FAIL_BUDGET + "=1" );
+        FileUtils.fileWrite( new File( skipFile.getParentFile(), SkipEngine.LOW_RISK_FILE ).getAbsolutePath(),
+                "java.lang.String.lowRisk" );
+        when( pjp.getThis() ).thenReturn( "foo" );
+        when( pjp.getStaticPart() ).thenReturn( mock( JoinPoint.StaticPart.class ), mock( JoinPoint.StaticPart.class ),
+                mock( JoinPoint.StaticPart.class ) );
+        when( pjp.getSignature().getName() ).thenReturn( "fails", "lowRisk", "highRisk" );
+        when( pjp.proceed() ).thenThrow( new IllegalStateException( "broken" ) ).thenReturn( null );
+
+        skipAspect = new SkipAspect( skipFile.getName(), resultFile.getName(),
+                skipFile.getParentFile() );
+        try {
+            skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+        } catch ( IllegalStateException e ) {
+            // the first test fails and uses up the budget
+        }
+        skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+        skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+
+        verify( pjp, times( 2 ) ).proceed();
+        String results = FileUtils.fileRead( resultFile );
+        assertThat( "failed test", results, containsString( "java.lang.String.fails:0:" ) );
+        assertThat( "low risk test should be recorded as not run", results,
+                containsString( "java.lang.String.lowRisk:3:0" ) );
+        assertThat( "high risk test should still run", results, containsString( "java.lang.String.highRisk:1:" ) );
+    }
+
+    @Test
+    public void failingLowRiskTestsShouldNotUseUpEarlyFailBudget() throws Throwable {
+        doReturn( Test.None.class ).when( annotation ).expected();
+        FileUtils.fileAppend( new File( skipFile.getParentFile(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.EARLY_FAIL_BUDGET + "=1" );
+        FileUtils.fileWrite( new File( skipFile.getParentFile(), SkipEngine.LOW_RISK_FILE ).getAbsolutePath(),
+                "java.lang.String.lowRisk" + SkipAspect.CRLF + "java.lang.String.otherLowRisk" );
+        when( pjp.getThis() ).thenReturn( "foo" );
+        when( pjp.getStaticPart() ).thenReturn( mock( JoinPoint.StaticPart.class ), mock( JoinPoint.StaticPart.class ) );
+        when( pjp.getSignature().getName() ).thenReturn( "lowRisk", "otherLowRisk" );
+        when( pjp.proceed() ).thenThrow( new IllegalStateException( "broken" ) ).thenReturn( null );
+
+        skipAspect = new SkipAspect( skipFile.getName(), resultFile.getName(),
+                skipFile.getParentFile() );
+        try {
+            skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+        } catch ( IllegalStateException e ) {
+            // the low risk test fails
+        }
+        skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+
+        verify( pjp, times( 2 ) ).proceed();
+        assertThat( "other low risk test should still run", FileUtils.fileRead( resultFile ),
+                containsString( "java.lang.String.otherLowRisk:1:" ) );
+    }
+
+    @Test
+    public void classesExecutedByTestShouldBeRecordedInTestImpactMode() throws Throwable {
+        doReturn( Test.None.class ).when( annotation ).expected();
+        FileUtils.fileAppend( new File( skipFile.getParentFile(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.TEST_IMPACT + "=true" );
+        when( pjp.getThis() ).thenReturn( "foo" );
+        when( pjp.getSignature().getName() ).thenReturn( "executeMe" );
+        when( pjp.proceed() ).thenAnswer( new Answer<Object>() {
+
+            @Override
+            public Object answer( InvocationOnMock invocation ) {
+                TestImpact.touched( "com.foo.Service$Inner" );
+                TestImpact.touched( "com.foo.Repository" );
+                return null;
+            }
+        } );
+
+        skipAspect = new SkipAspect( skipFile.getName(), resultFile.getName(),
+                skipFile.getParentFile() );
+        skipAspect.aroundJUnitTestCaseMethods( pjp, annotation );
+
+        assertThat( FileUtils.fileRead( new File( skipFile.getParentFile(), SkipEngine.TEST_IMPACT_FILE ) ),
+                is( "java.lang.String.executeMe:com.foo.Repository,com.foo.Service" + SkipAspect.CRLF ) );
+    }
+
+    @RunWith( Parameterized.class )
+    public static class ParameterizedIT {
+    }
+
+    public static class OtherParameterizedIT extends ParameterizedIT {
+    }
+
+    @RunWith( Theories.class )
+    public static class TheoriesIT {
+    }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.discovery;
+
+import org.junit.Test;
+
+/**
+ * Not a real test, just something for {@link TestClassScannerTest} to find.
+ */
+public class ScannedIT {
+
+    @Test
+    public void first() {
+    }
+
+    @Test
+    public void second() {
+    }
+
+    public void notATest() {
+    }
+
+    public static class NestedIT {
+
+        @Test
+        public void nested() {
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.discovery;
+
+import org.junit.Test;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.TestClassPatterns;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestClassScannerTest {
+
+    @Test
+    public void scanShouldFindTopLevelTestClassesAndTheirTestMethods() throws Exception {
+        List<TestClass> testClasses = new TestClassScanner( testClassesDirectory(),
+                Collections.singletonList( junitJar() ) ).scan();
+
+        TestClass scanned = find( testClasses, ScannedIT.class.getName() );
+        assertThat( "scanner should find test class", scanned, not( nullValue() ) );
+        assertThat( "scanner should find all test methods", scanned.getTestMethods(), hasItems( "first", "second" ) );
+        assertThat( "scanner should find only test methods", scanned.getTestMethods().size(), is( 2 ) );
+        assertThat( "nested classes are not run by failsafe",
+                find( testClasses, ScannedIT.NestedIT.class.getName() ), nullValue() );
+        assertThat( "pattern for failsafe", scanned.getIncludePattern(),
+                is( "com/github/akutschera/maven/plugin/skiptest/discovery/ScannedIT.java" ) );
+    }
+
+    @Test
+    public void scanShouldFindJupiterTestMethods() throws Exception {
+        List<TestClass> testClasses = new TestClassScanner( testClassesDirectory(),
+                Collections.singletonList( jarOf( org.junit.jupiter.api.Test.class ) ) ).scan();
+
+        TestClass scanned = find( testClasses, ScannedJupiterIT.class.getName() );
+        assertThat( "scanner should find non-public and repeated test methods", scanned.getTestMethods(),
+                hasItems( "packagePrivate", "repeated" ) );
+        assertThat( "scanner should find only test methods", scanned.getTestMethods().size(), is( 2 ) );
+    }
+
+    @Test
+    public void scanShouldFindOnlyClassesMatchingThePatterns() throws Exception {
+        List<TestClass> testClasses = new TestClassScanner( testClassesDirectory(),
+                Collections.singletonList( junitJar() ),
+                TestClassPatterns.parse( "**/Scanned*IT.java", "**/ScannedJupiterIT.java" ) ).scan();
+
+        assertThat( "included class should be found", find( testClasses, ScannedIT.class.getName() ),
+                not( nullValue() ) );
+        assertThat( "excluded class should not be found", find( testClasses, ScannedJupiterIT.class.getName() ),
+                nullValue() );
+        assertThat( "only the included classes should be found", testClasses.size(), is( 1 ) );
+    }
+
+    @Test
+    public void scanShouldReportUnknownMethodsIfClassCannotBeLoaded() throws Exception {
+        List<TestClass> testClasses = new TestClassScanner( testClassesDirectory(),
+                Collections.<String>emptyList() ).scan();
+
+        TestClass scanned = find( testClasses, ScannedIT.class.getName() );
+        assertThat( "class should still be found", scanned, not( nullValue() ) );
+        assertThat( "methods should be unknown without junit on the classpath", scanned.hasKnownTestMethods(),
+                is( false ) );
+    }
+
+    @Test
+    public void scanShouldReturnNothingForMissingDirectory() {
+        List<TestClass> testClasses = new TestClassScanner( new File( "does-not-exist" ),
+                Arrays.asList( "foo" ) ).scan();
+
+        assertThat( "nothing to scan", testClasses.isEmpty(), is( true ) );
+    }
+
+    private static TestClass find( List<TestClass> testClasses, String name ) {
+        for ( TestClass testClass : testClasses ) {
+            if ( testClass.getName().equals( name ) ) {
+                return testClass;
+            }
+        }
+        return null;
+    }
+
+    private static File testClassesDirectory() throws Exception {
+        return new File( ScannedIT.class.getProtectionDomain().getCodeSource().getLocation().toURI() );
+    }
+
+    private static String junitJar() throws Exception {
+        return jarOf( Test.class );
+    }
+
+    private static String jarOf( Class<?> type ) throws Exception {
+        return new File( type.getProtectionDomain().getCodeSource().getLocation().toURI() ).getPath();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AppendingResultRecorderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void recordShouldNotInterleaveLinesOfRecordersThatRunInParallel() throws Exception {
+        final File resultFile = new File( temporaryFolder.getRoot(), "skiptest.results" );
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        for ( int recorder = 0; recorder < 4; recorder++ ) {
+            final String prefix = "recorder" + recorder + ".test";
+            executor.submit( new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    // one recorder per thread, like separate JVMs appending to the same file
+                    AppendingResultRecorder appendingRecorder = new AppendingResultRecorder( resultFile );
+                    for ( int i = 0; i < 250; i++ ) {
+                        appendingRecorder.record( prefix + i, 1, i );
+                    }
+                    return null;
+                }
+            } );
+        }
+        executor.shutdown();
+        executor.awaitTermination( 1, TimeUnit.MINUTES );
+
+        Set<String> lines = new HashSet<>();
+        for ( String line : FileUtils.fileRead( resultFile ).split( SkipEngine.CRLF ) ) {
+            assertThat( "every line should be complete: " + line, line.matches( "recorder\\d\\.test\\d+:1:\\d+" ),
+                    is( true ) );
+            lines.add( line );
+        }
+        assertThat( "no result should be lost", lines.size(), is( 1000 ) );
+    }
+}
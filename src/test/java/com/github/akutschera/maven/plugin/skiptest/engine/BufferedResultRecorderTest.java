@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BufferedResultRecorderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File resultFile;
+
+    @Before
+    public void setUp() throws Exception {
+        resultFile = new File( temporaryFolder.getRoot(), "skiptest.results" );
+    }
+
+    @Test
+    public void recordShouldKeepResultsInMemoryUntilBatchIsFull() throws Exception {
+        BufferedResultRecorder recorder = new BufferedResultRecorder( resultFile, 2, Long.MAX_VALUE );
+
+        recorder.record( "first", 1, 5 );
+        assertThat( "results file should not exist before the batch is full", resultFile.exists(),
+                is( false ) );
+
+        recorder.record( "second", 0, 5 );
+        assertThat( "batch should have been written as soon as it was full", FileUtils.fileRead( resultFile ),
+                is( "first:1:5" + SkipEngine.CRLF + "second:0:5" + SkipEngine.CRLF ) );
+    }
+
+    @Test
+    public void recordShouldAppendToExistingResults() throws Exception {
+        FileUtils.fileWrite( resultFile.getAbsolutePath(), "previousTest:0" + SkipEngine.CRLF );
+        BufferedResultRecorder recorder = new BufferedResultRecorder( resultFile, 1, Long.MAX_VALUE );
+
+        recorder.record( "first", 1, 5 );
+
+        assertThat( "results of earlier forks should be kept", FileUtils.fileRead( resultFile ),
+                is( "previousTest:0" + SkipEngine.CRLF + "first:1:5" + SkipEngine.CRLF ) );
+    }
+
+    @Test
+    public void closeShouldWriteIncompleteBatch() throws Exception {
+        BufferedResultRecorder recorder = new BufferedResultRecorder( resultFile, 100, Long.MAX_VALUE );
+        recorder.record( "first", 1, 5 );
+
+        recorder.close();
+
+        assertThat( "incomplete batch should be written on shutdown", FileUtils.fileRead( resultFile ),
+                is( "first:1:5" + SkipEngine.CRLF ) );
+    }
+
+    @Test
+    public void recordShouldWriteBatchEarlyWhenOldestResultIsTooOld() throws Exception {
+        BufferedResultRecorder recorder = new BufferedResultRecorder( resultFile, 100, 0 );
+
+        recorder.record( "first", 1, 5 );
+
+        assertThat( "result should have been written because it may not wait", FileUtils.fileRead( resultFile ),
+                is( "first:1:5" + SkipEngine.CRLF ) );
+    }
+
+    @Test
+    public void batchShouldBeWrittenWhenDelayExpiresWithoutFurtherResults() throws Exception {
+        BufferedResultRecorder recorder = new BufferedResultRecorder( resultFile, 100, 50 );
+
+        recorder.record( "first", 1, 5 );
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while ( resultFile.length() == 0 && System.currentTimeMillis() < deadline ) {
+            Thread.sleep( 10 );
+        }
+        assertThat( "result should have been written without waiting for the next one",
+                FileUtils.fileRead( resultFile ), is( "first:1:5" + SkipEngine.CRLF ) );
+    }
+
+    @Test
+    public void startedShouldWriteMarkerTogetherWithBufferedResults() throws Exception {
+        BufferedResultRecorder recorder = new BufferedResultRecorder( resultFile, 100, Long.MAX_VALUE );
+        recorder.started( "first" );
+        recorder.record( "first", 1, 5 );
+
+        recorder.started( "second" );
+
+        assertThat( "a killed fork should leave the marker of the running test behind", FileUtils.fileRead( resultFile ),
+                is( "first:5:0" + SkipEngine.CRLF + "first:1:5" + SkipEngine.CRLF + "second:5:0" + SkipEngine.CRLF ) );
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LineEncoderTest {
+
+    @Test
+    public void encodeShouldReuseItsBuffersAndGrowForLongerText() throws Exception {
+        LineEncoder encoder = new LineEncoder( 4 );
+
+        ByteBuffer first = encoder.encode( new StringBuilder( "abc" ) );
+        assertThat( "short text should be encoded", decode( first ), is( "abc" ) );
+        ByteBuffer second = encoder.encode( new StringBuilder( "de" ) );
+        assertThat( "the buffer should be reused", second == first, is( true ) );
+        assertThat( "only the new text should be encoded", decode( second ), is( "de" ) );
+
+        assertThat( "longer text should fit as well", decode( encoder.encode( new StringBuilder( "a longer line" ) ) ),
+                is( "a longer line" ) );
+    }
+
+    private String decode( ByteBuffer bytes ) {
+        return Charset.defaultCharset().decode( bytes.duplicate() ).toString();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ResultSegmentsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File resultFile;
+
+    @Before
+    public void setUp() throws Exception {
+        resultFile = new File( temporaryFolder.getRoot(), "skiptest.results" );
+    }
+
+    @Test
+    public void findShouldReturnResultsFileAndAllSegments() throws Exception {
+        File secondFork = ResultSegments.segmentFor( resultFile, "2" );
+        File firstFork = ResultSegments.segmentFor( resultFile, "1" );
+        FileUtils.fileWrite( resultFile.getAbsolutePath(), "" );
+        FileUtils.fileWrite( secondFork.getAbsolutePath(), "" );
+        FileUtils.fileWrite( firstFork.getAbsolutePath(), "" );
+        FileUtils.fileWrite( new File( temporaryFolder.getRoot(), "skip.txt" ).getAbsolutePath(), "" );
+
+        assertThat( "results file should come first, followed by the segments",
+                ResultSegments.find( resultFile ), is( Arrays.asList( resultFile, firstFork, secondFork ) ) );
+    }
+
+    @Test
+    public void findBelowShouldReturnFilesAndSegmentsOfAllSubdirectories() throws Exception {
+        File firstShard = temporaryFolder.newFolder( "shard-0" );
+        File secondShard = temporaryFolder.newFolder( "shard-1" );
+        File firstResults = new File( firstShard, "skiptest.results.17" );
+        File secondResults = new File( secondShard, "skiptest.results" );
+        FileUtils.fileWrite( firstResults.getAbsolutePath(), "" );
+        FileUtils.fileWrite( secondResults.getAbsolutePath(), "" );
+        FileUtils.fileWrite( new File( secondShard, "skip.txt" ).getAbsolutePath(), "" );
+        FileUtils.fileWrite( new File( secondShard, "skiptest.results.17.tmp" ).getAbsolutePath(), "" );
+        FileUtils.fileWrite( new File( secondShard, "skiptest.results.journal.old" ).getAbsolutePath(), "" );
+
+        assertThat( "files that only start with the name should not count as segments",
+                ResultSegments.findBelow( temporaryFolder.getRoot(), "skiptest.results" ),
+                is( Arrays.asList( firstResults, secondResults ) ) );
+    }
+
+    @Test
+    public void recorderShouldWriteToSegmentOfThisJvmWhenSegmentsAreConfigured() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty( EngineConfiguration.RECORDING_SEGMENTS, "true" );
+
+        new EngineConfiguration( properties ).createRecorder( resultFile ).record( "first", 1, 5 );
+
+        assertThat( "results file itself should not be written", resultFile.exists(), is( false ) );
+        assertThat( "result should be in the segment of this JVM",
+                FileUtils.fileRead( ResultSegments.segmentFor( resultFile ) ), is( "first:1:5" + SkipEngine.CRLF ) );
+    }
+}
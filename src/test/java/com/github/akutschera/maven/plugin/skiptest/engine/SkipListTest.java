@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SkipListTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<String> testsToSkip = Arrays.asList( "com.foo.ZIT.test", "com.foo.AIT.second", "com.foo.AIT.first" );
+
+    @Test
+    public void everyFormatShouldBeReadBack() throws Exception {
+        for ( String format : Arrays.asList( SkipList.FORMAT_TEXT, SkipList.FORMAT_SORTED, SkipList.FORMAT_GZIP ) ) {
+            SkipList skipList = SkipList.read( write( format ) );
+
+            assertThat( format + " list should contain all tests", skipList.size(), is( 3 ) );
+            for ( String testToSkip : testsToSkip ) {
+                assertThat( format + " list should contain " + testToSkip, skipList.contains( testToSkip ), is( true ) );
+            }
+            assertThat( format + " list should not contain other tests", skipList.contains( "com.foo.BIT.test" ),
+                    is( false ) );
+        }
+    }
+
+    @Test
+    public void invocationsShouldBeFoundByClassAndMethod() throws Exception {
+        SkipList skipList = SkipList.read( write( Arrays.asList( "com.foo.AIT.test[1.5]", "com.foo.AIT.test[2]" ) ) );
+
+        assertThat( "invocation with a dot", skipList.contains( "com.foo.AIT", "test[1.5]" ), is( true ) );
+        assertThat( "invocation by name", skipList.contains( "com.foo.AIT.test[2]" ), is( true ) );
+        assertThat( "other invocation", skipList.contains( "com.foo.AIT", "test[3]" ), is( false ) );
+    }
+
+    @Test
+    public void sortedFormatShouldBeSortedWithHeader() throws Exception {
+        assertThat( "sorted list should be marked and sorted", FileUtils.fileRead( write( SkipList.FORMAT_SORTED ) ),
+                is( SkipList.SORTED_HEADER + SkipEngine.CRLF + "com.foo.AIT.first" + SkipEngine.CRLF
+                        + "com.foo.AIT.second" + SkipEngine.CRLF + "com.foo.ZIT.test" + SkipEngine.CRLF ) );
+    }
+
+    @Test
+    public void textFormatShouldKeepOrderOfSelection() throws Exception {
+        assertThat( "plain list should be written as selected", FileUtils.fileRead( write( SkipList.FORMAT_TEXT ) ),
+                is( "com.foo.ZIT.test" + SkipEngine.CRLF + "com.foo.AIT.second" + SkipEngine.CRLF
+                        + "com.foo.AIT.first" + SkipEngine.CRLF ) );
+    }
+
+    @Test
+    public void sortedListThatIsNotSortedShouldStillBeFound() throws Exception {
+        File file = temporaryFolder.newFile();
+        FileUtils.fileWrite( file.getAbsolutePath(), SkipList.SORTED_HEADER + SkipEngine.CRLF + "b" + SkipEngine.CRLF
+                + "a" + SkipEngine.CRLF );
+
+        assertThat( "edited list should not break lookups", SkipList.read( file ).contains( "a" ), is( true ) );
+    }
+
+    @Test
+    public void testsShouldBeFoundByClassAndMethodName() throws Exception {
+        SkipList skipList = SkipList.read( write( SkipList.FORMAT_TEXT ) );
+
+        assertThat( "test should be found by class and method", skipList.contains( "com.foo.AIT", "second" ),
+                is( true ) );
+        assertThat( "method of another class should not be found", skipList.contains( "com.foo.ZIT", "first" ),
+                is( false ) );
+        assertThat( "unknown class should not be found", skipList.contains( "com.foo.BIT", "first" ), is( false ) );
+    }
+
+    @Test
+    public void duplicatesAndNamesWithoutClassShouldBeHandled() throws Exception {
+        File file = temporaryFolder.newFile();
+        FileUtils.fileWrite( file.getAbsolutePath(), "a.B.test" + SkipEngine.CRLF + "noClass" + SkipEngine.CRLF
+                + "a.B.test" + SkipEngine.CRLF );
+
+        SkipList skipList = SkipList.read( file );
+
+        assertThat( "duplicate should only count once", skipList.size(), is( 2 ) );
+        assertThat( "name without class should be found", skipList.contains( "noClass" ), is( true ) );
+        assertThat( "name with class should be found", skipList.contains( "a.B.test" ), is( true ) );
+    }
+
+    private File write( String format ) throws Exception {
+        return write( testsToSkip, format );
+    }
+
+    private File write( List<String> tests ) throws Exception {
+        return write( tests, SkipList.FORMAT_TEXT );
+    }
+
+    private File write( List<String> tests, String format ) throws Exception {
+        File file = temporaryFolder.newFile();
+        try ( OutputStream out = new FileOutputStream( file ) ) {
+            SkipList.write( tests, format, out );
+        }
+        return file;
+    }
+}
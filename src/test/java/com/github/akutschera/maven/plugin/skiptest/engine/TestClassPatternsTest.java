@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestClassPatternsTest {
+
+    @Test
+    public void defaultsShouldBeTheClassesEndingWithIT() {
+        TestClassPatterns patterns = TestClassPatterns.parse( "", "" );
+
+        assertThat( "suffix IT", patterns.matches( "com.foo.BarIT" ), is( true ) );
+        assertThat( "prefix IT", patterns.matches( "com.foo.ITBar" ), is( false ) );
+        assertThat( "suffix ITCase", patterns.matches( "com.foo.BarITCase" ), is( false ) );
+        assertThat( "default package", patterns.matches( "BarIT" ), is( true ) );
+        assertThat( "unit test", patterns.matches( "com.foo.BarTest" ), is( false ) );
+    }
+
+    @Test
+    public void nestedClassesShouldCountAsTheirTopLevelClass() {
+        TestClassPatterns patterns = TestClassPatterns.parse( "", "" );
+
+        assertThat( patterns.matches( "com.foo.BarIT$Nested" ), is( true ) );
+    }
+
+    @Test
+    public void includesShouldReplaceTheDefaults() {
+        TestClassPatterns patterns = TestClassPatterns.parse( "**/*IntegrationTest.java, **/*Test", "" );
+
+        assertThat( "first include", patterns.matches( "com.foo.BarIntegrationTest" ), is( true ) );
+        assertThat( "second include without suffix", patterns.matches( "com.foo.BarTest" ), is( true ) );
+        assertThat( "default include", patterns.matches( "com.foo.BarIT" ), is( false ) );
+    }
+
+    @Test
+    public void excludesShouldWinOverIncludes() {
+        TestClassPatterns patterns = new TestClassPatterns( Arrays.asList( "**/*Test.java" ),
+                Arrays.asList( "**/slow/**", "**/Abstract*" ) );
+
+        assertThat( "included", patterns.matches( "com.foo.BarTest" ), is( true ) );
+        assertThat( "excluded package", patterns.matches( "com.foo.slow.BarTest" ), is( false ) );
+        assertThat( "excluded name", patterns.matches( "com.foo.AbstractBarTest" ), is( false ) );
+    }
+
+    @Test
+    public void singleStarShouldNotMatchPackages() {
+        TestClassPatterns patterns = TestClassPatterns.parse( "com/*/Bar?IT.java", "" );
+
+        assertThat( "one package", patterns.matches( "com.foo.BarxIT" ), is( true ) );
+        assertThat( "two packages", patterns.matches( "com.foo.baz.BarxIT" ), is( false ) );
+        assertThat( "one character", patterns.matches( "com.foo.BarIT" ), is( false ) );
+    }
+
+    @Test
+    public void joinShouldBeReadByParse() {
+        String joined = TestClassPatterns.join( Arrays.asList( "**/*IT.java", " **/*Test.java " ) );
+
+        assertThat( joined, is( "**/*IT.java,**/*Test.java" ) );
+    }
+}
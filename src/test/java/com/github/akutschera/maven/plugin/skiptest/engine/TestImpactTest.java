@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestImpactTest {
+
+    @Test
+    public void classesShouldBeCountedForAllRunningTests() throws Exception {
+        TestImpact.touched( "com.foo.BeforeAnyTest" );
+        Set<String> first = TestImpact.start();
+        TestImpact.touched( "com.foo.A" );
+        Set<String> second = TestImpact.start();
+        TestImpact.touched( "com.foo.B" );
+        TestImpact.finish( first );
+        TestImpact.touched( "com.foo.C" );
+
+        assertThat( TestImpact.finish( second ), is( (Set<String>) new HashSet<>( Arrays.asList( "com.foo.B", "com.foo.C" ) ) ) );
+        assertThat( first, is( (Set<String>) new HashSet<>( Arrays.asList( "com.foo.A", "com.foo.B" ) ) ) );
+        TestImpact.touched( "com.foo.AfterAllTests" );
+        assertThat( "finished test should not collect anything", first.contains( "com.foo.AfterAllTests" ), is( false ) );
+    }
+
+    @Test
+    public void finishShouldStopOnlyTheFinishedTestWhenTestsExecutedTheSameClasses() throws Exception {
+        Set<String> first = TestImpact.start();
+        Set<String> second = TestImpact.start();
+        TestImpact.touched( "com.foo.Shared" );
+
+        TestImpact.finish( second );
+        TestImpact.touched( "com.foo.AfterSecond" );
+
+        assertThat( "test that still runs should keep collecting", TestImpact.finish( first ),
+                is( (Set<String>) new HashSet<>( Arrays.asList( "com.foo.Shared", "com.foo.AfterSecond" ) ) ) );
+        assertThat( "finished test should not collect anything", second.contains( "com.foo.AfterSecond" ),
+                is( false ) );
+    }
+}
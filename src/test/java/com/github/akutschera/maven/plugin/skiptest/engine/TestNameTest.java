@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.engine;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestNameTest {
+
+    @Test
+    public void invocationShouldFollowTheMethodInBrackets() {
+        assertThat( TestName.of( "com.foo.BarIT", "test", "3" ), is( "com.foo.BarIT.test[3]" ) );
+    }
+
+    @Test
+    public void separatorsOfTheHistoryShouldBeReplaced() {
+        assertThat( "invocation", TestName.of( "com.foo.BarIT", "test", "1: a\nb" ), is( "com.foo.BarIT.test[1_ a_b]" ) );
+        assertThat( "JUnit 4 method name with invocation", TestName.of( "com.foo.BarIT", "test[0: a]" ),
+                is( "com.foo.BarIT.test[0_ a]" ) );
+    }
+
+    @Test
+    public void dotsInTheInvocationShouldNotSeparateClassAndMethod() {
+        String testName = "com.foo.BarIT.test[1.5, a.b]";
+
+        assertThat( "class", TestName.classNameOf( testName ), is( "com.foo.BarIT" ) );
+        assertThat( "method with invocation", TestName.methodNameOf( testName ), is( "test[1.5, a.b]" ) );
+        assertThat( "test method", TestName.withoutInvocation( testName ), is( "com.foo.BarIT.test" ) );
+    }
+
+    @Test
+    public void testsWithoutInvocationShouldBeSplitAtTheLastDot() {
+        assertThat( "class", TestName.classNameOf( "com.foo.BarIT.test" ), is( "com.foo.BarIT" ) );
+        assertThat( "method", TestName.methodNameOf( "com.foo.BarIT.test" ), is( "test" ) );
+        assertThat( "no class", TestName.classNameOf( "test" ), is( "" ) );
+        assertThat( "test method", TestName.withoutInvocation( "com.foo.BarIT.test" ), is( "com.foo.BarIT.test" ) );
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.history;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryHistoryFileTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void viewShouldReturnRecordsSortedByName() throws Exception {
+        Map<String, TestRecord> history = new LinkedHashMap<>();
+        history.put( "com.example.SecondIT.täst", new TestRecord( 0 ) );
+        history.put( "com.example.FirstIT.test", new TestRecord( 3, 120 ) );
+        File file = write( history );
+
+        BinaryHistoryFile.View view = BinaryHistoryFile.open( file );
+
+        assertThat( "view should contain all records", view.size(), is( 2 ) );
+        assertThat( "name of first record", view.getName( 0 ), is( "com.example.FirstIT.test" ) );
+        assertThat( "successful runs of first record", view.getSuccessfulRuns( 0 ), is( 3 ) );
+        assertThat( "duration of first record", view.getAverageDuration( 0 ), is( 120L ) );
+        assertThat( "non-ASCII names should survive", view.getName( 1 ), is( "com.example.SecondIT.täst" ) );
+        assertThat( "unknown duration should survive", view.getRecord( 1 ).hasDuration(), is( false ) );
+    }
+
+    @Test
+    public void asMapShouldFindRecordsWithoutCopyingTheHistory() throws Exception {
+        Map<String, TestRecord> history = new LinkedHashMap<>();
+        history.put( "com.example.FirstIT.test", new TestRecord( 3, 120 ) );
+        history.put( "com.example.SecondIT.test", new TestRecord( 1, 80 ) );
+
+        Map<String, TestRecord> map = BinaryHistoryFile.open( write( history ) ).asMap();
+
+        assertThat( "map should contain all records", map.size(), is( 2 ) );
+        assertThat( "record should be found by name", map.get( "com.example.SecondIT.test" ).getSuccessfulRuns(),
+                is( 1 ) );
+        assertFalse( "unknown tests should not be found", map.containsKey( "com.example.ThirdIT.test" ) );
+        assertThat( "keys should be the written tests", map.keySet(), is( history.keySet() ) );
+    }
+
+    @Test
+    public void indexOfShouldFindEveryRecordInTheMapping() throws Exception {
+        Map<String, TestRecord> history = new LinkedHashMap<>();
+        for ( int i = 0; i < 100; i++ ) {
+            history.put( "com.example.Test" + ( i * 37 % 100 ) + "IT.test", new TestRecord( i ) );
+        }
+        history.put( "com.example.ÜberIT.test", new TestRecord( 100 ) );
+
+        BinaryHistoryFile.View view = BinaryHistoryFile.open( write( history ) );
+
+        for ( Map.Entry<String, TestRecord> entry : history.entrySet() ) {
+            assertThat( entry.getKey(), view.getSuccessfulRuns( view.indexOf( entry.getKey() ) ),
+                    is( entry.getValue().getSuccessfulRuns() ) );
+        }
+        assertThat( "unknown test", view.indexOf( "com.example.Test5IT" ), is( -1 ) );
+        assertThat( "name after the last one", view.indexOf( "com.example.ZIT.test" ), is( -1 ) );
+    }
+
+    @Test
+    public void asMapShouldFindRecordsOfUnsortedOlderFiles() throws Exception {
+        File file = temporaryFolder.newFile();
+        byte[] names = "com.example.SecondIT.testcom.example.FirstIT.test".getBytes( "UTF-8" );
+        try ( DataOutputStream out = new DataOutputStream( new FileOutputStream( file ) ) ) {
+            out.writeInt( BinaryHistoryFile.MAGIC );
+            out.writeInt( 1 );
+            out.writeInt( 2 );
+            out.writeInt( 0 );
+            out.writeInt( 25 );
+            out.writeInt( 2 );
+            out.writeLong( 250 );
+            out.writeInt( 25 );
+            out.writeInt( 24 );
+            out.writeInt( 1 );
+            out.writeLong( 250 );
+            out.write( names );
+        }
+
+        Map<String, TestRecord> map = BinaryHistoryFile.open( file ).asMap();
+
+        assertThat( map.get( "com.example.FirstIT.test" ).getSuccessfulRuns(), is( 1 ) );
+        assertThat( map.get( "com.example.SecondIT.test" ).getSuccessfulRuns(), is( 2 ) );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void releasedHistoryShouldNotBeReadAnyMore() throws Exception {
+        Map<String, TestRecord> map = BinaryHistoryFile.open(
+                write( Collections.singletonMap( "com.example.FirstIT.test", new TestRecord( 1 ) ) ) ).asMap();
+
+        BinaryHistoryFile.release( map );
+
+        map.get( "com.example.FirstIT.test" );
+    }
+
+    @Test( expected = IOException.class )
+    public void openShouldRejectRecordCountsBeyondTheFile() throws Exception {
+        File file = temporaryFolder.newFile();
+        try ( DataOutputStream out = new DataOutputStream( new FileOutputStream( file ) ) ) {
+            out.writeInt( BinaryHistoryFile.MAGIC );
+            out.writeInt( BinaryHistoryFile.VERSION );
+            // the records would end at 36 in int arithmetic
+            out.writeInt( 0x4924925 );
+            out.write( new byte[64] );
+        }
+
+        BinaryHistoryFile.open( file );
+    }
+
+    @Test
+    public void isBinaryShouldRecognizeOnlyBinaryHistories() throws Exception {
+        File text = temporaryFolder.newFile();
+        try ( OutputStream out = new FileOutputStream( text ) ) {
+            out.write( "test1:1:100\ntest2:2\n".getBytes( "UTF-8" ) );
+        }
+
+        assertFalse( "text history is not binary", BinaryHistoryFile.isBinary( text ) );
+        assertTrue( "binary history should be recognized",
+                BinaryHistoryFile.isBinary( write( new LinkedHashMap<String, TestRecord>() ) ) );
+    }
+
+    @Test
+    public void missingBuildsShouldSurvive() throws Exception {
+        TestRecord record = new TestRecord( 3, 120 );
+        record.setMissingBuilds( 2 );
+
+        Map<String, TestRecord> history = BinaryHistoryFile.read(
+                write( Collections.singletonMap( "com.example.GoneIT.test", record ) ) );
+
+        assertThat( history.get( "com.example.GoneIT.test" ).getMissingBuilds(), is( 2 ) );
+    }
+
+    @Test
+    public void skippedBuildsAndLastRunShouldSurvive() throws Exception {
+        TestRecord record = new TestRecord( 3, 120 );
+        record.setSkippedBuilds( 4 );
+        record.setLastRun( 1500000000000L );
+
+        TestRecord read = BinaryHistoryFile.read(
+                write( Collections.singletonMap( "com.example.SkippedIT.test", record ) ) )
+                .get( "com.example.SkippedIT.test" );
+
+        assertThat( read.getSkippedBuilds(), is( 4 ) );
+        assertThat( read.getLastRun(), is( 1500000000000L ) );
+    }
+
+    @Test
+    public void statisticsShouldSurvive() throws Exception {
+        TestRecord record = new TestRecord( 3, 120 );
+        record.setRuns( 40 );
+        record.setPassRate( 0.975 );
+        record.setLastFailure( 1400000000000L );
+
+        TestRecord read = BinaryHistoryFile.read(
+                write( Collections.singletonMap( "com.example.FlakyIT.test", record ) ) )
+                .get( "com.example.FlakyIT.test" );
+
+        assertThat( read.getRuns(), is( 40 ) );
+        assertThat( read.getPassRate(), is( 0.975 ) );
+        assertThat( read.getLastFailure(), is( 1400000000000L ) );
+    }
+
+    @Test
+    public void filesOfVersionThreeShouldStillBeRead() throws Exception {
+        File file = temporaryFolder.newFile();
+        byte[] name = "com.example.OldIT.test".getBytes( "UTF-8" );
+        try ( DataOutputStream out = new DataOutputStream( new FileOutputStream( file ) ) ) {
+            out.writeInt( BinaryHistoryFile.MAGIC );
+            out.writeInt( 3 );
+            out.writeInt( 1 );
+            out.writeInt( 0 );
+            out.writeInt( name.length );
+            out.writeInt( 7 );
+            out.writeLong( 250 );
+            out.writeInt( 0 );
+            out.writeInt( 2 );
+            out.writeLong( 1500000000000L );
+            out.write( name );
+        }
+
+        BinaryHistoryFile.View view = BinaryHistoryFile.open( file );
+
+        assertThat( "name of old record", view.getName( 0 ), is( "com.example.OldIT.test" ) );
+        assertThat( "skipped builds of old record", view.getSkippedBuilds( 0 ), is( 2 ) );
+        assertThat( "last run of old record", view.getLastRun( 0 ), is( 1500000000000L ) );
+        assertThat( "old records have no statistics", view.getRuns( 0 ), is( 0 ) );
+        assertThat( "old records never failed as far as we know", view.getLastFailure( 0 ),
+                is( TestRecord.NEVER_FAILED ) );
+    }
+
+    @Test
+    public void filesOfVersionTwoShouldStillBeRead() throws Exception {
+        File file = temporaryFolder.newFile();
+        byte[] name = "com.example.OldIT.test".getBytes( "UTF-8" );
+        try ( DataOutputStream out = new DataOutputStream( new FileOutputStream( file ) ) ) {
+            out.writeInt( BinaryHistoryFile.MAGIC );
+            out.writeInt( 2 );
+            out.writeInt( 1 );
+            out.writeInt( 0 );
+            out.writeInt( name.length );
+            out.writeInt( 7 );
+            out.writeLong( 250 );
+            out.writeInt( 3 );
+            out.write( name );
+        }
+
+        BinaryHistoryFile.View view = BinaryHistoryFile.open( file );
+
+        assertThat( "name of old record", view.getName( 0 ), is( "com.example.OldIT.test" ) );
+        assertThat( "missing builds of old record", view.getMissingBuilds( 0 ), is( 3 ) );
+        assertThat( "old records were never counted as skipped", view.getSkippedBuilds( 0 ), is( 0 ) );
+        assertThat( "last run of old record is unknown", view.getLastRun( 0 ), is( TestRecord.UNKNOWN_LAST_RUN ) );
+    }
+
+    @Test
+    public void filesOfVersionOneShouldStillBeRead() throws Exception {
+        File file = temporaryFolder.newFile();
+        byte[] name = "com.example.OldIT.test".getBytes( "UTF-8" );
+        try ( DataOutputStream out = new DataOutputStream( new FileOutputStream( file ) ) ) {
+            out.writeInt( BinaryHistoryFile.MAGIC );
+            out.writeInt( 1 );
+            out.writeInt( 1 );
+            out.writeInt( 0 );
+            out.writeInt( name.length );
+            out.writeInt( 7 );
+            out.writeLong( 250 );
+            out.write( name );
+        }
+
+        BinaryHistoryFile.View view = BinaryHistoryFile.open( file );
+
+        assertThat( "name of old record", view.getName( 0 ), is( "com.example.OldIT.test" ) );
+        assertThat( "successful runs of old record", view.getSuccessfulRuns( 0 ), is( 7 ) );
+        assertThat( "duration of old record", view.getAverageDuration( 0 ), is( 250L ) );
+        assertThat( "old records were never missing", view.getMissingBuilds( 0 ), is( 0 ) );
+    }
+
+    private File write( Map<String, TestRecord> history ) throws Exception {
+        File file = temporaryFolder.newFile();
+        try ( OutputStream out = new FileOutputStream( file ) ) {
+            BinaryHistoryFile.write( history, out );
+        }
+        return file;
+    }
+}
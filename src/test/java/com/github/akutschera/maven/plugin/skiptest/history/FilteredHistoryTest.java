@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.history;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class FilteredHistoryTest {
+
+    private Map<String, TestRecord> history;
+    private Map<String, TestRecord> view;
+
+    @Before
+    public void setUp() throws Exception {
+        history = new LinkedHashMap<>();
+        history.put( "test1", new TestRecord( 1 ) );
+        history.put( "test2", new TestRecord( 2 ) );
+        history.put( "test3", new TestRecord( 3 ) );
+        view = new FilteredHistory( history ) {
+
+            @Override
+            protected boolean accepts( String testName, TestRecord record ) {
+                return record.getSuccessfulRuns() != 2;
+            }
+        };
+    }
+
+    @Test
+    public void viewShouldOnlyContainAcceptedTests() throws Exception {
+        List<String> testNames = new ArrayList<>();
+        for ( Map.Entry<String, TestRecord> entry : view.entrySet() ) {
+            testNames.add( entry.getKey() );
+        }
+
+        assertThat( testNames, is( Arrays.asList( "test1", "test3" ) ) );
+        assertThat( view.size(), is( 2 ) );
+    }
+
+    @Test
+    public void filteredTestsShouldNotBeFound() throws Exception {
+        assertThat( view.get( "test1" ), is( history.get( "test1" ) ) );
+        assertThat( view.get( "test2" ), is( nullValue() ) );
+        assertThat( view.containsKey( "test2" ), is( false ) );
+        assertThat( view.containsKey( "unknown" ), is( false ) );
+    }
+}
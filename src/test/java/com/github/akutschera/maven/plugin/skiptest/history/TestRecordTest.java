@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.history;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class TestRecordTest {
+
+    @Test
+    public void failureShouldEndStreakButKeepStatistics() throws Exception {
+        TestRecord record = new TestRecord( 0 );
+        for ( int i = 0; i < 9; i++ ) {
+            record.addRun( true, 1000 + i );
+        }
+        record.addRun( false, 2000 );
+
+        assertThat( "streak should start again", record.getSuccessfulRuns(), is( 0 ) );
+        assertThat( "all runs should count", record.getRuns(), is( 10 ) );
+        assertThat( "pass rate of the first runs is their average", record.getPassRate(), is( 0.9 ) );
+        assertThat( "time of the failure should be kept", record.getLastFailure(), is( 2000L ) );
+        assertThat( "failed run is the last run", record.getLastRun(), is( 2000L ) );
+    }
+
+    @Test
+    public void rareFailureShouldRankBehindNoFailureButFarAheadOfFrequentFailures() throws Exception {
+        TestRecord stable = new TestRecord( 0 );
+        TestRecord rarelyFailing = new TestRecord( 0 );
+        TestRecord flaky = new TestRecord( 0 );
+        for ( int i = 0; i < 500; i++ ) {
+            stable.addRun( true, i );
+            rarelyFailing.addRun( i != 450, i );
+            flaky.addRun( i % 2 == 0, i );
+        }
+
+        assertTrue( "a test that never failed is the safest",
+                stable.getFailureProbability() < rarelyFailing.getFailureProbability() );
+        assertTrue( "a test that failed once in 500 runs is still a good candidate",
+                rarelyFailing.getFailureProbability() < 0.05 );
+        assertTrue( "a test that fails every other run is not",
+                flaky.getFailureProbability() > 0.4 );
+    }
+
+    @Test
+    public void oldFailuresShouldFadeOut() throws Exception {
+        TestRecord record = new TestRecord( 0 );
+        record.addRun( false, 0 );
+        double afterFailure = 0;
+        for ( int i = 1; i < 1000; i++ ) {
+            record.addRun( true, i );
+            if ( i == 1 ) {
+                afterFailure = record.getFailureProbability();
+            }
+        }
+
+        assertTrue( "failure probability should drop with every successful run",
+                record.getFailureProbability() < afterFailure );
+        assertTrue( "a failure long ago should not count any more",
+                record.getFailureProbability() < 1.0 / ( TestRecord.PASS_RATE_WINDOW + 1 ) + 1e-6 );
+    }
+
+    @Test
+    public void recordWithoutStatisticsShouldStartThemFromItsStreak() throws Exception {
+        TestRecord record = new TestRecord( 30 );
+        double beforeFirstRun = record.getFailureProbability();
+
+        record.addRun( true, 1000 );
+
+        assertThat( "streak should count as runs", record.getRuns(), is( 31 ) );
+        assertThat( "streak has no failures", record.getPassRate(), is( 1.0 ) );
+        assertTrue( "another successful run should not make the test look riskier",
+                record.getFailureProbability() < beforeFirstRun );
+    }
+
+    @Test
+    public void formatShouldWriteStatisticsThatParseReads() throws Exception {
+        TestRecord record = new TestRecord( 3, 120 );
+        record.addRun( false, 1000 );
+        record.addRun( true, 2000 );
+
+        String line = record.format( "com.example.FlakyIT.test" );
+        TestRecord read = TestRecord.parse( line.split( ":" ) );
+
+        assertThat( read.format( "com.example.FlakyIT.test" ), is( line ) );
+        assertThat( read.getRuns(), is( 5 ) );
+        assertThat( read.getPassRate(), is( record.getPassRate() ) );
+        assertThat( read.getLastFailure(), is( 1000L ) );
+    }
+
+    @Test
+    public void linesWithoutStatisticsShouldStillBeRead() throws Exception {
+        TestRecord read = TestRecord.parse( "com.example.OldIT.test:7:250:0:1:1500".split( ":" ) );
+
+        assertThat( read.getSuccessfulRuns(), is( 7 ) );
+        assertThat( read.getRuns(), is( 0 ) );
+        assertThat( read.getLastFailure(), is( TestRecord.NEVER_FAILED ) );
+        assertThat( "unknown statistics should not be written", read.format( "com.example.OldIT.test" ),
+                is( "com.example.OldIT.test:7:250:0:1:1500" ) );
+    }
+}
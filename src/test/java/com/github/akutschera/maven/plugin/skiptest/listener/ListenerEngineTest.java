@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ListenerEngineTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void engineShouldNotBeCreatedWithoutConfiguration() throws Exception {
+        writeSkipList();
+
+        assertThat( "run that pre-skip-test did not prepare",
+                new ListenerEngine( temporaryFolder.getRoot() ).get(), nullValue() );
+    }
+
+    @Test
+    public void engineShouldNotBeCreatedWithoutSkipList() throws Exception {
+        writeConfiguration( EngineConfiguration.ENGINE_LISTENER );
+
+        assertThat( new ListenerEngine( temporaryFolder.getRoot() ).get(), nullValue() );
+    }
+
+    @Test
+    public void engineShouldNotBeCreatedForTheAspectEngine() throws Exception {
+        writeConfiguration( EngineConfiguration.ENGINE_ASPECT );
+        writeSkipList();
+
+        assertThat( "the aspect records the results", new ListenerEngine( temporaryFolder.getRoot() ).get(),
+                nullValue() );
+    }
+
+    @Test
+    public void engineShouldBeCreatedWhenTheBuildIsPreparedForTheListeners() throws Exception {
+        writeConfiguration( EngineConfiguration.ENGINE_LISTENER );
+        writeSkipList();
+
+        assertThat( new ListenerEngine( temporaryFolder.getRoot() ).get(), notNullValue() );
+    }
+
+    private void writeConfiguration( String engine ) throws Exception {
+        FileUtils.fileWrite( new File( temporaryFolder.getRoot(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.ENGINE + "=" + engine );
+    }
+
+    private void writeSkipList() throws Exception {
+        FileUtils.fileWrite( new File( temporaryFolder.getRoot(), SkipEngine.SKIP_INPUT_FILE ).getAbsolutePath(), "" );
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.engine.UniqueId;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SkipExecutionConditionTest {
+
+    private static final UniqueId TEMPLATE = UniqueId.forEngine( "junit-jupiter" )
+            .append( "class", SkipExecutionConditionTest.class.getName() ).append( "test-template", "repeated()" );
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        FileUtils.fileWrite( new File( temporaryFolder.getRoot(), SkipEngine.SKIP_INPUT_FILE ).getAbsolutePath(),
+                SkipExecutionConditionTest.class.getName() + ".repeated[2]" );
+    }
+
+    @Test
+    public void invocationInListOfTestsToSkipShouldBeDisabled() throws Exception {
+        SkipExecutionCondition condition = createCondition( EngineConfiguration.ENGINE_LISTENER );
+
+        assertThat( "second invocation should be skipped", condition.evaluateExecutionCondition(
+                context( TEMPLATE.append( "test-template-invocation", "#2" ) ) ).isDisabled(), is( true ) );
+        assertThat( "first invocation should run", condition.evaluateExecutionCondition(
+                context( TEMPLATE.append( "test-template-invocation", "#1" ) ) ).isDisabled(), is( false ) );
+        assertThat( "test template should run", condition.evaluateExecutionCondition(
+                context( TEMPLATE ) ).isDisabled(), is( false ) );
+    }
+
+    @Test
+    public void conditionShouldEnableEverythingWhenAspectEngineIsConfigured() throws Exception {
+        SkipExecutionCondition condition = createCondition( EngineConfiguration.ENGINE_ASPECT );
+
+        assertThat( "skipping should be left to the aspect", condition.evaluateExecutionCondition(
+                context( TEMPLATE.append( "test-template-invocation", "#2" ) ) ).isDisabled(), is( false ) );
+    }
+
+    @Test
+    public void lowRiskTestsShouldBeDisabledOnceEarlyFailBudgetIsUsedUp() throws Exception {
+        File buildDir = temporaryFolder.getRoot();
+        FileUtils.fileWrite( new File( buildDir, EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.ENGINE + "=" + EngineConfiguration.ENGINE_LISTENER + SkipEngine.CRLF
+                        + EngineConfiguration.TEST_CLASS_INCLUDES + "=**/*Test.java" + SkipEngine.CRLF
+                        + EngineConfiguration.EARLY_FAIL_BUDGET + "=1" );
+        FileUtils.fileWrite( new File( buildDir, SkipEngine.LOW_RISK_FILE ).getAbsolutePath(),
+                SkipExecutionConditionTest.class.getName() + ".repeated" );
+        SkipEngine engine = new SkipEngine( SkipEngine.SKIP_INPUT_FILE, SkipEngine.SKIPTEST_OUTPUTFILE, buildDir );
+        SkipExecutionCondition condition = new SkipExecutionCondition( engine );
+        UniqueId invocation = TEMPLATE.append( "test-template-invocation", "#1" );
+
+        assertThat( "low risk test should run as long as no test failed",
+                condition.evaluateExecutionCondition( context( invocation ) ).isDisabled(), is( false ) );
+        engine.recordResult( "com.foo.BarTest.broken", 0, 10 );
+        assertThat( "low risk test should not run once the budget is used up",
+                condition.evaluateExecutionCondition( context( invocation ) ).isDisabled(), is( true ) );
+        engine.flush();
+        assertThat( "test should be recorded as not run",
+                FileUtils.fileRead( new File( buildDir, SkipEngine.SKIPTEST_OUTPUTFILE ) ),
+                containsString( SkipExecutionConditionTest.class.getName() + ".repeated[1]:3:0" ) );
+    }
+
+    public void repeated() {
+    }
+
+    private ExtensionContext context( UniqueId uniqueId ) throws Exception {
+        Method method = SkipExecutionConditionTest.class.getMethod( "repeated" );
+        ExtensionContext context = mock( ExtensionContext.class );
+        when( context.getUniqueId() ).thenReturn( uniqueId.toString() );
+        when( context.getTestMethod() ).thenReturn( Optional.of( method ) );
+        Mockito.<Class<?>>when( context.getRequiredTestClass() ).thenReturn( SkipExecutionConditionTest.class );
+        return context;
+    }
+
+    private SkipExecutionCondition createCondition( String engine ) throws Exception {
+        FileUtils.fileWrite( new File( temporaryFolder.getRoot(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.ENGINE + "=" + engine + SkipEngine.CRLF
+                        + EngineConfiguration.TEST_CLASS_INCLUDES + "=**/*Test.java" );
+        return new SkipExecutionCondition( new SkipEngine( SkipEngine.SKIP_INPUT_FILE,
+                SkipEngine.SKIPTEST_OUTPUTFILE, temporaryFolder.getRoot() ) );
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SkipFilterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        FileUtils.fileWrite( new File( temporaryFolder.getRoot(), SkipEngine.SKIP_INPUT_FILE ).getAbsolutePath(),
+                "com.foo.BarIT.skipMe" );
+    }
+
+    @Test
+    public void testInListOfTestsToSkipShouldNotRun() throws Exception {
+        SkipFilter filter = createFilter( EngineConfiguration.ENGINE_LISTENER );
+
+        assertThat( "test should be skipped",
+                filter.shouldRun( Description.createTestDescription( "com.foo.BarIT", "skipMe" ) ), is( false ) );
+        assertThat( "other tests should run",
+                filter.shouldRun( Description.createTestDescription( "com.foo.BarIT", "runMe" ) ), is( true ) );
+        assertThat( "test classes should always run",
+                filter.shouldRun( Description.createSuiteDescription( "com.foo.BarIT" ) ), is( true ) );
+    }
+
+    @Test
+    public void filterShouldRunEverythingWhenAspectEngineIsConfigured() throws Exception {
+        SkipFilter filter = createFilter( EngineConfiguration.ENGINE_ASPECT );
+
+        assertThat( "skipping should be left to the aspect",
+                filter.shouldRun( Description.createTestDescription( "com.foo.BarIT", "skipMe" ) ), is( true ) );
+    }
+
+    private SkipFilter createFilter( String engine ) throws Exception {
+        FileUtils.fileWrite( new File( temporaryFolder.getRoot(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.ENGINE + "=" + engine );
+        return new SkipFilter( new SkipEngine( SkipEngine.SKIP_INPUT_FILE, SkipEngine.SKIPTEST_OUTPUTFILE,
+                temporaryFolder.getRoot() ) );
+    }
+}
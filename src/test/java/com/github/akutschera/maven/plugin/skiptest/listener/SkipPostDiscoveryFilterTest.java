@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.engine.TestSource;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SkipPostDiscoveryFilterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        FileUtils.fileWrite( new File( temporaryFolder.getRoot(), SkipEngine.SKIP_INPUT_FILE ).getAbsolutePath(),
+                "com.foo.BarIT.skipMe" + SkipEngine.CRLF + "com.foo.ParameterizedIT.skipAll" );
+    }
+
+    @Test
+    public void testInListOfTestsToSkipShouldBeExcluded() throws Exception {
+        SkipPostDiscoveryFilter filter = createFilter( EngineConfiguration.ENGINE_LISTENER );
+
+        assertThat( "test should be excluded",
+                filter.apply( descriptor( MethodSource.from( "com.foo.BarIT", "skipMe" ) ) ).excluded(), is( true ) );
+        assertThat( "other tests should be included",
+                filter.apply( descriptor( MethodSource.from( "com.foo.BarIT", "runMe" ) ) ).included(), is( true ) );
+    }
+
+    @Test
+    public void invocationsShouldBeExcludedWithTheirTestMethod() throws Exception {
+        SkipPostDiscoveryFilter filter = createFilter( EngineConfiguration.ENGINE_LISTENER );
+
+        assertThat( "invocation of a skipped JUnit 4 Parameterized test should be excluded", filter.apply(
+                descriptor( MethodSource.from( "com.foo.ParameterizedIT", "skipAll[0]" ) ) ).excluded(), is( true ) );
+    }
+
+    @Test
+    public void nameShouldContainTheInvocation() throws Exception {
+        UniqueId invocation = UniqueId.forEngine( "junit-jupiter" ).append( "class", "com.foo.BarIT" )
+                .append( "test-template", "repeated()" ).append( "test-template-invocation", "#2" );
+
+        assertThat( "invocation should be numbered", SkipPostDiscoveryFilter.nameOf(
+                MethodSource.from( "com.foo.BarIT", "repeated" ), invocation.toString() ),
+                is( "com.foo.BarIT.repeated[2]" ) );
+        assertThat( "test template itself has no invocation", SkipPostDiscoveryFilter.nameOf(
+                MethodSource.from( "com.foo.BarIT", "repeated" ), invocation.removeLastSegment().toString() ),
+                is( "com.foo.BarIT.repeated" ) );
+        assertThat( "separators of the history should be replaced", SkipPostDiscoveryFilter.nameOf(
+                MethodSource.from( "com.foo.BarIT", "test[0: a]" ), "[engine:junit-vintage]" ),
+                is( "com.foo.BarIT.test[0_ a]" ) );
+    }
+
+    @Test
+    public void containersShouldAlwaysBeIncluded() throws Exception {
+        SkipPostDiscoveryFilter filter = createFilter( EngineConfiguration.ENGINE_LISTENER );
+
+        assertThat( "test classes are never filtered",
+                filter.apply( descriptor( ClassSource.from( "com.foo.BarIT" ) ) ).included(), is( true ) );
+    }
+
+    @Test
+    public void filterShouldIncludeEverythingWhenAspectEngineIsConfigured() throws Exception {
+        SkipPostDiscoveryFilter filter = createFilter( EngineConfiguration.ENGINE_ASPECT );
+
+        assertThat( "skipping should be left to the aspect",
+                filter.apply( descriptor( MethodSource.from( "com.foo.BarIT", "skipMe" ) ) ).included(), is( true ) );
+    }
+
+    static TestDescriptor descriptor( TestSource source ) {
+        return descriptor( UniqueId.forEngine( "test" ).append( "test", source.toString() ), source );
+    }
+
+    static TestDescriptor descriptor( UniqueId uniqueId, TestSource source ) {
+        return new AbstractTestDescriptor( uniqueId, "test", source ) {
+
+            @Override
+            public Type getType() {
+                return Type.TEST;
+            }
+        };
+    }
+
+    private SkipPostDiscoveryFilter createFilter( String engine ) throws Exception {
+        FileUtils.fileWrite( new File( temporaryFolder.getRoot(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.ENGINE + "=" + engine );
+        return new SkipPostDiscoveryFilter( new SkipEngine( SkipEngine.SKIP_INPUT_FILE,
+                SkipEngine.SKIPTEST_OUTPUTFILE, temporaryFolder.getRoot() ) );
+    }
+}
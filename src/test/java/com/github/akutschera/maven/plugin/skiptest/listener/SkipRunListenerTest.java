@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SkipRunListenerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File resultFile;
+    private Description test;
+
+    @Before
+    public void setUp() throws Exception {
+        resultFile = new File( temporaryFolder.getRoot(), SkipEngine.SKIPTEST_OUTPUTFILE );
+        test = Description.createTestDescription( "com.foo.BarIT", "first" );
+    }
+
+    @Test
+    public void finishedTestShouldBeRecordedAsSuccessful() throws Exception {
+        SkipRunListener listener = createListener( EngineConfiguration.ENGINE_LISTENER );
+
+        listener.testStarted( test );
+        listener.testFinished( test );
+
+        assertThat( "successful test should be recorded", FileUtils.fileRead( resultFile ),
+                startsWith( "com.foo.BarIT.first:1:" ) );
+    }
+
+    @Test
+    public void failedTestShouldBeRecordedAsFailed() throws Exception {
+        SkipRunListener listener = createListener( EngineConfiguration.ENGINE_LISTENER );
+
+        listener.testStarted( test );
+        listener.testFailure( new Failure( test, new AssertionError() ) );
+        listener.testFinished( test );
+        listener.testRunFinished( new Result() );
+
+        assertThat( "failed test should be recorded", FileUtils.fileRead( resultFile ),
+                startsWith( "com.foo.BarIT.first:0:" ) );
+    }
+
+    @Test
+    public void testWithFailedAssumptionShouldNotBeRecorded() throws Exception {
+        SkipRunListener listener = createListener( EngineConfiguration.ENGINE_LISTENER );
+
+        listener.testStarted( test );
+        listener.testAssumptionFailure( new Failure( test, new RuntimeException() ) );
+        listener.testFinished( test );
+
+        assertThat( "test that did not really run should not be recorded", resultFile.exists(), is( false ) );
+    }
+
+    @Test
+    public void testWithFailedAssumptionShouldReplaceItsStartMarkerInBufferedMode() throws Exception {
+        SkipRunListener listener = createListener( EngineConfiguration.ENGINE_LISTENER + SkipEngine.CRLF
+                + EngineConfiguration.RECORDING_MODE + "=" + EngineConfiguration.RECORDING_MODE_BUFFERED );
+
+        listener.testStarted( test );
+        listener.testAssumptionFailure( new Failure( test, new RuntimeException() ) );
+        listener.testFinished( test );
+        listener.testRunFinished( new Result() );
+
+        assertThat( "aborted test should not count as started without result", FileUtils.fileRead( resultFile ),
+                is( "com.foo.BarIT.first:5:0" + SkipEngine.CRLF + "com.foo.BarIT.first:3:0" + SkipEngine.CRLF ) );
+    }
+
+    @Test
+    public void listenerShouldDoNothingWhenAspectEngineIsConfigured() throws Exception {
+        SkipRunListener listener = createListener( EngineConfiguration.ENGINE_ASPECT );
+
+        listener.testStarted( test );
+        listener.testFinished( test );
+
+        assertThat( "results should be left to the aspect", resultFile.exists(), is( false ) );
+    }
+
+    private SkipRunListener createListener( String engine ) throws Exception {
+        FileUtils.fileWrite( new File( temporaryFolder.getRoot(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.ENGINE + "=" + engine );
+        return new SkipRunListener( new SkipEngine( SkipEngine.SKIP_INPUT_FILE, SkipEngine.SKIPTEST_OUTPUTFILE,
+                temporaryFolder.getRoot() ) );
+    }
+}
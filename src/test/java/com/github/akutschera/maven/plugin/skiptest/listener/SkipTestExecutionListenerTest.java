@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.listener;
+
+import com.github.akutschera.maven.plugin.skiptest.engine.EngineConfiguration;
+import com.github.akutschera.maven.plugin.skiptest.engine.SkipEngine;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SkipTestExecutionListenerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File resultFile;
+    private TestIdentifier test;
+    private SkipTestExecutionListener listener;
+
+    @Before
+    public void setUp() throws Exception {
+        resultFile = new File( temporaryFolder.getRoot(), SkipEngine.SKIPTEST_OUTPUTFILE );
+        test = TestIdentifier.from(
+                SkipPostDiscoveryFilterTest.descriptor( MethodSource.from( "com.foo.BarIT", "first" ) ) );
+        FileUtils.fileWrite( new File( temporaryFolder.getRoot(), EngineConfiguration.FILE_NAME ).getAbsolutePath(),
+                EngineConfiguration.ENGINE + "=" + EngineConfiguration.ENGINE_LISTENER );
+        listener = new SkipTestExecutionListener( new SkipEngine( SkipEngine.SKIP_INPUT_FILE,
+                SkipEngine.SKIPTEST_OUTPUTFILE, temporaryFolder.getRoot() ) );
+    }
+
+    @Test
+    public void successfulTestShouldBeRecorded() throws Exception {
+        listener.executionStarted( test );
+        listener.executionFinished( test, TestExecutionResult.successful() );
+
+        assertThat( "successful test should be recorded", FileUtils.fileRead( resultFile ),
+                startsWith( "com.foo.BarIT.first:1:" ) );
+    }
+
+    @Test
+    public void failedTestShouldBeRecorded() throws Exception {
+        listener.executionStarted( test );
+        listener.executionFinished( test, TestExecutionResult.failed( new AssertionError() ) );
+
+        assertThat( "failed test should be recorded", FileUtils.fileRead( resultFile ),
+                startsWith( "com.foo.BarIT.first:0:" ) );
+    }
+
+    @Test
+    public void invocationsShouldBeRecordedOneByOne() throws Exception {
+        UniqueId template = UniqueId.forEngine( "junit-jupiter" ).append( "class", "com.foo.BarIT" )
+                .append( "test-template", "parameterized(int)" );
+        for ( int i = 1; i <= 2; i++ ) {
+            TestIdentifier invocation = TestIdentifier.from( SkipPostDiscoveryFilterTest.descriptor(
+                    template.append( "test-template-invocation", "#" + i ),
+                    MethodSource.from( "com.foo.BarIT", "parameterized" ) ) );
+            listener.executionStarted( invocation );
+            listener.executionFinished( invocation, TestExecutionResult.successful() );
+        }
+
+        String results = FileUtils.fileRead( resultFile );
+        assertThat( "first invocation should be recorded", results, containsString( "com.foo.BarIT.parameterized[1]:1:" ) );
+        assertThat( "second invocation should be recorded", results, containsString( "com.foo.BarIT.parameterized[2]:1:" ) );
+    }
+
+    @Test
+    public void abortedTestShouldNotBeRecorded() throws Exception {
+        listener.executionStarted( test );
+        listener.executionFinished( test, TestExecutionResult.aborted( new RuntimeException() ) );
+
+        assertThat( "aborted test did not really run", resultFile.exists(), is( false ) );
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class DurationSelectorTest {
+
+    @Test
+    public void selectShouldNeverSkipTestsWithoutSuccessfulRuns() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "failed", new TestRecord( 0, 1000 ) );
+        history.put( "stable", new TestRecord( 10, 10 ) );
+
+        List<String> testsToSkip = new DurationSelector( 100, 0 ).selectTestsToSkip( history );
+
+        assertThat( "only the stable test may be skipped", testsToSkip.size(), is( 1 ) );
+        assertThat( "only the stable test may be skipped", testsToSkip.get( 0 ), is( "stable" ) );
+    }
+
+    @Test
+    public void selectShouldSkipUntilRemainingTestsFitIntoBudget() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "a", new TestRecord( 5, 400 ) );
+        history.put( "b", new TestRecord( 5, 300 ) );
+        history.put( "c", new TestRecord( 5, 200 ) );
+        history.put( "d", new TestRecord( 5, 100 ) );
+
+        List<String> testsToSkip = new DurationSelector( 0, 350 ).selectTestsToSkip( history );
+
+        assertThat( "the two longest tests have to go to fit into the budget", testsToSkip,
+                hasItems( "a", "b" ) );
+        assertThat( "no more tests than necessary should be skipped", testsToSkip.size(), is( 2 ) );
+    }
+
+    @Test
+    public void selectShouldPreferMoreStableTestOfSameDuration() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "lessStable", new TestRecord( 1, 100 ) );
+        history.put( "moreStable", new TestRecord( 9, 100 ) );
+
+        List<String> testsToSkip = new DurationSelector( 50, 0 ).selectTestsToSkip( history );
+
+        assertThat( "the more stable test should be skipped", testsToSkip.get( 0 ), is( "moreStable" ) );
+        assertThat( "half the time is saved with one test", testsToSkip.size(), is( 1 ) );
+    }
+
+    @Test
+    public void selectShouldTreatAllTestsAlikeIfNoDurationIsKnown() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "a", new TestRecord( 1 ) );
+        history.put( "b", new TestRecord( 2 ) );
+        history.put( "c", new TestRecord( 3 ) );
+        history.put( "d", new TestRecord( 4 ) );
+
+        List<String> testsToSkip = new DurationSelector( 50, 0 ).selectTestsToSkip( history );
+
+        assertTrue( "the two most stable tests should be skipped",
+                testsToSkip.size() == 2 && testsToSkip.containsAll( Arrays.asList( "c", "d" ) ) );
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.discovery.TestClass;
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class FailFastOrderTest {
+
+    @Test
+    public void classesWithNewOrFailedTestsShouldRunFirst() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "a.StableIT.test", new TestRecord( 10 ) );
+        history.put( "a.LessStableIT.test", new TestRecord( 2 ) );
+        history.put( "a.FailedIT.test", new TestRecord( 0 ) );
+        history.put( "a.OneNewTestIT.old", new TestRecord( 10 ) );
+
+        List<TestClass> testClasses = Arrays.asList( testClass( "a.StableIT", "test" ),
+                testClass( "a.LessStableIT", "test" ), testClass( "a.FailedIT", "test" ),
+                testClass( "a.OneNewTestIT", "old", "brandNew" ), new TestClass( "a.UnloadableIT", null ) );
+
+        FailFastOrder order = new FailFastOrder( testClasses, history );
+
+        assertThat( "order of classes", names( order.getOrderedClasses() ), is( Arrays.asList( "a.OneNewTestIT",
+                "a.UnloadableIT", "a.FailedIT", "a.LessStableIT", "a.StableIT" ) ) );
+        assertThat( "classes to run first", names( order.getClassesToRunFirst() ),
+                is( Arrays.asList( "a.OneNewTestIT", "a.UnloadableIT", "a.FailedIT" ) ) );
+    }
+
+    @Test
+    public void invocationsShouldCountForTheirTestMethod() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "a.ParameterizedIT.test[0]", new TestRecord( 10 ) );
+        history.put( "a.ParameterizedIT.test[1]", new TestRecord( 3 ) );
+        history.put( "a.StableIT.test", new TestRecord( 5 ) );
+
+        FailFastOrder order = new FailFastOrder( Arrays.asList( testClass( "a.ParameterizedIT", "test" ),
+                testClass( "a.StableIT", "test" ) ), history );
+
+        assertThat( "parameterized test is not new, its least stable invocation counts",
+                names( order.getOrderedClasses() ), is( Arrays.asList( "a.ParameterizedIT", "a.StableIT" ) ) );
+        assertThat( "no class has to run first", order.getClassesToRunFirst().isEmpty(), is( true ) );
+    }
+
+    @Test
+    public void classThatCannotBeLoadedShouldBeRankedByHistory() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "a.UnloadableIT.test", new TestRecord( 1 ) );
+        history.put( "a.StableIT.test", new TestRecord( 10 ) );
+
+        FailFastOrder order = new FailFastOrder( Arrays.asList( testClass( "a.StableIT", "test" ),
+                new TestClass( "a.UnloadableIT", null ) ), history );
+
+        assertThat( "order of classes", names( order.getOrderedClasses() ),
+                is( Arrays.asList( "a.UnloadableIT", "a.StableIT" ) ) );
+        assertThat( "nothing has to run first", order.getClassesToRunFirst().isEmpty(), is( true ) );
+    }
+
+    private static TestClass testClass( String name, String... methods ) {
+        return new TestClass( name, new TreeSet<>( Arrays.asList( methods ) ) );
+    }
+
+    private static List<String> names( List<TestClass> testClasses ) {
+        List<String> names = new ArrayList<>();
+        for ( TestClass testClass : testClasses ) {
+            names.add( testClass.getName() );
+        }
+        return names;
+    }
+}
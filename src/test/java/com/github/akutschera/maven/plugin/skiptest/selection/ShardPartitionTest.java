@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ShardPartitionTest {
+
+    @Test
+    public void assignShouldBalanceDurationsOfClasses() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "a.LongIT.test", new TestRecord( 1, 600 ) );
+        history.put( "a.MediumIT.test1", new TestRecord( 1, 200 ) );
+        history.put( "a.MediumIT.test2", new TestRecord( 1, 200 ) );
+        history.put( "a.ShortIT.test", new TestRecord( 1, 100 ) );
+        history.put( "a.TinyIT.test", new TestRecord( 1, 100 ) );
+
+        Map<String, Integer> shards = new ShardPartition( 2 ).assign( history.keySet(), history );
+
+        assertThat( "the longest class should go to the first shard", shards.get( "a.LongIT" ), is( 0 ) );
+        assertThat( "both tests of a class should count together", shards.get( "a.MediumIT" ), is( 1 ) );
+        assertThat( shards.get( "a.ShortIT" ), is( 1 ) );
+        assertThat( shards.get( "a.TinyIT" ), is( 1 ) );
+    }
+
+    @Test
+    public void testsWithoutDurationShouldCountAsAverage() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "a.KnownIT.test", new TestRecord( 1, 100 ) );
+        history.put( "a.OtherIT.test", new TestRecord( 1, 100 ) );
+        List<String> tests = Arrays.asList( "a.KnownIT.test", "a.OtherIT.test", "a.NewIT.test1", "a.NewIT.test2" );
+
+        Map<String, Integer> shards = new ShardPartition( 2 ).assign( tests, history );
+
+        assertThat( "the new class with two tests is the longest", shards.get( "a.NewIT" ), is( 0 ) );
+        assertThat( shards.get( "a.KnownIT" ), is( 1 ) );
+        assertThat( shards.get( "a.OtherIT" ), is( 1 ) );
+    }
+
+    @Test
+    public void everyTestShouldRunOnExactlyOneShard() {
+        Map<String, TestRecord> history = new HashMap<>();
+        for ( int i = 0; i < 200; i++ ) {
+            history.put( "a.Test" + ( i % 37 ) + "IT.test" + i, new TestRecord( 1, i * 7 % 300 ) );
+        }
+        ShardPartition partition = new ShardPartition( 3 );
+        List<String> allRuns = new ArrayList<>();
+        for ( int shard = 0; shard < 3; shard++ ) {
+            Set<String> runsOnShard = new HashSet<>( history.keySet() );
+            runsOnShard.removeAll( partition.testsOfOtherShards( history.keySet(), history, shard ) );
+            allRuns.addAll( runsOnShard );
+        }
+
+        Collections.sort( allRuns );
+        List<String> expected = new ArrayList<>( history.keySet() );
+        Collections.sort( expected );
+        assertThat( allRuns, is( expected ) );
+    }
+
+    @Test
+    public void shardsShouldTakeAboutTheSameTime() {
+        Map<String, TestRecord> history = new HashMap<>();
+        long total = 0;
+        for ( int i = 0; i < 100; i++ ) {
+            history.put( "a.Test" + i + "IT.test", new TestRecord( 1, 10 + i ) );
+            total += 10 + i;
+        }
+
+        Map<String, Integer> shards = new ShardPartition( 4 ).assign( history.keySet(), history );
+
+        long[] times = new long[4];
+        for ( int i = 0; i < 100; i++ ) {
+            times[shards.get( "a.Test" + i + "IT" )] += 10 + i;
+        }
+        for ( long time : times ) {
+            assertTrue( "shard time " + time + " should be close to a quarter of " + total,
+                    Math.abs( time - total / 4 ) <= 109 );
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StalenessLimitTest {
+
+    private static final long NOW = TimeUnit.DAYS.toMillis( 1000 );
+
+    @Test
+    public void testSkippedInTooManyBuildsShouldBeStale() {
+        TestRecord record = new TestRecord( 5 );
+        record.setSkippedBuilds( 3 );
+
+        assertTrue( new StalenessLimit( 3, 0 ).isStale( record, NOW ) );
+        assertFalse( new StalenessLimit( 4, 0 ).isStale( record, NOW ) );
+        assertFalse( "0 should mean no limit", new StalenessLimit( 0, 0 ).isStale( record, NOW ) );
+    }
+
+    @Test
+    public void testThatRanTooLongAgoShouldBeStale() {
+        TestRecord record = new TestRecord( 5 );
+        record.setLastRun( NOW - TimeUnit.DAYS.toMillis( 7 ) );
+
+        assertTrue( new StalenessLimit( 0, 7 ).isStale( record, NOW ) );
+        assertFalse( new StalenessLimit( 0, 8 ).isStale( record, NOW ) );
+    }
+
+    @Test
+    public void testWithUnknownLastRunShouldNotBeStaleByDays() {
+        assertFalse( new StalenessLimit( 0, 1 ).isStale( new TestRecord( 5 ), NOW ) );
+    }
+
+    @Test
+    public void staleTestsShouldNotBeCandidates() {
+        TestRecord stale = new TestRecord( 5 );
+        stale.setSkippedBuilds( 2 );
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "stale", stale );
+        history.put( "fresh", new TestRecord( 5 ) );
+
+        Map<String, TestRecord> candidates = new StalenessLimit( 2, 0 ).withoutStaleTests( history, NOW );
+
+        assertThat( candidates.keySet().size(), is( 1 ) );
+        assertTrue( candidates.containsKey( "fresh" ) );
+    }
+
+    @Test
+    public void historyShouldNotBeCopiedWithoutLimits() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "test", new TestRecord( 5 ) );
+
+        assertTrue( "history itself should be the candidates",
+                new StalenessLimit( 0, 0 ).withoutStaleTests( history, NOW ) == history );
+    }
+}
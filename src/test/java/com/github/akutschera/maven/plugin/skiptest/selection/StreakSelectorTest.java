@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StreakSelectorTest {
+
+    @Test
+    public void selectShouldReturnTestsWithMostSuccessfulRunsFirst() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "a", new TestRecord( 1 ) );
+        history.put( "b", new TestRecord( 7 ) );
+        history.put( "c", new TestRecord( 3 ) );
+        history.put( "d", new TestRecord( 5 ) );
+
+        List<String> testsToSkip = new StreakSelector( 75 ).selectTestsToSkip( history );
+
+        assertThat( "the three most stable tests should be skipped, most stable first", testsToSkip,
+                is( Arrays.asList( "b", "d", "c" ) ) );
+    }
+
+    @Test
+    public void selectShouldRankByFailureProbability() {
+        TestRecord rarelyFailing = new TestRecord( 0 );
+        TestRecord flaky = new TestRecord( 0 );
+        for ( int i = 0; i < 200; i++ ) {
+            rarelyFailing.addRun( i != 150, i );
+            flaky.addRun( i % 2 == 1, i );
+        }
+        TestRecord failedLastTime = new TestRecord( 0 );
+        failedLastTime.addRun( true, 0 );
+        failedLastTime.addRun( false, 1 );
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "stable", new TestRecord( 100 ) );
+        history.put( "rarelyFailing", rarelyFailing );
+        history.put( "flaky", flaky );
+        history.put( "failedLastTime", failedLastTime );
+
+        List<String> testsToSkip = new StreakSelector( 100 ).selectTestsToSkip( history );
+
+        assertThat( "tests should be skipped by their failure probability, a test that failed last time never",
+                testsToSkip, is( Arrays.asList( "stable", "rarelyFailing", "flaky" ) ) );
+    }
+
+    @Test
+    public void selectShouldBreakTiesByNameRegardlessOfHistoryOrder() {
+        Map<String, TestRecord> history = new LinkedHashMap<>();
+        history.put( "z", new TestRecord( 5 ) );
+        history.put( "y", new TestRecord( 5 ) );
+        history.put( "x", new TestRecord( 5 ) );
+        history.put( "w", new TestRecord( 5 ) );
+        Map<String, TestRecord> reversedHistory = new LinkedHashMap<>();
+        for ( String name : Arrays.asList( "w", "x", "y", "z" ) ) {
+            reversedHistory.put( name, history.get( name ) );
+        }
+
+        List<String> testsToSkip = new StreakSelector( 50 ).selectTestsToSkip( history );
+
+        assertThat( "tests with the same streak should be taken by name", testsToSkip,
+                is( Arrays.asList( "w", "x" ) ) );
+        assertThat( "order of the history should not matter",
+                new StreakSelector( 50 ).selectTestsToSkip( reversedHistory ), is( testsToSkip ) );
+    }
+
+    @Test
+    public void selectShouldReturnSameTestsAsSortingTheWholeHistory() {
+        Random random = new Random( 7 );
+        Map<String, TestRecord> history = new HashMap<>();
+        for ( int i = 0; i < 1000; i++ ) {
+            history.put( "test" + i, new TestRecord( random.nextInt( 20 ) ) );
+        }
+        List<Entry<String, TestRecord>> sorted = new ArrayList<>( history.entrySet() );
+        Collections.sort( sorted, new Comparator<Entry<String, TestRecord>>() {
+
+            @Override
+            public int compare( Entry<String, TestRecord> o1, Entry<String, TestRecord> o2 ) {
+                int byRuns = o2.getValue().getSuccessfulRuns() - o1.getValue().getSuccessfulRuns();
+                return byRuns != 0 ? byRuns : o1.getKey().compareTo( o2.getKey() );
+            }
+        } );
+        List<String> expected = new ArrayList<>();
+        for ( Entry<String, TestRecord> entry : sorted.subList( 0, 250 ) ) {
+            expected.add( entry.getKey() );
+        }
+
+        assertThat( "top-k selection should match a full sort", new StreakSelector( 25 ).selectTestsToSkip( history ),
+                is( expected ) );
+    }
+
+    @Test
+    public void selectShouldSkipNothingIfPercentageIsTooSmall() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "a", new TestRecord( 1 ) );
+
+        assertThat( "less than one test should not be skipped",
+                new StreakSelector( 50 ).selectTestsToSkip( history ).isEmpty(), is( true ) );
+    }
+}
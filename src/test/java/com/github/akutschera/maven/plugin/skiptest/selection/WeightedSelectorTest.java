@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Andreas Kutschera
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.akutschera.maven.plugin.skiptest.selection;
+
+import com.github.akutschera.maven.plugin.skiptest.history.TestRecord;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class WeightedSelectorTest {
+
+    @Test
+    public void selectShouldSkipGivenPercentageOfTests() {
+        Map<String, TestRecord> history = new HashMap<>();
+        for ( int i = 0; i < 100; i++ ) {
+            history.put( "test" + i, new TestRecord( 5 ) );
+        }
+
+        List<String> testsToSkip = new WeightedSelector( 30, new Random( 1 ) ).selectTestsToSkip( history );
+
+        assertThat( testsToSkip.size(), is( 30 ) );
+        assertThat( "no test should be skipped twice", new HashSet<>( testsToSkip ).size(), is( 30 ) );
+    }
+
+    @Test
+    public void selectShouldNeverSkipNewOrFailedTests() {
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "stable", new TestRecord( 3 ) );
+        history.put( "failed", new TestRecord( 0 ) );
+
+        List<String> testsToSkip = new WeightedSelector( 100, new Random( 1 ) ).selectTestsToSkip( history );
+
+        assertThat( testsToSkip, hasItem( "stable" ) );
+        assertThat( testsToSkip, not( hasItem( "failed" ) ) );
+    }
+
+    @Test
+    public void selectShouldBeRepeatableWithSameSeed() {
+        Map<String, TestRecord> history = new HashMap<>();
+        for ( int i = 0; i < 100; i++ ) {
+            history.put( "test" + i, new TestRecord( i % 10 + 1, i * 10 ) );
+        }
+
+        assertThat( new WeightedSelector( 50, new Random( 42 ) ).selectTestsToSkip( history ),
+                is( new WeightedSelector( 50, new Random( 42 ) ).selectTestsToSkip( history ) ) );
+    }
+
+    @Test
+    public void selectShouldPreferLongStreaksAndRarelySkipTestsThatWereSkippedBefore() {
+        TestRecord longStreak = new TestRecord( 20 );
+        TestRecord shortStreak = new TestRecord( 1 );
+        TestRecord skippedOften = new TestRecord( 20 );
+        skippedOften.setSkippedBuilds( 10 );
+        Map<String, TestRecord> history = new HashMap<>();
+        history.put( "longStreak", longStreak );
+        history.put( "shortStreak", shortStreak );
+        history.put( "skippedOften", skippedOften );
+        history.put( "new", new TestRecord( 0 ) );
+        WeightedSelector selector = new WeightedSelector( 25, new Random( 3 ) );
+        Map<String, Integer> skipped = new HashMap<>();
+        for ( int build = 0; build < 1000; build++ ) {
+            for ( String testName : selector.selectTestsToSkip( history ) ) {
+                Integer count = skipped.get( testName );
+                skipped.put( testName, count == null ? 1 : count + 1 );
+            }
+        }
+
+        assertTrue( "a long streak should be skipped more often than a short one",
+                skipped.get( "longStreak" ) > skipped.get( "shortStreak" ) );
+        assertTrue( "a test that was skipped in many builds should be skipped less often",
+                skipped.get( "longStreak" ) > skipped.get( "skippedOften" ) );
+        assertTrue( "every stable test should be skipped sometimes", skipped.get( "skippedOften" ) > 0 );
+    }
+
+    @Test
+    public void weightShouldGrowWithDuration() {
+        assertTrue( WeightedSelector.weightOf( new TestRecord( 5, 200 ), 100 )
+                > WeightedSelector.weightOf( new TestRecord( 5, 50 ), 100 ) );
+        assertThat( "unknown duration should count as average",
+                WeightedSelector.weightOf( new TestRecord( 5 ), 100 ),
+                is( WeightedSelector.weightOf( new TestRecord( 5, 100 ), 100 ) ) );
+    }
+}